@@ -0,0 +1,55 @@
+package com.example.finding_bd_products.benchmarks;
+
+import com.example.finding_bd_products.DatabaseManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * One synthetic catalog per trial. DatabaseManager reads its configuration once, when
+ * the class is loaded, so the properties are set here before its first use; every
+ * trial runs in its own forked JVM, which keeps the parameter combinations apart.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+    @Param({"10000"})
+    public int products;
+
+    // false turns the product and listing caches off, so every call reaches SQLite
+    @Param({"true", "false"})
+    public boolean cache;
+
+    public DatabaseManager db;
+    public int vendors;
+
+    private Path dbFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dbFile = Files.createTempFile("bdproducts-bench-", ".db");
+        SyntheticCatalog.copyTo(products, dbFile);
+        System.setProperty("bdproducts.db.url", "jdbc:sqlite:" + dbFile);
+        if (!cache) {
+            System.setProperty("bdproducts.cache.products", "0");
+            System.setProperty("bdproducts.cache.listProducts", "0");
+        }
+        db = DatabaseManager.getInstance();
+        vendors = SyntheticCatalog.vendorCount(products);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        db.shutdown();
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(Path.of(dbFile + "-wal"));
+        Files.deleteIfExists(Path.of(dbFile + "-shm"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.finding_bd_products.benchmarks;
+
+import com.example.finding_bd_products.Product;
+import com.example.finding_bd_products.ProductSummary;
+import com.example.finding_bd_products.SearchHit;
+import com.example.finding_bd_products.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The DatabaseManager calls behind the storefront, vendor dashboard, review form and
+ * login screens, against a synthetic catalog (see SyntheticCatalog). Inputs are drawn
+ * at random from the whole catalog so that the caches see a realistic hit rate rather
+ * than the same product over and over.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseManagerBenchmark {
+    private static final int SEARCH_PAGE_SIZE = 50;
+
+    // Unique review ids across threads, so insertReview always adds a new row
+    private static final AtomicLong NEXT_REVIEW_ID = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Inputs {
+        private final SplittableRandom random = new SplittableRandom(7);
+
+        String productId(CatalogState catalog) {
+            return SyntheticCatalog.productId(random.nextInt(catalog.products));
+        }
+
+        String vendorId(CatalogState catalog) {
+            return SyntheticCatalog.vendorId(random.nextInt(catalog.vendors));
+        }
+
+        String category() {
+            return SyntheticCatalog.CATEGORIES[random.nextInt(SyntheticCatalog.CATEGORIES.length)];
+        }
+
+        String searchTerm() {
+            return SyntheticCatalog.SEARCH_TERMS[random.nextInt(SyntheticCatalog.SEARCH_TERMS.length)];
+        }
+
+        int user() {
+            return random.nextInt(SyntheticCatalog.USERS);
+        }
+
+        int rating() {
+            return 1 + random.nextInt(5);
+        }
+    }
+
+    @Benchmark
+    public List<ProductSummary> getAllProducts(CatalogState catalog) {
+        return catalog.db.getAllProducts();
+    }
+
+    @Benchmark
+    public List<ProductSummary> getProductsByCategory(CatalogState catalog, Inputs inputs) {
+        return catalog.db.getProductsByCategory(inputs.category());
+    }
+
+    @Benchmark
+    public Product getProduct(CatalogState catalog, Inputs inputs) {
+        return catalog.db.getProduct(inputs.productId(catalog));
+    }
+
+    @Benchmark
+    public List<Product> getProductsByVendor(CatalogState catalog, Inputs inputs) {
+        return catalog.db.getProductsByVendor(inputs.vendorId(catalog));
+    }
+
+    @Benchmark
+    public void insertReview(CatalogState catalog, Inputs inputs) {
+        catalog.db.insertReview("BENCH-R" + NEXT_REVIEW_ID.incrementAndGet(), inputs.productId(catalog),
+                "Bench User " + inputs.user(), "Benchmark review", inputs.rating());
+    }
+
+    // Only buffers the click; the batched write happens on the flush thread
+    @Benchmark
+    public void incrementRecommendationCount(CatalogState catalog, Inputs inputs) {
+        catalog.db.incrementRecommendationCount(inputs.productId(catalog));
+    }
+
+    @Benchmark
+    public User authenticateUser(CatalogState catalog, Inputs inputs) {
+        return catalog.db.authenticateUser(SyntheticCatalog.userEmail(inputs.user()), SyntheticCatalog.USER_PASSWORD);
+    }
+
+    // The storefront search box
+    @Benchmark
+    public List<SearchHit> searchProducts(CatalogState catalog, Inputs inputs) {
+        return catalog.db.searchProducts(inputs.searchTerm(), SEARCH_PAGE_SIZE, 0);
+    }
+
+    // The search box on a category page
+    @Benchmark
+    public List<SearchHit> searchProductsInCategory(CatalogState catalog, Inputs inputs) {
+        return catalog.db.searchProductsInCategory(inputs.searchTerm(), inputs.category(), SEARCH_PAGE_SIZE, 0);
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.finding_bd_products.benchmarks;
+
+import com.example.finding_bd_products.DatabaseManager;
+import com.example.finding_bd_products.LatencyHistogram;
+import com.example.finding_bd_products.Product;
+import com.example.finding_bd_products.ProductPage;
+import com.example.finding_bd_products.ProductSummary;
+import com.example.finding_bd_products.QueryStats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Headless load test: many concurrent sessions, one virtual thread each, driving
+ * DatabaseManager directly against a copy of a synthetic catalog. Shoppers browse,
+ * search, open products, favourite, recommend and review; vendors look at their
+ * dashboard, add and edit products; admins work through the approval queue.
+ *
+ * Prints throughput and latency per action and the busy retries and errors seen by
+ * the connection pool, then checks the database for lost updates: recommendation
+ * counts, rating aggregates, reviews and added products must all match what the
+ * sessions did. Exits with status 1 if they don't.
+ *
+ * Configured with system properties:
+ *   bdproducts.load.products  catalog size (default 10000)
+ *   bdproducts.load.users     concurrent sessions (default 200)
+ *   bdproducts.load.seconds   how long to run (default 30)
+ *   bdproducts.load.mix       shopper:vendor:admin share of the sessions (default 90:8:2)
+ *   bdproducts.load.thinkMs   longest pause between two actions of a session (default 20)
+ *   bdproducts.load.platformThreads  true runs each session on a platform thread instead, like
+ *                             the application's own background threads (default false)
+ *   bdproducts.db.stats       the per-statement timings behind the report (default true here,
+ *                             unlike the application)
+ *
+ *   java -Dbdproducts.load.users=500 -cp benchmarks/target/benchmarks.jar \
+ *       com.example.finding_bd_products.benchmarks.LoadGenerator
+ */
+public class LoadGenerator {
+    private static final int PRODUCTS = Integer.getInteger("bdproducts.load.products", 10_000);
+    private static final int USERS = Integer.getInteger("bdproducts.load.users", 200);
+    private static final int SECONDS = Integer.getInteger("bdproducts.load.seconds", 30);
+    private static final String MIX = System.getProperty("bdproducts.load.mix", "90:8:2");
+    private static final int THINK_MS = Integer.getInteger("bdproducts.load.thinkMs", 20);
+    private static final boolean PLATFORM_THREADS = Boolean.getBoolean("bdproducts.load.platformThreads");
+    private static final int PAGE_SIZE = 40;
+
+    private static final String REVIEW_PREFIX = "LOAD-R";
+    private static final String PRODUCT_PREFIX = "LOAD-P";
+
+    private final DatabaseManager db;
+    private final long deadline;
+    private final Map<String, Action> actions = new ConcurrentHashMap<>();
+    // Net recommendation clicks per product, to compare with the stored counts afterwards
+    private final Map<String, LongAdder> recommendationClicks = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final LongAdder reviewsWritten = new LongAdder();
+    private final LongAdder productsAdded = new LongAdder();
+
+    private static final class Action {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder failures = new LongAdder();
+    }
+
+    private LoadGenerator(DatabaseManager db, long deadline) {
+        this.db = db;
+        this.deadline = deadline;
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        // Read once, when QueryStats is loaded, so it has to be set before the first database call
+        System.setProperty("bdproducts.db.stats", System.getProperty("bdproducts.db.stats", "true"));
+        int[] mix = parseMix(MIX);
+        Path dbFile = Files.createTempFile("bdproducts-load-", ".db");
+        SyntheticCatalog.copyTo(PRODUCTS, dbFile);
+        String url = "jdbc:sqlite:" + dbFile;
+        Map<String, Long> baseline = readRecommendationCounts(url);
+        System.setProperty("bdproducts.db.url", url);
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        System.out.printf("Running %d sessions (%s shopper:vendor:admin) for %d s against %d products%n",
+                USERS, MIX, SECONDS, PRODUCTS);
+        long started = System.nanoTime();
+        LoadGenerator load = new LoadGenerator(db, started + SECONDS * 1_000_000_000L);
+        try (ExecutorService sessions = PLATFORM_THREADS
+                ? Executors.newThreadPerTaskExecutor(Thread.ofPlatform().daemon().factory())
+                : Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < USERS; i++) {
+                int session = i;
+                int slot = i % (mix[0] + mix[1] + mix[2]);
+                if (slot < mix[0]) {
+                    sessions.submit(() -> load.shopper(session));
+                } else if (slot < mix[0] + mix[1]) {
+                    sessions.submit(() -> load.vendor(session));
+                } else {
+                    sessions.submit(() -> load.admin(session));
+                }
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+        QueryStats stats = db.getQueryStats();
+        // Flushes the buffered recommendation clicks and prints the pool's own report
+        db.shutdown();
+
+        load.printReport(elapsedSeconds, stats);
+        int problems = load.verify(url, baseline);
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(Path.of(dbFile + suffix));
+        }
+        System.exit(problems == 0 ? 0 : 1);
+    }
+
+    private static int[] parseMix(String mix) {
+        String[] parts = mix.split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("bdproducts.load.mix must look like 90:8:2, not " + mix);
+        }
+        int[] weights = new int[3];
+        for (int i = 0; i < 3; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+        }
+        return weights;
+    }
+
+    // ============ Sessions ============
+
+    private void shopper(int session) {
+        SplittableRandom random = new SplittableRandom(session);
+        int user = session % SyntheticCatalog.USERS;
+        String userId = SyntheticCatalog.userId(user);
+        // Own clicks only, so a session never takes back a recommendation it didn't make
+        Set<String> recommended = new HashSet<>();
+        Set<String> favourites = new HashSet<>();
+        time("login", () -> db.authenticateUser(SyntheticCatalog.userEmail(user), SyntheticCatalog.USER_PASSWORD) != null);
+        while (running()) {
+            String productId = SyntheticCatalog.productId(random.nextInt(PRODUCTS));
+            int roll = random.nextInt(100);
+            if (roll < 30) {
+                // Scrolling the home page from somewhere in the catalog
+                time("browse", () -> db.getApprovedProductsPage(productId, PAGE_SIZE) != null);
+            } else if (roll < 45) {
+                String category = SyntheticCatalog.CATEGORIES[random.nextInt(SyntheticCatalog.CATEGORIES.length)];
+                time("category", () -> db.getProductsByCategoryPage(category, null, PAGE_SIZE) != null);
+            } else if (roll < 65) {
+                String term = SyntheticCatalog.SEARCH_TERMS[random.nextInt(SyntheticCatalog.SEARCH_TERMS.length)];
+                time("search", () -> db.searchProducts(term, 50, 0) != null);
+            } else if (roll < 85) {
+                time("view", () -> db.getProductDetails(productId) != null && db.getReviewsForProduct(productId) != null);
+            } else if (roll < 90) {
+                time("favourite", () -> {
+                    if (favourites.remove(productId)) {
+                        db.removeFromFavourites(userId, productId);
+                    } else {
+                        favourites.add(productId);
+                        db.addToFavourites(userId, productId);
+                    }
+                    return db.getFavouriteProductIds(userId).contains(productId) == favourites.contains(productId);
+                });
+            } else if (roll < 97) {
+                time("recommend", () -> {
+                    if (recommended.remove(productId)) {
+                        db.decrementRecommendationCount(productId);
+                        recommendationClicks.computeIfAbsent(productId, key -> new LongAdder()).decrement();
+                    } else {
+                        recommended.add(productId);
+                        db.incrementRecommendationCount(productId);
+                        recommendationClicks.computeIfAbsent(productId, key -> new LongAdder()).increment();
+                    }
+                    return true;
+                });
+            } else {
+                time("review", () -> {
+                    db.insertReview(REVIEW_PREFIX + nextId.incrementAndGet(), productId,
+                            "Bench User " + user, "Load test review", 1 + random.nextInt(5));
+                    reviewsWritten.increment();
+                    return true;
+                });
+            }
+            think(random);
+        }
+    }
+
+    private void vendor(int session) {
+        SplittableRandom random = new SplittableRandom(session);
+        int vendor = random.nextInt(SyntheticCatalog.vendorCount(PRODUCTS));
+        String vendorId = SyntheticCatalog.vendorId(vendor);
+        List<ProductSummary> dashboard = new ArrayList<>();
+        time("vendor login", () -> db.authenticateCompanyVendor(SyntheticCatalog.vendorEmail(vendor), SyntheticCatalog.VENDOR_PASSWORD) != null);
+        while (running()) {
+            int roll = random.nextInt(100);
+            if (roll < 50 || dashboard.isEmpty()) {
+                time("dashboard", () -> {
+                    ProductPage page = db.getApprovedProductsByVendorPage(vendorId, null, PAGE_SIZE);
+                    dashboard.clear();
+                    dashboard.addAll(page.products());
+                    return true;
+                });
+            } else if (roll < 70) {
+                time("vendor products", () -> db.getProductsByVendor(vendorId) != null);
+            } else if (roll < 85) {
+                time("add product", () -> {
+                    boolean added = db.addProductByVendor(PRODUCT_PREFIX + nextId.incrementAndGet(), "Load Test Product " + session,
+                            "Added by the load generator", 10 + random.nextInt(990), "pack",
+                            SyntheticCatalog.CATEGORIES[random.nextInt(SyntheticCatalog.CATEGORIES.length)], null, vendorId);
+                    if (added) {
+                        productsAdded.increment();
+                    }
+                    return added;
+                });
+            } else {
+                ProductSummary product = dashboard.get(random.nextInt(dashboard.size()));
+                time("edit product", () -> db.updateProduct(product.productId(), product.name(), "Edited by the load generator",
+                        product.price() + 1, product.unit(), product.category(), product.imageUrl()));
+            }
+            think(random);
+        }
+    }
+
+    private void admin(int session) {
+        SplittableRandom random = new SplittableRandom(session);
+        List<Product> pending = new ArrayList<>();
+        while (running()) {
+            if (pending.isEmpty() || random.nextInt(100) < 30) {
+                time("pending queue", () -> {
+                    pending.clear();
+                    pending.addAll(db.getPendingProducts());
+                    return true;
+                });
+            } else {
+                String productId = pending.remove(random.nextInt(pending.size())).getProductId();
+                // Another admin may have decided first, so false here is not an error
+                if (random.nextInt(100) < 85) {
+                    time("approve", () -> {
+                        db.approveProduct(productId);
+                        return true;
+                    });
+                } else {
+                    time("reject", () -> {
+                        db.rejectProduct(productId, "Rejected by the load generator");
+                        return true;
+                    });
+                }
+            }
+            think(random);
+        }
+    }
+
+    private boolean running() {
+        return System.nanoTime() < deadline;
+    }
+
+    private static void think(SplittableRandom random) {
+        if (THINK_MS <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(random.nextInt(THINK_MS + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Times one user action; false or an exception counts as a failure
+    private void time(String name, BooleanSupplier work) {
+        Action action = actions.computeIfAbsent(name, key -> new Action());
+        long startedAt = System.nanoTime();
+        boolean ok = false;
+        try {
+            ok = work.getAsBoolean();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            action.latency.recordNanos(System.nanoTime() - startedAt);
+            if (!ok) {
+                action.failures.increment();
+            }
+        }
+    }
+
+    // ============ Results ============
+
+    private void printReport(double elapsedSeconds, QueryStats stats) {
+        long total = actions.values().stream().mapToLong(action -> action.latency.getCount()).sum();
+        System.out.printf("%nLoad: %d actions in %.1f s, %.0f actions/s%n", total, elapsedSeconds, total / elapsedSeconds);
+        System.out.printf("  %-18s %9s %10s %9s %9s %9s %9s%n", "action", "calls", "per s", "p50 us", "p99 us", "max us", "failed");
+        actions.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    LatencyHistogram latency = entry.getValue().latency;
+                    System.out.printf("  %-18s %9d %10.1f %9d %9d %9d %9d%n", entry.getKey(), latency.getCount(),
+                            latency.getCount() / elapsedSeconds, latency.getPercentileMicros(50),
+                            latency.getPercentileMicros(99), latency.getMaxMicros(), entry.getValue().failures.sum());
+                });
+        long daoErrors = stats.getOperations().values().stream().mapToLong(QueryStats.Metric::getErrors).sum();
+        System.out.printf("Database: %d SQLITE_BUSY/LOCKED errors, %d busy retries, %d connection waits, %d failed DAO calls%n",
+                stats.getBusyErrors(), stats.getBusyRetries(), stats.getLockWaits(), daoErrors);
+    }
+
+    // Compares the database with what the sessions did; returns the number of mismatches
+    private int verify(String url, Map<String, Long> baseline) throws SQLException {
+        int problems = 0;
+        try (Connection conn = DriverManager.getConnection(url)) {
+            Map<String, Long> counts = readRecommendationCounts(conn);
+            long lostClicks = 0;
+            int wrongCounts = 0;
+            for (Map.Entry<String, LongAdder> entry : recommendationClicks.entrySet()) {
+                long expected = baseline.getOrDefault(entry.getKey(), 0L) + entry.getValue().sum();
+                long actual = counts.getOrDefault(entry.getKey(), 0L);
+                if (actual != expected) {
+                    wrongCounts++;
+                    lostClicks += Math.abs(expected - actual);
+                }
+            }
+            problems += report("recommendation_count", wrongCounts == 0,
+                    recommendationClicks.size() + " products clicked, " + wrongCounts + " wrong, " + lostClicks + " clicks lost");
+
+            long reviews = count(conn, "SELECT COUNT(*) FROM reviews WHERE review_id LIKE '" + REVIEW_PREFIX + "%'");
+            problems += report("reviews", reviews == reviewsWritten.sum(),
+                    reviewsWritten.sum() + " written, " + reviews + " stored");
+
+            long wrongAggregates = count(conn, """
+                    SELECT COUNT(*) FROM products p
+                    WHERE p.review_count != (SELECT COUNT(*) FROM reviews r WHERE r.product_id = p.product_id)
+                       OR p.rating_sum != (SELECT COALESCE(SUM(r.rating), 0) FROM reviews r WHERE r.product_id = p.product_id)
+                    """);
+            problems += report("rating aggregates", wrongAggregates == 0, wrongAggregates + " products out of step with their reviews");
+
+            long products = count(conn, "SELECT COUNT(*) FROM products WHERE product_id LIKE '" + PRODUCT_PREFIX + "%'");
+            problems += report("added products", products == productsAdded.sum(),
+                    productsAdded.sum() + " added, " + products + " stored");
+        }
+        return problems;
+    }
+
+    private static int report(String check, boolean ok, String detail) {
+        System.out.printf("  %-20s %-5s %s%n", check, ok ? "OK" : "LOST", detail);
+        return ok ? 0 : 1;
+    }
+
+    private static long count(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static Map<String, Long> readRecommendationCounts(String url) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url)) {
+            return readRecommendationCounts(conn);
+        }
+    }
+
+    private static Map<String, Long> readRecommendationCounts(Connection conn) throws SQLException {
+        Map<String, Long> counts = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT product_id, recommendation_count FROM products");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.finding_bd_products.benchmarks;
+
+import com.example.finding_bd_products.SchemaMigrations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalog for the benchmarks: vendors, users, products
+ * (a few percent still waiting for approval) and 0-4 reviews per product, with
+ * the rating aggregates filled in as the application would.
+ *
+ * Building a million products takes a while, so each size is built once into a
+ * template under java.io.tmpdir/bdproducts-bench and every trial gets a copy.
+ */
+public final class SyntheticCatalog {
+    public static final String[] CATEGORIES = {
+            "Beverages", "Snacks", "Skin Care", "Oral Care", "Hair Care",
+            "Home Care", "Food & Grocery", "Baby Care", "Dairy", "Frozen Food"};
+    public static final String[] SEARCH_TERMS = {
+            "mango", "soap", "pran", "chanachur", "oil", "spicy chips", "tea", "fresh milk", "rice", "ghee"};
+    public static final int USERS = 1000;
+    public static final String USER_PASSWORD = "bench-password";
+    public static final String VENDOR_PASSWORD = "password123";
+
+    private static final int PRODUCTS_PER_VENDOR = 100;
+    private static final double WAITING_SHARE = 0.02;
+    private static final long SEED = 20240601L;
+
+    private static final String[] BRANDS = {
+            "Pran", "Akij", "Square", "Radhuni", "Fresh", "Teer", "Bashundhara", "ACI", "Meril", "Ruchi",
+            "Danish", "Olympic", "Ispahani", "Kazi", "Igloo", "Polar", "Savoy", "Cocola", "Aarong", "Shezan"};
+    private static final String[] ADJECTIVES = {
+            "Premium", "Spicy", "Classic", "Fresh", "Golden", "Family", "Mini", "Natural", "Crispy", "Royal"};
+    private static final String[] NOUNS = {
+            "Mango Juice", "Chanachur", "Soap", "Toothpaste", "Hair Oil", "Chips", "Tea", "Milk", "Rice", "Ghee",
+            "Biscuit", "Noodles", "Lotion", "Detergent", "Ice Cream", "Water", "Flour", "Lentils", "Sugar", "Honey"};
+    private static final String[] WORDS = {
+            "made", "with", "quality", "ingredients", "from", "Bangladesh", "rich", "taste", "daily", "use",
+            "family", "pack", "long", "lasting", "gentle", "care", "pure", "healthy", "crunchy", "sweet",
+            "aroma", "traditional", "recipe", "value", "trusted", "brand", "new", "formula", "soft", "fresh"};
+    private static final String[] UNITS = {"100g", "250g", "500g", "1kg", "250ml", "500ml", "1L", "pack"};
+    private static final String[] COMMENTS = {
+            "Great product, will buy again.", "Good value for money.", "Average, nothing special.",
+            "Not what I expected.", "Excellent quality!", "Packaging could be better."};
+
+    private SyntheticCatalog() {
+    }
+
+    public static String productId(int index) {
+        return String.format("BENCH%07d", index);
+    }
+
+    public static int vendorCount(int products) {
+        return Math.max(10, products / PRODUCTS_PER_VENDOR);
+    }
+
+    public static String vendorId(int index) {
+        return String.format("bench-vendor-%05d", index);
+    }
+
+    public static String vendorEmail(int index) {
+        return "vendor" + index + "@bench.example.com";
+    }
+
+    public static String userId(int index) {
+        return String.format("bench-user-%04d", index);
+    }
+
+    public static String userEmail(int index) {
+        return String.format("bench-user-%04d@example.com", index);
+    }
+
+    // Copies the template for this size to target, building the template first if needed
+    public static void copyTo(int products, Path target) throws IOException, SQLException {
+        Files.copy(template(products), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static synchronized Path template(int products) throws IOException, SQLException {
+        Path dir = Path.of(System.getProperty("java.io.tmpdir"), "bdproducts-bench");
+        Files.createDirectories(dir);
+        String name = "catalog-" + products + "-v" + SchemaMigrations.latestVersion() + ".db";
+        Path template = dir.resolve(name);
+        if (Files.exists(template)) {
+            return template;
+        }
+        Path partial = dir.resolve(name + ".partial");
+        Files.deleteIfExists(partial);
+        long started = System.nanoTime();
+        build(partial, products);
+        Files.move(partial, template, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Built synthetic catalog of %d products in %.1f s: %s%n",
+                products, (System.nanoTime() - started) / 1e9, template);
+        return template;
+    }
+
+    private static void build(Path file, int products) throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+            try (Statement stmt = conn.createStatement()) {
+                // A template is rebuilt if anything goes wrong, so durability doesn't matter here
+                stmt.execute("PRAGMA synchronous = OFF");
+            }
+            SchemaMigrations.migrate(conn);
+
+            conn.setAutoCommit(false);
+            Random random = new Random(SEED);
+            insertVendors(conn, vendorCount(products));
+            insertUsers(conn);
+            insertProducts(conn, products, random);
+            conn.commit();
+        }
+    }
+
+    private static void insertVendors(Connection conn, int vendors) throws SQLException {
+        String sql = "INSERT INTO company_vendors (vendor_id, full_name, designation, company_name, email, password, phone_number, company_address, account_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'approved')";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < vendors; i++) {
+                pstmt.setString(1, vendorId(i));
+                pstmt.setString(2, "Vendor Admin " + i);
+                pstmt.setString(3, "Managing Director");
+                pstmt.setString(4, BRANDS[i % BRANDS.length] + " Industries " + i);
+                pstmt.setString(5, vendorEmail(i));
+                pstmt.setString(6, VENDOR_PASSWORD);
+                pstmt.setString(7, String.format("017%08d", i));
+                pstmt.setString(8, "Dhaka, Bangladesh");
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void insertUsers(Connection conn) throws SQLException {
+        String sql = "INSERT INTO users (user_id, full_name, email, password, phone_number, city, user_type) VALUES (?, ?, ?, ?, ?, 'Dhaka', 'user')";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < USERS; i++) {
+                pstmt.setString(1, userId(i));
+                pstmt.setString(2, "Bench User " + i);
+                pstmt.setString(3, userEmail(i));
+                pstmt.setString(4, USER_PASSWORD);
+                pstmt.setString(5, String.format("018%08d", i));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static void insertProducts(Connection conn, int products, Random random) throws SQLException {
+        String productSql = "INSERT INTO products (product_id, name, description, price, unit, category, vendor_id, recommendation_count, approval_status, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String reviewSql = "INSERT INTO reviews (review_id, product_id, user_name, comment, rating) VALUES (?, ?, ?, ?, ?)";
+        int vendors = vendorCount(products);
+        long reviewId = 0;
+        try (PreparedStatement productStmt = conn.prepareStatement(productSql);
+             PreparedStatement reviewStmt = conn.prepareStatement(reviewSql)) {
+            for (int i = 0; i < products; i++) {
+                String productId = productId(i);
+                int[] histogram = new int[5];
+                int reviews = random.nextInt(5);
+                long ratingSum = 0;
+                for (int r = 0; r < reviews; r++) {
+                    // Skewed towards good ratings, like most shop reviews
+                    int rating = Math.min(5, 1 + random.nextInt(3) + random.nextInt(3));
+                    histogram[rating - 1]++;
+                    ratingSum += rating;
+                    reviewStmt.setString(1, String.format("BR%08d", reviewId++));
+                    reviewStmt.setString(2, productId);
+                    reviewStmt.setString(3, "Bench User " + random.nextInt(USERS));
+                    reviewStmt.setString(4, COMMENTS[random.nextInt(COMMENTS.length)]);
+                    reviewStmt.setInt(5, rating);
+                    reviewStmt.addBatch();
+                }
+
+                productStmt.setString(1, productId);
+                productStmt.setString(2, BRANDS[random.nextInt(BRANDS.length)] + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)]
+                        + " " + NOUNS[random.nextInt(NOUNS.length)]);
+                productStmt.setString(3, description(random));
+                productStmt.setDouble(4, 10 + random.nextInt(990));
+                productStmt.setString(5, UNITS[random.nextInt(UNITS.length)]);
+                productStmt.setString(6, CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                productStmt.setString(7, vendorId(random.nextInt(vendors)));
+                productStmt.setInt(8, random.nextInt(50));
+                productStmt.setString(9, random.nextDouble() < WAITING_SHARE ? "waiting" : "approved");
+                productStmt.setInt(10, reviews);
+                productStmt.setLong(11, ratingSum);
+                for (int star = 0; star < 5; star++) {
+                    productStmt.setInt(12 + star, histogram[star]);
+                }
+                productStmt.addBatch();
+
+                if ((i + 1) % 10_000 == 0) {
+                    productStmt.executeBatch();
+                    reviewStmt.executeBatch();
+                }
+                if ((i + 1) % 100_000 == 0) {
+                    System.out.println("  " + (i + 1) + " products generated");
+                }
+            }
+            productStmt.executeBatch();
+            reviewStmt.executeBatch();
+        }
+    }
+
+    private static String description(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 12 + random.nextInt(10);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.append('.').toString();
+    }
+}
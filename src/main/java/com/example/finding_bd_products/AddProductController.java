@@ -1,5 +1,6 @@
 package com.example.finding_bd_products;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -12,11 +13,10 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.UncheckedIOException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class AddProductController {
 
@@ -30,15 +30,17 @@ public class AddProductController {
     @FXML private ImageView imagePreview;
     @FXML private Label messageLabel;
     @FXML private Button backButton;
+    @FXML private Button importButton;
 
-    private DatabaseManager dbManager;
     private String currentVendorId;
     private String vendorType; // "company" or "retail"
+    // Set while the chosen image is being copied into the ImageStore
+    private CompletableFuture<String> pendingUpload;
+    // Set while the product is being saved, so a second click doesn't add it twice
+    private boolean saving = false;
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-        
         // Populate categories
         categoryComboBox.getItems().addAll(
             "Grocery",
@@ -58,19 +60,20 @@ public class AddProductController {
         this.currentVendorId = vendorId;
         this.vendorType = vendorType;
         
-        // Check if vendor is approved
-        if (!dbManager.isVendorApproved(vendorId, vendorType)) {
-            showAlert(Alert.AlertType.ERROR, "Access Denied", 
-                "Your vendor account is not yet approved by the admin. You cannot add products until approved.");
-            goBack();
-            return;
-        }
-        
-        // Auto-fill manufacturer name
-        String manufacturerName = dbManager.getManufacturerNamePublic(vendorId);
-        if (manufacturerName != null && !manufacturerName.isEmpty()) {
-            manufacturerField.setText(manufacturerName);
-        }
+        // Check if vendor is approved, then auto-fill the manufacturer name
+        AsyncDatabase.getInstance().load(db -> db.isVendorApproved(vendorId, vendorType), approved -> {
+            if (!approved) {
+                showAlert(Alert.AlertType.ERROR, "Access Denied",
+                    "Your vendor account is not yet approved by the admin. You cannot add products until approved.");
+                goBack();
+                return;
+            }
+            AsyncDatabase.getInstance().load(db -> db.getManufacturerNamePublic(vendorId), manufacturerName -> {
+                if (manufacturerName != null && !manufacturerName.isEmpty()) {
+                    manufacturerField.setText(manufacturerName);
+                }
+            });
+        });
     }
 
     @FXML
@@ -85,42 +88,32 @@ public class AddProductController {
         File selectedFile = fileChooser.showOpenDialog(stage);
         
         if (selectedFile != null) {
-            try {
-                // Get file extension
-                String fileName = selectedFile.getName();
-                String extension = fileName.substring(fileName.lastIndexOf("."));
-                
-                // Generate unique filename
-                String uniqueFileName = UUID.randomUUID().toString().substring(0, 8) + extension;
-                
-                // Get the resources/images directory path
-                String resourcesPath = "src/main/resources/images/";
-                Path targetPath = Paths.get(resourcesPath + uniqueFileName);
-                
-                // Create directory if it doesn't exist
-                Files.createDirectories(targetPath.getParent());
-                
-                // Copy file to resources/images folder
-                Files.copy(selectedFile.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-                
-                // Store the relative path that will work from resources
-                String resourceImagePath = "/images/" + uniqueFileName;
-                imagePathField.setText(resourceImagePath);
-                
-                // Show preview using the original file
-                Image image = new Image(selectedFile.toURI().toString());
-                imagePreview.setImage(image);
-                
-                messageLabel.setText("Image uploaded successfully!");
-                messageLabel.setStyle("-fx-text-fill: green;");
-                
-            } catch (IOException e) {
-                e.printStackTrace();
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to copy image: " + e.getMessage());
-            } catch (Exception e) {
-                e.printStackTrace();
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to load image preview.");
-            }
+            // Preview from the original file straight away; the store copies it in the background
+            imagePreview.setImage(new Image(selectedFile.toURI().toString(), 200, 200, true, true));
+            imagePathField.clear();
+            messageLabel.setText("Uploading image...");
+            messageLabel.setStyle("-fx-text-fill: #1976D2;");
+
+            CompletableFuture<String> upload = ImageStore.getInstance().store(selectedFile.toPath());
+            pendingUpload = upload;
+            upload.whenComplete((reference, error) -> Platform.runLater(() -> {
+                if (pendingUpload != upload) {
+                    // Another image was chosen, or the form cleared, in the meantime
+                    return;
+                }
+                pendingUpload = null;
+                if (error == null) {
+                    imagePathField.setText(reference);
+                    messageLabel.setText("Image uploaded successfully!");
+                    messageLabel.setStyle("-fx-text-fill: green;");
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    cause.printStackTrace();
+                    imagePreview.setImage(null);
+                    messageLabel.setText("");
+                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to upload image: " + cause.getMessage());
+                }
+            }));
         }
     }
 
@@ -135,6 +128,14 @@ public class AddProductController {
         String priceText = priceField.getText().trim();
         String volume = volumeField.getText().trim();
         String imagePath = imagePathField.getText().trim();
+
+        if (pendingUpload != null) {
+            messageLabel.setText("Please wait until the image has finished uploading.");
+            return;
+        }
+        if (saving) {
+            return;
+        }
         
         if (name.isEmpty() || category == null || description.isEmpty() || 
             priceText.isEmpty() || volume.isEmpty() || imagePath.isEmpty()) {
@@ -159,13 +160,79 @@ public class AddProductController {
         String productId = "PROD" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         
         // Add product to database
-        if (dbManager.addProductByVendor(productId, name, description, price, volume, category, imagePath, currentVendorId)) {
-            showAlert(Alert.AlertType.INFORMATION, "Success", 
-                "Product '" + name + "' has been added successfully!\nProduct ID: " + productId + "\n\nStatus: Waiting for admin approval");
-            handleClearForm();
-        } else {
-            messageLabel.setText("Failed to add product. Please try again.");
+        String vendorId = currentVendorId;
+        saving = true;
+        messageLabel.setText("Saving...");
+        AsyncDatabase.getInstance().load(
+            db -> db.addProductByVendor(productId, name, description, price, volume, category, imagePath, vendorId),
+            added -> {
+                saving = false;
+                if (added) {
+                    messageLabel.setText("");
+                    showAlert(Alert.AlertType.INFORMATION, "Success",
+                        "Product '" + name + "' has been added successfully!\nProduct ID: " + productId + "\n\nStatus: Waiting for admin approval");
+                    handleClearForm();
+                } else {
+                    messageLabel.setText("Failed to add product. Please try again.");
+                }
+            }, error -> {
+                saving = false;
+                messageLabel.setText("Failed to add product. Please try again.");
+            });
+    }
+
+    // Bulk import from CSV (with a header row) or JSON Lines; rows go to admin approval like single products
+    @FXML
+    private void handleImportCatalog() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select Catalog File");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Catalog Files", "*.csv", "*.jsonl", "*.ndjson"),
+            new FileChooser.ExtensionFilter("CSV", "*.csv"),
+            new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl", "*.ndjson")
+        );
+
+        Stage stage = (Stage) importButton.getScene().getWindow();
+        File selectedFile = fileChooser.showOpenDialog(stage);
+        if (selectedFile == null) {
+            return;
         }
+
+        importButton.setDisable(true);
+        messageLabel.setStyle("-fx-text-fill: #1976D2;");
+        messageLabel.setText("Importing " + selectedFile.getName() + "...");
+        String vendorId = currentVendorId;
+        AsyncDatabase.getInstance().load(db -> {
+            try {
+                return new CatalogImporter(db).importFile(selectedFile.toPath(), vendorId,
+                        progress -> Platform.runLater(() -> messageLabel.setText(
+                                "Importing " + selectedFile.getName() + "... " + progress.rowsRead() + " rows read")));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, report -> {
+            importButton.setDisable(false);
+            messageLabel.setStyle("-fx-text-fill: green;");
+            messageLabel.setText("Import finished.");
+            StringBuilder summary = new StringBuilder()
+                .append("Rows read: ").append(report.rowsRead())
+                .append("\nNew products: ").append(report.inserted())
+                .append("\nUpdated products: ").append(report.updated())
+                .append("\nUnchanged: ").append(report.unchanged())
+                .append("\nRejected: ").append(report.rejected());
+            if (!report.errors().isEmpty()) {
+                summary.append("\n\n").append(String.join("\n", report.errors().subList(0, Math.min(10, report.errors().size()))));
+                if (report.errors().size() > 10) {
+                    summary.append("\n...");
+                }
+            }
+            summary.append("\n\nNew and changed products are waiting for admin approval.");
+            showAlert(Alert.AlertType.INFORMATION, "Catalog Import", summary.toString());
+        }, error -> {
+            importButton.setDisable(false);
+            messageLabel.setStyle("-fx-text-fill: #f44336;");
+            messageLabel.setText("Import failed: " + error.getMessage());
+        });
     }
 
     @FXML
@@ -177,6 +244,7 @@ public class AddProductController {
         volumeField.clear();
         imagePathField.clear();
         imagePreview.setImage(null);
+        pendingUpload = null;
         messageLabel.setText("");
     }
 
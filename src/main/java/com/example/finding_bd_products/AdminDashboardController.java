@@ -8,10 +8,10 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
+import java.util.function.Function;
 
 public class AdminDashboardController {
 
@@ -58,12 +58,8 @@ public class AdminDashboardController {
     @FXML private TableColumn<Product, String> productTypeColumn;
     @FXML private TableColumn<Product, Void> productActionColumn;
 
-    private DatabaseManager dbManager;
-
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-        
         setupUsersTable();
         setupCompanyVendorsTable();
         setupRetailVendorsTable();
@@ -207,23 +203,8 @@ public class AdminDashboardController {
                     Product product = getTableView().getItems().get(getIndex());
                     String imageUrl = product.getImageUrl();
                     if (imageUrl != null && !imageUrl.isEmpty()) {
-                        try {
-                            java.io.InputStream is = getClass().getResourceAsStream(imageUrl);
-                            if (is != null) {
-                                Image image = new Image(is);
-                                imageView.setImage(image);
-                                setGraphic(imageView);
-                            } else {
-                                Label noImageLabel = new Label("No Image");
-                                noImageLabel.setStyle("-fx-font-size: 10px;");
-                                setGraphic(noImageLabel);
-                            }
-                        } catch (Exception e) {
-                            Label errorLabel = new Label("Error");
-                            errorLabel.setStyle("-fx-font-size: 10px;");
-                            setGraphic(errorLabel);
-                            e.printStackTrace();
-                        }
+                        ImageCache.getInstance().show(imageView, imageUrl, Thumbnails.Size.TABLE);
+                        setGraphic(imageView);
                     } else {
                         Label noImageLabel = new Label("No Image");
                         noImageLabel.setStyle("-fx-font-size: 10px;");
@@ -274,26 +255,38 @@ public class AdminDashboardController {
 
     @FXML
     private void refreshUsers() {
-        ObservableList<User> users = FXCollections.observableArrayList(dbManager.getAllUsers());
-        usersTable.setItems(users);
+        usersTable.setPlaceholder(new Label("Loading..."));
+        AsyncDatabase.getInstance().load(DatabaseManager::getAllUsers, rows -> {
+            ObservableList<User> users = FXCollections.observableArrayList(rows);
+            usersTable.setItems(users);
+        });
     }
 
     @FXML
     private void refreshCompanyVendors() {
-        ObservableList<CompanyVendor> vendors = FXCollections.observableArrayList(dbManager.getAllCompanyVendors());
-        companyVendorsTable.setItems(vendors);
+        companyVendorsTable.setPlaceholder(new Label("Loading..."));
+        AsyncDatabase.getInstance().load(DatabaseManager::getAllCompanyVendors, rows -> {
+            ObservableList<CompanyVendor> vendors = FXCollections.observableArrayList(rows);
+            companyVendorsTable.setItems(vendors);
+        });
     }
 
     @FXML
     private void refreshRetailVendors() {
-        ObservableList<RetailVendor> vendors = FXCollections.observableArrayList(dbManager.getAllRetailVendors());
-        retailVendorsTable.setItems(vendors);
+        retailVendorsTable.setPlaceholder(new Label("Loading..."));
+        AsyncDatabase.getInstance().load(DatabaseManager::getAllRetailVendors, rows -> {
+            ObservableList<RetailVendor> vendors = FXCollections.observableArrayList(rows);
+            retailVendorsTable.setItems(vendors);
+        });
     }
 
     @FXML
     private void refreshProducts() {
-        ObservableList<Product> products = FXCollections.observableArrayList(dbManager.getPendingProducts());
-        productsTable.setItems(products);
+        productsTable.setPlaceholder(new Label("Loading..."));
+        AsyncDatabase.getInstance().load(DatabaseManager::getPendingProducts, rows -> {
+            ObservableList<Product> products = FXCollections.observableArrayList(rows);
+            productsTable.setItems(products);
+        });
     }
 
     private void handleApproveCompanyVendor(CompanyVendor vendor) {
@@ -304,12 +297,8 @@ public class AdminDashboardController {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (dbManager.approveCompanyVendor(vendor.getVendorId())) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Company vendor approved successfully!");
-                    refreshCompanyVendors();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to approve vendor.");
-                }
+                runAction(db -> db.approveCompanyVendor(vendor.getVendorId()),
+                        "Company vendor approved successfully!", "Failed to approve vendor.", this::refreshCompanyVendors);
             }
         });
     }
@@ -322,12 +311,8 @@ public class AdminDashboardController {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (dbManager.rejectCompanyVendor(vendor.getVendorId())) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Company vendor rejected.");
-                    refreshCompanyVendors();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to reject vendor.");
-                }
+                runAction(db -> db.rejectCompanyVendor(vendor.getVendorId()),
+                        "Company vendor rejected.", "Failed to reject vendor.", this::refreshCompanyVendors);
             }
         });
     }
@@ -340,12 +325,8 @@ public class AdminDashboardController {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (dbManager.approveRetailVendor(vendor.getVendorId())) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Retail vendor approved successfully!");
-                    refreshRetailVendors();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to approve vendor.");
-                }
+                runAction(db -> db.approveRetailVendor(vendor.getVendorId()),
+                        "Retail vendor approved successfully!", "Failed to approve vendor.", this::refreshRetailVendors);
             }
         });
     }
@@ -358,12 +339,8 @@ public class AdminDashboardController {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (dbManager.rejectRetailVendor(vendor.getVendorId())) {
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Retail vendor rejected.");
-                    refreshRetailVendors();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to reject vendor.");
-                }
+                runAction(db -> db.rejectRetailVendor(vendor.getVendorId()),
+                        "Retail vendor rejected.", "Failed to reject vendor.", this::refreshRetailVendors);
             }
         });
     }
@@ -376,19 +353,18 @@ public class AdminDashboardController {
         
         confirmAlert.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                if (dbManager.approveProduct(product.getProductId())) {
+                runAction(db -> {
+                    if (!db.approveProduct(product.getProductId())) {
+                        return false;
+                    }
                     // Send notification to vendor
-                    String vendorId = dbManager.getVendorIdFromProduct(product.getProductId());
+                    String vendorId = db.getVendorIdFromProduct(product.getProductId());
                     if (vendorId != null) {
                         String message = "Congratulations! Your product '" + product.getName() + "' has been approved by the admin and is now live on the platform.";
-                        dbManager.createNotification(vendorId, product.getProductId(), message, "approval");
+                        db.createNotification(vendorId, product.getProductId(), message, "approval");
                     }
-                    
-                    showAlert(Alert.AlertType.INFORMATION, "Success", "Product approved successfully!");
-                    refreshProducts();
-                } else {
-                    showAlert(Alert.AlertType.ERROR, "Error", "Failed to approve product.");
-                }
+                    return true;
+                }, "Product approved successfully!", "Failed to approve product.", this::refreshProducts);
             }
         });
     }
@@ -406,30 +382,40 @@ public class AdminDashboardController {
                 return;
             }
             
-            boolean success;
-            // Check if this is an edited product
-            if (product.getOriginalProductId() != null && !product.getOriginalProductId().isEmpty()) {
-                // For edited products, delete the pending edit entry
-                success = dbManager.deletePendingProductEdit(product.getProductId());
-            } else {
-                // For new products, mark as rejected
-                success = dbManager.rejectProduct(product.getProductId(), reason);
-            }
-            
-            if (success) {
-                // Send notification to vendor with rejection reason
-                String vendorId = dbManager.getVendorIdFromProduct(product.getProductId());
-                if (vendorId != null) {
-                    String message = "Your product '" + product.getName() + "' has been rejected by the admin.\n\nReason: " + reason;
-                    dbManager.createNotification(vendorId, product.getProductId(), message, "rejection");
+            runAction(db -> {
+                boolean success;
+                // Check if this is an edited product
+                if (product.getOriginalProductId() != null && !product.getOriginalProductId().isEmpty()) {
+                    // For edited products, delete the pending edit entry
+                    success = db.deletePendingProductEdit(product.getProductId());
+                } else {
+                    // For new products, mark as rejected
+                    success = db.rejectProduct(product.getProductId(), reason);
                 }
                 
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Product rejected.");
-                refreshProducts();
+                if (success) {
+                    // Send notification to vendor with rejection reason
+                    String vendorId = db.getVendorIdFromProduct(product.getProductId());
+                    if (vendorId != null) {
+                        String message = "Your product '" + product.getName() + "' has been rejected by the admin.\n\nReason: " + reason;
+                        db.createNotification(vendorId, product.getProductId(), message, "rejection");
+                    }
+                }
+                return success;
+            }, "Product rejected.", "Failed to reject product.", this::refreshProducts);
+        });
+    }
+
+    // Runs an admin action off the FX thread, then reports the outcome and refreshes the affected table
+    private void runAction(Function<DatabaseManager, Boolean> action, String successMessage, String failureMessage, Runnable refresh) {
+        AsyncDatabase.getInstance().load(action, success -> {
+            if (success) {
+                showAlert(Alert.AlertType.INFORMATION, "Success", successMessage);
+                refresh.run();
             } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Failed to reject product.");
+                showAlert(Alert.AlertType.ERROR, "Error", failureMessage);
             }
-        });
+        }, error -> showAlert(Alert.AlertType.ERROR, "Error", failureMessage));
     }
 
     @FXML
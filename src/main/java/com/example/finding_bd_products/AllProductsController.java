@@ -10,18 +10,11 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Region;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import org.controlsfx.control.GridView;
 
 import java.io.IOException;
+import java.util.List;
 
 public class AllProductsController {
     @FXML
@@ -49,7 +42,13 @@ public class AllProductsController {
     private Button favouriteCategoriesBtn;
 
     @FXML
-    private GridPane allProductsGrid;
+    private GridView<ProductSummary> allProductsGrid;
+
+    @FXML
+    private Label gridMessage;
+
+    @FXML
+    private Button loadMoreBtn;
 
     @FXML
     private Button loginBtn;
@@ -69,8 +68,13 @@ public class AllProductsController {
     @FXML
     private Button logoutBtn;
 
-    private DatabaseManager dbManager;
-    private ObservableList<Product> allProducts = FXCollections.observableArrayList();
+    private ObservableList<ProductSummary> allProducts = FXCollections.observableArrayList();
+    // What the grid shows: allProducts, or the search results
+    private final ObservableList<ProductSummary> shownProducts = FXCollections.observableArrayList();
+    private LiveSearch search;
+    // Keyset cursor of the next page, null once the last page has been loaded
+    private String nextCursor;
+    private boolean loadingPage = false;
 
     @FXML
     protected void showHome() {
@@ -193,20 +197,22 @@ public class AllProductsController {
     }
 
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
+        // Ranked search as the user types, a page at a time like the listing
+        if (searchField != null) {
+            search = new LiveSearch(searchField, DatabaseManager.SEARCH_PAGE_SIZE,
+                    (db, query, limit, offset) -> db.searchProducts(query, limit, offset),
+                    this::displayProducts, this::appendProducts, () -> displayProducts(allProducts));
+        }
+
         if (allProductsGrid != null) {
+            // Cards near the end of the loaded products fetch the next page
+            allProductsGrid.setCellFactory(grid -> new ProductGridCell(product -> navigateToProductDetails(product.productId()))
+                    .highlighting(search != null ? search.shownQueryProperty() : null)
+                    .setOnNearEnd(this::loadNextPage));
+            allProductsGrid.setItems(shownProducts);
             loadAllProducts();
         }
         
-        // Add search listener for real-time filtering
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (allProducts != null) {
-                    filterProducts(newValue);
-                }
-            });
-        }
-        
         // Show "Add Product" button only for logged-in vendors
         if (addProductBtn != null && VendorSession.getInstance().isLoggedIn()) {
             addProductBtn.setVisible(true);
@@ -247,162 +253,87 @@ public class AllProductsController {
     }
 
     private void loadAllProducts() {
-        // Get all products from database
-        java.util.List<Product> productList = dbManager.getAllProducts();
-        allProducts.setAll(productList);
-        
-        if (allProducts.isEmpty()) {
-            System.out.println("No products found in database");
-            return;
-        }
-        
-        System.out.println("Loaded " + allProducts.size() + " products from database");
-        displayAllProducts(allProducts);
+        // Only the first page is loaded up front, the rest is fetched on demand
+        showLoadingMessage();
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getApprovedProductsPage(null, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            allProducts.setAll(page.products());
+            nextCursor = page.nextCursor();
+            updateLoadMoreButton();
+            
+            if (allProducts.isEmpty()) {
+                System.out.println("No products found in database");
+            } else {
+                System.out.println("Loaded " + allProducts.size() + " products from database");
+            }
+            if (!isSearching()) {
+                displayProducts(allProducts);
+            }
+        }, error -> loadingPage = false);
+    }
+
+    private void showLoadingMessage() {
+        shownProducts.clear();
+        showGridMessage("Loading products...");
     }
 
-    private void displayAllProducts(ObservableList<Product> products) {
-        allProductsGrid.getChildren().clear();        
-        if (products.isEmpty()) {
-            Label noProductsLabel = new Label("No products found");
-            noProductsLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #888888; -fx-padding: 40;");
-            VBox noProductsBox = new VBox(noProductsLabel);
-            noProductsBox.setStyle("-fx-alignment: center;");
-            allProductsGrid.add(noProductsBox, 0, 0, 3, 1);
+    private void showGridMessage(String message) {
+        gridMessage.setText(message);
+        gridMessage.setVisible(message != null);
+    }
+
+    @FXML
+    private void onLoadMore() {
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        // Every card bound near the end asks for the page; only one request is in flight at a time
+        if (isSearching()) {
+            search.loadMore();
             return;
         }
-        int col = 0;
-        int row = 0;
-        
-        // Display all products
-        for (Product product : products) {
-            if (product != null) {
-                VBox card = createProductCard(product);
-                allProductsGrid.add(card, col, row);
-                col++;
-                if (col > 2) {
-                    col = 0;
-                    row++;
-                }
-            }
+        if (nextCursor == null || loadingPage) {
+            return;
         }
+        String cursor = nextCursor;
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getApprovedProductsPage(cursor, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            nextCursor = page.nextCursor();
+            allProducts.addAll(page.products());
+            // Search results replace the grid, so the page is only shown once the search is cleared
+            if (!isSearching()) {
+                shownProducts.addAll(page.products());
+            }
+            updateLoadMoreButton();
+        }, error -> loadingPage = false);
     }
 
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setPrefSize(220, 280);
-        card.setStyle("-fx-background-color: white; " +
-                "-fx-border-radius: 10; -fx-background-radius: 10; " +
-                "-fx-padding: 15; -fx-cursor: hand;");
-
-        card.setOnMouseClicked(event -> navigateToProductDetails(product.getProductId()));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setOffsetY(2.0);
-        shadow.setColor(Color.rgb(0, 0, 0, 0.08));
-        card.setEffect(shadow);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(190);
-        imageView.setFitHeight(140);
-        imageView.setPreserveRatio(true);
-        imageView.setSmooth(true);
-        
-        // Set image or placeholder
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                // Load from resources (local files)
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                // If image fails to load, show placeholder
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // Placeholder style
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
-        }
+    private boolean isSearching() {
+        return search != null && search.isSearching();
+    }
 
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 15));
-        nameLabel.setStyle("-fx-text-fill: #333333;");
-
-        Label descLabel = new Label(product.getDescription());
-        descLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-
-        HBox priceBox = new HBox(5);
-        priceBox.setStyle("-fx-border-width: 0;");
-        Label priceLabel = new Label("৳ " + (int)product.getPrice());
-        priceLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 16));
-        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
-        Label unitLabel = new Label("/" + product.getUnit());
-        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-        priceBox.getChildren().addAll(priceLabel, unitLabel);
-
-        Region spacer = new Region();
-        spacer.setStyle("-fx-border-width: 0; -fx-background-color: transparent;");
-        VBox.setVgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-
-        HBox buttonBox = new HBox(8);
-        buttonBox.setStyle("-fx-border-width: 0; -fx-border-color: transparent;");
-        Button favButton = new Button("♡");
-        favButton.setPrefSize(45, 32);
-        
-        // Check if product is favourite and set initial style (only if logged in)
-        boolean isFav = UserSession.getInstance().isLoggedIn() && dbManager.isFavourite(product.getProductId());
-        if (isFav) {
-            favButton.setText("♥");
-            favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        } else {
-            favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
+    private void updateLoadMoreButton() {
+        if (loadMoreBtn != null) {
+            boolean more = isSearching() ? search.hasMore() : nextCursor != null;
+            loadMoreBtn.setVisible(more);
+            loadMoreBtn.setManaged(more);
         }
-        
-        favButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            boolean currentlyFav = dbManager.isFavourite(product.getProductId());
-            if (currentlyFav) {
-                // Remove from favourites
-                dbManager.removeFromFavourites(product.getProductId());
-                favButton.setText("♡");
-                favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Removed from favourites: " + product.getName());
-            } else {
-                // Add to favourites
-                dbManager.addToFavourites(product.getProductId());
-                favButton.setText("♥");
-                favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Added to favourites: " + product.getName());
-            }
-        });
-
-        Button rateButton = new Button("⭐ Rate");
-        rateButton.setPrefHeight(32);
-        rateButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
-                "-fx-font-weight: bold;");
-        rateButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            navigateToProductDetails(product.getProductId());
-        });
-        HBox.setHgrow(rateButton, javafx.scene.layout.Priority.ALWAYS);
-
-        buttonBox.getChildren().addAll(favButton, rateButton);
+    }
 
-        card.getChildren().addAll(imageView, nameLabel, descLabel, priceBox, spacer, buttonBox);
+    // Only the cards of products that came or went are rebound
+    private void displayProducts(List<ProductSummary> products) {
+        ListDiff.apply(shownProducts, products);
+        showGridMessage(products.isEmpty() ? "No products found" : null);
+        updateLoadMoreButton();
+    }
 
-        return card;
+    // The next page of search results
+    private void appendProducts(List<ProductSummary> products) {
+        shownProducts.addAll(products);
+        updateLoadMoreButton();
     }
 
     private void navigateToProductDetails(String productId) {
@@ -454,44 +385,7 @@ public class AllProductsController {
 
     @FXML
     protected void onSearch() {
-        String searchText = searchField.getText().trim().toLowerCase();
-        if (searchText.isEmpty()) {
-            loadAllProducts(); // Reload all products if search is empty
-            return;
-        }
-
-        allProductsGrid.getChildren().clear();
-        java.util.List<Product> allProducts = dbManager.getAllProducts();
-        
-        // Filter products based on search text
-        java.util.List<Product> filteredProducts = new java.util.ArrayList<>();
-        for (Product product : allProducts) {
-            if (product.getName().toLowerCase().contains(searchText) ||
-                product.getDescription().toLowerCase().contains(searchText) ||
-                product.getCategory().toLowerCase().contains(searchText)) {
-                filteredProducts.add(product);
-            }
-        }
-
-        // Display filtered products
-        int col = 0;
-        int row = 0;
-        for (Product product : filteredProducts) {
-            VBox card = createProductCard(product);
-            allProductsGrid.add(card, col, row);
-            col++;
-            if (col > 2) {
-                col = 0;
-                row++;
-            }
-        }
-
-        // Show message if no products found
-        if (filteredProducts.isEmpty()) {
-            Label noResultsLabel = new Label("No products found matching \"" + searchText + "\"");
-            noResultsLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #666666;");
-            allProductsGrid.add(noResultsLabel, 0, 0);
-        }
+        search.searchNow();
     }
 
     private void showLoginAlert() {
@@ -505,9 +399,8 @@ public class AllProductsController {
     @FXML
     private void handleSearch() {
         if (searchField != null) {
-            String searchText = searchField.getText();
-            if (searchText != null && !searchText.trim().isEmpty()) {
-                filterProducts(searchText);
+            if (search.isSearching()) {
+                search.searchNow();
             }
         }
     }
@@ -515,27 +408,8 @@ public class AllProductsController {
     @FXML
     private void handleClearSearch() {
         if (searchField != null) {
+            // Clearing the field shows all products again
             searchField.clear();
-            displayAllProducts(allProducts);
         }
     }
-
-    private void filterProducts(String searchText) {
-        if (allProducts == null || allProducts.isEmpty()) {
-            return;
-        }
-
-        String lowerSearchText = searchText.toLowerCase().trim();
-        ObservableList<Product> filteredProducts = FXCollections.observableArrayList();
-        
-        for (Product p : allProducts) {
-            if (p.getName().toLowerCase().contains(lowerSearchText) ||
-                p.getCategory().toLowerCase().contains(lowerSearchText) ||
-                p.getProductId().toLowerCase().contains(lowerSearchText)) {
-                filteredProducts.add(p);
-            }
-        }
-
-        displayAllProducts(filteredProducts);
-    }
 }
@@ -0,0 +1,81 @@
+package com.example.finding_bd_products;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Asynchronous access to DatabaseManager for controllers.
+ *
+ * Every call runs on its own virtual thread, so JDBC (including the first
+ * DatabaseManager.getInstance(), which opens and migrates the database) never
+ * runs on the JavaFX Application Thread. The load(...) variants deliver the
+ * result back on the FX thread with Platform.runLater.
+ */
+public class AsyncDatabase {
+    private static final AsyncDatabase instance = new AsyncDatabase();
+    // How long shutdown() waits for running work before the database is closed under it
+    private static final int SHUTDOWN_WAIT_MS = Integer.getInteger("bdproducts.db.shutdownWaitMs", 5000);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private AsyncDatabase() {
+    }
+
+    public static AsyncDatabase getInstance() {
+        return instance;
+    }
+
+    // Runs a query on a virtual thread; the future completes off the FX thread
+    public <T> CompletableFuture<T> supply(Function<DatabaseManager, T> work) {
+        return CompletableFuture.supplyAsync(() -> work.apply(DatabaseManager.getInstance()), executor);
+    }
+
+    // Runs an update on a virtual thread; the future completes off the FX thread
+    public CompletableFuture<Void> run(Consumer<DatabaseManager> work) {
+        return CompletableFuture.runAsync(() -> work.accept(DatabaseManager.getInstance()), executor);
+    }
+
+    // Runs work on a virtual thread and hands the result to onSuccess on the FX thread
+    public <T> CompletableFuture<T> load(Function<DatabaseManager, T> work, Consumer<T> onSuccess) {
+        return load(work, onSuccess, null);
+    }
+
+    public <T> CompletableFuture<T> load(Function<DatabaseManager, T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = supply(work);
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            cause.printStackTrace();
+            if (onError != null) {
+                onError.accept(cause);
+            }
+        }));
+        return future;
+    }
+
+    // Takes no new work and waits up to SHUTDOWN_WAIT_MS for the work already running, so the
+    // database isn't closed under a query or a write; whatever is still running after that is
+    // interrupted
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Database work still running after " + SHUTDOWN_WAIT_MS + " ms, interrupting it");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.finding_bd_products;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for catalog reads in DatabaseManager.
+ *
+ * Holds single products (as returned by getProductDetails) and product lists
+ * (full listings, keyset pages, favourites). Both are LRU: products are bounded
+ * by entry count, lists by the total number of products they hold.
+ *
+ * Lists are tagged with the scopes they were read from ("approved",
+ * "category:Snacks", "vendor:cv1", "favourites:u1") and remember which product ids
+ * they contain, so a write only drops the entries it can actually have changed.
+ */
+public class CatalogCache {
+    public static final String SCOPE_APPROVED = "approved";
+
+    private final int maxProducts;
+    private final int maxListedProducts;
+
+    private final Map<String, Product> products;
+    private final Map<String, ListEntry> lists = new LinkedHashMap<>(64, 0.75f, true);
+    private int listedProducts = 0;
+
+    // Bumped on every invalidation; a load that started before it is not stored
+    private long generation = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    private record ListEntry(Object value, Set<String> productIds, Set<String> scopes, int weight) {
+    }
+
+    public CatalogCache(int maxProducts, int maxListedProducts) {
+        this.maxProducts = maxProducts;
+        this.maxListedProducts = maxListedProducts;
+        this.products = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Product> eldest) {
+                if (size() <= CatalogCache.this.maxProducts) {
+                    return false;
+                }
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    public static String categoryScope(String category) {
+        return "category:" + category;
+    }
+
+    public static String vendorScope(String vendorId) {
+        return "vendor:" + vendorId;
+    }
+
+    public static String favouritesScope(String userId) {
+        return "favourites:" + userId;
+    }
+
+    // ============ Reads ============
+
+    public Product getProduct(String productId, Supplier<Product> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Product cached = products.get(productId);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        Product product = loader.get();
+        if (product != null) {
+            synchronized (this) {
+                if (loadGeneration == generation) {
+                    products.put(productId, product);
+                }
+            }
+        }
+        return product;
+    }
+
+    // Lists are copied on the way out because callers sort and reverse them in place
+    public List<ProductSummary> getList(String key, Supplier<List<ProductSummary>> loader, String... scopes) {
+        List<ProductSummary> list = getListValue(key, () -> {
+            List<ProductSummary> loaded = loader.get();
+            return new ListValue<>(loaded, loaded);
+        }, scopes);
+        return new ArrayList<>(list);
+    }
+
+    public ProductPage getPage(String key, Supplier<ProductPage> loader, String... scopes) {
+        ProductPage page = getListValue(key, () -> {
+            ProductPage loaded = loader.get();
+            return new ListValue<>(loaded, loaded.products());
+        }, scopes);
+        return new ProductPage(new ArrayList<>(page.products()), page.nextCursor());
+    }
+
+    private record ListValue<T>(T value, List<ProductSummary> products) {
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getListValue(String key, Supplier<ListValue<T>> loader, String... scopes) {
+        long loadGeneration;
+        synchronized (this) {
+            ListEntry cached = lists.get(key);
+            if (cached != null) {
+                hits++;
+                return (T) cached.value();
+            }
+            misses++;
+            loadGeneration = generation;
+        }
+        ListValue<T> loaded = loader.get();
+        synchronized (this) {
+            // A limit of 0 turns list caching off; otherwise the newest list is kept even if it is over the limit
+            if (loadGeneration == generation && maxListedProducts > 0) {
+                Set<String> ids = new HashSet<>();
+                for (ProductSummary product : loaded.products()) {
+                    ids.add(product.productId());
+                }
+                // Empty lists still take a slot so they can be evicted like any other entry
+                int weight = Math.max(1, loaded.products().size());
+                removeList(key);
+                lists.put(key, new ListEntry(loaded.value(), ids, Set.of(scopes), weight));
+                listedProducts += weight;
+                evictLists();
+            }
+        }
+        return loaded.value();
+    }
+
+    // ============ Invalidation ============
+
+    // A product's own columns or reviews changed; lists it is not in are unaffected
+    public synchronized void invalidateProduct(String productId) {
+        generation++;
+        products.remove(productId);
+        Iterator<Map.Entry<String, ListEntry>> it = lists.entrySet().iterator();
+        while (it.hasNext()) {
+            ListEntry entry = it.next().getValue();
+            if (entry.productIds().contains(productId)) {
+                listedProducts -= entry.weight();
+                it.remove();
+            }
+        }
+    }
+
+    // A product may have entered or left the approved listings (or moved category),
+    // so every list of those scopes is dropped along with the lists that contain it
+    public synchronized void invalidateListing(String productId, String category, String vendorId) {
+        invalidateProduct(productId);
+        Set<String> scopes = new HashSet<>();
+        scopes.add(SCOPE_APPROVED);
+        if (category != null) {
+            scopes.add(categoryScope(category));
+        }
+        if (vendorId != null) {
+            scopes.add(vendorScope(vendorId));
+        }
+        removeListsInScopes(scopes);
+    }
+
+    public synchronized void invalidateScope(String scope) {
+        generation++;
+        removeListsInScopes(Set.of(scope));
+    }
+
+    public synchronized void clear() {
+        generation++;
+        products.clear();
+        lists.clear();
+        listedProducts = 0;
+    }
+
+    private void removeListsInScopes(Set<String> scopes) {
+        Iterator<Map.Entry<String, ListEntry>> it = lists.entrySet().iterator();
+        while (it.hasNext()) {
+            ListEntry entry = it.next().getValue();
+            for (String scope : entry.scopes()) {
+                if (scopes.contains(scope)) {
+                    listedProducts -= entry.weight();
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void removeList(String key) {
+        ListEntry previous = lists.remove(key);
+        if (previous != null) {
+            listedProducts -= previous.weight();
+        }
+    }
+
+    // Drops least recently used lists until the total fits, but always keeps the newest one
+    private void evictLists() {
+        Iterator<Map.Entry<String, ListEntry>> it = lists.entrySet().iterator();
+        while (listedProducts > maxListedProducts && lists.size() > 1 && it.hasNext()) {
+            listedProducts -= it.next().getValue().weight();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // ============ Statistics ============
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String stats() {
+        long lookups = hits + misses;
+        double hitRate = lookups == 0 ? 0 : 100.0 * hits / lookups;
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d products, %d lists holding %d products",
+                hits, misses, hitRate, evictions, products.size(), lists.size(), listedProducts);
+    }
+}
@@ -0,0 +1,495 @@
+package com.example.finding_bd_products;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Streaming bulk import of a vendor's catalog from CSV or JSON Lines.
+ *
+ * Records are parsed one at a time, validated, and written in batches through
+ * DatabaseManager.importProductBatch, one transaction per batch. New products are
+ * added as 'waiting' for admin approval.
+ *
+ * Each product's id comes from the vendor plus its sku (or its name if there is
+ * no sku), and a SHA-256 of its content is stored with it. Importing the same
+ * file again therefore skips unchanged rows and only rewrites changed ones.
+ *
+ * Recognised columns / keys: sku, name, description, price, unit, category, image_url.
+ */
+public class CatalogImporter {
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("bdproducts.import.batchSize", 1000);
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    // One validated input row, ready to be written
+    public record Row(int line, String productId, String name, String description, double price,
+                      String unit, String category, String imageUrl, String contentHash) {
+    }
+
+    // Running totals; passed to the progress callback after every batch and returned at the end
+    public record ImportReport(long rowsRead, long inserted, long updated, long unchanged, long rejected,
+                               List<String> errors) {
+    }
+
+    private final DatabaseManager dbManager;
+    private final int batchSize;
+
+    public CatalogImporter(DatabaseManager dbManager) {
+        this(dbManager, DEFAULT_BATCH_SIZE);
+    }
+
+    public CatalogImporter(DatabaseManager dbManager, int batchSize) {
+        this.dbManager = dbManager;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // .jsonl / .ndjson files are read as JSON Lines, everything else as CSV with a header row
+    public ImportReport importFile(Path file, String vendorId, Consumer<ImportReport> progress) throws IOException {
+        String fileName = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean jsonLines = fileName.endsWith(".jsonl") || fileName.endsWith(".ndjson");
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Iterator<Map<String, String>> records = jsonLines ? new JsonLinesRecords(reader) : new CsvRecords(reader);
+            return importRecords(records, vendorId, progress);
+        }
+    }
+
+    public ImportReport importRecords(Iterator<Map<String, String>> records, String vendorId,
+                                      Consumer<ImportReport> progress) {
+        // product id -> content hash of what this vendor imported before
+        Map<String, String> previousHashes = dbManager.getImportHashes(vendorId);
+        Totals totals = new Totals();
+        Batch batch = new Batch();
+
+        while (true) {
+            Map<String, String> record;
+            try {
+                if (!records.hasNext()) {
+                    break;
+                }
+                record = records.next();
+            } catch (IllegalArgumentException e) {
+                // Malformed line: report it and carry on with the next one
+                totals.rowsRead++;
+                totals.reject(e.getMessage());
+                continue;
+            }
+            totals.rowsRead++;
+            int line = (int) totals.rowsRead;
+            String error = validate(record);
+            if (error != null) {
+                totals.reject("Row " + line + ": " + error);
+                continue;
+            }
+
+            Row row = toRow(line, vendorId, record);
+            String previousHash = previousHashes.get(row.productId());
+            if (row.contentHash().equals(previousHash)) {
+                totals.unchanged++;
+                continue;
+            }
+            // A file that lists the same product twice keeps its last version
+            previousHashes.put(row.productId(), row.contentHash());
+            batch.add(row, previousHash == null);
+
+            if (batch.rows.size() >= batchSize) {
+                flush(vendorId, batch, totals);
+                if (progress != null) {
+                    progress.accept(totals.report());
+                }
+            }
+        }
+        flush(vendorId, batch, totals);
+        ImportReport report = totals.report();
+        if (progress != null) {
+            progress.accept(report);
+        }
+        return report;
+    }
+
+    // Rows only count as inserted or updated once their batch has been committed
+    private void flush(String vendorId, Batch batch, Totals totals) {
+        if (batch.rows.isEmpty()) {
+            return;
+        }
+        if (dbManager.importProductBatch(vendorId, batch.rows)) {
+            totals.inserted += batch.inserted;
+            totals.updated += batch.rows.size() - batch.inserted;
+        } else {
+            totals.rejected += batch.rows.size();
+            totals.error("Rows " + batch.rows.get(0).line() + "-" + batch.rows.get(batch.rows.size() - 1).line()
+                    + " could not be saved");
+        }
+        batch.rows.clear();
+        batch.inserted = 0;
+    }
+
+    private static final class Batch {
+        private final List<Row> rows = new ArrayList<>();
+        private int inserted = 0;
+
+        private void add(Row row, boolean isNew) {
+            rows.add(row);
+            if (isNew) {
+                inserted++;
+            }
+        }
+    }
+
+    private static final class Totals {
+        private long rowsRead = 0;
+        private long inserted = 0;
+        private long updated = 0;
+        private long unchanged = 0;
+        private long rejected = 0;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(String message) {
+            rejected++;
+            error(message);
+        }
+
+        private void error(String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(message);
+            }
+        }
+
+        private ImportReport report() {
+            return new ImportReport(rowsRead, inserted, updated, unchanged, rejected, List.copyOf(errors));
+        }
+    }
+
+    // Same rules as the Add Product form, except that description and image are optional
+    private static String validate(Map<String, String> record) {
+        String name = record.get("name");
+        if (isBlank(name)) {
+            return "name is required";
+        }
+        if (name.length() > 200) {
+            return "name is longer than 200 characters";
+        }
+        String price = record.get("price");
+        if (isBlank(price)) {
+            return "price is required";
+        }
+        try {
+            double value = Double.parseDouble(price.trim());
+            if (!(value > 0) || Double.isInfinite(value)) {
+                return "price must be greater than 0";
+            }
+        } catch (NumberFormatException e) {
+            return "price '" + price + "' is not a number";
+        }
+        if (isBlank(record.get("unit"))) {
+            return "unit is required";
+        }
+        if (isBlank(record.get("category"))) {
+            return "category is required";
+        }
+        return null;
+    }
+
+    private static Row toRow(int line, String vendorId, Map<String, String> record) {
+        String name = record.get("name").trim();
+        String description = trimToEmpty(record.get("description"));
+        double price = Double.parseDouble(record.get("price").trim());
+        String unit = record.get("unit").trim();
+        String category = record.get("category").trim();
+        String imageUrl = trimToNull(record.get("image_url"));
+        String sku = trimToNull(record.get("sku"));
+
+        String key = sku != null ? "sku:" + sku : "name:" + name.toLowerCase(Locale.ROOT);
+        String productId = "IMP_" + sha256(vendorId + "\u0000" + key).substring(0, 16).toUpperCase(Locale.ROOT);
+        String contentHash = sha256(String.join("\u0000", name, description, Double.toString(price), unit, category,
+                imageUrl != null ? imageUrl : ""));
+        return new Row(line, productId, name, description, price, unit, category, imageUrl, contentHash);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String trimToEmpty(String value) {
+        return value == null ? "" : value.trim();
+    }
+
+    private static String trimToNull(String value) {
+        return isBlank(value) ? null : value.trim();
+    }
+
+    private static String normaliseKey(String key) {
+        String normalised = key.trim().toLowerCase(Locale.ROOT).replace(' ', '_');
+        return normalised.equals("image") || normalised.equals("imageurl") ? "image_url" : normalised;
+    }
+
+    // ============ CSV ============
+
+    // RFC 4180 records keyed by the header row; quoted fields may contain commas, quotes and line breaks
+    static final class CsvRecords implements Iterator<Map<String, String>> {
+        private final BufferedReader reader;
+        private final List<String> header;
+        private List<String> next;
+
+        CsvRecords(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> headerFields = readRecord();
+            this.header = new ArrayList<>();
+            if (headerFields != null) {
+                for (String field : headerFields) {
+                    // Excel puts a byte order mark in front of the first header
+                    header.add(normaliseKey(field.replace("\uFEFF", "")));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    do {
+                        next = readRecord();
+                    } while (next != null && next.size() == 1 && next.get(0).isBlank());
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read CSV file", e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> fields = next;
+            next = null;
+            Map<String, String> record = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                record.put(header.get(i), fields.get(i));
+            }
+            return record;
+        }
+
+        // Works a line at a time; a quoted field that spans lines pulls in the next one
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    line = reader.readLine();
+                    if (line == null) {
+                        break;
+                    }
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    // ============ JSON Lines ============
+
+    // One flat JSON object per line; string, number, boolean and null values are read as text
+    static final class JsonLinesRecords implements Iterator<Map<String, String>> {
+        private final BufferedReader reader;
+        private String nextLine;
+        private int lineNumber = 0;
+
+        JsonLinesRecords(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextLine == null) {
+                try {
+                    do {
+                        nextLine = reader.readLine();
+                        lineNumber++;
+                    } while (nextLine != null && nextLine.isBlank());
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not read JSON Lines file", e);
+                }
+            }
+            return nextLine != null;
+        }
+
+        @Override
+        public Map<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String line = nextLine;
+            nextLine = null;
+            try {
+                return new FlatJsonObject(line).parse();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static final class FlatJsonObject {
+        private final String text;
+        private int pos = 0;
+
+        private FlatJsonObject(String text) {
+            this.text = text;
+        }
+
+        private Map<String, String> parse() {
+            Map<String, String> record = new LinkedHashMap<>();
+            expect('{');
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return record;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = readString();
+                expect(':');
+                skipWhitespace();
+                record.put(normaliseKey(key), readValue());
+                skipWhitespace();
+                char c = take();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("expected ',' or '}' at column " + pos);
+                }
+            }
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw new IllegalArgumentException("unexpected text after the object at column " + (pos + 1));
+            }
+            return record;
+        }
+
+        private String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("nested values are not supported (column " + (pos + 1) + ")");
+            }
+            int start = pos;
+            while (pos < text.length() && ",} \t".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = take();
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = take();
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("truncated \\u escape");
+                        }
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+
+        private void expect(char expected) {
+            skipWhitespace();
+            if (take() != expected) {
+                throw new IllegalArgumentException("expected '" + expected + "' at column " + pos);
+            }
+        }
+
+        private char peek() {
+            if (pos >= text.length()) {
+                throw new IllegalArgumentException("unexpected end of line");
+            }
+            return text.charAt(pos);
+        }
+
+        private char take() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -67,13 +67,11 @@ public class CategoriesController {
     @FXML
     private javafx.scene.layout.GridPane categoriesGrid;
 
-    private DatabaseManager dbManager;
     private ObservableList<String> allCategories = FXCollections.observableArrayList();
     private List<VBox> originalCategoryCards = new ArrayList<>();
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         loadCategories();
         addFavoriteButtons();
         
@@ -156,7 +154,7 @@ public class CategoriesController {
             favButton.setPrefSize(35, 32);
             
             // Check if category is favourite and set initial style (only if logged in)
-            boolean isFav = UserSession.getInstance().isLoggedIn() && dbManager.isFavouriteCategory(categoryName);
+            boolean isFav = UserSession.getInstance().isFavouriteCategory(categoryName);
             if (isFav) {
                 favButton.setText("♥");
                 favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
@@ -172,14 +170,11 @@ public class CategoriesController {
                     showLoginAlert();
                     return;
                 }
-                boolean currentlyFav = dbManager.isFavouriteCategory(categoryName);
-                if (currentlyFav) {
-                    dbManager.removeFromFavouriteCategories(categoryName);
+                if (!UserSession.getInstance().toggleFavouriteCategory(categoryName)) {
                     favButton.setText("♡");
                     favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
                             "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px;");
                 } else {
-                    dbManager.addToFavouriteCategories(categoryName);
                     favButton.setText("♥");
                     favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
                             "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px;");
@@ -1,26 +1,19 @@
 package com.example.finding_bd_products;
 
 import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
-import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Region;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import org.controlsfx.control.GridView;
 
 import java.io.IOException;
 import java.util.List;
@@ -33,7 +26,13 @@ public class CategoryProductsController {
     private Label categoryDescription;
 
     @FXML
-    private GridPane productsGrid;
+    private GridView<ProductSummary> productsGrid;
+
+    @FXML
+    private Label gridMessage;
+
+    @FXML
+    private Button loadMoreBtn;
 
     @FXML
     private TextField searchField;
@@ -60,12 +59,23 @@ public class CategoryProductsController {
     private Button signupBtn;
 
     private String currentCategory;
-    private DatabaseManager dbManager;
-    private ObservableList<Product> allCategoryProducts = FXCollections.observableArrayList();
+    private ObservableList<ProductSummary> allCategoryProducts = FXCollections.observableArrayList();
+    // What the grid shows: allCategoryProducts, or the search results
+    private final ObservableList<ProductSummary> shownProducts = FXCollections.observableArrayList();
+    private LiveSearch search;
+    // The search's shown query, for the cards made before the category (and so the search) is set
+    private final StringProperty searchQuery = new SimpleStringProperty();
+    // Keyset cursor of the next page, null once the last page has been loaded
+    private String nextCursor;
+    private boolean loadingPage = false;
 
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-        
+        // Cards near the end of the loaded products fetch the next page
+        productsGrid.setCellFactory(grid -> new ProductGridCell(product -> navigateToProductDetails(product.productId()))
+                .highlighting(searchQuery)
+                .setOnNearEnd(this::loadNextPage));
+        productsGrid.setItems(shownProducts);
+
         // Hide login/signup buttons if user or vendor is logged in
         if (UserSession.getInstance().isLoggedIn() || VendorSession.getInstance().isLoggedIn()) {
             if (loginBtn != null) {
@@ -85,172 +95,89 @@ public class CategoryProductsController {
         categoryDescription.setText("Showing all products in " + categoryName);
         loadProducts(categoryName);
         
-        // Add search listener for real-time filtering
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (allCategoryProducts != null) {
-                    filterProducts(newValue);
-                }
-            });
+        // Ranked search within the category as the user types, a page at a time like the listing
+        if (searchField != null && search == null) {
+            search = new LiveSearch(searchField, DatabaseManager.SEARCH_PAGE_SIZE,
+                    (db, query, limit, offset) -> db.searchProductsInCategory(query, categoryName, limit, offset),
+                    this::displayProducts, this::appendProducts, () -> displayProducts(allCategoryProducts));
+            searchQuery.bind(search.shownQueryProperty());
         }
     }
 
     private void loadProducts(String categoryName) {
-        List<Product> products = dbManager.getProductsByCategory(categoryName);
+        // Only the first page is loaded up front, the rest is fetched on demand
+        shownProducts.clear();
+        showGridMessage("Loading products...");
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getProductsByCategoryPage(categoryName, null, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            nextCursor = page.nextCursor();
+            updateLoadMoreButton();
+
+            allCategoryProducts.setAll(page.products());
+            if (!isSearching()) {
+                displayProducts(allCategoryProducts);
+            }
+        }, error -> loadingPage = false);
+    }
+
+    @FXML
+    private void onLoadMore() {
+        loadNextPage();
+    }
 
-        if (products == null || products.isEmpty()) {
-            allCategoryProducts.clear();
-            displayProducts(allCategoryProducts);
+    private void loadNextPage() {
+        // Every card bound near the end asks for the page; only one request is in flight at a time
+        if (isSearching()) {
+            search.loadMore();
             return;
         }
-        
-        allCategoryProducts.setAll(products);
-        displayProducts(allCategoryProducts);
-    }
-    
-    private void displayProducts(javafx.collections.ObservableList<Product> products) {
-        productsGrid.getChildren().clear();
-
-        if (products.isEmpty()) {
-            Label noProducts = new Label("No products found");
-            noProducts.setStyle("-fx-font-size: 18px; -fx-text-fill: #888888; -fx-padding: 40;");
-            VBox noProductsBox = new VBox(noProducts);
-            noProductsBox.setStyle("-fx-alignment: center;");
-            productsGrid.add(noProductsBox, 0, 0, 3, 1);
+        if (nextCursor == null || currentCategory == null || loadingPage) {
             return;
         }
-
-        int col = 0;
-        int row = 0;
-
-        for (Product product : products) {
-            VBox productCard = createProductCard(product);
-            productsGrid.add(productCard, col, row);
-
-            col++;
-            if (col == 3) {
-                col = 0;
-                row++;
+        String category = currentCategory;
+        String cursor = nextCursor;
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getProductsByCategoryPage(category, cursor, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            nextCursor = page.nextCursor();
+            allCategoryProducts.addAll(page.products());
+            // Search results replace the grid, so the page is only shown once the search is cleared
+            if (!isSearching()) {
+                shownProducts.addAll(page.products());
             }
-        }
+            updateLoadMoreButton();
+        }, error -> loadingPage = false);
     }
 
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setMaxWidth(Double.MAX_VALUE);
-        card.setStyle("-fx-background-color: white; " +
-                "-fx-border-radius: 10; -fx-background-radius: 10; " +
-                "-fx-padding: 15; -fx-cursor: hand;");
-
-        card.setOnMouseClicked(event -> navigateToProductDetails(product.getProductId()));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setOffsetY(2.0);
-        shadow.setColor(Color.rgb(0, 0, 0, 0.08));
-        card.setEffect(shadow);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(190);
-        imageView.setFitHeight(140);
-        imageView.setPreserveRatio(true);
-        imageView.setSmooth(true);
-        
-        // Set image or placeholder
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                // Load from resources (local files)
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                // If image fails to load, show placeholder
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // Placeholder style
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
-        }
+    private boolean isSearching() {
+        return search != null && search.isSearching();
+    }
 
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 15));
-        nameLabel.setStyle("-fx-text-fill: #333333;");
-
-        Label descLabel = new Label(product.getDescription());
-        descLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-
-        HBox priceBox = new HBox(5);
-        priceBox.setStyle("-fx-border-width: 0;");
-        Label priceLabel = new Label("৳ " + (int)product.getPrice());
-        priceLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 16));
-        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
-        Label unitLabel = new Label("/" + product.getUnit());
-        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-        priceBox.getChildren().addAll(priceLabel, unitLabel);
-
-        Region spacer = new Region();
-        spacer.setStyle("-fx-border-width: 0; -fx-background-color: transparent;");
-        VBox.setVgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-
-        HBox buttonBox = new HBox(8);
-        buttonBox.setStyle("-fx-border-width: 0; -fx-border-color: transparent;");
-        Button favButton = new Button("♡");
-        favButton.setPrefSize(45, 32);
-        
-        // Check if product is favourite and set initial style (only if logged in)
-        boolean isFav = UserSession.getInstance().isLoggedIn() && dbManager.isFavourite(product.getProductId());
-        if (isFav) {
-            favButton.setText("♥");
-            favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        } else {
-            favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
+    private void updateLoadMoreButton() {
+        if (loadMoreBtn != null) {
+            boolean more = isSearching() ? search.hasMore() : nextCursor != null;
+            loadMoreBtn.setVisible(more);
+            loadMoreBtn.setManaged(more);
         }
-        
-        favButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            boolean currentlyFav = dbManager.isFavourite(product.getProductId());
-            if (currentlyFav) {
-                // Remove from favourites
-                dbManager.removeFromFavourites(product.getProductId());
-                favButton.setText("♡");
-                favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Removed from favourites: " + product.getName());
-            } else {
-                // Add to favourites
-                dbManager.addToFavourites(product.getProductId());
-                favButton.setText("♥");
-                favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Added to favourites: " + product.getName());
-            }
-        });
-
-        Button rateButton = new Button("⭐ Rate");
-        rateButton.setPrefHeight(32);
-        rateButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
-                "-fx-font-weight: bold;");
-        rateButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            navigateToProductDetails(product.getProductId());
-        });
-        HBox.setHgrow(rateButton, javafx.scene.layout.Priority.ALWAYS);
-
-        buttonBox.getChildren().addAll(favButton, rateButton);
+    }
+    
+    // Only the cards of products that came or went are rebound
+    private void displayProducts(List<ProductSummary> products) {
+        ListDiff.apply(shownProducts, products);
+        showGridMessage(products.isEmpty() ? "No products found" : null);
+        updateLoadMoreButton();
+    }
 
-        card.getChildren().addAll(imageView, nameLabel, descLabel, priceBox, spacer, buttonBox);
+    // The next page of search results
+    private void appendProducts(List<ProductSummary> products) {
+        shownProducts.addAll(products);
+        updateLoadMoreButton();
+    }
 
-        return card;
+    private void showGridMessage(String message) {
+        gridMessage.setText(message);
+        gridMessage.setVisible(message != null);
     }
 
     private void navigateToProductDetails(String productId) {
@@ -308,30 +235,10 @@ public class CategoryProductsController {
     }
 
     @FXML    protected void onSearch() {
-        if (searchField != null) {
-            filterProducts(searchField.getText());
+        if (search != null) {
+            search.searchNow();
         }
     }
-    
-    private void filterProducts(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            displayProducts(allCategoryProducts);
-            return;
-        }
-        
-        String searchLower = searchText.toLowerCase().trim();
-        javafx.collections.ObservableList<Product> filteredProducts = javafx.collections.FXCollections.observableArrayList();
-        
-        for (Product product : allCategoryProducts) {
-            if (product.getName().toLowerCase().contains(searchLower) ||
-                product.getCategory().toLowerCase().contains(searchLower) ||
-                product.getProductId().toLowerCase().contains(searchLower)) {
-                filteredProducts.add(product);
-            }
-        }
-        
-        displayProducts(filteredProducts);
-    }
 
     private void loadPage(String fxmlFile) {
         try {
@@ -344,12 +251,4 @@ public class CategoryProductsController {
             e.printStackTrace();
         }
     }
-
-    private void showLoginAlert() {
-        Alert alert = new Alert(Alert.AlertType.WARNING);
-        alert.setTitle("Login Required");
-        alert.setHeaderText("You need to log in");
-        alert.setContentText("Please log in to perform this action.");
-        alert.showAndWait();
-    }
 }
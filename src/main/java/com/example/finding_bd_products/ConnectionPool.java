@@ -0,0 +1,724 @@
+package com.example.finding_bd_products;
+
+import org.sqlite.BusyHandler;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Long-lived SQLite connections for DatabaseManager.
+ *
+ * Reads are served from a small pool of query-only connections, writes go through
+ * a single writer connection (SQLite only allows one writer at a time anyway).
+ * Every physical connection keeps its own cache of compiled PreparedStatements keyed
+ * by SQL text, so the DAO methods can keep their try-with-resources blocks while the
+ * SQL is only parsed once per connection.
+ *
+ * Handles are re-entrant per thread: a DAO method that calls another DAO method while
+ * holding a connection gets the same physical connection back instead of a second one.
+ *
+ * Every lease and every statement execution is timed into QueryStats.
+ */
+public class ConnectionPool {
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+
+    // Pragmas applied to every connection, overridable with -D system properties
+    private static final int BUSY_TIMEOUT_MS = Integer.getInteger("bdproducts.db.busyTimeoutMs", 5000);
+    // Same back-off as SQLite's own busy_timeout handler
+    private static final int[] BUSY_DELAYS_MS = {1, 2, 5, 10, 15, 20, 25, 25, 25, 50, 50, 100};
+    private static final int CACHE_SIZE_KB = Integer.getInteger("bdproducts.db.cacheKb", 8192);
+    private static final long MMAP_SIZE_BYTES = Long.getLong("bdproducts.db.mmapBytes", 256L * 1024 * 1024);
+    // WriteQueue commits whole batches, so the writer can afford to sync the WAL on every commit
+    private static final String WRITER_SYNCHRONOUS = System.getProperty("bdproducts.db.synchronous", "FULL");
+
+    private final String url;
+    private final int maxReaders;
+    private final BlockingQueue<PooledConnection> idleReaders = new LinkedBlockingQueue<>();
+    private final List<PooledConnection> allConnections = new CopyOnWriteArrayList<>();
+    private final AtomicInteger openReaders = new AtomicInteger();
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final PooledConnection writer;
+    private final ThreadLocal<Lease> readLease = new ThreadLocal<>();
+    private final ThreadLocal<Lease> writeLease = new ThreadLocal<>();
+    private final QueryStats stats = new QueryStats();
+    private volatile boolean closed = false;
+
+    public ConnectionPool(String url, int maxReaders) throws SQLException {
+        this.url = url;
+        this.maxReaders = Math.max(1, maxReaders);
+        // The writer is opened eagerly because it switches the database file to WAL mode
+        this.writer = open(false);
+    }
+
+    // operation names the caller in QueryStats; it is only asked for when a new lease starts
+    public Connection getReadConnection(Supplier<String> operation) throws SQLException {
+        Lease lease = readLease.get();
+        if (lease == null) {
+            long requestedAt = System.nanoTime();
+            PooledConnection pc = takeReader();
+            lease = new Lease(pc, false, QueryStats.ENABLED ? operation.get() : null, requestedAt);
+            readLease.set(lease);
+        }
+        return lease.newHandle();
+    }
+
+    public Connection getWriteConnection(Supplier<String> operation) throws SQLException {
+        Lease lease = writeLease.get();
+        if (lease == null) {
+            ensureOpen();
+            long requestedAt = System.nanoTime();
+            if (!writerLock.tryLock()) {
+                stats.recordLockWait();
+                try {
+                    if (!writerLock.tryLock(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        throw new SQLException("Timed out waiting for the write connection");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the write connection", e);
+                }
+            }
+            lease = new Lease(writer, true, QueryStats.ENABLED ? operation.get() : null, requestedAt);
+            writeLease.set(lease);
+        }
+        return lease.newHandle();
+    }
+
+    public int getMaxReaders() {
+        return maxReaders;
+    }
+
+    public QueryStats getStats() {
+        return stats;
+    }
+
+    public void close() {
+        closed = true;
+        for (PooledConnection pc : allConnections) {
+            pc.closePhysical();
+        }
+        allConnections.clear();
+        idleReaders.clear();
+    }
+
+    private PooledConnection takeReader() throws SQLException {
+        ensureOpen();
+        PooledConnection pc = idleReaders.poll();
+        if (pc != null) {
+            return pc;
+        }
+        // Open readers lazily so a single-threaded UI never pays for more than one
+        while (true) {
+            int current = openReaders.get();
+            if (current >= maxReaders) {
+                break;
+            }
+            if (openReaders.compareAndSet(current, current + 1)) {
+                try {
+                    return open(true);
+                } catch (SQLException e) {
+                    openReaders.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+        stats.recordLockWait();
+        try {
+            pc = idleReaders.poll(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+        if (pc == null) {
+            throw new SQLException("Timed out waiting for a read connection");
+        }
+        return pc;
+    }
+
+    private void release(Lease lease) {
+        PooledConnection pc = lease.connection;
+        pc.resetAfterLease();
+        if (QueryStats.ENABLED) {
+            stats.recordOperation(lease.operation, System.nanoTime() - lease.requestedAt, lease.acquireNanos,
+                    lease.rows, lease.failed);
+        }
+        if (lease.write) {
+            writeLease.remove();
+            writerLock.unlock();
+        } else {
+            readLease.remove();
+            if (closed) {
+                pc.closePhysical();
+            } else {
+                idleReaders.offer(pc);
+            }
+        }
+    }
+
+    private PooledConnection open(boolean readOnly) throws SQLException {
+        Connection physical = DriverManager.getConnection(url);
+        try (Statement stmt = physical.createStatement()) {
+            // Takes the place of PRAGMA busy_timeout, so lock retries show up in the stats
+            BusyHandler.setHandler(physical, new CountingBusyHandler());
+            if (!readOnly) {
+                stmt.execute("PRAGMA journal_mode = WAL");
+                // Lets INSERT OR REPLACE fire delete triggers for the row it replaces (image reference counts)
+                stmt.execute("PRAGMA recursive_triggers = ON");
+            }
+            stmt.execute("PRAGMA synchronous = " + (readOnly ? "NORMAL" : WRITER_SYNCHRONOUS));
+            stmt.execute("PRAGMA cache_size = -" + CACHE_SIZE_KB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            }
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+        PooledConnection pc = new PooledConnection(physical);
+        allConnections.add(pc);
+        return pc;
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+
+    // Times one execute call; the plan is only looked up for slow ones. The bind parameters are
+    // only used to explain the statement and are logged by type, never by value.
+    private void recordExecution(Lease lease, String sql, List<Object> parameters, long startedAt, long rows, boolean failed) {
+        if (!QueryStats.ENABLED) {
+            return;
+        }
+        long nanos = System.nanoTime() - startedAt;
+        stats.recordStatement(sql, nanos, rows, failed);
+        lease.rows += rows;
+        lease.failed |= failed;
+        if (stats.isSlow(nanos)) {
+            stats.recordSlowQuery(new QueryStats.SlowQuery(LocalTime.now(), lease.operation, sql,
+                    QueryStats.describe(parameters), nanos / 1000, rows, explain(lease.connection.physical, sql, parameters)));
+        }
+    }
+
+    private static List<String> explain(Connection physical, String sql, List<Object> parameters) {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement pstmt = physical.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            }
+        } catch (SQLException e) {
+            plan.add("(no plan: " + e.getMessage() + ")");
+        }
+        return plan;
+    }
+
+    // Rows affected by an executeUpdate / executeBatch result
+    private static long updateCount(Object result) {
+        if (result instanceof Integer count) {
+            return Math.max(0, count);
+        }
+        if (result instanceof Long count) {
+            return Math.max(0, count);
+        }
+        if (result instanceof int[] counts) {
+            return Arrays.stream(counts).filter(count -> count > 0).asLongStream().sum();
+        }
+        return 0;
+    }
+
+    private static boolean isExecute(String methodName) {
+        return methodName.startsWith("execute") && !methodName.equals("executeQuery");
+    }
+
+    // Calls through to the real JDBC object, counting the SQLITE_BUSY and SQLITE_LOCKED errors that
+    // reach the caller (the busy handler gave up, or a WAL snapshot went stale mid-transaction)
+    private Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLiteException sqliteException && isBusy(sqliteException)) {
+                stats.recordBusyError();
+            }
+            throw cause;
+        }
+    }
+
+    private static boolean isBusy(SQLiteException e) {
+        int primaryCode = e.getResultCode().code & 0xff;
+        return primaryCode == SQLiteErrorCode.SQLITE_BUSY.code || primaryCode == SQLiteErrorCode.SQLITE_LOCKED.code;
+    }
+
+    // One thread's use of a physical connection; nested getConnection() calls share it
+    private final class Lease {
+        private final PooledConnection connection;
+        private final boolean write;
+        private final String operation;
+        private final long requestedAt;
+        private final long acquireNanos;
+        private long rows = 0;
+        private boolean failed = false;
+        private int depth = 0;
+
+        private Lease(PooledConnection connection, boolean write, String operation, long requestedAt) {
+            this.connection = connection;
+            this.write = write;
+            this.operation = operation != null ? operation : "unknown";
+            this.requestedAt = requestedAt;
+            this.acquireNanos = System.nanoTime() - requestedAt;
+        }
+
+        private Connection newHandle() {
+            depth++;
+            ConnectionHandle handler = new ConnectionHandle(this);
+            Connection handle = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+            handler.self = handle;
+            return handle;
+        }
+
+        private void handleClosed() {
+            depth--;
+            if (depth == 0) {
+                release(this);
+            }
+        }
+    }
+
+    private final class ConnectionHandle implements InvocationHandler {
+        private final Lease lease;
+        private Connection self;
+        private boolean handleClosed = false;
+
+        private ConnectionHandle(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        lease.handleClosed();
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + url + (lease.write ? ", writer]" : ", reader]");
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            if (method.getName().equals("prepareStatement") && args != null && args.length == 1) {
+                return lease.connection.prepare((String) args[0], self, lease);
+            }
+            if (method.getName().equals("createStatement") && args == null && QueryStats.ENABLED) {
+                Statement target = lease.connection.physical.createStatement();
+                return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                        new PlainStatementHandle(target, self, lease));
+            }
+            return forward(lease.connection.physical, method, args);
+        }
+    }
+
+    private final class PooledConnection {
+        private final Connection physical;
+        private final Map<String, CachedStatement> statements =
+                new LinkedHashMap<>(STATEMENT_CACHE_SIZE, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                        if (size() <= STATEMENT_CACHE_SIZE) {
+                            return false;
+                        }
+                        eldest.getValue().evict();
+                        return true;
+                    }
+                };
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        private PreparedStatement prepare(String sql, Connection handle, Lease lease) throws SQLException {
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && cached.inUse) {
+                // Same SQL already open further up the call stack, don't reset its cursor;
+                // the extra statement is closed again when it is checked in
+                CachedStatement extra = new CachedStatement(physical.prepareStatement(sql), sql);
+                extra.evicted = true;
+                return extra.checkout(handle, lease);
+            }
+            if (cached == null) {
+                cached = new CachedStatement(physical.prepareStatement(sql), sql);
+                statements.put(sql, cached);
+            }
+            return cached.checkout(handle, lease);
+        }
+
+        private void resetAfterLease() {
+            for (CachedStatement cached : statements.values()) {
+                if (cached.inUse) {
+                    cached.checkin();
+                }
+            }
+            try {
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private void closePhysical() {
+            for (CachedStatement cached : statements.values()) {
+                cached.closeQuietly();
+            }
+            statements.clear();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private final class CachedStatement {
+        private final PreparedStatement target;
+        private final String sql;
+        // Bound values by position, kept for the slow-query log
+        private final List<Object> parameters = new ArrayList<>();
+        private Lease lease;
+        private OpenQuery openQuery;
+        private int generation = 0;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        private PreparedStatement checkout(Connection handle, Lease lease) {
+            this.lease = lease;
+            inUse = true;
+            generation++;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    new StatementHandle(this, handle, generation));
+        }
+
+        private void bind(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+
+        private void finishQuery() {
+            if (openQuery != null) {
+                openQuery.finish();
+                openQuery = null;
+            }
+        }
+
+        private void checkin() {
+            inUse = false;
+            finishQuery();
+            parameters.clear();
+            lease = null;
+            try {
+                target.clearParameters();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            if (evicted) {
+                closeQuietly();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                target.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // What the DAO code sees; closing it puts the compiled statement back in the cache
+    private final class StatementHandle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection handle;
+        private final int generation;
+
+        private StatementHandle(CachedStatement cached, Connection handle, int generation) {
+            this.cached = cached;
+            this.handle = handle;
+            this.generation = generation;
+        }
+
+        private boolean isCurrent() {
+            return cached.inUse && cached.generation == generation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (isCurrent()) {
+                        cached.checkin();
+                    }
+                    return null;
+                case "isClosed":
+                    return !isCurrent();
+                case "getConnection":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (!isCurrent()) {
+                throw new SQLException("Statement has been returned to the cache");
+            }
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                cached.bind(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                cached.parameters.clear();
+            }
+            if (name.equals("executeQuery")) {
+                cached.finishQuery();
+                long startedAt = System.nanoTime();
+                try {
+                    ResultSet rs = (ResultSet) forward(cached.target, method, args);
+                    // Still tracked when stats are off, checkin has to close it to reset the statement
+                    cached.openQuery = new OpenQuery(rs, proxy, cached.lease, cached.sql, cached.parameters, startedAt);
+                    return QueryStats.ENABLED ? cached.openQuery.newHandle() : rs;
+                } catch (Throwable t) {
+                    recordExecution(cached.lease, cached.sql, cached.parameters, startedAt, 0, true);
+                    throw t;
+                }
+            }
+            if (isExecute(name)) {
+                cached.finishQuery();
+                long startedAt = System.nanoTime();
+                boolean failed = true;
+                long rows = 0;
+                try {
+                    Object result = forward(cached.target, method, args);
+                    failed = false;
+                    rows = updateCount(result);
+                    return result;
+                } finally {
+                    recordExecution(cached.lease, cached.sql, cached.parameters, startedAt, rows, failed);
+                }
+            }
+            return forward(cached.target, method, args);
+        }
+    }
+
+    // Statement from createStatement(); the SQL arrives with each execute call
+    private final class PlainStatementHandle implements InvocationHandler {
+        private final Statement target;
+        private final Connection handle;
+        private final Lease lease;
+        private OpenQuery openQuery;
+
+        private PlainStatementHandle(Statement target, Connection handle, Lease lease) {
+            this.target = target;
+            this.handle = handle;
+            this.lease = lease;
+        }
+
+        private void finishQuery() {
+            if (openQuery != null) {
+                openQuery.finish();
+                openQuery = null;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    finishQuery();
+                    target.close();
+                    return null;
+                case "getConnection":
+                    return handle;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (args == null || args.length == 0 || !(args[0] instanceof String sql)
+                    || !(name.equals("executeQuery") || isExecute(name))) {
+                return forward(target, method, args);
+            }
+            finishQuery();
+            long startedAt = System.nanoTime();
+            if (name.equals("executeQuery")) {
+                try {
+                    ResultSet rs = (ResultSet) forward(target, method, args);
+                    openQuery = new OpenQuery(rs, proxy, lease, sql, List.of(), startedAt);
+                    return openQuery.newHandle();
+                } catch (Throwable t) {
+                    recordExecution(lease, sql, List.of(), startedAt, 0, true);
+                    throw t;
+                }
+            }
+            boolean failed = true;
+            long rows = 0;
+            try {
+                Object result = forward(target, method, args);
+                failed = false;
+                rows = updateCount(result);
+                return result;
+            } finally {
+                recordExecution(lease, sql, List.of(), startedAt, rows, failed);
+            }
+        }
+    }
+
+    // The ResultSet of one executeQuery: counts the rows read and records the query once it is
+    // closed, directly or through its statement, so stepping through the rows is part of the time
+    private final class OpenQuery implements InvocationHandler {
+        private final ResultSet target;
+        private final Object statement;
+        private final Lease lease;
+        private final String sql;
+        private final List<Object> parameters;
+        private final long startedAt;
+        private long rows = 0;
+        private boolean finished = false;
+
+        private OpenQuery(ResultSet target, Object statement, Lease lease, String sql, List<Object> parameters, long startedAt) {
+            this.target = target;
+            this.statement = statement;
+            this.lease = lease;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.startedAt = startedAt;
+        }
+
+        private ResultSet newHandle() {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, this);
+        }
+
+        private void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                target.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            recordExecution(lease, sql, parameters, startedAt, rows, false);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    boolean more = target.next();
+                    if (more) {
+                        rows++;
+                    }
+                    return more;
+                case "close":
+                    finish();
+                    return null;
+                case "getStatement":
+                    return statement;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return forward(target, method, args);
+            }
+        }
+    }
+
+    // Waits like PRAGMA busy_timeout, counting each retry
+    private final class CountingBusyHandler extends BusyHandler {
+        private long busySince;
+
+        @Override
+        protected int callback(int previousInvocations) {
+            long now = System.nanoTime();
+            if (previousInvocations == 0) {
+                busySince = now;
+            }
+            int delayMs = BUSY_DELAYS_MS[Math.min(previousInvocations, BUSY_DELAYS_MS.length - 1)];
+            if ((now - busySince) / 1_000_000 + delayMs > BUSY_TIMEOUT_MS) {
+                return 0;
+            }
+            stats.recordBusyRetry();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return 0;
+            }
+            return 1;
+        }
+    }
+}
@@ -2,416 +2,298 @@ package com.example.finding_bd_products;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class DatabaseManager {
-    private static final String DB_URL = "jdbc:sqlite:bd_products.db";
+    private static final String DB_URL = System.getProperty("bdproducts.db.url", "jdbc:sqlite:bd_products.db");
+    private static final int READ_CONNECTIONS = Integer.getInteger("bdproducts.db.readers", 4);
+    public static final int DEFAULT_PAGE_SIZE = 24;
+    // Search results fetched at a time; screens that scroll ask for the next page as they near the end
+    public static final int SEARCH_PAGE_SIZE = 60;
+    // Card columns for listings and search, in the order readSummary reads them; queries alias products as p
+    private static final String SUMMARY_COLUMNS = "p.product_id, p.name, substr(p.description, 1, "
+            + ProductSummary.SHORT_DESCRIPTION_LENGTH + "), p.price, p.unit, p.category, p.image_url,"
+            + " p.recommendation_count, p.review_count, p.rating_sum";
+    private static final int SUMMARY_COLUMN_COUNT = 10;
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    // Rows per INSERT when importing a catalog; 9 parameters each stays under SQLite's classic 999 limit
+    private static final int IMPORT_ROWS_PER_STATEMENT = 100;
+    // Product ids bound in one IN (...) list, also under that limit
+    private static final int IDS_PER_STATEMENT = 500;
+    // Catalog cache bounds: product entries, and products held across all cached lists
+    private static final int CACHED_PRODUCTS = Integer.getInteger("bdproducts.cache.products", 1024);
+    private static final int CACHED_LIST_PRODUCTS = Integer.getInteger("bdproducts.cache.listProducts", 20_000);
+    // Recommendation clicks are written in batches: at least this often, or once this many have piled up
+    private static final long RECOMMENDATION_FLUSH_MS = Long.getLong("bdproducts.recommendations.flushMs", 2000);
+    private static final int RECOMMENDATION_FLUSH_THRESHOLD = Integer.getInteger("bdproducts.recommendations.flushThreshold", 256);
+    // Most writes committed together by the writer thread
+    private static final int WRITE_BATCH_SIZE = Integer.getInteger("bdproducts.db.writeBatch", 128);
     private static DatabaseManager instance;
 
+    private final ConnectionPool pool;
+    private final WriteQueue writes;
+    private final CatalogCache cache = new CatalogCache(CACHED_PRODUCTS, CACHED_LIST_PRODUCTS);
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex(this::loadSearchDocuments);
+    private final RecommendationCounter recommendations =
+            new RecommendationCounter(this::writeRecommendationDeltas, RECOMMENDATION_FLUSH_MS, RECOMMENDATION_FLUSH_THRESHOLD);
+
     private DatabaseManager() {
-        initializeDatabase();
+        try {
+            pool = new ConnectionPool(DB_URL, READ_CONNECTIONS);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not open database " + DB_URL, e);
+        }
+        try {
+            initializeDatabase();
+        } catch (SQLException e) {
+            // Shown on the splash screen; nothing may use a database whose migration failed
+            pool.close();
+            throw new IllegalStateException("Could not update database " + DB_URL + ": " + e.getMessage(), e);
+        }
+        writes = new WriteQueue(pool, WRITE_BATCH_SIZE);
     }
 
-    public static DatabaseManager getInstance() {
+    public static synchronized DatabaseManager getInstance() {
         if (instance == null) {
             instance = new DatabaseManager();
         }
         return instance;
     }
 
+    // Pooled read connection; closing it returns it to the pool
     private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+        return pool.getReadConnection(DatabaseManager::callerOperation);
     }
 
-    private void initializeDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-
-
-            String createProductsTable = """
-                CREATE TABLE IF NOT EXISTS products (
-                    product_id TEXT PRIMARY KEY,
-                    name TEXT NOT NULL,
-                    description TEXT,
-                    price REAL NOT NULL,
-                    unit TEXT,
-                    category TEXT,
-                    image_url TEXT,
-                    vendor_id TEXT,
-                    recommendation_count INTEGER DEFAULT 0,
-                    approval_status TEXT DEFAULT 'pending',
-                    rejection_reason TEXT,
-                    original_product_id TEXT
-                )
-                """;
-            stmt.execute(createProductsTable);
-
-
-            String createReviewsTable = """
-                CREATE TABLE IF NOT EXISTS reviews (
-                    review_id TEXT PRIMARY KEY,
-                    product_id TEXT NOT NULL,
-                    user_name TEXT NOT NULL,
-                    comment TEXT,
-                    rating INTEGER NOT NULL,
-                    FOREIGN KEY (product_id) REFERENCES products(product_id)
-                )
-                """;
-            stmt.execute(createReviewsTable);
-
-            String createFavouritesTable = """
-                CREATE TABLE IF NOT EXISTS favourites (
-                    product_id TEXT PRIMARY KEY,
-                    FOREIGN KEY (product_id) REFERENCES products(product_id)
-                )
-                """;
-            stmt.execute(createFavouritesTable);
-
-            String createFavouriteCategoriesTable = """
-                CREATE TABLE IF NOT EXISTS favourite_categories (
-                    category_name TEXT PRIMARY KEY
-                )
-                """;
-            stmt.execute(createFavouriteCategoriesTable);
-
-            // Users table
-            String createUsersTable = """
-                CREATE TABLE IF NOT EXISTS users (
-                    user_id TEXT PRIMARY KEY,
-                    full_name TEXT NOT NULL,
-                    email TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL,
-                    phone_number TEXT NOT NULL,
-                    date_of_birth TEXT,
-                    gender TEXT,
-                    city TEXT,
-                    profile_picture TEXT,
-                    user_type TEXT DEFAULT 'user'
-                )
-                """;
-            stmt.execute(createUsersTable);
-
-            // Company Vendors table
-            String createCompanyVendorsTable = """
-                CREATE TABLE IF NOT EXISTS company_vendors (
-                    vendor_id TEXT PRIMARY KEY,
-                    full_name TEXT NOT NULL,
-                    designation TEXT NOT NULL,
-                    company_name TEXT NOT NULL,
-                    email TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL,
-                    phone_number TEXT NOT NULL,
-                    company_registration_number TEXT,
-                    bsti_certificate_number TEXT,
-                    company_address TEXT NOT NULL,
-                    tin_number TEXT,
-                    company_logo TEXT,
-                    account_status TEXT DEFAULT 'pending'
-                )
-                """;
-            stmt.execute(createCompanyVendorsTable);
-
-            // Retail Vendors table
-            String createRetailVendorsTable = """
-                CREATE TABLE IF NOT EXISTS retail_vendors (
-                    vendor_id TEXT PRIMARY KEY,
-                    owner_name TEXT NOT NULL,
-                    shop_name TEXT NOT NULL,
-                    email TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL,
-                    phone_number TEXT NOT NULL,
-                    business_registration_number TEXT,
-                    trade_license_number TEXT,
-                    shop_address TEXT NOT NULL,
-                    tin_number TEXT,
-                    shop_logo TEXT,
-                    account_status TEXT DEFAULT 'pending'
-                )
-                """;
-            stmt.execute(createRetailVendorsTable);
-
-            // Admin table
-            String createAdminTable = """
-                CREATE TABLE IF NOT EXISTS admins (
-                    admin_id TEXT PRIMARY KEY,
-                    email TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL
-                )
-                """;
-            stmt.execute(createAdminTable);
-
-            // Notifications table
-            String createNotificationsTable = """
-                CREATE TABLE IF NOT EXISTS notifications (
-                    notification_id TEXT PRIMARY KEY,
-                    vendor_id TEXT NOT NULL,
-                    product_id TEXT,
-                    message TEXT NOT NULL,
-                    type TEXT NOT NULL,
-                    is_read INTEGER DEFAULT 0,
-                    created_at TEXT NOT NULL
-                )
-                """;
-            stmt.execute(createNotificationsTable);
-
-            // Migrate existing products table to add vendor_id column if it doesn't exist
-            try {
-                stmt.execute("ALTER TABLE products ADD COLUMN vendor_id TEXT");
-                System.out.println("Added vendor_id column to products table");
-            } catch (SQLException e) {
-                // Column already exists, ignore
-                if (!e.getMessage().contains("duplicate column")) {
-                    System.out.println("vendor_id column already exists or migration not needed");
-                }
-            }
+    // The single writer connection; only used directly while the database is opened and migrated
+    private Connection getWriteConnection() throws SQLException {
+        return pool.getWriteConnection(DatabaseManager::callerOperation);
+    }
 
-            // Migrate existing products table to add approval_status column if it doesn't exist
-            try {
-                stmt.execute("ALTER TABLE products ADD COLUMN approval_status TEXT DEFAULT 'pending'");
-                System.out.println("Added approval_status column to products table");
-                // Update all existing products to approved status
-                stmt.execute("UPDATE products SET approval_status = 'approved' WHERE approval_status IS NULL OR approval_status = 'pending'");
-                System.out.println("Updated existing products to approved status");
-            } catch (SQLException e) {
-                // Column already exists, ignore
-                if (!e.getMessage().contains("duplicate column")) {
-                    System.out.println("approval_status column already exists or migration not needed");
-                }
-            }
+    // Every method that modifies the database goes through here: the command runs on the writer
+    // thread and this returns once the group commit it was part of is on disk. Cache invalidation
+    // belongs after the call, so readers cannot reload the old row before the commit.
+    private <T> T write(WriteQueue.Command<T> command) throws SQLException {
+        return writes.execute(QueryStats.ENABLED ? callerOperation() : null, command);
+    }
+
+    // Queues the command without waiting for it, for writes the caller doesn't need to see
+    // finish. Writes queued one after the other are committed in that order.
+    private <T> CompletableFuture<T> writeLater(WriteQueue.Command<T> command) {
+        return writes.submit(QueryStats.ENABLED ? callerOperation() : null, command);
+    }
 
-            // Migrate existing products table to add rejection_reason column if it doesn't exist
-            try {
-                stmt.execute("ALTER TABLE products ADD COLUMN rejection_reason TEXT");
-                System.out.println("Added rejection_reason column to products table");
-            } catch (SQLException e) {
-                // Column already exists, ignore
-                if (!e.getMessage().contains("duplicate column")) {
-                    System.out.println("rejection_reason column already exists or migration not needed");
+    // Inside a write command: runs the action once the command is committed
+    private void afterCommit(Runnable action) {
+        writes.afterCommit(action);
+    }
+
+    // Name of the DAO method a connection is taken for, for QueryStats: the outermost DatabaseManager
+    // frame of the call, so loaders run through the cache count under the public method that asked
+    private static String callerOperation() {
+        return STACK_WALKER.walk(frames -> {
+            String operation = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (className.equals(DatabaseManager.class.getName())) {
+                    if (!frame.getMethodName().startsWith("lambda$")) {
+                        operation = frame.getMethodName();
+                    }
+                } else if (operation != null && !className.equals(CatalogCache.class.getName())
+                        && !className.startsWith(ConnectionPool.class.getName())) {
+                    break;
                 }
             }
+            return operation;
+        });
+    }
 
-            // Create default admin if not exists
-            createDefaultAdmin();
+    public QueryStats getQueryStats() {
+        return pool.getStats();
+    }
 
-            if (isProductsTableEmpty()) {
-                seedInitialData();
-            }
+    public CatalogCache getCatalogCache() {
+        return cache;
+    }
 
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    // Writes out buffered recommendation clicks and queued writes, then closes the pooled connections (which checkpoints the WAL file)
+    public void shutdown() {
+        recommendations.close();
+        writes.close();
+        System.out.println("Recommendations: " + recommendations.stats());
+        System.out.println("Writes: " + writes.stats());
+        System.out.println("Catalog cache: " + cache.stats());
+        System.out.println(pool.getStats().report());
+        pool.close();
     }
 
-    private boolean isProductsTableEmpty() throws SQLException {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM products")) {
-            if (rs.next()) {
-                return rs.getInt(1) == 0;
+    // Failures propagate: a database left half migrated must not be used
+    private void initializeDatabase() throws SQLException {
+        try (Connection conn = getWriteConnection()) {
+            // Only migrations newer than the stored PRAGMA user_version are applied
+            int applied = SchemaMigrations.migrate(conn);
+            System.out.println("Database schema at version " + SchemaMigrations.currentVersion(conn)
+                    + " (" + applied + " migration(s) applied)");
+
+            // Decided by what is in the database rather than its schema version, so a database
+            // that lost its admin, or was created empty by another tool, still gets them
+            if (!exists(conn, "SELECT 1 FROM admins LIMIT 1")) {
+                createDefaultAdmin(conn);
+            }
+            // The demo catalog only goes into an empty catalog that never had it
+            if (!exists(conn, "SELECT 1 FROM products LIMIT 1")
+                    && !exists(conn, "SELECT 1 FROM company_vendors WHERE vendor_id = '" + SEED_VENDORS.get(0).vendorId() + "'")) {
+                seedInitialData(conn);
             }
         }
-        return true;
     }
 
-    private void seedInitialData() {
-        // First, create vendor records for manufacturers
-        seedVendors();
-        
-        // Then create products with vendor references
-        insertProductWithVendor("mojo", "Mojo", "Soft Drink", 25, "250ml", "Beverages", "/images/mojo.jpg", "vendor-akij-food");
-        insertProductWithVendor("mediplus", "Mediplus DS", "Toothpaste", 85, "100g", "Oral Care", "/images/mediplus.jpg", "vendor-anfords");
-        insertProductWithVendor("spa-water", "Spa Drinking Water", "Water", 20, "500ml", "Beverages", "/images/spa-water.jpg", "vendor-akij-food");
-        insertProductWithVendor("meril-soap", "Meril Milk Soap", "Moisturizing Soap", 35, "75g", "Skin Care", "/images/meril-soap.jpg", "vendor-square-toiletries");
-        insertProductWithVendor("shezan-juice", "Shezan Mango Juice", "Mango Juice", 35, "200ml", "Beverages", "/images/shezan-juice.jpg", "vendor-sajeeb");
-        insertProductWithVendor("pran-potata", "Pran Potata Spicy", "Biscuit", 40, "pack", "Snacks", "/images/pran-potata.jpg", "vendor-pran-rfl");
-        insertProductWithVendor("ruchi-chanachur", "Ruchi BBQ Chanachur", "Snack", 30, "150g", "Snacks", "/images/ruchi-chanachur.jpg", "vendor-square-food");
-        insertProductWithVendor("bashundhara-towel", "Bashundhara Towel", "Hand Towel", 80, "pack", "Home Care", "/images/bashundhara-towel.jpg", "vendor-bashundhara");
-        insertProductWithVendor("revive-lotion", "Revive Perfect Skin", "Moisturizing Lotion", 150, "100ml", "Skin Care", "/images/revive-lotion.jpg", "vendor-square-toiletries");
-        insertProductWithVendor("jui-oil", "Jui HairCare Oil", "Hair Oil", 95, "200ml", "Hair Care", "/images/jui-oil.jpg", "vendor-square-toiletries");
-        insertProductWithVendor("radhuni-tumeric", "Radhuni Tumeric", "Powder", 55, "100g", "Food & Grocery", "/images/radhuni-tumeric.jpg", "vendor-square-food");
-        insertProductWithVendor("pran-ghee", "Pran Premium Ghee", "Cooking Ghee", 250, "500g", "Food & Grocery", "/images/pran-ghee.jpg", "vendor-pran-dairy");
-
-
-        insertReview("r1", "mojo", "Ahmed Khan", "Great energy drink! Very refreshing.", 5);
-        insertReview("r2", "mojo", "Fatima Rahman", "Good taste but a bit sweet.", 4);
-        updateRecommendationCount("mojo", 15);
-
-        insertReview("r3", "meril-soap", "Sadia Islam", "Makes my skin very soft!", 5);
-        updateRecommendationCount("meril-soap", 23);
-
-        insertReview("r4", "shezan-juice", "Karim Hossain", "Love the mango flavor!", 5);
-        updateRecommendationCount("shezan-juice", 18);
-    }
-    
-    private void seedVendors() {
-        // Create company vendor records for the manufacturers
-        String sql = "INSERT OR IGNORE INTO company_vendors (vendor_id, full_name, designation, company_name, email, password, phone_number, company_registration_number, bsti_certificate_number, company_address, tin_number, account_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            // Akij Food & Beverage Ltd.
-            pstmt.setString(1, "vendor-akij-food");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Akij Food & Beverage Ltd.");
-            pstmt.setString(5, "contact@akijfood.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111111");
-            pstmt.setString(8, "CR-001");
-            pstmt.setString(9, "BSTI-001");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-001");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // Anfords Bangladesh Ltd.
-            pstmt.setString(1, "vendor-anfords");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Anfords Bangladesh Ltd.");
-            pstmt.setString(5, "contact@anfords.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111112");
-            pstmt.setString(8, "CR-002");
-            pstmt.setString(9, "BSTI-002");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-002");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // Square Toiletries Ltd.
-            pstmt.setString(1, "vendor-square-toiletries");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Square Toiletries Ltd.");
-            pstmt.setString(5, "contact@squaretoiletries.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111113");
-            pstmt.setString(8, "CR-003");
-            pstmt.setString(9, "BSTI-003");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-003");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // Sajeeb Group
-            pstmt.setString(1, "vendor-sajeeb");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Sajeeb Group");
-            pstmt.setString(5, "contact@sajeeb.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111114");
-            pstmt.setString(8, "CR-004");
-            pstmt.setString(9, "BSTI-004");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-004");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // PRAN-RFL Group
-            pstmt.setString(1, "vendor-pran-rfl");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "PRAN-RFL Group");
-            pstmt.setString(5, "contact@pranrfl.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111115");
-            pstmt.setString(8, "CR-005");
-            pstmt.setString(9, "BSTI-005");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-005");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // Square Food & Beverage Limited
-            pstmt.setString(1, "vendor-square-food");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Square Food & Beverage Limited");
-            pstmt.setString(5, "contact@squarefood.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111116");
-            pstmt.setString(8, "CR-006");
-            pstmt.setString(9, "BSTI-006");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-006");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // Bashundhara Paper Mills PLC
-            pstmt.setString(1, "vendor-bashundhara");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "Bashundhara Paper Mills PLC");
-            pstmt.setString(5, "contact@bashundhara.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111117");
-            pstmt.setString(8, "CR-007");
-            pstmt.setString(9, "BSTI-007");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-007");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            // PRAN Dairy Ltd.
-            pstmt.setString(1, "vendor-pran-dairy");
-            pstmt.setString(2, "Admin");
-            pstmt.setString(3, "Managing Director");
-            pstmt.setString(4, "PRAN Dairy Ltd.");
-            pstmt.setString(5, "contact@prandairy.com");
-            pstmt.setString(6, "password123");
-            pstmt.setString(7, "01711111118");
-            pstmt.setString(8, "CR-008");
-            pstmt.setString(9, "BSTI-008");
-            pstmt.setString(10, "Dhaka, Bangladesh");
-            pstmt.setString(11, "TIN-008");
-            pstmt.setString(12, "approved");
-            pstmt.executeUpdate();
-            
-            System.out.println("Vendor seed data inserted successfully");
-            
-        } catch (SQLException e) {
-            System.err.println("Error seeding vendors: " + e.getMessage());
-            e.printStackTrace();
+    private static boolean exists(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next();
         }
     }
-    
-    private void insertProductWithVendor(String productId, String name, String description, double price, String unit, String category, String imageUrl, String vendorId) {
-        String sql = "INSERT OR REPLACE INTO products (product_id, name, description, price, unit, category, image_url, vendor_id, recommendation_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.setString(2, name);
-            pstmt.setString(3, description);
-            pstmt.setDouble(4, price);
-            pstmt.setString(5, unit);
-            pstmt.setString(6, category);
-            pstmt.setString(7, imageUrl);
-            pstmt.setString(8, vendorId);
-            pstmt.executeUpdate();
+
+    // Demo catalog for a new database: manufacturers, their products and a few reviews
+    private record SeedVendor(String vendorId, String companyName, String email) {
+    }
+
+    private record SeedProduct(String productId, String name, String description, double price, String unit,
+                               String category, String imageUrl, String vendorId, int recommendationCount) {
+    }
+
+    private record SeedReview(String reviewId, String productId, String userName, String comment, int rating) {
+    }
+
+    private static final List<SeedVendor> SEED_VENDORS = List.of(
+            new SeedVendor("vendor-akij-food", "Akij Food & Beverage Ltd.", "contact@akijfood.com"),
+            new SeedVendor("vendor-anfords", "Anfords Bangladesh Ltd.", "contact@anfords.com"),
+            new SeedVendor("vendor-square-toiletries", "Square Toiletries Ltd.", "contact@squaretoiletries.com"),
+            new SeedVendor("vendor-sajeeb", "Sajeeb Group", "contact@sajeeb.com"),
+            new SeedVendor("vendor-pran-rfl", "PRAN-RFL Group", "contact@pranrfl.com"),
+            new SeedVendor("vendor-square-food", "Square Food & Beverage Limited", "contact@squarefood.com"),
+            new SeedVendor("vendor-bashundhara", "Bashundhara Paper Mills PLC", "contact@bashundhara.com"),
+            new SeedVendor("vendor-pran-dairy", "PRAN Dairy Ltd.", "contact@prandairy.com"));
+
+    private static final List<SeedProduct> SEED_PRODUCTS = List.of(
+            new SeedProduct("mojo", "Mojo", "Soft Drink", 25, "250ml", "Beverages", "/images/mojo.jpg", "vendor-akij-food", 15),
+            new SeedProduct("mediplus", "Mediplus DS", "Toothpaste", 85, "100g", "Oral Care", "/images/mediplus.jpg", "vendor-anfords", 0),
+            new SeedProduct("spa-water", "Spa Drinking Water", "Water", 20, "500ml", "Beverages", "/images/spa-water.jpg", "vendor-akij-food", 0),
+            new SeedProduct("meril-soap", "Meril Milk Soap", "Moisturizing Soap", 35, "75g", "Skin Care", "/images/meril-soap.jpg", "vendor-square-toiletries", 23),
+            new SeedProduct("shezan-juice", "Shezan Mango Juice", "Mango Juice", 35, "200ml", "Beverages", "/images/shezan-juice.jpg", "vendor-sajeeb", 18),
+            new SeedProduct("pran-potata", "Pran Potata Spicy", "Biscuit", 40, "pack", "Snacks", "/images/pran-potata.jpg", "vendor-pran-rfl", 0),
+            new SeedProduct("ruchi-chanachur", "Ruchi BBQ Chanachur", "Snack", 30, "150g", "Snacks", "/images/ruchi-chanachur.jpg", "vendor-square-food", 0),
+            new SeedProduct("bashundhara-towel", "Bashundhara Towel", "Hand Towel", 80, "pack", "Home Care", "/images/bashundhara-towel.jpg", "vendor-bashundhara", 0),
+            new SeedProduct("revive-lotion", "Revive Perfect Skin", "Moisturizing Lotion", 150, "100ml", "Skin Care", "/images/revive-lotion.jpg", "vendor-square-toiletries", 0),
+            new SeedProduct("jui-oil", "Jui HairCare Oil", "Hair Oil", 95, "200ml", "Hair Care", "/images/jui-oil.jpg", "vendor-square-toiletries", 0),
+            new SeedProduct("radhuni-tumeric", "Radhuni Tumeric", "Powder", 55, "100g", "Food & Grocery", "/images/radhuni-tumeric.jpg", "vendor-square-food", 0),
+            new SeedProduct("pran-ghee", "Pran Premium Ghee", "Cooking Ghee", 250, "500g", "Food & Grocery", "/images/pran-ghee.jpg", "vendor-pran-dairy", 0));
+
+    private static final List<SeedReview> SEED_REVIEWS = List.of(
+            new SeedReview("r1", "mojo", "Ahmed Khan", "Great energy drink! Very refreshing.", 5),
+            new SeedReview("r2", "mojo", "Fatima Rahman", "Good taste but a bit sweet.", 4),
+            new SeedReview("r3", "meril-soap", "Sadia Islam", "Makes my skin very soft!", 5),
+            new SeedReview("r4", "shezan-juice", "Karim Hossain", "Love the mango flavor!", 5));
+
+    // Writes the whole demo catalog as three statement batches in one transaction
+    private void seedInitialData(Connection conn) throws SQLException {
+        String vendorSql = "INSERT OR IGNORE INTO company_vendors (vendor_id, full_name, designation, company_name, email, password, phone_number, company_registration_number, bsti_certificate_number, company_address, tin_number, account_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String productSql = "INSERT OR REPLACE INTO products (product_id, name, description, price, unit, category, image_url, vendor_id, recommendation_count, approval_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'approved')";
+        String reviewSql = "INSERT OR REPLACE INTO reviews (review_id, product_id, user_name, comment, rating) VALUES (?, ?, ?, ?, ?)";
+        conn.setAutoCommit(false);
+        try {
+            try (PreparedStatement pstmt = conn.prepareStatement(vendorSql)) {
+                int number = 1;
+                for (SeedVendor vendor : SEED_VENDORS) {
+                    pstmt.setString(1, vendor.vendorId());
+                    pstmt.setString(2, "Admin");
+                    pstmt.setString(3, "Managing Director");
+                    pstmt.setString(4, vendor.companyName());
+                    pstmt.setString(5, vendor.email());
+                    pstmt.setString(6, "password123");
+                    pstmt.setString(7, "0171111111" + number);
+                    pstmt.setString(8, "CR-00" + number);
+                    pstmt.setString(9, "BSTI-00" + number);
+                    pstmt.setString(10, "Dhaka, Bangladesh");
+                    pstmt.setString(11, "TIN-00" + number);
+                    pstmt.setString(12, "approved");
+                    pstmt.addBatch();
+                    number++;
+                }
+                pstmt.executeBatch();
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(productSql)) {
+                for (SeedProduct product : SEED_PRODUCTS) {
+                    pstmt.setString(1, product.productId());
+                    pstmt.setString(2, product.name());
+                    pstmt.setString(3, product.description());
+                    pstmt.setDouble(4, product.price());
+                    pstmt.setString(5, product.unit());
+                    pstmt.setString(6, product.category());
+                    pstmt.setString(7, product.imageUrl());
+                    pstmt.setString(8, product.vendorId());
+                    pstmt.setInt(9, product.recommendationCount());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(reviewSql)) {
+                for (SeedReview review : SEED_REVIEWS) {
+                    pstmt.setString(1, review.reviewId());
+                    pstmt.setString(2, review.productId());
+                    pstmt.setString(3, review.userName());
+                    pstmt.setString(4, review.comment());
+                    pstmt.setInt(5, review.rating());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            for (SeedReview review : SEED_REVIEWS) {
+                adjustRatingAggregate(conn, review.productId(), review.rating(), 1);
+            }
+            conn.commit();
         } catch (SQLException e) {
-            e.printStackTrace();
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
         }
+        System.out.println("Seed data inserted: " + SEED_VENDORS.size() + " vendors, "
+                + SEED_PRODUCTS.size() + " products, " + SEED_REVIEWS.size() + " reviews");
     }
 
-
     public void insertProduct(String productId, String name, String description, double price, String unit, String category, String imageUrl) {
         String sql = "INSERT OR REPLACE INTO products (product_id, name, description, price, unit, category, image_url) VALUES (?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.setString(2, name);
-            pstmt.setString(3, description);
-            pstmt.setDouble(4, price);
-            pstmt.setString(5, unit);
-            pstmt.setString(6, category);
-            pstmt.setString(7, imageUrl);
-            pstmt.executeUpdate();
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, productId);
+                    pstmt.setString(2, name);
+                    pstmt.setString(3, description);
+                    pstmt.setDouble(4, price);
+                    pstmt.setString(5, unit);
+                    pstmt.setString(6, category);
+                    pstmt.setString(7, imageUrl);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        cache.invalidateListing(productId, category, null);
+        searchIndex.markChanged(productId);
     }
 
     // Backward compatibility method without imageUrl
@@ -420,43 +302,72 @@ public class DatabaseManager {
     }
 
     public Product getProduct(String productId) {
-        String sql = "SELECT * FROM products WHERE product_id = ?";
+        return getProductDetails(productId);
+    }
+
+    // The cached product keeps the stored recommendation count; callers get a copy with the clicks added
+    public Product getProductDetails(String productId) {
+        Product cached = cache.getProduct(productId, () -> loadProductDetails(productId));
+        if (cached == null) {
+            return null;
+        }
+        Product product = new Product(cached);
+        product.setRecommendationCount(recommendations.merge(productId, cached.getRecommendationCount()));
+        return product;
+    }
+
+    // Product, manufacturer name and all reviews in a single joined query on one connection.
+    // The product columns repeat on every review row; the LEFT JOIN keeps products without reviews.
+    private Product loadProductDetails(String productId) {
+        String sql = """
+            SELECT p.product_id, p.name, p.description, p.price, p.unit, p.category, p.image_url,
+                   p.vendor_id, p.recommendation_count, p.approval_status, p.rejection_reason,
+                   p.original_product_id, p.review_count, p.rating_sum,
+                   p.rating_1, p.rating_2, p.rating_3, p.rating_4, p.rating_5,
+                   COALESCE(cv.company_name, rv.shop_name) AS manufacturer_name,
+                   r.review_id, r.user_name, r.comment, r.rating
+            FROM products p
+            LEFT JOIN company_vendors cv ON cv.vendor_id = p.vendor_id
+            LEFT JOIN retail_vendors rv ON rv.vendor_id = p.vendor_id
+            LEFT JOIN reviews r ON r.product_id = p.product_id
+            WHERE p.product_id = ?
+            """;
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, productId);
             ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                Product product = new Product(
-                        rs.getString("product_id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getString("unit"),
-                        rs.getString("category"),
-                        rs.getString("image_url")
-                );
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
-                
-                // Get vendor_id (might be null for old products)
-                String vendorId = rs.getString("vendor_id");
-                product.setVendorId(vendorId);
-                
-                // Get manufacturer name from vendor (only if vendor_id exists)
-                if (vendorId != null && !vendorId.isEmpty()) {
-                    String manufacturerName = getManufacturerName(vendorId);
-                    product.setManufacturerName(manufacturerName);
-                } else {
-                    product.setManufacturerName("Unknown Manufacturer");
+            Product product = null;
+            List<Review> reviews = new ArrayList<>();
+            while (rs.next()) {
+                if (product == null) {
+                    product = new Product(
+                            rs.getString(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            rs.getDouble(4),
+                            rs.getString(5),
+                            rs.getString(6),
+                            rs.getString(7)
+                    );
+                    product.setVendorId(rs.getString(8));
+                    product.setRecommendationCount(rs.getInt(9));
+                    product.setApprovalStatus(rs.getString(10));
+                    product.setRejectionReason(rs.getString(11));
+                    product.setOriginalProductId(rs.getString(12));
+                    // The rating comes from the row's aggregate columns, not from counting the reviews
+                    readRatingAggregate(rs, product);
+                    String manufacturerName = rs.getString(20);
+                    product.setManufacturerName(manufacturerName != null ? manufacturerName : "Unknown Manufacturer");
                 }
-
-                // Load reviews
-                List<Review> reviews = getReviewsForProduct(productId);
-                for (Review review : reviews) {
-                    product.addReview(review);
+                String reviewId = rs.getString(21);
+                if (reviewId != null) {
+                    reviews.add(new Review(reviewId, productId, rs.getString(22), rs.getString(23), rs.getInt(24)));
                 }
-
-                return product;
             }
+            if (product != null) {
+                product.setReviews(reviews);
+            }
+            return product;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -499,25 +410,19 @@ public class DatabaseManager {
         return getManufacturerName(vendorId);
     }
 
-    public List<Product> getAllProducts() {
-        List<Product> products = new ArrayList<>();
+    public List<ProductSummary> getAllProducts() {
+        return withRecommendations(cache.getList("all", this::loadAllProducts, CatalogCache.SCOPE_APPROVED));
+    }
+
+    private List<ProductSummary> loadAllProducts() {
+        List<ProductSummary> products = new ArrayList<>();
         // Show approved products that are not pending edits (original_product_id IS NULL)
-        String sql = "SELECT * FROM products WHERE approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')";
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')";
         try (Connection conn = getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Product product = new Product(
-                        rs.getString("product_id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getString("unit"),
-                        rs.getString("category"),
-                        rs.getString("image_url")
-                );
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
-                products.add(product);
+                products.add(readSummary(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -525,25 +430,20 @@ public class DatabaseManager {
         return products;
     }
 
-    public List<Product> getProductsByCategory(String category) {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE category = ? AND approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')";
+    public List<ProductSummary> getProductsByCategory(String category) {
+        return withRecommendations(cache.getList("category:" + category, () -> loadProductsByCategory(category),
+                CatalogCache.SCOPE_APPROVED, CatalogCache.categoryScope(category)));
+    }
+
+    private List<ProductSummary> loadProductsByCategory(String category) {
+        List<ProductSummary> products = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE category = ? AND approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')";
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, category);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Product product = new Product(
-                        rs.getString("product_id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getString("unit"),
-                        rs.getString("category"),
-                        rs.getString("image_url")
-                );
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
-                products.add(product);
+                products.add(readSummary(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -551,37 +451,260 @@ public class DatabaseManager {
         return products;
     }
 
-    public void updateRecommendationCount(String productId, int count) {
-        String sql = "UPDATE products SET recommendation_count = ? WHERE product_id = ?";
+    // The approved, non-edit products added last, newest first. SQLite gives rows increasing
+    // rowids as they are inserted, so this walks the table backwards from its last row and stops
+    // after limit matches, however large the catalog; the unary + keeps the planner from using
+    // the approval_status indexes, which would read every approved product and sort them.
+    public List<ProductSummary> getNewestProducts(int limit) {
+        return withRecommendations(cache.getList("newest:" + limit, () -> loadNewestProducts(limit), CatalogCache.SCOPE_APPROVED));
+    }
+
+    private List<ProductSummary> loadNewestProducts(int limit) {
+        List<ProductSummary> products = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE +approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')"
+                + " ORDER BY p.rowid DESC LIMIT ?";
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setInt(1, count);
-            pstmt.setString(2, productId);
-            pstmt.executeUpdate();
+            pstmt.setInt(1, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                products.add(readSummary(rs));
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return products;
     }
 
-    public void incrementRecommendationCount(String productId) {
-        String sql = "UPDATE products SET recommendation_count = recommendation_count + 1 WHERE product_id = ?";
+    // ============ Paginated Listing Methods ============
+    // Keyset pagination: each page continues after the last product_id of the previous one,
+    // so fetching page k costs the same as fetching the first page.
+
+    public ProductPage getApprovedProductsPage(String afterProductId, int pageSize) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')"
+                + (afterProductId != null ? " AND product_id > ?" : "")
+                + " ORDER BY product_id LIMIT ?";
+        return withRecommendations(cache.getPage("page:all:" + afterProductId + ":" + pageSize,
+                () -> queryProductPage(sql, pageSize, afterProductId), CatalogCache.SCOPE_APPROVED));
+    }
+
+    public ProductPage getProductsByCategoryPage(String category, String afterProductId, int pageSize) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE approval_status = 'approved' AND category = ? AND (original_product_id IS NULL OR original_product_id = '')"
+                + (afterProductId != null ? " AND product_id > ?" : "")
+                + " ORDER BY product_id LIMIT ?";
+        return withRecommendations(cache.getPage("page:category:" + category + ":" + afterProductId + ":" + pageSize,
+                () -> queryProductPage(sql, pageSize, category, afterProductId),
+                CatalogCache.SCOPE_APPROVED, CatalogCache.categoryScope(category)));
+    }
+
+    // Approved, non-edit products of one vendor, as shown on the vendor dashboard
+    public ProductPage getApprovedProductsByVendorPage(String vendorId, String afterProductId, int pageSize) {
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE vendor_id = ? AND approval_status = 'approved' AND (original_product_id IS NULL OR original_product_id = '')"
+                + (afterProductId != null ? " AND product_id > ?" : "")
+                + " ORDER BY product_id LIMIT ?";
+        return withRecommendations(cache.getPage("page:vendor:" + vendorId + ":" + afterProductId + ":" + pageSize,
+                () -> queryProductPage(sql, pageSize, vendorId, afterProductId),
+                CatalogCache.SCOPE_APPROVED, CatalogCache.vendorScope(vendorId)));
+    }
+
+    // Binds the non-null params in order, then LIMIT pageSize + 1 to find out whether another page exists
+    private ProductPage queryProductPage(String sql, int pageSize, String... params) {
+        List<ProductSummary> products = new ArrayList<>();
+        String nextCursor = null;
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.executeUpdate();
+            int index = 1;
+            for (String param : params) {
+                if (param != null) {
+                    pstmt.setString(index++, param);
+                }
+            }
+            pstmt.setInt(index, pageSize + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                if (products.size() == pageSize) {
+                    nextCursor = products.get(products.size() - 1).productId();
+                    break;
+                }
+                products.add(readSummary(rs));
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return new ProductPage(products, nextCursor);
     }
 
-    public void decrementRecommendationCount(String productId) {
-        String sql = "UPDATE products SET recommendation_count = recommendation_count - 1 WHERE product_id = ? AND recommendation_count > 0";
+    // ============ Search ============
+    // Ranked search over ProductSearchIndex (name, category, manufacturer, product id, description),
+    // which only holds approved, non-edit products; the scoped variants add one more filter.
+    // The index picks the products, then their cards are read in one query.
+
+    public List<SearchHit> searchProducts(String query, int limit, int offset) {
+        return querySearch(query, ProductSearchIndex.Scope.ALL, limit, offset);
+    }
+
+    public List<SearchHit> searchProductsInCategory(String query, String category, int limit, int offset) {
+        return querySearch(query, ProductSearchIndex.Scope.category(category), limit, offset);
+    }
+
+    public List<SearchHit> searchVendorProducts(String query, String vendorId, int limit, int offset) {
+        return querySearch(query, ProductSearchIndex.Scope.vendor(vendorId), limit, offset);
+    }
+
+    public List<SearchHit> searchFavouriteProducts(String userId, String query, int limit, int offset) {
+        return querySearch(query, ProductSearchIndex.Scope.products(getFavouriteProductIds(userId)), limit, offset);
+    }
+
+    // Builds the search index now, so the first search doesn't wait for it
+    public void warmUpSearchIndex() {
+        searchIndex.warmUp();
+    }
+
+    private List<SearchHit> querySearch(String query, ProductSearchIndex.Scope scope, int limit, int offset) {
+        List<ProductSearchIndex.Match> matches = searchIndex.search(query, scope, limit, offset);
+        List<SearchHit> hits = new ArrayList<>(matches.size());
+        if (matches.isEmpty()) {
+            return hits;
+        }
+        List<String> productIds = new ArrayList<>(matches.size());
+        for (ProductSearchIndex.Match match : matches) {
+            productIds.add(match.productId());
+        }
+        Map<String, ProductSummary> summaries = new HashMap<>();
+        forEachChunk(productIds, "SELECT " + SUMMARY_COLUMNS + " FROM products p WHERE p.product_id IN (%s)", rs -> {
+            ProductSummary summary = withRecommendations(readSummary(rs));
+            summaries.put(summary.productId(), summary);
+        });
+        // A product removed since the index last caught up has no row any more and is left out
+        for (ProductSearchIndex.Match match : matches) {
+            ProductSummary summary = summaries.get(match.productId());
+            if (summary != null) {
+                hits.add(new SearchHit(summary, match.rank()));
+            }
+        }
+        return hits;
+    }
+
+    // What the search index keeps of the approved, non-edit products among productIds, or of all of them
+    private boolean loadSearchDocuments(Collection<String> productIds, Consumer<ProductSearchIndex.Document> sink) {
+        String sql = """
+            SELECT p.product_id, p.name, substr(p.description, 1, %d), p.category,
+                   COALESCE(cv.company_name, rv.shop_name), p.vendor_id
+            FROM products p
+            LEFT JOIN company_vendors cv ON cv.vendor_id = p.vendor_id
+            LEFT JOIN retail_vendors rv ON rv.vendor_id = p.vendor_id
+            WHERE p.approval_status = 'approved' AND (p.original_product_id IS NULL OR p.original_product_id = '')
+            """.formatted(ProductSummary.SHORT_DESCRIPTION_LENGTH);
+        ResultReader reader = rs -> sink.accept(new ProductSearchIndex.Document(rs.getString(1), rs.getString(2),
+                rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)));
+        if (productIds != null) {
+            return forEachChunk(new ArrayList<>(productIds), sql + " AND p.product_id IN (%s)", reader);
+        }
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.executeUpdate();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                reader.read(rs);
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private interface ResultReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    // Runs sql once per chunk of productIds, with %s replaced by a placeholder for each; false if a query failed
+    private boolean forEachChunk(List<String> productIds, String sql, ResultReader reader) {
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < productIds.size(); from += IDS_PER_STATEMENT) {
+                List<String> chunk = productIds.subList(from, Math.min(productIds.size(), from + IDS_PER_STATEMENT));
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        sql.formatted(String.join(", ", Collections.nCopies(chunk.size(), "?"))))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        reader.read(rs);
+                    }
+                }
+            }
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Goes through the counter, which drops the clicks buffered for the product and remembers the
+    // new count, so cached copies of the old one are corrected on the way out
+    public void updateRecommendationCount(String productId, int count) {
+        recommendations.set(productId, count, this::writeRecommendationCount);
+    }
+
+    private boolean writeRecommendationCount(String productId, int count) {
+        String sql = "UPDATE products SET recommendation_count = ? WHERE product_id = ?";
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setInt(1, count);
+                    pstmt.setString(2, productId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Clicks are buffered in the counter, and reads add them to whatever the cache holds,
+    // so a click leaves the cached product and the lists it is in alone
+    public void incrementRecommendationCount(String productId) {
+        recommendations.add(productId, 1);
+    }
+
+    public void decrementRecommendationCount(String productId) {
+        recommendations.add(productId, -1);
+    }
+
+    public void flushRecommendationCounts() {
+        recommendations.flush();
+    }
+
+    // RecommendationCounter's writer: applies every buffered delta as one write command
+    private boolean writeRecommendationDeltas(Map<String, Long> deltas, Map<String, Long> committedCounts) {
+        String selectSql = "SELECT recommendation_count FROM products WHERE product_id = ?";
+        String updateSql = "UPDATE products SET recommendation_count = ? WHERE product_id = ?";
+        try {
+            return write(conn -> {
+                try (PreparedStatement selectStmt = conn.prepareStatement(selectSql);
+                     PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                    for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                        selectStmt.setString(1, entry.getKey());
+                        ResultSet rs = selectStmt.executeQuery();
+                        if (!rs.next()) {
+                            continue;
+                        }
+                        // Never below zero, like the old per-click decrement
+                        long count = Math.max(0, rs.getLong(1) + entry.getValue());
+                        rs.close();
+                        committedCounts.put(entry.getKey(), count);
+                        updateStmt.setLong(1, count);
+                        updateStmt.setString(2, entry.getKey());
+                        updateStmt.addBatch();
+                    }
+                    updateStmt.executeBatch();
+                    return true;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
         }
     }
 
@@ -603,7 +726,8 @@ public class DatabaseManager {
                         rs.getString("image_url")
                 );
                 product.setVendorId(rs.getString("vendor_id"));
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
+                product.setRecommendationCount(recommendations.merge(product.getProductId(), rs.getInt("recommendation_count")));
+                readRatingAggregate(rs, product);
                 product.setApprovalStatus(rs.getString("approval_status"));
                 product.setOriginalProductId(rs.getString("original_product_id"));
                 products.add(product);
@@ -615,45 +739,65 @@ public class DatabaseManager {
     }
 
     public boolean approveProduct(String productId) {
-        try (Connection conn = getConnection()) {
-            // Check if this is an edited product
-            String checkSql = "SELECT original_product_id, name, description, price, unit, category, image_url FROM products WHERE product_id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setString(1, productId);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    String originalProductId = rs.getString("original_product_id");
+        try {
+            return write(conn -> {
+                // Check if this is an edited product
+                String checkSql = "SELECT original_product_id, name, description, price, unit, category, image_url, vendor_id, import_hash FROM products WHERE product_id = ?";
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+                    checkStmt.setString(1, productId);
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        String originalProductId = rs.getString("original_product_id");
+                        String category = rs.getString("category");
+                        String vendorId = rs.getString("vendor_id");
                     
-                    if (originalProductId != null && !originalProductId.isEmpty()) {
-                        // This is an edited product - update the original product
-                        String updateSql = "UPDATE products SET name = ?, description = ?, price = ?, unit = ?, category = ?, image_url = ? WHERE product_id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                            updateStmt.setString(1, rs.getString("name"));
-                            updateStmt.setString(2, rs.getString("description"));
-                            updateStmt.setDouble(3, rs.getDouble("price"));
-                            updateStmt.setString(4, rs.getString("unit"));
-                            updateStmt.setString(5, rs.getString("category"));
-                            updateStmt.setString(6, rs.getString("image_url"));
-                            updateStmt.setString(7, originalProductId);
-                            updateStmt.executeUpdate();
-                        }
+                        if (originalProductId != null && !originalProductId.isEmpty()) {
+                            // This is an edited product - update the original product
+                            String updateSql = "UPDATE products SET name = ?, description = ?, price = ?, unit = ?, category = ?, image_url = ?, import_hash = COALESCE(?, import_hash) WHERE product_id = ?";
+                            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                                updateStmt.setString(1, rs.getString("name"));
+                                updateStmt.setString(2, rs.getString("description"));
+                                updateStmt.setDouble(3, rs.getDouble("price"));
+                                updateStmt.setString(4, rs.getString("unit"));
+                                updateStmt.setString(5, category);
+                                updateStmt.setString(6, rs.getString("image_url"));
+                                updateStmt.setString(7, rs.getString("import_hash"));
+                                updateStmt.setString(8, originalProductId);
+                                updateStmt.executeUpdate();
+                            }
                         
-                        // Delete the pending edit entry
-                        String deleteSql = "DELETE FROM products WHERE product_id = ?";
-                        try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
-                            deleteStmt.setString(1, productId);
-                            return deleteStmt.executeUpdate() > 0;
-                        }
-                    } else {
-                        // This is a new product - simply approve it
-                        String approveSql = "UPDATE products SET approval_status = 'approved', rejection_reason = NULL WHERE product_id = ?";
-                        try (PreparedStatement approveStmt = conn.prepareStatement(approveSql)) {
-                            approveStmt.setString(1, productId);
-                            return approveStmt.executeUpdate() > 0;
+                            // Delete the pending edit entry
+                            String deleteSql = "DELETE FROM products WHERE product_id = ?";
+                            boolean deleted;
+                            try (PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+                                deleteStmt.setString(1, productId);
+                                deleted = deleteStmt.executeUpdate() > 0;
+                            }
+                            // The original may have changed category, so its old and new listings are both stale
+                            afterCommit(() -> {
+                                cache.invalidateProduct(productId);
+                                cache.invalidateListing(originalProductId, category, vendorId);
+                                searchIndex.markChanged(originalProductId);
+                            });
+                            return deleted;
+                        } else {
+                            // This is a new product - simply approve it
+                            String approveSql = "UPDATE products SET approval_status = 'approved', rejection_reason = NULL WHERE product_id = ?";
+                            boolean approved;
+                            try (PreparedStatement approveStmt = conn.prepareStatement(approveSql)) {
+                                approveStmt.setString(1, productId);
+                                approved = approveStmt.executeUpdate() > 0;
+                            }
+                            afterCommit(() -> {
+                                cache.invalidateListing(productId, category, vendorId);
+                                searchIndex.markChanged(productId);
+                            });
+                            return approved;
                         }
                     }
                 }
-            }
+                return false;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -662,11 +806,17 @@ public class DatabaseManager {
 
     public boolean rejectProduct(String productId, String reason) {
         String sql = "UPDATE products SET approval_status = 'rejected', rejection_reason = ? WHERE product_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, reason);
-            pstmt.setString(2, productId);
-            int rowsAffected = pstmt.executeUpdate();
+        try {
+            int rowsAffected = write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, reason);
+                    pstmt.setString(2, productId);
+                    return pstmt.executeUpdate();
+                }
+            });
+            // Drops the product and any listing it was shown in
+            cache.invalidateProduct(productId);
+            searchIndex.markChanged(productId);
             return rowsAffected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -676,10 +826,17 @@ public class DatabaseManager {
 
     public boolean deletePendingProductEdit(String productId) {
         String sql = "DELETE FROM products WHERE product_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            boolean deleted = write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, productId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
+            recommendations.forget(productId);
+            cache.invalidateProduct(productId);
+            searchIndex.markChanged(productId);
+            return deleted;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -689,15 +846,18 @@ public class DatabaseManager {
     // Notification methods
     public boolean createNotification(String vendorId, String productId, String message, String type) {
         String sql = "INSERT INTO notifications (notification_id, vendor_id, product_id, message, type, is_read, created_at) VALUES (?, ?, ?, ?, ?, 0, datetime('now'))";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, "notif-" + java.util.UUID.randomUUID().toString().substring(0, 8));
-            pstmt.setString(2, vendorId);
-            pstmt.setString(3, productId);
-            pstmt.setString(4, message);
-            pstmt.setString(5, type);
-            pstmt.executeUpdate();
-            return true;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, "notif-" + java.util.UUID.randomUUID().toString().substring(0, 8));
+                    pstmt.setString(2, vendorId);
+                    pstmt.setString(3, productId);
+                    pstmt.setString(4, message);
+                    pstmt.setString(5, type);
+                    pstmt.executeUpdate();
+                    return true;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -752,7 +912,8 @@ public class DatabaseManager {
                         rs.getString("image_url")
                 );
                 product.setVendorId(rs.getString("vendor_id"));
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
+                product.setRecommendationCount(recommendations.merge(product.getProductId(), rs.getInt("recommendation_count")));
+                readRatingAggregate(rs, product);
                 product.setApprovalStatus(rs.getString("approval_status"));
                 product.setRejectionReason(rs.getString("rejection_reason"));
                 product.setOriginalProductId(rs.getString("original_product_id"));
@@ -765,19 +926,103 @@ public class DatabaseManager {
     }
 
     // Review related methods
+
+    // Stores the review and updates the product's rating aggregates in the same write command.
+    // INSERT OR REPLACE may overwrite an earlier review with this id, so its rating is taken out first.
     public void insertReview(String reviewId, String productId, String userName, String comment, int rating) {
+        String previousSql = "SELECT product_id, rating FROM reviews WHERE review_id = ?";
         String sql = "INSERT OR REPLACE INTO reviews (review_id, product_id, user_name, comment, rating) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, reviewId);
-            pstmt.setString(2, productId);
-            pstmt.setString(3, userName);
-            pstmt.setString(4, comment);
-            pstmt.setInt(5, rating);
-            pstmt.executeUpdate();
+        String previousProductId = null;
+        try {
+            previousProductId = write(conn -> {
+                String previousProduct = null;
+                int previousRating = 0;
+                try (PreparedStatement pstmt = conn.prepareStatement(previousSql)) {
+                    pstmt.setString(1, reviewId);
+                    ResultSet rs = pstmt.executeQuery();
+                    if (rs.next()) {
+                        previousProduct = rs.getString("product_id");
+                        previousRating = rs.getInt("rating");
+                    }
+                }
+                if (previousProduct != null) {
+                    adjustRatingAggregate(conn, previousProduct, previousRating, -1);
+                }
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, reviewId);
+                    pstmt.setString(2, productId);
+                    pstmt.setString(3, userName);
+                    pstmt.setString(4, comment);
+                    pstmt.setInt(5, rating);
+                    pstmt.executeUpdate();
+                }
+                adjustRatingAggregate(conn, productId, rating, 1);
+                return previousProduct;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        cache.invalidateProduct(productId);
+        if (previousProductId != null && !previousProductId.equals(productId)) {
+            cache.invalidateProduct(previousProductId);
+        }
+    }
+
+    // delta is +1 when a review is added and -1 when one is taken away
+    private void adjustRatingAggregate(Connection conn, String productId, int rating, int delta) throws SQLException {
+        String sql = """
+            UPDATE products SET
+                review_count = review_count + ?1,
+                rating_sum = rating_sum + ?1 * ?2,
+                rating_1 = rating_1 + ?1 * (?2 = 1),
+                rating_2 = rating_2 + ?1 * (?2 = 2),
+                rating_3 = rating_3 + ?1 * (?2 = 3),
+                rating_4 = rating_4 + ?1 * (?2 = 4),
+                rating_5 = rating_5 + ?1 * (?2 = 5)
+            WHERE product_id = ?3
+            """;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, delta);
+            pstmt.setInt(2, rating);
+            pstmt.setString(3, productId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Reads the SUMMARY_COLUMNS at the start of a row by position, with the recommendation count as
+    // stored: summaries are cached, so the buffered clicks are added by withRecommendations on the way out
+    private ProductSummary readSummary(ResultSet rs) throws SQLException {
+        return new ProductSummary(rs.getString(1), rs.getString(2), rs.getString(3), rs.getDouble(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), rs.getInt(8), rs.getInt(9), rs.getLong(10));
+    }
+
+    private ProductSummary withRecommendations(ProductSummary product) {
+        int count = recommendations.merge(product.productId(), product.recommendationCount());
+        return count == product.recommendationCount() ? product : product.withRecommendationCount(count);
+    }
+
+    // The cache hands out copies of its lists, so they can be updated in place. After the first
+    // click this costs a hash lookup or two per product: about 100 µs for a 10,000 product list.
+    private List<ProductSummary> withRecommendations(List<ProductSummary> products) {
+        if (recommendations.isTracking()) {
+            products.replaceAll(this::withRecommendations);
+        }
+        return products;
+    }
+
+    private ProductPage withRecommendations(ProductPage page) {
+        withRecommendations(page.products());
+        return page;
+    }
+
+    // Full product reads select the aggregate columns so the histogram comes without the reviews
+    private void readRatingAggregate(ResultSet rs, Product product) throws SQLException {
+        int[] histogram = new int[5];
+        for (int star = 1; star <= 5; star++) {
+            histogram[star - 1] = rs.getInt("rating_" + star);
+        }
+        product.setRatingAggregate(rs.getInt("review_count"), rs.getLong("rating_sum"), histogram);
     }
 
     public List<Review> getReviewsForProduct(String productId) {
@@ -803,62 +1048,88 @@ public class DatabaseManager {
     }
 
 
-    public void addToFavourites(String productId) {
-        String sql = "INSERT OR IGNORE INTO favourites (product_id) VALUES (?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.executeUpdate();
+    // ============ Favourites (per user) ============
+
+    public void addToFavourites(String userId, String productId) {
+        String sql = "INSERT OR IGNORE INTO favourites (user_id, product_id) VALUES (?, ?)";
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, productId);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        cache.invalidateScope(CatalogCache.favouritesScope(userId));
     }
 
-    public void removeFromFavourites(String productId) {
-        String sql = "DELETE FROM favourites WHERE product_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.executeUpdate();
+    public void removeFromFavourites(String userId, String productId) {
+        String sql = "DELETE FROM favourites WHERE user_id = ? AND product_id = ?";
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, productId);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        cache.invalidateScope(CatalogCache.favouritesScope(userId));
     }
 
-    public boolean isFavourite(String productId) {
-        String sql = "SELECT COUNT(*) FROM favourites WHERE product_id = ?";
+    // Stores a favourite the session has already flipped. Only queues the write, so it can be
+    // called on the FX thread; the session's clicks on one product are written in click order.
+    public CompletableFuture<Void> saveFavourite(String userId, String productId, boolean favourite) {
+        String sql = favourite
+                ? "INSERT OR IGNORE INTO favourites (user_id, product_id) VALUES (?, ?)"
+                : "DELETE FROM favourites WHERE user_id = ? AND product_id = ?";
+        return writeLater(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, userId);
+                pstmt.setString(2, productId);
+                pstmt.executeUpdate();
+            }
+            afterCommit(() -> cache.invalidateScope(CatalogCache.favouritesScope(userId)));
+            return null;
+        });
+    }
+
+    // Loaded once at login into UserSession, which answers "is this a favourite?" from memory
+    public Set<String> getFavouriteProductIds(String userId) {
+        Set<String> productIds = new HashSet<>();
+        String sql = "SELECT product_id FROM favourites WHERE user_id = ?";
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+            pstmt.setString(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                productIds.add(rs.getString("product_id"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return productIds;
     }
 
-    public List<Product> getFavouriteProducts() {
-        List<Product> favourites = new ArrayList<>();
-        String sql = "SELECT p.* FROM products p INNER JOIN favourites f ON p.product_id = f.product_id";
+    public List<ProductSummary> getFavouriteProducts(String userId) {
+        return withRecommendations(cache.getList("favourites:" + userId, () -> loadFavouriteProducts(userId),
+                CatalogCache.favouritesScope(userId)));
+    }
+
+    private List<ProductSummary> loadFavouriteProducts(String userId) {
+        List<ProductSummary> favourites = new ArrayList<>();
+        String sql = "SELECT " + SUMMARY_COLUMNS + " FROM products p INNER JOIN favourites f ON p.product_id = f.product_id WHERE f.user_id = ?";
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                Product product = new Product(
-                        rs.getString("product_id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getDouble("price"),
-                        rs.getString("unit"),
-                        rs.getString("category"),
-                        rs.getString("image_url")
-                );
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
-                favourites.add(product);
+                favourites.add(readSummary(rs));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -868,50 +1139,58 @@ public class DatabaseManager {
 
     // ============ Favourite Categories Methods ============
 
-    public void addToFavouriteCategories(String categoryName) {
-        String sql = "INSERT OR IGNORE INTO favourite_categories (category_name) VALUES (?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, categoryName);
-            pstmt.executeUpdate();
+    public void addToFavouriteCategories(String userId, String categoryName) {
+        String sql = "INSERT OR IGNORE INTO favourite_categories (user_id, category_name) VALUES (?, ?)";
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, categoryName);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public void removeFromFavouriteCategories(String categoryName) {
-        String sql = "DELETE FROM favourite_categories WHERE category_name = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, categoryName);
-            pstmt.executeUpdate();
+    public void removeFromFavouriteCategories(String userId, String categoryName) {
+        String sql = "DELETE FROM favourite_categories WHERE user_id = ? AND category_name = ?";
+        try {
+            write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, userId);
+                    pstmt.setString(2, categoryName);
+                    return pstmt.executeUpdate();
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public boolean isFavouriteCategory(String categoryName) {
-        String sql = "SELECT COUNT(*) FROM favourite_categories WHERE category_name = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, categoryName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
+    // Like saveFavourite, for a favourite category
+    public CompletableFuture<Void> saveFavouriteCategory(String userId, String categoryName, boolean favourite) {
+        String sql = favourite
+                ? "INSERT OR IGNORE INTO favourite_categories (user_id, category_name) VALUES (?, ?)"
+                : "DELETE FROM favourite_categories WHERE user_id = ? AND category_name = ?";
+        return writeLater(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, userId);
+                pstmt.setString(2, categoryName);
+                pstmt.executeUpdate();
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+            return null;
+        });
     }
 
-    public List<String> getFavouriteCategories() {
+    public List<String> getFavouriteCategories(String userId) {
         List<String> categories = new ArrayList<>();
-        String sql = "SELECT category_name FROM favourite_categories ORDER BY category_name";
+        String sql = "SELECT category_name FROM favourite_categories WHERE user_id = ? ORDER BY category_name";
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
                 categories.add(rs.getString("category_name"));
             }
@@ -923,26 +1202,16 @@ public class DatabaseManager {
 
     // ============ Authentication Methods ============
 
-    private void createDefaultAdmin() {
-        String checkSql = "SELECT COUNT(*) FROM admins";
-        String insertSql = "INSERT INTO admins (admin_id, email, password) VALUES (?, ?, ?)";
-        
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(checkSql)) {
-            
-            if (rs.next() && rs.getInt(1) == 0) {
-                // No admin exists, create default one
-                try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
-                    pstmt.setString(1, "admin001");
-                    pstmt.setString(2, "admin@findingbd.com");
-                    pstmt.setString(3, "admin123"); // In production, this should be hashed
-                    pstmt.executeUpdate();
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Called while opening the database when no admin exists
+    private void createDefaultAdmin(Connection conn) throws SQLException {
+        String insertSql = "INSERT OR IGNORE INTO admins (admin_id, email, password) VALUES (?, ?, ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
+            pstmt.setString(1, "admin001");
+            pstmt.setString(2, "admin@findingbd.com");
+            pstmt.setString(3, "admin123"); // In production, this should be hashed
+            pstmt.executeUpdate();
         }
+        System.out.println("Default admin created");
     }
 
     // Admin login
@@ -963,19 +1232,22 @@ public class DatabaseManager {
     // User Registration
     public boolean registerUser(User user) {
         String sql = "INSERT INTO users (user_id, full_name, email, password, phone_number, date_of_birth, gender, city, user_type) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, user.getUserId());
-            pstmt.setString(2, user.getFullName());
-            pstmt.setString(3, user.getEmail());
-            pstmt.setString(4, user.getPassword());
-            pstmt.setString(5, user.getPhoneNumber());
-            pstmt.setString(6, user.getDateOfBirth());
-            pstmt.setString(7, user.getGender());
-            pstmt.setString(8, user.getCity());
-            pstmt.setString(9, "user");
-            pstmt.executeUpdate();
-            return true;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, user.getUserId());
+                    pstmt.setString(2, user.getFullName());
+                    pstmt.setString(3, user.getEmail());
+                    pstmt.setString(4, user.getPassword());
+                    pstmt.setString(5, user.getPhoneNumber());
+                    pstmt.setString(6, user.getDateOfBirth());
+                    pstmt.setString(7, user.getGender());
+                    pstmt.setString(8, user.getCity());
+                    pstmt.setString(9, "user");
+                    pstmt.executeUpdate();
+                    return true;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1028,22 +1300,25 @@ public class DatabaseManager {
     // Company Vendor Registration
     public boolean registerCompanyVendor(CompanyVendor vendor) {
         String sql = "INSERT INTO company_vendors (vendor_id, full_name, designation, company_name, email, password, phone_number, company_registration_number, bsti_certificate_number, company_address, tin_number, account_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendor.getVendorId());
-            pstmt.setString(2, vendor.getFullName());
-            pstmt.setString(3, vendor.getDesignation());
-            pstmt.setString(4, vendor.getCompanyName());
-            pstmt.setString(5, vendor.getEmail());
-            pstmt.setString(6, vendor.getPassword());
-            pstmt.setString(7, vendor.getPhoneNumber());
-            pstmt.setString(8, vendor.getCompanyRegistrationNumber());
-            pstmt.setString(9, vendor.getBstiCertificateNumber());
-            pstmt.setString(10, vendor.getCompanyAddress());
-            pstmt.setString(11, vendor.getTinNumber());
-            pstmt.setString(12, "pending");
-            pstmt.executeUpdate();
-            return true;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendor.getVendorId());
+                    pstmt.setString(2, vendor.getFullName());
+                    pstmt.setString(3, vendor.getDesignation());
+                    pstmt.setString(4, vendor.getCompanyName());
+                    pstmt.setString(5, vendor.getEmail());
+                    pstmt.setString(6, vendor.getPassword());
+                    pstmt.setString(7, vendor.getPhoneNumber());
+                    pstmt.setString(8, vendor.getCompanyRegistrationNumber());
+                    pstmt.setString(9, vendor.getBstiCertificateNumber());
+                    pstmt.setString(10, vendor.getCompanyAddress());
+                    pstmt.setString(11, vendor.getTinNumber());
+                    pstmt.setString(12, "pending");
+                    pstmt.executeUpdate();
+                    return true;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1083,21 +1358,24 @@ public class DatabaseManager {
     // Retail Vendor Registration
     public boolean registerRetailVendor(RetailVendor vendor) {
         String sql = "INSERT INTO retail_vendors (vendor_id, owner_name, shop_name, email, password, phone_number, business_registration_number, trade_license_number, shop_address, tin_number, account_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendor.getVendorId());
-            pstmt.setString(2, vendor.getOwnerName());
-            pstmt.setString(3, vendor.getShopName());
-            pstmt.setString(4, vendor.getEmail());
-            pstmt.setString(5, vendor.getPassword());
-            pstmt.setString(6, vendor.getPhoneNumber());
-            pstmt.setString(7, vendor.getBusinessRegistrationNumber());
-            pstmt.setString(8, vendor.getTradeLicenseNumber());
-            pstmt.setString(9, vendor.getShopAddress());
-            pstmt.setString(10, vendor.getTinNumber());
-            pstmt.setString(11, "pending");
-            pstmt.executeUpdate();
-            return true;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendor.getVendorId());
+                    pstmt.setString(2, vendor.getOwnerName());
+                    pstmt.setString(3, vendor.getShopName());
+                    pstmt.setString(4, vendor.getEmail());
+                    pstmt.setString(5, vendor.getPassword());
+                    pstmt.setString(6, vendor.getPhoneNumber());
+                    pstmt.setString(7, vendor.getBusinessRegistrationNumber());
+                    pstmt.setString(8, vendor.getTradeLicenseNumber());
+                    pstmt.setString(9, vendor.getShopAddress());
+                    pstmt.setString(10, vendor.getTinNumber());
+                    pstmt.setString(11, "pending");
+                    pstmt.executeUpdate();
+                    return true;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1222,16 +1500,19 @@ public class DatabaseManager {
     // Update user profile
     public boolean updateUserProfile(User user) {
         String sql = "UPDATE users SET full_name = ?, password = ?, phone_number = ?, date_of_birth = ?, gender = ?, city = ? WHERE user_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, user.getFullName());
-            pstmt.setString(2, user.getPassword());
-            pstmt.setString(3, user.getPhoneNumber());
-            pstmt.setString(4, user.getDateOfBirth());
-            pstmt.setString(5, user.getGender());
-            pstmt.setString(6, user.getCity());
-            pstmt.setString(7, user.getUserId());
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, user.getFullName());
+                    pstmt.setString(2, user.getPassword());
+                    pstmt.setString(3, user.getPhoneNumber());
+                    pstmt.setString(4, user.getDateOfBirth());
+                    pstmt.setString(5, user.getGender());
+                    pstmt.setString(6, user.getCity());
+                    pstmt.setString(7, user.getUserId());
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1241,10 +1522,13 @@ public class DatabaseManager {
     // Approve company vendor
     public boolean approveCompanyVendor(String vendorId) {
         String sql = "UPDATE company_vendors SET account_status = 'approved' WHERE vendor_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendorId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendorId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1254,10 +1538,13 @@ public class DatabaseManager {
     // Reject company vendor
     public boolean rejectCompanyVendor(String vendorId) {
         String sql = "UPDATE company_vendors SET account_status = 'rejected' WHERE vendor_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendorId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendorId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1267,10 +1554,13 @@ public class DatabaseManager {
     // Approve retail vendor
     public boolean approveRetailVendor(String vendorId) {
         String sql = "UPDATE retail_vendors SET account_status = 'approved' WHERE vendor_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendorId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendorId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1280,10 +1570,13 @@ public class DatabaseManager {
     // Reject retail vendor
     public boolean rejectRetailVendor(String vendorId) {
         String sql = "UPDATE retail_vendors SET account_status = 'rejected' WHERE vendor_id = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, vendorId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, vendorId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1312,17 +1605,20 @@ public class DatabaseManager {
     public boolean addProductByVendor(String productId, String name, String description, double price, 
                                      String unit, String category, String imageUrl, String vendorId) {
         String sql = "INSERT INTO products (product_id, name, description, price, unit, category, image_url, vendor_id, recommendation_count, approval_status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 'waiting')";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productId);
-            pstmt.setString(2, name);
-            pstmt.setString(3, description);
-            pstmt.setDouble(4, price);
-            pstmt.setString(5, unit);
-            pstmt.setString(6, category);
-            pstmt.setString(7, imageUrl);
-            pstmt.setString(8, vendorId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, productId);
+                    pstmt.setString(2, name);
+                    pstmt.setString(3, description);
+                    pstmt.setDouble(4, price);
+                    pstmt.setString(5, unit);
+                    pstmt.setString(6, category);
+                    pstmt.setString(7, imageUrl);
+                    pstmt.setString(8, vendorId);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1332,61 +1628,265 @@ public class DatabaseManager {
     // Update product - creates a new waiting version instead of updating the original
     public boolean updateProduct(String productId, String name, String description, double price, 
                                  String unit, String category, String imageUrl) {
-        try (Connection conn = getConnection()) {
-            // First check if the product exists and is approved
-            String checkSql = "SELECT approval_status, vendor_id FROM products WHERE product_id = ?";
-            try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-                checkStmt.setString(1, productId);
-                ResultSet rs = checkStmt.executeQuery();
-                if (rs.next()) {
-                    String currentStatus = rs.getString("approval_status");
-                    String vendorId = rs.getString("vendor_id");
+        try {
+            return write(conn -> {
+                // First check if the product exists and is approved
+                String checkSql = "SELECT approval_status, vendor_id FROM products WHERE product_id = ?";
+                try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
+                    checkStmt.setString(1, productId);
+                    ResultSet rs = checkStmt.executeQuery();
+                    if (rs.next()) {
+                        String currentStatus = rs.getString("approval_status");
+                        String vendorId = rs.getString("vendor_id");
                     
-                    // If product is currently approved, create a new waiting version
-                    if ("approved".equalsIgnoreCase(currentStatus)) {
-                        // Delete any existing pending edit for this product
-                        String deletePendingSql = "DELETE FROM products WHERE original_product_id = ?";
-                        try (PreparedStatement deleteStmt = conn.prepareStatement(deletePendingSql)) {
-                            deleteStmt.setString(1, productId);
-                            deleteStmt.executeUpdate();
-                        }
+                        // If product is currently approved, create a new waiting version
+                        if ("approved".equalsIgnoreCase(currentStatus)) {
+                            // Delete any existing pending edit for this product
+                            String deletePendingSql = "DELETE FROM products WHERE original_product_id = ?";
+                            try (PreparedStatement deleteStmt = conn.prepareStatement(deletePendingSql)) {
+                                deleteStmt.setString(1, productId);
+                                deleteStmt.executeUpdate();
+                            }
                         
-                        // Create new pending version with new product_id
-                        String newProductId = "EDIT_" + productId + "_" + System.currentTimeMillis();
-                        String insertSql = "INSERT INTO products (product_id, name, description, price, unit, category, image_url, vendor_id, recommendation_count, approval_status, original_product_id) " +
-                                         "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 'waiting', ?)";
-                        try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                            insertStmt.setString(1, newProductId);
-                            insertStmt.setString(2, name);
-                            insertStmt.setString(3, description);
-                            insertStmt.setDouble(4, price);
-                            insertStmt.setString(5, unit);
-                            insertStmt.setString(6, category);
-                            insertStmt.setString(7, imageUrl);
-                            insertStmt.setString(8, vendorId);
-                            insertStmt.setString(9, productId);
-                            return insertStmt.executeUpdate() > 0;
+                            // Create new pending version with new product_id
+                            String newProductId = "EDIT_" + productId + "_" + System.currentTimeMillis();
+                            String insertSql = "INSERT INTO products (product_id, name, description, price, unit, category, image_url, vendor_id, recommendation_count, approval_status, original_product_id) " +
+                                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 'waiting', ?)";
+                            try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
+                                insertStmt.setString(1, newProductId);
+                                insertStmt.setString(2, name);
+                                insertStmt.setString(3, description);
+                                insertStmt.setDouble(4, price);
+                                insertStmt.setString(5, unit);
+                                insertStmt.setString(6, category);
+                                insertStmt.setString(7, imageUrl);
+                                insertStmt.setString(8, vendorId);
+                                insertStmt.setString(9, productId);
+                                return insertStmt.executeUpdate() > 0;
+                            }
+                        } else {
+                            // If product is not approved (waiting/rejected), update it directly
+                            String updateSql = "UPDATE products SET name = ?, description = ?, price = ?, unit = ?, category = ?, image_url = ?, approval_status = 'waiting', rejection_reason = NULL WHERE product_id = ?";
+                            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+                                updateStmt.setString(1, name);
+                                updateStmt.setString(2, description);
+                                updateStmt.setDouble(3, price);
+                                updateStmt.setString(4, unit);
+                                updateStmt.setString(5, category);
+                                updateStmt.setString(6, imageUrl);
+                                updateStmt.setString(7, productId);
+                                boolean updated = updateStmt.executeUpdate() > 0;
+                                afterCommit(() -> {
+                                    cache.invalidateProduct(productId);
+                                    searchIndex.markChanged(productId);
+                                });
+                                return updated;
+                            }
                         }
+                    }
+                }
+                return false;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // ============ Catalog import ============
+
+    // Hashes of the rows this vendor imported before, keyed by the product the import writes to.
+    // A pending edit holds a newer import than its original, so its hash takes precedence.
+    public Map<String, String> getImportHashes(String vendorId) {
+        Map<String, String> hashes = new HashMap<>();
+        String sql = "SELECT product_id, original_product_id, import_hash FROM products WHERE vendor_id = ? AND import_hash IS NOT NULL";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, vendorId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                String originalProductId = rs.getString("original_product_id");
+                if (originalProductId != null && !originalProductId.isEmpty()) {
+                    hashes.put(originalProductId, rs.getString("import_hash"));
+                } else {
+                    hashes.putIfAbsent(rs.getString("product_id"), rs.getString("import_hash"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return hashes;
+    }
+
+    // Writes one CatalogImporter batch as a single write command. New, waiting and rejected products are
+    // upserted as 'waiting'; approved ones keep their listing and get a pending edit, as in updateProduct.
+    // Rows go in as multi-row statements, so SQLite runs one statement per hundred rows rather than per row.
+    public boolean importProductBatch(String vendorId, List<CatalogImporter.Row> rows) {
+        String deletePendingSql = "DELETE FROM products WHERE original_product_id = ?";
+        String insertEditSql = """
+            INSERT INTO products (product_id, name, description, price, unit, category, image_url, vendor_id,
+                                  recommendation_count, approval_status, original_product_id, import_hash)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 'waiting', ?, ?)
+            """;
+        // Rows for products that are already approved; the last one per product wins
+        Map<String, CatalogImporter.Row> edits = new LinkedHashMap<>();
+        List<CatalogImporter.Row> upserts = new ArrayList<>(rows.size());
+        try {
+            write(conn -> {
+                Set<String> approved = new HashSet<>();
+                for (int from = 0; from < rows.size(); from += IMPORT_ROWS_PER_STATEMENT) {
+                    List<CatalogImporter.Row> chunk = rows.subList(from, Math.min(rows.size(), from + IMPORT_ROWS_PER_STATEMENT));
+                    String sql = "SELECT product_id FROM products WHERE approval_status = 'approved' AND product_id IN ("
+                            + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        for (int i = 0; i < chunk.size(); i++) {
+                            pstmt.setString(i + 1, chunk.get(i).productId());
+                        }
+                        ResultSet rs = pstmt.executeQuery();
+                        while (rs.next()) {
+                            approved.add(rs.getString("product_id"));
+                        }
+                    }
+                }
+                for (CatalogImporter.Row row : rows) {
+                    if (approved.contains(row.productId())) {
+                        edits.put(row.productId(), row);
                     } else {
-                        // If product is not approved (waiting/rejected), update it directly
-                        String updateSql = "UPDATE products SET name = ?, description = ?, price = ?, unit = ?, category = ?, image_url = ?, approval_status = 'waiting', rejection_reason = NULL WHERE product_id = ?";
-                        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                            updateStmt.setString(1, name);
-                            updateStmt.setString(2, description);
-                            updateStmt.setDouble(3, price);
-                            updateStmt.setString(4, unit);
-                            updateStmt.setString(5, category);
-                            updateStmt.setString(6, imageUrl);
-                            updateStmt.setString(7, productId);
-                            return updateStmt.executeUpdate() > 0;
+                        upserts.add(row);
+                    }
+                }
+
+                for (int from = 0; from < upserts.size(); from += IMPORT_ROWS_PER_STATEMENT) {
+                    List<CatalogImporter.Row> chunk = upserts.subList(from, Math.min(upserts.size(), from + IMPORT_ROWS_PER_STATEMENT));
+                    String sql = """
+                        INSERT INTO products (product_id, name, description, price, unit, category, image_url, vendor_id,
+                                              recommendation_count, approval_status, import_hash)
+                        VALUES %s
+                        ON CONFLICT(product_id) DO UPDATE SET
+                            name = excluded.name, description = excluded.description, price = excluded.price,
+                            unit = excluded.unit, category = excluded.category, image_url = excluded.image_url,
+                            approval_status = 'waiting', rejection_reason = NULL, import_hash = excluded.import_hash
+                        """.formatted(String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?, ?, ?, ?, ?, ?, 0, 'waiting', ?)")));
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        int param = 1;
+                        for (CatalogImporter.Row row : chunk) {
+                            pstmt.setString(param++, row.productId());
+                            pstmt.setString(param++, row.name());
+                            pstmt.setString(param++, row.description());
+                            pstmt.setDouble(param++, row.price());
+                            pstmt.setString(param++, row.unit());
+                            pstmt.setString(param++, row.category());
+                            pstmt.setString(param++, row.imageUrl());
+                            pstmt.setString(param++, vendorId);
+                            pstmt.setString(param++, row.contentHash());
+                        }
+                        pstmt.executeUpdate();
+                    }
+                }
+
+                if (!edits.isEmpty()) {
+                    try (PreparedStatement deleteStmt = conn.prepareStatement(deletePendingSql);
+                         PreparedStatement insertStmt = conn.prepareStatement(insertEditSql)) {
+                        long now = System.currentTimeMillis();
+                        for (CatalogImporter.Row row : edits.values()) {
+                            deleteStmt.setString(1, row.productId());
+                            deleteStmt.addBatch();
+
+                            insertStmt.setString(1, "EDIT_" + row.productId() + "_" + now);
+                            insertStmt.setString(2, row.name());
+                            insertStmt.setString(3, row.description());
+                            insertStmt.setDouble(4, row.price());
+                            insertStmt.setString(5, row.unit());
+                            insertStmt.setString(6, row.category());
+                            insertStmt.setString(7, row.imageUrl());
+                            insertStmt.setString(8, vendorId);
+                            insertStmt.setString(9, row.productId());
+                            insertStmt.setString(10, row.contentHash());
+                            insertStmt.addBatch();
                         }
+                        deleteStmt.executeBatch();
+                        insertStmt.executeBatch();
                     }
                 }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        // Only waiting products were rewritten in place and those are never listed, so just their details go
+        for (CatalogImporter.Row row : upserts) {
+            cache.invalidateProduct(row.productId());
+        }
+        return true;
+    }
+
+    // ============ Image store ============
+
+    // Records a file ImageStore has just stored. It starts unreferenced; storing the same content again
+    // restarts its grace period, so a re-upload is not collected before the form using it is saved.
+    public boolean registerImage(String imageUrl) {
+        String sql = """
+            INSERT INTO images (image_url) VALUES (?)
+            ON CONFLICT (image_url) DO UPDATE SET stored_at = CURRENT_TIMESTAMP
+            """;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, imageUrl);
+                    return pstmt.executeUpdate() > 0;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Every image the store knows about, referenced or not
+    public Set<String> getRegisteredImages() {
+        Set<String> images = new HashSet<>();
+        String sql = "SELECT image_url FROM images";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                images.add(rs.getString("image_url"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return images;
+    }
+
+    // Forgets the unreferenced images stored more than graceHours ago and returns them, so ImageStore can
+    // delete their files. The grace period covers an upload whose form has not been saved yet. Selecting
+    // and deleting in one write command means no product can start using an image between the two.
+    public List<String> deleteUnreferencedImages(int graceHours) {
+        String where = "WHERE ref_count <= 0 AND stored_at < datetime('now', ?)";
+        String cutoff = "-" + graceHours + " hours";
+        try {
+            return write(conn -> {
+                List<String> images = new ArrayList<>();
+                try (PreparedStatement select = conn.prepareStatement("SELECT image_url FROM images " + where)) {
+                    select.setString(1, cutoff);
+                    ResultSet rs = select.executeQuery();
+                    while (rs.next()) {
+                        images.add(rs.getString("image_url"));
+                    }
+                }
+                if (!images.isEmpty()) {
+                    try (PreparedStatement delete = conn.prepareStatement("DELETE FROM images " + where)) {
+                        delete.setString(1, cutoff);
+                        delete.executeUpdate();
+                    }
+                }
+                return images;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return List.of();
+        }
     }
 
     // Get product by ID
@@ -1407,7 +1907,8 @@ public class DatabaseManager {
                     rs.getString("image_url")
                 );
                 product.setVendorId(rs.getString("vendor_id"));
-                product.setRecommendationCount(rs.getInt("recommendation_count"));
+                product.setRecommendationCount(recommendations.merge(product.getProductId(), rs.getInt("recommendation_count")));
+                readRatingAggregate(rs, product);
                 product.setApprovalStatus(rs.getString("approval_status"));
                 product.setRejectionReason(rs.getString("rejection_reason"));
                 product.setOriginalProductId(rs.getString("original_product_id"));
@@ -1430,11 +1931,14 @@ public class DatabaseManager {
     // Delete user by email
     public boolean deleteUserByEmail(String email) {
         String sql = "DELETE FROM users WHERE email = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            int rowsAffected = pstmt.executeUpdate();
-            return rowsAffected > 0;
+        try {
+            return write(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, email);
+                    int rowsAffected = pstmt.executeUpdate();
+                    return rowsAffected > 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
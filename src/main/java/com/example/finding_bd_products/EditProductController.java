@@ -1,5 +1,6 @@
 package com.example.finding_bd_products;
 
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -11,11 +12,8 @@ import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class EditProductController {
 
@@ -30,14 +28,16 @@ public class EditProductController {
     @FXML private ImageView imagePreview;
     @FXML private Label messageLabel;
 
-    private DatabaseManager dbManager;
     private Product product;
     private String currentImagePath;
     private boolean imageChanged = false;
+    // Set while a newly chosen image is being copied into the ImageStore
+    private CompletableFuture<String> pendingUpload;
+    // Set while the update is being saved, so a second click doesn't save it twice
+    private boolean saving = false;
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         setupCategories();
     }
 
@@ -76,12 +76,7 @@ public class EditProductController {
 
         // Load current image
         if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imagePreview.setImage(image);
-            } catch (Exception e) {
-                System.out.println("Error loading current image: " + e.getMessage());
-            }
+            ImageCache.getInstance().show(imagePreview, product.getImageUrl(), Thumbnails.Size.DETAIL);
         }
     }
 
@@ -97,35 +92,31 @@ public class EditProductController {
         File selectedFile = fileChooser.showOpenDialog(stage);
 
         if (selectedFile != null) {
-            try {
-                // Generate unique filename
-                String fileExtension = selectedFile.getName().substring(selectedFile.getName().lastIndexOf("."));
-                String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
-
-                // Copy image to resources/images directory
-                Path sourcePath = selectedFile.toPath();
-                Path targetPath = Paths.get("src/main/resources/images/" + uniqueFileName);
-
-                // Create directory if it doesn't exist
-                Files.createDirectories(targetPath.getParent());
-
-                // Copy file
-                Files.copy(sourcePath, targetPath, StandardCopyOption.REPLACE_EXISTING);
-
-                // Store path relative to resources
-                currentImagePath = "/images/" + uniqueFileName;
-                imagePathField.setText(currentImagePath);
-                imageChanged = true;
-
-                // Load and display preview
-                Image image = new Image(selectedFile.toURI().toString());
-                imagePreview.setImage(image);
-
-                messageLabel.setText("");
-            } catch (IOException e) {
-                messageLabel.setText("Error uploading image: " + e.getMessage());
-                messageLabel.setStyle("-fx-text-fill: #f44336;");
-            }
+            // Preview from the original file straight away; the store copies it in the background
+            ImageCache.getInstance().forget(imagePreview);
+            imagePreview.setImage(new Image(selectedFile.toURI().toString(), 200, 200, true, true));
+            showMessage("Uploading image...", "#1976D2");
+
+            CompletableFuture<String> upload = ImageStore.getInstance().store(selectedFile.toPath());
+            pendingUpload = upload;
+            upload.whenComplete((reference, error) -> Platform.runLater(() -> {
+                if (pendingUpload != upload) {
+                    // Another image was chosen in the meantime
+                    return;
+                }
+                pendingUpload = null;
+                if (error == null) {
+                    currentImagePath = reference;
+                    imagePathField.setText(currentImagePath);
+                    imageChanged = true;
+                    messageLabel.setText("");
+                } else {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    cause.printStackTrace();
+                    ImageCache.getInstance().show(imagePreview, currentImagePath, Thumbnails.Size.DETAIL);
+                    showMessage("Error uploading image: " + cause.getMessage(), "#f44336");
+                }
+            }));
         }
     }
 
@@ -155,38 +146,48 @@ public class EditProductController {
             return;
         }
 
+        if (pendingUpload != null) {
+            showMessage("Please wait until the image has finished uploading.", "#f44336");
+            return;
+        }
+
         // If image was changed or doesn't exist, require an image
         if (currentImagePath == null || currentImagePath.isEmpty()) {
             showMessage("Please select a product image!", "#f44336");
             return;
         }
+        if (saving) {
+            return;
+        }
 
         // Update product in database
-        boolean success = dbManager.updateProduct(
-                product.getProductId(),
-                name,
-                description,
-                price,
-                volume,
-                category,
-                currentImagePath
-        );
-
-        if (success) {
-            showMessage("Product updated successfully! Waiting for admin approval.", "#4CAF50");
-            
-            // Wait a moment then go back to dashboard (since edited version is now separate)
-            new Thread(() -> {
-                try {
-                    Thread.sleep(1500);
-                    javafx.application.Platform.runLater(this::goBackToDashboard);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
-        } else {
-            showMessage("Failed to update product. Please try again.", "#f44336");
-        }
+        String productId = product.getProductId();
+        String imagePath = currentImagePath;
+        saving = true;
+        showMessage("Saving...", "#1976D2");
+        AsyncDatabase.getInstance().load(
+                db -> db.updateProduct(productId, name, description, price, volume, category, imagePath),
+                success -> {
+                    saving = false;
+                    if (success) {
+                        showMessage("Product updated successfully! Waiting for admin approval.", "#4CAF50");
+
+                        // Wait a moment then go back to dashboard (since edited version is now separate)
+                        new Thread(() -> {
+                            try {
+                                Thread.sleep(1500);
+                                javafx.application.Platform.runLater(this::goBackToDashboard);
+                            } catch (InterruptedException e) {
+                                e.printStackTrace();
+                            }
+                        }).start();
+                    } else {
+                        showMessage("Failed to update product. Please try again.", "#f44336");
+                    }
+                }, error -> {
+                    saving = false;
+                    showMessage("Failed to update product. Please try again.", "#f44336");
+                });
     }
 
     @FXML
@@ -200,12 +201,17 @@ public class EditProductController {
     }
 
     private void goBackToProductDetails() {
+        // Reload the product with updated data
+        String productId = product.getProductId();
+        AsyncDatabase.getInstance().load(db -> db.getProductDetails(productId), this::showProductDetails,
+                error -> showProductDetails(null));
+    }
+
+    private void showProductDetails(Product updatedProduct) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("VendorProductDetails.fxml"));
             Parent root = loader.load();
 
-            // Reload the product with updated data
-            Product updatedProduct = dbManager.getProductById(product.getProductId());
             VendorProductDetailsController controller = loader.getController();
             controller.setProduct(updatedProduct != null ? updatedProduct : product);
 
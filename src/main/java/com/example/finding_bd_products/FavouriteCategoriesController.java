@@ -11,7 +11,6 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Region;
@@ -67,12 +66,10 @@ public class FavouriteCategoriesController {
     @FXML
     private Button signupBtn;
 
-    private DatabaseManager dbManager;
     private ObservableList<String> allFavouriteCategories = FXCollections.observableArrayList();
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         if (UserSession.getInstance().isLoggedIn()) {
             loadFavouriteCategories();
         } else {
@@ -134,7 +131,7 @@ public class FavouriteCategoriesController {
 
     private void loadFavouriteCategories() {
         categoriesGrid.getChildren().clear();
-        List<String> favouriteCategories = dbManager.getFavouriteCategories();
+        List<String> favouriteCategories = UserSession.getInstance().getFavouriteCategories();
 
         if (favouriteCategories.isEmpty()) {
             Label emptyLabel = new Label("No favourite categories yet. Start adding categories to your favourites!");
@@ -201,16 +198,7 @@ public class FavouriteCategoriesController {
         imageView.setPreserveRatio(true);
         
         String imageUrl = getCategoryImageUrl(categoryName);
-        if (imageUrl != null) {
-            try {
-                Image image = new Image(getClass().getResourceAsStream(imageUrl));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
-        }
+        ImageCache.getInstance().show(imageView, imageUrl, Thumbnails.Size.CARD);
 
         Label nameLabel = new Label(categoryName);
         nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 18));
@@ -234,7 +222,9 @@ public class FavouriteCategoriesController {
                 "-fx-font-weight: bold;");
         removeButton.setOnAction(e -> {
             e.consume();
-            dbManager.removeFromFavouriteCategories(categoryName);
+            if (UserSession.getInstance().isFavouriteCategory(categoryName)) {
+                UserSession.getInstance().toggleFavouriteCategory(categoryName);
+            }
             loadFavouriteCategories();
         });
 
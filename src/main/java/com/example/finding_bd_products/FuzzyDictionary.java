@@ -0,0 +1,154 @@
+package com.example.finding_bd_products;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The words of the catalog, looked up by spelling with a few letters wrong.
+ *
+ * Symmetric-delete lookup, as in SymSpell: every word is stored under each string it becomes
+ * with up to its allowed number of letters deleted, and a query word's own deletes find every
+ * word within that many edits, whatever the size of the vocabulary, without comparing the
+ * query to each word. Only the first PREFIX_LENGTH letters are used for the deletes, which
+ * keeps their number per word small. Deletes are kept by hash code only: a collision merely
+ * adds candidates, and candidates are checked by their full edit distance anyway.
+ *
+ * Words shorter than four letters are not stored: one wrong letter in those is another word.
+ * Not thread-safe; ProductSearchIndex only uses it under its lock.
+ */
+public class FuzzyDictionary {
+    private static final int PREFIX_LENGTH = 7;
+
+    private final List<String> words = new ArrayList<>();
+    private final Set<String> known = new HashSet<>();
+    // Word numbers by the hash code of a delete; most deletes belong to a single word
+    private final Map<Integer, int[]> deletes = new HashMap<>();
+
+    // Letters that may be wrong in a word of this length: none below 4, one up to 7, two above
+    public static int maxEdits(int length) {
+        return length < 4 ? 0 : length < 8 ? 1 : 2;
+    }
+
+    public void add(String word) {
+        int edits = maxEdits(word.length());
+        if (edits == 0 || !known.add(word)) {
+            return;
+        }
+        int id = words.size();
+        words.add(word);
+        for (String delete : deletesOf(prefix(word), edits)) {
+            deletes.merge(delete.hashCode(), new int[]{id}, (ids, one) -> {
+                int[] grown = Arrays.copyOf(ids, ids.length + 1);
+                grown[ids.length] = id;
+                return grown;
+            });
+        }
+    }
+
+    public boolean contains(String word) {
+        return known.contains(word);
+    }
+
+    public int size() {
+        return words.size();
+    }
+
+    public void clear() {
+        words.clear();
+        known.clear();
+        deletes.clear();
+    }
+
+    // Up to limit other words within the edits both term and the word allow, closest first
+    public List<String> lookup(String term, int limit) {
+        int edits = maxEdits(term.length());
+        List<String> found = new ArrayList<>();
+        if (edits == 0 || limit <= 0) {
+            return found;
+        }
+        Map<String, Integer> distances = new HashMap<>();
+        for (String delete : deletesOf(prefix(term), edits)) {
+            int[] ids = deletes.get(delete.hashCode());
+            if (ids == null) {
+                continue;
+            }
+            for (int id : ids) {
+                String word = words.get(id);
+                int allowed = Math.min(edits, maxEdits(word.length()));
+                if (distances.containsKey(word) || word.equals(term)
+                        || Math.abs(word.length() - term.length()) > allowed) {
+                    continue;
+                }
+                int distance = distance(term, word, allowed);
+                if (distance <= allowed) {
+                    distances.put(word, distance);
+                }
+            }
+        }
+        found.addAll(distances.keySet());
+        found.sort(Comparator.comparingInt((String word) -> distances.get(word)).thenComparing(word -> word));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private static String prefix(String word) {
+        return word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+    }
+
+    // word itself and every string it becomes with up to edits letters deleted
+    private static Set<String> deletesOf(String word, int edits) {
+        Set<String> all = new HashSet<>();
+        all.add(word);
+        List<String> level = List.of(word);
+        for (int e = 0; e < edits; e++) {
+            List<String> next = new ArrayList<>();
+            for (String s : level) {
+                for (int i = 0; i < s.length() && s.length() > 1; i++) {
+                    String delete = s.substring(0, i) + s.substring(i + 1);
+                    if (all.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            level = next;
+        }
+        return all;
+    }
+
+    // Edits (insertions, deletions, substitutions and swaps of neighbouring letters) between a
+    // and b, or max + 1 as soon as it is certain to be more than max
+    static int distance(String a, String b, int max) {
+        int[] before = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, before[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] oldest = before;
+            before = previous;
+            previous = current;
+            current = oldest;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
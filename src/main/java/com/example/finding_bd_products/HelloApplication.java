@@ -2,22 +2,94 @@ package com.example.finding_bd_products;
 
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Pos;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.VBox;
+import javafx.stage.Screen;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 
 public class HelloApplication extends Application {
+    // Timeline is measured from process start, so it includes JVM and JavaFX toolkit startup
+    private static final Instant PROCESS_START = ProcessHandle.current().info().startInstant().orElse(Instant.now());
+
+    private final StringBuilder startupTimeline = new StringBuilder();
+    private volatile boolean databaseReady = false;
+
     @Override
-    public void start(Stage stage) throws IOException {
-        FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("Home.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 1200, 800);
+    public void start(Stage stage) {
+        // Show a splash while the database is opened and migrated off the FX thread
+        Label statusLabel = new Label("Opening database...");
+        statusLabel.setStyle("-fx-text-fill: #666666; -fx-font-size: 14px;");
+        Label titleLabel = new Label("Deshi Store");
+        titleLabel.setStyle("-fx-font-size: 32px; -fx-font-weight: bold; -fx-text-fill: #2E7D32;");
+        VBox splash = new VBox(20, titleLabel, new ProgressIndicator(), statusLabel);
+        splash.setAlignment(Pos.CENTER);
+        splash.setStyle("-fx-background-color: white;");
+
+        Scene scene = new Scene(splash, 1200, 800);
+        Thumbnails.setScreenScale(Screen.getPrimary().getOutputScaleX());
+        // Loading the SQLite driver dominates a cold start, so it begins before the window is shown
+        AsyncDatabase.getInstance().load(db -> db, db -> {
+            databaseReady = true;
+            markStartup("database ready");
+            showHome(scene);
+            ImageStore.getInstance().collectGarbageLater();
+            // The search index is read from the catalog in the background, before anyone types
+            AsyncDatabase.getInstance().run(DatabaseManager::warmUpSearchIndex);
+        }, error -> statusLabel.setText("Could not open the database: " + error.getMessage()));
+
         stage.setTitle("Deshi Store");
         stage.setMinWidth(1000);
         stage.setMinHeight(700);
         stage.setMaximized(false);
         stage.setScene(scene);
         stage.show();
+        markStartup("splash shown");
+    }
+
+    private void showHome(Scene scene) {
+        try {
+            FXMLLoader fxmlLoader = new FXMLLoader(HelloApplication.class.getResource("Home.fxml"));
+            Parent root = fxmlLoader.load();
+            scene.addPostLayoutPulseListener(new Runnable() {
+                @Override
+                public void run() {
+                    scene.removePostLayoutPulseListener(this);
+                    markStartup("first frame");
+                    System.out.println("Startup timeline (ms since process start): " + startupTimeline);
+                }
+            });
+            scene.setRoot(root);
+            markStartup("home loaded");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void markStartup(String step) {
+        if (!startupTimeline.isEmpty()) {
+            startupTimeline.append(", ");
+        }
+        startupTimeline.append(step).append(' ').append(Duration.between(PROCESS_START, Instant.now()).toMillis());
+    }
+
+    @Override
+    public void stop() {
+        // Waits for running queries and writes, which need the database still open
+        AsyncDatabase.getInstance().shutdown();
+        ImageCache.getInstance().shutdown();
+        System.out.println("Image cache: " + ImageCache.getInstance().stats());
+        ImageStore.getInstance().shutdown();
+        if (databaseReady) {
+            DatabaseManager.getInstance().shutdown();
+        }
     }
 
     public static void main(String[] args) {
@@ -12,18 +12,12 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Hyperlink;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
 
 
 public class HomeController {
@@ -75,8 +69,11 @@ public class HomeController {
     @FXML
     private Button logoutBtn;
 
-    private DatabaseManager dbManager;
-    private ObservableList<Product> allRecommendedProducts = FXCollections.observableArrayList();
+    private ObservableList<ProductSummary> allRecommendedProducts = FXCollections.observableArrayList();
+    // 4 rows of 3 cards
+    private static final int SHOWN_PRODUCTS = 12;
+    private LiveSearch search;
+    private ProductCardPool cardPool;
 
     @FXML
     protected void showHome() {
@@ -175,7 +172,7 @@ public class HomeController {
 
     @FXML
     protected void onSearch() {
-        String searchText = searchField.getText();
+        search.searchNow();
     }
     
     @FXML
@@ -219,20 +216,20 @@ public class HomeController {
     }
 
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
+        // Ranked search as the user types; the screen shows SHOWN_PRODUCTS results, so that is all it fetches
+        if (searchField != null) {
+            search = new LiveSearch(searchField, SHOWN_PRODUCTS,
+                    (db, query, limit, offset) -> db.searchProducts(query, limit, offset),
+                    this::displayRecommendedProducts, () -> displayRecommendedProducts(allRecommendedProducts));
+        }
+
         if (recommendedGrid != null) {
+            cardPool = new ProductCardPool(recommendedGrid, 3,
+                    () -> new ProductCard(ProductCard.Layout.CATALOG, product -> navigateToProductDetails(product.productId()))
+                            .highlighting(search != null ? search.shownQueryProperty() : null));
             loadRecommendedProducts();
         }
         
-        // Add search listener for real-time filtering
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (allRecommendedProducts != null) {
-                    filterProducts(newValue);
-                }
-            });
-        }
-        
         // Check if vendor is logged in
         boolean isVendor = VendorSession.getInstance().isLoggedIn();
         
@@ -300,171 +297,37 @@ public class HomeController {
     }
 
     private void loadRecommendedProducts() {
-        // Get all products from database
-        java.util.List<Product> productList = dbManager.getAllProducts();
-        allRecommendedProducts.setAll(productList);
-        
-        if (allRecommendedProducts.isEmpty()) {
-            System.out.println("No products found in database");
-            return;
-        }
-        
-        System.out.println("Loaded " + allRecommendedProducts.size() + " products from database");
-        displayRecommendedProducts(allRecommendedProducts);
+        // Home only shows 12 cards, so only the first page is fetched
+        Label loadingLabel = new Label("Loading products...");
+        loadingLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #888888; -fx-padding: 40;");
+        recommendedGrid.getChildren().setAll(loadingLabel);
+        AsyncDatabase.getInstance().load(db -> db.getApprovedProductsPage(null, 12), page -> {
+            allRecommendedProducts.setAll(page.products());
+            
+            if (allRecommendedProducts.isEmpty()) {
+                System.out.println("No products found in database");
+            } else {
+                System.out.println("Loaded " + allRecommendedProducts.size() + " products from database");
+            }
+            if (search == null || !search.isSearching()) {
+                displayRecommendedProducts(allRecommendedProducts);
+            }
+        });
     }
 
-    private void displayRecommendedProducts(ObservableList<Product> products) {
-        recommendedGrid.getChildren().clear();
-        
+    private void displayRecommendedProducts(List<ProductSummary> products) {
+        // Display up to 12 products (4 rows x 3 columns); the grid's cards are reused, not rebuilt
+        cardPool.show(products.subList(0, Math.min(products.size(), SHOWN_PRODUCTS)));
+
         if (products.isEmpty()) {
             Label noProductsLabel = new Label("No products found");
             noProductsLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #888888; -fx-padding: 40;");
             VBox noProductsBox = new VBox(noProductsLabel);
             noProductsBox.setStyle("-fx-alignment: center;");
             recommendedGrid.add(noProductsBox, 0, 0, 3, 1);
-            return;
-        }
-
-        int col = 0;
-        int row = 0;
-        
-        // Display up to 12 products (4 rows x 3 columns)
-        int maxProducts = Math.min(products.size(), 12);
-        
-        for (int i = 0; i < maxProducts; i++) {
-            Product product = products.get(i);
-            if (product != null) {
-                VBox card = createProductCard(product);
-                recommendedGrid.add(card, col, row);
-                col++;
-                if (col > 2) {
-                    col = 0;
-                    row++;
-                }
-            }
-        }
-    }
-
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setPrefSize(220, 280);
-        card.setStyle("-fx-background-color: white; " +
-                "-fx-border-radius: 10; -fx-background-radius: 10; " +
-                "-fx-padding: 15; -fx-cursor: hand;");
-
-        card.setOnMouseClicked(event -> navigateToProductDetails(product.getProductId()));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setOffsetY(2.0);
-        shadow.setColor(Color.rgb(0, 0, 0, 0.08));
-        card.setEffect(shadow);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(190);
-        imageView.setFitHeight(140);
-        imageView.setPreserveRatio(true);
-        imageView.setSmooth(true);
-        
-        // Set image or placeholder
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                // Load from resources (local files)
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                // If image fails to load, show placeholder
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // Placeholder style
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
         }
-
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 15));
-        nameLabel.setStyle("-fx-text-fill: #333333;");
-
-        Label descLabel = new Label(product.getDescription());
-        descLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-
-        HBox priceBox = new HBox(5);
-        priceBox.setStyle("-fx-border-width: 0;");
-        Label priceLabel = new Label("৳ " + (int)product.getPrice());
-        priceLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 16));
-        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
-        Label unitLabel = new Label("/" + product.getUnit());
-        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-        priceBox.getChildren().addAll(priceLabel, unitLabel);
-
-        Region spacer = new Region();
-        spacer.setStyle("-fx-border-width: 0; -fx-background-color: transparent;");
-        VBox.setVgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-
-        HBox buttonBox = new HBox(8);
-        buttonBox.setStyle("-fx-border-width: 0; -fx-border-color: transparent;");
-        Button favButton = new Button("♡");
-        favButton.setPrefSize(45, 32);
-        
-        // Check if product is favourite and set initial style (only if logged in)
-        boolean isFav = UserSession.getInstance().isLoggedIn() && dbManager.isFavourite(product.getProductId());
-        if (isFav) {
-            favButton.setText("♥");
-            favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        } else {
-            favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        }
-        
-        favButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            boolean currentlyFav = dbManager.isFavourite(product.getProductId());
-            if (currentlyFav) {
-                // Remove from favourites
-                dbManager.removeFromFavourites(product.getProductId());
-                favButton.setText("♡");
-                favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Removed from favourites: " + product.getName());
-            } else {
-                // Add to favourites
-                dbManager.addToFavourites(product.getProductId());
-                favButton.setText("♥");
-                favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Added to favourites: " + product.getName());
-            }
-        });
-
-        Button rateButton = new Button("⭐ Rate");
-        rateButton.setPrefHeight(32);
-        rateButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
-                "-fx-font-weight: bold;");
-        rateButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            navigateToProductDetails(product.getProductId());
-        });
-        HBox.setHgrow(rateButton, javafx.scene.layout.Priority.ALWAYS);
-
-        buttonBox.getChildren().addAll(favButton, rateButton);
-
-
-        card.getChildren().addAll(imageView, nameLabel, descLabel, priceBox, spacer, buttonBox);
-
-        return card;
     }
 
-
     private void navigateToProductDetails(String productId) {
         try {
             System.out.println("Navigating to product: " + productId);
@@ -520,39 +383,15 @@ public class HomeController {
     @FXML
     private void handleSearch() {
         if (searchField != null) {
-            filterProducts(searchField.getText());
+            search.searchNow();
         }
     }
 
     @FXML
     private void handleClearSearch() {
         if (searchField != null) {
+            // Clearing the field shows the recommended products again
             searchField.clear();
-            displayRecommendedProducts(allRecommendedProducts);
-        }
-    }
-
-    private void filterProducts(String searchText) {
-        if (allRecommendedProducts == null || allRecommendedProducts.isEmpty()) {
-            return;
-        }
-
-        if (searchText == null || searchText.trim().isEmpty()) {
-            displayRecommendedProducts(allRecommendedProducts);
-            return;
         }
-
-        String lowerSearchText = searchText.toLowerCase().trim();
-        ObservableList<Product> filteredProducts = FXCollections.observableArrayList();
-        
-        for (Product p : allRecommendedProducts) {
-            if (p.getName().toLowerCase().contains(lowerSearchText) ||
-                p.getCategory().toLowerCase().contains(lowerSearchText) ||
-                p.getProductId().toLowerCase().contains(lowerSearchText)) {
-                filteredProducts.add(p);
-            }
-        }
-
-        displayRecommendedProducts(filteredProducts);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,232 @@
+package com.example.finding_bd_products;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decoded images shared by every screen, keyed by image_url and Thumbnails.Size.
+ *
+ * Screens are rebuilt from FXML on every navigation, so without this each visit to Home,
+ * All Products or Favourites decoded all of its card images again. Images are resolved
+ * through ImageStore (which may make the thumbnail first) and decoded on the
+ * "image-loader" threads, never on the FX thread; show(...) puts a placeholder in the
+ * ImageView until then. Requests for an image that is already loading share that load.
+ *
+ * Decoded images are kept LRU up to MAX_BYTES of pixels (-Dbdproducts.images.cacheMb).
+ * Evicted images stay reachable through soft references until the GC wants the memory
+ * back, so a page visited a while ago usually returns without decoding anything.
+ */
+public class ImageCache {
+    private static final long MAX_BYTES = Long.getLong("bdproducts.images.cacheMb", 64) * 1024 * 1024;
+    private static final int LOADER_THREADS = Integer.getInteger("bdproducts.images.loaderThreads",
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+    // Stored in ImageView.getProperties(): the request the view is currently showing
+    private static final String REQUEST_KEY = ImageCache.class.getName() + ".request";
+
+    private record Key(String imageUrl, Thumbnails.Size size) {
+    }
+
+    private static final class SoftImage extends SoftReference<Image> {
+        private final Key key;
+
+        private SoftImage(Key key, Image image, ReferenceQueue<Image> queue) {
+            super(image, queue);
+            this.key = key;
+        }
+    }
+
+    private static final ImageCache instance = new ImageCache();
+
+    // A light grey square, stretched over the image's box; made on the FX thread when first needed
+    private Image placeholder;
+    private final ExecutorService loader = Executors.newFixedThreadPool(LOADER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "image-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Key, Image> images = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Key, SoftImage> evicted = new HashMap<>();
+    private final ReferenceQueue<Image> cleared = new ReferenceQueue<>();
+    private final Map<Key, CompletableFuture<Image>> loading = new HashMap<>();
+    private long bytes = 0;
+
+    private long hits = 0;
+    private long softHits = 0;
+    private long misses = 0;
+    private long sharedLoads = 0;
+    private long failures = 0;
+    private long evictions = 0;
+
+    private ImageCache() {
+    }
+
+    public static ImageCache getInstance() {
+        return instance;
+    }
+
+    public Image getPlaceholder() {
+        if (placeholder == null) {
+            WritableImage image = new WritableImage(1, 1);
+            image.getPixelWriter().setColor(0, 0, Color.web("#F5F5F5"));
+            placeholder = image;
+        }
+        return placeholder;
+    }
+
+    // Shows the image in view: straight away if it is cached, otherwise the placeholder until it is
+    // decoded. Views are reused for other products, so only the latest request for a view is shown.
+    // Call on the FX thread.
+    public void show(ImageView view, String imageUrl, Thumbnails.Size size) {
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            view.getProperties().remove(REQUEST_KEY);
+            view.setImage(getPlaceholder());
+            return;
+        }
+        Key key = new Key(imageUrl, size);
+        view.getProperties().put(REQUEST_KEY, key);
+        CompletableFuture<Image> request = request(key);
+        Image ready = request.getNow(null);
+        if (ready != null) {
+            view.setImage(ready);
+            return;
+        }
+        view.setImage(getPlaceholder());
+        request.thenAccept(image -> Platform.runLater(() -> {
+            if (key.equals(view.getProperties().get(REQUEST_KEY))) {
+                view.setImage(image != null ? image : getPlaceholder());
+            }
+        }));
+    }
+
+    // Keeps a show(...) that is still loading from replacing what the view shows now
+    public void forget(ImageView view) {
+        view.getProperties().remove(REQUEST_KEY);
+    }
+
+    // Completes off the FX thread with the image, or with null if it cannot be found or decoded
+    public CompletableFuture<Image> get(String imageUrl, Thumbnails.Size size) {
+        return request(new Key(imageUrl, size));
+    }
+
+    private synchronized CompletableFuture<Image> request(Key key) {
+        Image cached = lookup(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Image> pending = loading.get(key);
+        if (pending != null) {
+            sharedLoads++;
+            return pending;
+        }
+        misses++;
+        CompletableFuture<Image> future = new CompletableFuture<>();
+        loading.put(key, future);
+        loader.execute(() -> {
+            Image image = decode(key);
+            synchronized (this) {
+                loading.remove(key);
+                if (image != null) {
+                    put(key, image);
+                } else {
+                    failures++;
+                }
+            }
+            future.complete(image);
+        });
+        return future;
+    }
+
+    private static Image decode(Key key) {
+        try {
+            String url = ImageStore.getInstance().resolve(key.imageUrl(), key.size());
+            if (url == null) {
+                return null;
+            }
+            Image image = new Image(url, false);
+            if (image.isError()) {
+                System.err.println("Could not decode image " + url + ": " + image.getException());
+                return null;
+            }
+            return image;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Under the lock
+    private Image lookup(Key key) {
+        Image image = images.get(key);
+        if (image != null) {
+            hits++;
+            return image;
+        }
+        SoftImage soft = evicted.get(key);
+        image = soft != null ? soft.get() : null;
+        if (image != null) {
+            softHits++;
+            put(key, image);
+        }
+        return image;
+    }
+
+    // Under the lock
+    private void put(Key key, Image image) {
+        evicted.remove(key);
+        Image previous = images.put(key, image);
+        if (previous != null) {
+            bytes -= weight(previous);
+        }
+        bytes += weight(image);
+
+        Iterator<Map.Entry<Key, Image>> it = images.entrySet().iterator();
+        while (bytes > MAX_BYTES && it.hasNext()) {
+            Map.Entry<Key, Image> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                // Never evict what was just asked for, even if it is larger than the whole cache
+                continue;
+            }
+            it.remove();
+            bytes -= weight(eldest.getValue());
+            evicted.put(eldest.getKey(), new SoftImage(eldest.getKey(), eldest.getValue(), cleared));
+            evictions++;
+        }
+
+        Reference<? extends Image> reference;
+        while ((reference = cleared.poll()) != null) {
+            SoftImage soft = (SoftImage) reference;
+            evicted.remove(soft.key, soft);
+        }
+    }
+
+    // Pixel bytes JavaFX holds for a decoded image (4 bytes per pixel)
+    private static long weight(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    public synchronized String stats() {
+        long lookups = hits + softHits + misses + sharedLoads;
+        double hitRate = lookups == 0 ? 0 : 100.0 * (hits + softHits) / lookups;
+        return String.format("%d hits, %d soft hits, %d misses, %d shared loads (%.1f%% hit rate), %d failed, %d evictions, %d images in %.1f MB",
+                hits, softHits, misses, sharedLoads, hitRate, failures, evictions, images.size(), bytes / (1024.0 * 1024.0));
+    }
+
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.finding_bd_products;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for the product images vendors upload.
+ *
+ * Each file is kept once, named after the SHA-256 of its bytes, in a data directory outside
+ * the classpath (-Dbdproducts.images.dir, by default product_images in the working directory,
+ * like the database). Products refer to it as "sha256:<hash>.<ext>", so uploading the same
+ * photo again stores nothing new. Uploads are copied to a temporary file on a virtual thread,
+ * forced to disk and renamed into place, so an image never appears half written.
+ *
+ * resolve(...) turns any image_url in the database into a URL JavaFX can load: store
+ * references, the "/images/..." resources bundled with the app, and plain URLs. The images
+ * table counts the products using each stored file (see SchemaMigrations), and
+ * collectGarbage() deletes the files that have gone unused for GC_GRACE_HOURS. Pass a
+ * Thumbnails.Size to get a downscaled copy for a card or table cell instead of the original.
+ */
+public class ImageStore {
+    public static final String PREFIX = "sha256:";
+    private static final Path DIRECTORY = Path.of(System.getProperty("bdproducts.images.dir", "product_images"));
+    private static final int GC_GRACE_HOURS = Integer.getInteger("bdproducts.images.gcGraceHours", 24);
+    // Where uploads were copied before the store existed; only there when running from a source checkout
+    private static final Path LEGACY_DIRECTORY = Path.of("src", "main", "resources", "images");
+    private static final Pattern STORED_NAME = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|gif)");
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Made while the upload is stored, since the cards and the admin table show it first
+    private static final Thumbnails.Size[] UPLOAD_THUMBNAILS = {Thumbnails.Size.TABLE, Thumbnails.Size.CARD};
+
+    private static final ImageStore instance = new ImageStore();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // Keeps collectGarbage from deleting a file that store() has just found and is about to register again
+    private final ReentrantLock fileLock = new ReentrantLock();
+    private final Thumbnails thumbnails = new Thumbnails(DIRECTORY.resolve("thumbnails"));
+    // SHA-256 of images that are not in the store (bundled resources, old uploads), by URL
+    private final Map<String, String> contentHashes = new ConcurrentHashMap<>();
+
+    private ImageStore() {
+    }
+
+    public static ImageStore getInstance() {
+        return instance;
+    }
+
+    public static boolean isStoreReference(String imageUrl) {
+        return imageUrl != null && imageUrl.startsWith(PREFIX);
+    }
+
+    // Copies the file into the store off the FX thread; completes with the reference to save as image_url
+    public CompletableFuture<String> store(Path source) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return storeFile(source);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private String storeFile(Path source) throws IOException {
+        Files.createDirectories(DIRECTORY);
+        Path temp = Files.createTempFile(DIRECTORY, "upload-", TEMP_SUFFIX);
+        try {
+            MessageDigest digest = sha256();
+            byte[] header = new byte[8];
+            int headerLength = 0;
+            try (InputStream in = Files.newInputStream(source);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    if (headerLength < header.length) {
+                        int copied = Math.min(read, header.length - headerLength);
+                        System.arraycopy(buffer, 0, header, headerLength, copied);
+                        headerLength += copied;
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        out.write(chunk);
+                    }
+                }
+                out.force(true);
+            }
+
+            String name = HexFormat.of().formatHex(digest.digest()) + "." + extension(header, headerLength);
+            String reference = PREFIX + name;
+            Path target = fileFor(name);
+            fileLock.lock();
+            try {
+                if (Files.exists(target)) {
+                    // Already stored; the fresh timestamp keeps it from being collected as an orphan
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                if (!DatabaseManager.getInstance().registerImage(reference)) {
+                    throw new IOException("Could not record the image in the database");
+                }
+            } finally {
+                fileLock.unlock();
+            }
+            for (Thumbnails.Size size : UPLOAD_THUMBNAILS) {
+                thumbnails.get(hashOf(name), size, () -> Files.newInputStream(target));
+            }
+            return reference;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The type is taken from the content, so the same bytes always get the same name
+    private static String extension(byte[] header, int length) throws IOException {
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        throw new IOException("Not a PNG, JPEG or GIF image");
+    }
+
+    private static String hashOf(String name) {
+        return name.substring(0, name.indexOf('.'));
+    }
+
+    // Stored files are spread over 256 subdirectories by the first two hex digits
+    private static Path fileFor(String name) {
+        return DIRECTORY.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    // URL for an image_url from the database, or null if there is no such image
+    public String resolve(String imageUrl) {
+        if (imageUrl == null || imageUrl.isBlank()) {
+            return null;
+        }
+        if (isStoreReference(imageUrl)) {
+            String name = imageUrl.substring(PREFIX.length());
+            if (!STORED_NAME.matcher(name).matches()) {
+                return null;
+            }
+            Path file = fileFor(name);
+            return Files.exists(file) ? file.toUri().toString() : null;
+        }
+        if (imageUrl.startsWith("/")) {
+            URL resource = ImageStore.class.getResource(imageUrl);
+            if (resource != null) {
+                return resource.toExternalForm();
+            }
+            Path fileName = Path.of(imageUrl).getFileName();
+            if (fileName == null) {
+                return null;
+            }
+            Path legacy = LEGACY_DIRECTORY.resolve(fileName);
+            return Files.exists(legacy) ? legacy.toUri().toString() : null;
+        }
+        // Anything else is already a URL (http:, file:)
+        return imageUrl;
+    }
+
+    // Like resolve(imageUrl), but points at a thumbnail that fits size if the original is larger.
+    // The first request for a thumbnail that isn't on disk yet makes it.
+    public String resolve(String imageUrl, Thumbnails.Size size) {
+        String url = resolve(imageUrl);
+        if (url == null || size == null || isRemote(url)) {
+            return url;
+        }
+        Path thumbnail;
+        if (isStoreReference(imageUrl)) {
+            String name = imageUrl.substring(PREFIX.length());
+            Path file = fileFor(name);
+            thumbnail = thumbnails.get(hashOf(name), size, () -> Files.newInputStream(file));
+        } else {
+            String hash = contentHash(url);
+            if (hash == null) {
+                return url;
+            }
+            thumbnail = thumbnails.get(hash, size, () -> URI.create(url).toURL().openStream());
+        }
+        return thumbnail != null ? thumbnail.toUri().toString() : url;
+    }
+
+    private String contentHash(String url) {
+        return contentHashes.computeIfAbsent(url, key -> {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(URI.create(key).toURL().openStream(), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+                return HexFormat.of().formatHex(digest.digest());
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not read image " + key + ": " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    private static boolean isRemote(String url) {
+        return url.startsWith("http:") || url.startsWith("https:");
+    }
+
+    // Starts collectGarbage() on a background thread
+    public void collectGarbageLater() {
+        executor.execute(() -> {
+            int deleted = collectGarbage();
+            if (deleted > 0) {
+                System.out.println("Image store: deleted " + deleted + " unused files");
+            }
+        });
+    }
+
+    // Deletes stored files no product has used for GC_GRACE_HOURS, files the database never recorded
+    // (an upload interrupted before it was registered) and temporary files left behind by a crash.
+    // Returns how many files were deleted.
+    public int collectGarbage() {
+        DatabaseManager db = DatabaseManager.getInstance();
+        int deleted = 0;
+        fileLock.lock();
+        try {
+            for (String reference : db.deleteUnreferencedImages(GC_GRACE_HOURS)) {
+                String name = reference.substring(PREFIX.length());
+                if (STORED_NAME.matcher(name).matches() && deleteFile(fileFor(name))) {
+                    thumbnails.delete(hashOf(name));
+                    deleted++;
+                }
+            }
+        } finally {
+            fileLock.unlock();
+        }
+
+        if (!Files.isDirectory(DIRECTORY)) {
+            return deleted;
+        }
+        // Read before listing the files, so a file stored meanwhile is recent enough to be left alone
+        Set<String> registered = db.getRegisteredImages();
+        Instant cutoff = Instant.now().minus(Duration.ofHours(GC_GRACE_HOURS));
+        try (Stream<Path> files = Files.walk(DIRECTORY, 2)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                String name = file.getFileName().toString();
+                boolean orphan = name.endsWith(TEMP_SUFFIX)
+                        || (STORED_NAME.matcher(name).matches() && !registered.contains(PREFIX + name));
+                if (!orphan) {
+                    continue;
+                }
+                fileLock.lock();
+                try {
+                    if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff) && deleteFile(file)) {
+                        if (!name.endsWith(TEMP_SUFFIX)) {
+                            thumbnails.delete(hashOf(name));
+                        }
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    fileLock.unlock();
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+        return deleted;
+    }
+
+    private static boolean deleteFile(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Lets uploads in progress finish recording themselves before the database is closed
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.finding_bd_products;
+
+import javafx.collections.ObservableList;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Updates an ObservableList to new contents with as few list changes as it can.
+ *
+ * A grid bound to the list only rebinds the cells of items that were actually removed or
+ * inserted, instead of every cell as setAll(...) would. Typing another letter usually
+ * narrows the results, which is a single removal; clearing the search puts the missing
+ * products back in a few runs of insertions.
+ */
+public final class ListDiff {
+
+    private ListDiff() {
+    }
+
+    // Makes target equal to next. Items are compared with equals(), and each is expected at most once.
+    public static <T> void apply(ObservableList<T> target, List<T> next) {
+        Set<T> wanted = new HashSet<>(next);
+        Set<T> removed = new HashSet<>();
+        for (T item : target) {
+            if (!wanted.contains(item)) {
+                removed.add(item);
+            }
+        }
+        if (!removed.isEmpty()) {
+            target.removeAll(removed);
+        }
+
+        // What is left must be in the same order as in next, then only insertions are missing
+        int matched = 0;
+        for (T item : next) {
+            if (matched < target.size() && target.get(matched).equals(item)) {
+                matched++;
+            }
+        }
+        if (matched != target.size()) {
+            target.setAll(next);
+            return;
+        }
+
+        int index = 0;
+        int i = 0;
+        while (i < next.size()) {
+            if (index < target.size() && target.get(index).equals(next.get(i))) {
+                index++;
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < next.size() && (index >= target.size() || !target.get(index).equals(next.get(i)))) {
+                i++;
+            }
+            target.addAll(index, next.subList(start, i));
+            index += i - start;
+        }
+    }
+}
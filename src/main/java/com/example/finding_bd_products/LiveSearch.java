@@ -0,0 +1,182 @@
+package com.example.finding_bd_products;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.scene.control.TextInputControl;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Search-as-you-type for a search field, shared by the product screens.
+ *
+ * The query runs once the user has stopped typing for DEBOUNCE_MS
+ * (-Dbdproducts.search.debounceMs, 150 by default), on AsyncDatabase's threads, never on
+ * the FX thread. Each new query supersedes the previous one: a query that has not started
+ * yet is skipped, and the results of one still running are dropped, so only the results
+ * for the current text ever reach onResults. Emptying the field calls onCleared straight
+ * away, since going back to the unfiltered products needs no query.
+ *
+ * Results come a page (pageSize products) at a time: onResults gets the first page, and each
+ * loadMore() hands the next one to onMore, for screens that fetch more as the user scrolls.
+ */
+public final class LiveSearch {
+    private static final int DEBOUNCE_MS = Integer.getInteger("bdproducts.search.debounceMs", 150);
+
+    // One page of results for text, ranked best first
+    public interface Query {
+        List<SearchHit> search(DatabaseManager db, String text, int limit, int offset);
+    }
+
+    private final TextInputControl field;
+    private final int pageSize;
+    private final Query query;
+    private final Consumer<List<ProductSummary>> onResults;
+    private final Consumer<List<ProductSummary>> onMore;
+    private final Runnable onCleared;
+    private final PauseTransition pause = new PauseTransition(Duration.millis(DEBOUNCE_MS));
+    // The text whose results are shown, null while none are
+    private final ReadOnlyStringWrapper shownQuery = new ReadOnlyStringWrapper();
+
+    // Read by the query thread to see whether it has been superseded
+    private volatile long generation = 0;
+    private CompletableFuture<List<SearchHit>> inFlight;
+    // Results shown for shownQuery so far, and whether the last page was full
+    private int loaded = 0;
+    private boolean more = false;
+    private final Set<String> shownIds = new HashSet<>();
+
+    // For screens that only show the first page
+    public LiveSearch(TextInputControl field, int pageSize, Query query,
+                      Consumer<List<ProductSummary>> onResults, Runnable onCleared) {
+        this(field, pageSize, query, onResults, products -> { }, onCleared);
+    }
+
+    // query gets the trimmed text; onResults, onMore and onCleared are called on the FX thread
+    public LiveSearch(TextInputControl field, int pageSize, Query query, Consumer<List<ProductSummary>> onResults,
+                      Consumer<List<ProductSummary>> onMore, Runnable onCleared) {
+        this.field = field;
+        this.pageSize = pageSize;
+        this.query = query;
+        this.onResults = onResults;
+        this.onMore = onMore;
+        this.onCleared = onCleared;
+        pause.setOnFinished(event -> searchNow());
+        field.textProperty().addListener((observable, oldValue, newValue) -> {
+            if (isBlank(newValue)) {
+                cancel();
+                clear();
+            } else {
+                pause.playFromStart();
+            }
+        });
+    }
+
+    public boolean isSearching() {
+        return !isBlank(field.getText());
+    }
+
+    // The text whose results are on screen; the cards highlight its words
+    public ReadOnlyStringProperty shownQueryProperty() {
+        return shownQuery.getReadOnlyProperty();
+    }
+
+    // Whether loadMore() can still find results
+    public boolean hasMore() {
+        return isSearching() && shownQuery.get() != null && more;
+    }
+
+    // Searches for the field's text without waiting for the debounce, as the Search button does
+    public void searchNow() {
+        cancel();
+        if (!isSearching()) {
+            clear();
+            return;
+        }
+        String text = field.getText().trim();
+        run(text, 0, hits -> {
+            shownQuery.set(text);
+            shownIds.clear();
+            loaded = 0;
+            onResults.accept(accept(hits));
+        });
+    }
+
+    // Fetches the page after the results shown; does nothing while a query is running or once
+    // the last page is in
+    public void loadMore() {
+        if (!hasMore() || inFlight != null) {
+            return;
+        }
+        run(shownQuery.get(), loaded, hits -> onMore.accept(accept(hits)));
+    }
+
+    // Drops the pending and running query, if any
+    public void cancel() {
+        pause.stop();
+        generation++;
+        if (inFlight != null) {
+            inFlight.cancel(false);
+            inFlight = null;
+        }
+    }
+
+    private void clear() {
+        shownQuery.set(null);
+        shownIds.clear();
+        loaded = 0;
+        more = false;
+        onCleared.run();
+    }
+
+    private void run(String text, int offset, Consumer<List<SearchHit>> onPage) {
+        long current = generation;
+        CompletableFuture<List<SearchHit>> future = AsyncDatabase.getInstance().supply(db -> {
+            if (current != generation) {
+                throw new CancellationException();
+            }
+            return query.search(db, text, pageSize, offset);
+        });
+        inFlight = future;
+        future.whenComplete((hits, error) -> Platform.runLater(() -> {
+            if (current != generation) {
+                return;
+            }
+            inFlight = null;
+            if (error == null) {
+                onPage.accept(hits);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                cause.printStackTrace();
+            }
+        }));
+    }
+
+    // The products of a page not shown yet; a product re-indexed between two pages can turn up in both
+    private List<ProductSummary> accept(List<SearchHit> hits) {
+        loaded += hits.size();
+        more = hits.size() == pageSize;
+        List<ProductSummary> products = new ArrayList<>(hits.size());
+        for (SearchHit hit : hits) {
+            if (shownIds.add(hit.product().productId())) {
+                products.add(hit.product());
+            }
+        }
+        return products;
+    }
+
+    private static boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
+    }
+}
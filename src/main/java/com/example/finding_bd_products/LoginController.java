@@ -11,6 +11,8 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Set;
 
 public class LoginController {
 
@@ -32,13 +34,13 @@ public class LoginController {
     @FXML
     private Label errorLabel;
 
-    private DatabaseManager dbManager;
     private boolean isPasswordVisible = false;
 
+    private record UserLogin(User user, Set<String> favouriteProductIds, List<String> favouriteCategories) {
+    }
+
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-        
         // Populate user type combo box
         userTypeCombo.getItems().addAll("Admin", "Company Vendor", "Retail Vendor", "User");
         userTypeCombo.setValue("User"); // Default selection
@@ -97,66 +99,41 @@ public class LoginController {
             return;
         }
 
-        try {
-            boolean loginSuccess = false;
-            String redirectPage = "";
-
-            switch (userType) {
-                case "Admin":
-                    if (dbManager.authenticateAdmin(email, password)) {
-                        loginSuccess = true;
-                        redirectPage = "AdminDashboard.fxml";
-                    } else {
-                        errorLabel.setText("Incorrect email or password");
-                    }
-                    break;
-
-                case "Company Vendor":
-                    CompanyVendor companyVendor = dbManager.authenticateCompanyVendor(email, password);
-                    if (companyVendor != null) {
-                        VendorSession.getInstance().loginCompanyVendor(companyVendor);
-                        loginSuccess = true;
-                        redirectPage = "VendorDashboard.fxml";
-                    } else {
-                        errorLabel.setText("Incorrect email or password");
-                    }
-                    break;
-
-                case "Retail Vendor":
-                    RetailVendor retailVendor = dbManager.authenticateRetailVendor(email, password);
-                    if (retailVendor != null) {
-                        VendorSession.getInstance().loginRetailVendor(retailVendor);
-                        loginSuccess = true;
-                        redirectPage = "VendorDashboard.fxml";
-                    } else {
-                        errorLabel.setText("Incorrect email or password");
-                    }
-                    break;
-
-                case "User":
-                    User user = dbManager.authenticateUser(email, password);
-                    if (user != null) {
-                        UserSession.getInstance().login(user);
-                        loginSuccess = true;
-                        redirectPage = "Home.fxml";
-                    } else {
-                        errorLabel.setText("Incorrect email or password");
-                    }
-                    break;
-
-                default:
-                    errorLabel.setText("Invalid user type!");
+        // Credentials are checked off the FX thread; the session is only touched back on it
+        errorLabel.setText("Signing in...");
+        AsyncDatabase.getInstance().load(db -> switch (userType) {
+            case "Admin" -> db.authenticateAdmin(email, password) ? Boolean.TRUE : null;
+            case "Company Vendor" -> db.authenticateCompanyVendor(email, password);
+            case "Retail Vendor" -> db.authenticateRetailVendor(email, password);
+            case "User" -> {
+                // Favourites are loaded here once, so card grids can look them up in memory
+                User user = db.authenticateUser(email, password);
+                yield user == null ? null : new UserLogin(user, db.getFavouriteProductIds(user.getUserId()),
+                        db.getFavouriteCategories(user.getUserId()));
             }
-
-            if (loginSuccess) {
-                // Navigate to appropriate dashboard
-                navigateToPage(event, redirectPage);
+            default -> null;
+        }, account -> {
+            String redirectPage;
+            if (account instanceof CompanyVendor companyVendor) {
+                VendorSession.getInstance().loginCompanyVendor(companyVendor);
+                redirectPage = "VendorDashboard.fxml";
+            } else if (account instanceof RetailVendor retailVendor) {
+                VendorSession.getInstance().loginRetailVendor(retailVendor);
+                redirectPage = "VendorDashboard.fxml";
+            } else if (account instanceof UserLogin login) {
+                UserSession.getInstance().login(login.user(), login.favouriteProductIds(), login.favouriteCategories());
+                redirectPage = "Home.fxml";
+            } else if (account != null) {
+                redirectPage = "AdminDashboard.fxml";
+            } else {
+                errorLabel.setText("Incorrect email or password");
+                return;
             }
 
-        } catch (Exception e) {
-            errorLabel.setText("An error occurred during login!");
-            e.printStackTrace();
-        }
+            // Navigate to appropriate dashboard
+            errorLabel.setText("");
+            navigateToPage(event, redirectPage);
+        }, error -> errorLabel.setText("An error occurred during login!"));
     }
 
     @FXML
@@ -12,16 +12,8 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Region;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import org.controlsfx.control.GridView;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -29,7 +21,10 @@ import java.util.List;
 
 public class MyFavouriteProductsController {
     @FXML
-    private GridPane productsGrid;
+    private GridView<ProductSummary> productsGrid;
+
+    @FXML
+    private Label gridMessage;
 
     @FXML
     private TextField searchField;
@@ -70,29 +65,39 @@ public class MyFavouriteProductsController {
     @FXML
     private Button signupBtn;
 
-    private List<Product> favouriteProducts = new ArrayList<>();
-    private DatabaseManager dbManager;
-    private ObservableList<Product> allFavouriteProducts = FXCollections.observableArrayList();
+    private List<ProductSummary> favouriteProducts = new ArrayList<>();
+    private ObservableList<ProductSummary> allFavouriteProducts = FXCollections.observableArrayList();
+    // What the grid shows: allFavouriteProducts, or the search results
+    private final ObservableList<ProductSummary> shownProducts = FXCollections.observableArrayList();
+    private LiveSearch search;
     private Stage stage;
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
+        // Search results come a page at a time; cards near the end of them fetch the next page
+        if (searchField != null) {
+            String userId = UserSession.getInstance().getCurrentUserId();
+            search = new LiveSearch(searchField, DatabaseManager.SEARCH_PAGE_SIZE,
+                    (db, query, limit, offset) -> db.searchFavouriteProducts(userId, query, limit, offset),
+                    this::displaySearchResults, this::appendSearchResults, () -> displayProducts(allFavouriteProducts));
+        }
+
+        productsGrid.setCellFactory(grid -> new ProductGridCell(
+                product -> navigateToProductDetails(product.productId()), this::favouriteChanged).bordered()
+                .highlighting(search != null ? search.shownQueryProperty() : null)
+                .setOnNearEnd(() -> {
+                    if (search != null) {
+                        search.loadMore();
+                    }
+                }));
+        productsGrid.setItems(shownProducts);
+
         if (UserSession.getInstance().isLoggedIn()) {
             loadFavouriteProducts();
         } else {
             showEmptyState();
         }
         
-        // Add search listener for real-time filtering
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (allFavouriteProducts != null) {
-                    filterProducts(newValue);
-                }
-            });
-        }
-        
         // Show "Add Product" button only for logged-in vendors
         if (addProductBtn != null && VendorSession.getInstance().isLoggedIn()) {
             addProductBtn.setVisible(true);
@@ -129,143 +134,43 @@ public class MyFavouriteProductsController {
     }
 
     private void showEmptyState() {
-        productsGrid.getChildren().clear();
-        Label emptyLabel = new Label("Please log in to view your favourite products.");
-        emptyLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #888888; -fx-padding: 50;");
-        VBox emptyBox = new VBox(emptyLabel);
-        emptyBox.setStyle("-fx-alignment: center;");
-        productsGrid.add(emptyBox, 0, 0, 3, 1);
+        shownProducts.clear();
+        showGridMessage("Please log in to view your favourite products.");
+    }
+
+    private void showGridMessage(String message) {
+        gridMessage.setText(message);
+        gridMessage.setVisible(message != null);
     }
 
     private void loadFavouriteProducts() {
-        favouriteProducts = dbManager.getFavouriteProducts();
-        
-        if (favouriteProducts.isEmpty()) {
-            allFavouriteProducts.clear();
-            displayProducts(allFavouriteProducts);
-            return;
-        }
-        
-        allFavouriteProducts.setAll(favouriteProducts);
-        displayProducts(allFavouriteProducts);
+        String userId = UserSession.getInstance().getCurrentUserId();
+        AsyncDatabase.getInstance().load(db -> db.getFavouriteProducts(userId), products -> {
+            // A removal still being saved must not bring the card back
+            products.removeIf(product -> !UserSession.getInstance().isFavourite(product.productId()));
+            favouriteProducts = products;
+            allFavouriteProducts.setAll(favouriteProducts);
+            if (search == null || !search.isSearching()) {
+                displayProducts(allFavouriteProducts);
+            }
+        });
     }
     
-    private void displayProducts(javafx.collections.ObservableList<Product> products) {
-        productsGrid.getChildren().clear();
-        
-        if (products.isEmpty()) {
-            Label emptyLabel = new Label("No products found");
-            emptyLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #888888; -fx-padding: 40;");
-            VBox emptyBox = new VBox(emptyLabel);
-            emptyBox.setStyle("-fx-alignment: center;");
-            productsGrid.add(emptyBox, 0, 0, 3, 1);
-            return;
-        }
-        
-        int col = 0;
-        int row = 0;
-        for (Product product : products) {
-            VBox card = createProductCard(product);
-            productsGrid.add(card, col, row);
-            col++;
-            if (col > 2) {
-                col = 0;
-                row++;
-            }
-        }
+    // Only the cards of products that came or went are rebound
+    private void displayProducts(List<ProductSummary> products) {
+        ListDiff.apply(shownProducts, products);
+        showGridMessage(products.isEmpty() ? "No products found" : null);
     }
 
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setMaxWidth(Double.MAX_VALUE);
-        card.setStyle("-fx-background-color: white; -fx-border-color: #E0E0E0; " +
-                "-fx-border-width: 1; -fx-border-radius: 10; -fx-background-radius: 10; " +
-                "-fx-padding: 15; -fx-cursor: hand;");
-
-        card.setOnMouseClicked(event -> navigateToProductDetails(product.getProductId()));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setOffsetY(2.0);
-        shadow.setColor(Color.rgb(0, 0, 0, 0.08));
-        card.setEffect(shadow);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(190);
-        imageView.setFitHeight(140);
-        imageView.setPreserveRatio(true);
-        imageView.setSmooth(true);
-        
-        // Set image or placeholder
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                // Load from resources (local files)
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                // If image fails to load, show placeholder
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // Placeholder style
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
+    // The session saves the removal; the card is dropped from the grid right away
+    private void favouriteChanged(ProductSummary product, boolean nowFav) {
+        if (nowFav) {
+            return;
         }
-
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 15));
-        nameLabel.setStyle("-fx-text-fill: #333333;");
-
-        Label descLabel = new Label(product.getDescription());
-        descLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-
-        HBox priceBox = new HBox(5);
-        Label priceLabel = new Label("৳ " + (int)product.getPrice());
-        priceLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 16));
-        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
-        Label unitLabel = new Label("/" + product.getUnit());
-        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-        priceBox.getChildren().addAll(priceLabel, unitLabel);
-
-        Region spacer = new Region();
-        VBox.setVgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-
-        HBox buttonBox = new HBox(8);
-        Button favButton = new Button("♥");
-        favButton.setPrefSize(45, 32);
-        favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px;");
-        favButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            // Remove from favourites
-            dbManager.removeFromFavourites(product.getProductId());
-            loadFavouriteProducts(); // Refresh the grid
-            System.out.println("Removed from favourites: " + product.getName());
-        });
-
-        Button rateButton = new Button("⭐ Rate");
-        rateButton.setPrefHeight(32);
-        rateButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
-                "-fx-font-weight: bold;");
-        rateButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            navigateToProductDetails(product.getProductId());
-        });
-        HBox.setHgrow(rateButton, javafx.scene.layout.Priority.ALWAYS);
-
-        buttonBox.getChildren().addAll(favButton, rateButton);
-
-        card.getChildren().addAll(imageView, nameLabel, descLabel, priceBox, spacer, buttonBox);
-
-        return card;
+        favouriteProducts.remove(product);
+        allFavouriteProducts.remove(product);
+        shownProducts.remove(product);
+        showGridMessage(shownProducts.isEmpty() ? "No products found" : null);
     }
 
     private void navigateToProductDetails(String productId) {
@@ -389,29 +294,20 @@ public class MyFavouriteProductsController {
 
     @FXML
     protected void onSearch() {
-        if (searchField != null) {
-            filterProducts(searchField.getText());
+        if (search != null) {
+            search.searchNow();
         }
     }
     
-    private void filterProducts(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            displayProducts(allFavouriteProducts);
-            return;
-        }
-        
-        String searchLower = searchText.toLowerCase().trim();
-        javafx.collections.ObservableList<Product> filteredProducts = javafx.collections.FXCollections.observableArrayList();
-        
-        for (Product product : allFavouriteProducts) {
-            if (product.getName().toLowerCase().contains(searchLower) ||
-                product.getCategory().toLowerCase().contains(searchLower) ||
-                product.getProductId().toLowerCase().contains(searchLower)) {
-                filteredProducts.add(product);
-            }
-        }
-        
-        displayProducts(filteredProducts);
+    private void displaySearchResults(List<ProductSummary> products) {
+        // A removal still being saved must not bring the card back
+        products.removeIf(product -> !UserSession.getInstance().isFavourite(product.productId()));
+        displayProducts(products);
+    }
+
+    private void appendSearchResults(List<ProductSummary> products) {
+        products.removeIf(product -> !UserSession.getInstance().isFavourite(product.productId()));
+        shownProducts.addAll(products);
     }
 
     private void loadPage(String fxmlFile) {
@@ -425,13 +321,5 @@ public class MyFavouriteProductsController {
             e.printStackTrace();
         }
     }
-
-    private void showLoginAlert() {
-        Alert alert = new Alert(Alert.AlertType.WARNING);
-        alert.setTitle("Login Required");
-        alert.setHeaderText("You need to log in");
-        alert.setContentText("Please log in to perform this action.");
-        alert.showAndWait();
-    }
 }
 
@@ -82,7 +82,6 @@ public class MyProfileController {
     @FXML
     private Button myProductsBtn;
     
-    private DatabaseManager dbManager;
     private EmailService emailService;
     private User currentUser;
     private boolean isEditMode = false;
@@ -94,7 +93,6 @@ public class MyProfileController {
     
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         emailService = EmailService.getInstance();
         currentUser = UserSession.getInstance().getCurrentUser();
         
@@ -301,25 +299,31 @@ public class MyProfileController {
             currentUser.setPassword(newPassword);
         }
         
-        // Update in database
-        boolean success = dbManager.updateUserProfile(currentUser);
-        
-        if (success) {
-            // Update session with new data
-            UserSession.getInstance().login(currentUser);
-            
-            showAlert("Success", "Profile updated successfully!", Alert.AlertType.INFORMATION);
-            
-            // Clear password fields
-            currentPasswordField.clear();
-            newPasswordField.clear();
-            confirmPasswordField.clear();
-            
-            // Return to view mode
-            setViewMode();
-        } else {
+        // Update in database; Save stays disabled until it is done
+        User user = currentUser;
+        saveBtn.setDisable(true);
+        AsyncDatabase.getInstance().load(db -> db.updateUserProfile(user), success -> {
+            saveBtn.setDisable(false);
+            if (success) {
+                // Update session with new data
+                UserSession.getInstance().login(user);
+
+                showAlert("Success", "Profile updated successfully!", Alert.AlertType.INFORMATION);
+
+                // Clear password fields
+                currentPasswordField.clear();
+                newPasswordField.clear();
+                confirmPasswordField.clear();
+
+                // Return to view mode
+                setViewMode();
+            } else {
+                showAlert("Error", "Failed to update profile. Please try again.", Alert.AlertType.ERROR);
+            }
+        }, error -> {
+            saveBtn.setDisable(false);
             showAlert("Error", "Failed to update profile. Please try again.", Alert.AlertType.ERROR);
-        }
+        });
     }
     
     @FXML
@@ -351,11 +355,18 @@ public class MyProfileController {
         }
         
         // Check if email already exists in database
-        if (dbManager.emailExists(newEmail)) {
-            showAlert("Error", "This email is already registered to another account", Alert.AlertType.ERROR);
-            return;
-        }
-        
+        sendCodeBtn.setDisable(true);
+        AsyncDatabase.getInstance().load(db -> db.emailExists(newEmail), exists -> {
+            sendCodeBtn.setDisable(false);
+            if (exists) {
+                showAlert("Error", "This email is already registered to another account", Alert.AlertType.ERROR);
+                return;
+            }
+            sendVerificationCode(newEmail);
+        }, error -> sendCodeBtn.setDisable(false));
+    }
+
+    private void sendVerificationCode(String newEmail) {
         // Generate and send verification code
         generatedVerificationCode = emailService.generateVerificationCode();
         verificationCodeTimestamp = System.currentTimeMillis();
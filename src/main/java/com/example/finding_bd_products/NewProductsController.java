@@ -11,20 +11,14 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 
 public class NewProductsController {
 
@@ -70,24 +64,27 @@ public class NewProductsController {
     @FXML
     private Button logoutBtn;
 
-    private DatabaseManager dbManager;
-    private ObservableList<Product> allNewProducts = FXCollections.observableArrayList();
+    private ObservableList<ProductSummary> allNewProducts = FXCollections.observableArrayList();
+    // 4 rows of 3 cards
+    private static final int SHOWN_PRODUCTS = 12;
+    private LiveSearch search;
+    private ProductCardPool cardPool;
 
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
+        // Ranked search as the user types; the screen shows SHOWN_PRODUCTS results, so that is all it fetches
+        if (searchField != null) {
+            search = new LiveSearch(searchField, SHOWN_PRODUCTS,
+                    (db, query, limit, offset) -> db.searchProducts(query, limit, offset),
+                    this::displayProducts, () -> displayProducts(allNewProducts));
+        }
+
         if (productsGrid != null) {
+            cardPool = new ProductCardPool(productsGrid, 3,
+                    () -> new ProductCard(ProductCard.Layout.CATALOG, product -> navigateToProductDetails(product.productId()))
+                            .highlighting(search != null ? search.shownQueryProperty() : null));
             loadProducts();
         }
         
-        // Add search listener for real-time filtering
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                if (allNewProducts != null) {
-                    filterProducts(newValue);
-                }
-            });
-        }
-        
         // Show "Add Product" button only for logged-in vendors
         if (addProductBtn != null && VendorSession.getInstance().isLoggedIn()) {
             addProductBtn.setVisible(true);
@@ -207,174 +204,39 @@ public class NewProductsController {
     }
 
     private void loadProducts() {
-        // Get latest 12 products from database (reverse order to show newest first)
-        java.util.List<Product> productList = dbManager.getAllProducts();
-        
-        if (productList.isEmpty()) {
-            System.out.println("No products found in database");
-            allNewProducts.clear();
-            displayProducts(allNewProducts);
-            return;
-        }
-        
-        // Reverse the list to show newest products first (assuming higher IDs are newer)
-        java.util.Collections.reverse(productList);
-        
-        System.out.println("Loaded " + productList.size() + " products from database");
-        
-        // Store in ObservableList for search functionality
-        allNewProducts.setAll(productList);
-        displayProducts(allNewProducts);
+        // Fetch just the SHOWN_PRODUCTS newest products; the database returns them newest first
+        Label loadingLabel = new Label("Loading products...");
+        loadingLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #888888; -fx-padding: 40;");
+        productsGrid.getChildren().setAll(loadingLabel);
+        AsyncDatabase.getInstance().load(db -> db.getNewestProducts(SHOWN_PRODUCTS), productList -> {
+            if (productList.isEmpty()) {
+                System.out.println("No products found in database");
+                allNewProducts.clear();
+                displayProducts(allNewProducts);
+                return;
+            }
+            
+            System.out.println("Loaded " + productList.size() + " products from database");
+            
+            // Store in ObservableList for search functionality
+            allNewProducts.setAll(productList);
+            if (search == null || !search.isSearching()) {
+                displayProducts(allNewProducts);
+            }
+        });
     }
     
-    private void displayProducts(javafx.collections.ObservableList<Product> products) {
-        productsGrid.getChildren().clear();
-        
+    private void displayProducts(List<ProductSummary> products) {
+        // Display up to 12 products (latest); the grid's cards are reused, not rebuilt
+        cardPool.show(products.subList(0, Math.min(products.size(), SHOWN_PRODUCTS)));
+
         if (products.isEmpty()) {
             Label noProductsLabel = new Label("No products found");
             noProductsLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #888888; -fx-padding: 40;");
             VBox noProductsBox = new VBox(noProductsLabel);
             noProductsBox.setStyle("-fx-alignment: center;");
             productsGrid.add(noProductsBox, 0, 0, 3, 1);
-            return;
-        }
-
-        int col = 0;
-        int row = 0;
-        
-        // Display up to 12 products (latest)
-        int maxProducts = Math.min(products.size(), 12);
-        
-        for (int i = 0; i < maxProducts; i++) {
-            Product product = products.get(i);
-            if (product != null) {
-                VBox card = createProductCard(product);
-                productsGrid.add(card, col, row);
-                col++;
-                if (col > 2) {
-                    col = 0;
-                    row++;
-                }
-            }
-        }
-    }
-
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setPrefSize(220, 280);
-        card.setStyle("-fx-background-color: white; " +
-                "-fx-border-radius: 10; -fx-background-radius: 10; " +
-                "-fx-padding: 15; -fx-cursor: hand;");
-
-        card.setOnMouseClicked(event -> navigateToProductDetails(product.getProductId()));
-
-        DropShadow shadow = new DropShadow();
-        shadow.setOffsetY(2.0);
-        shadow.setColor(Color.rgb(0, 0, 0, 0.08));
-        card.setEffect(shadow);
-
-        // Product image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(190);
-        imageView.setFitHeight(140);
-        imageView.setPreserveRatio(true);
-        imageView.setSmooth(true);
-        
-        // Set image or placeholder
-        if (product.getImageUrl() != null && !product.getImageUrl().isEmpty()) {
-            try {
-                // Load from resources (local files)
-                Image image = new Image(getClass().getResourceAsStream(product.getImageUrl()));
-                imageView.setImage(image);
-            } catch (Exception e) {
-                // If image fails to load, show placeholder
-                imageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // Placeholder style
-            imageView.setStyle("-fx-background-color: #F5F5F5;");
         }
-
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 15));
-        nameLabel.setStyle("-fx-text-fill: #333333;");
-
-        Label descLabel = new Label(product.getDescription());
-        descLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-
-        HBox priceBox = new HBox(5);
-        priceBox.setStyle("-fx-border-width: 0;");
-        Label priceLabel = new Label("৳ " + (int)product.getPrice());
-        priceLabel.setFont(Font.font("System", javafx.scene.text.FontWeight.BOLD, 16));
-        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
-        Label unitLabel = new Label("/" + product.getUnit());
-        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
-        priceBox.getChildren().addAll(priceLabel, unitLabel);
-
-        Region spacer = new Region();
-        spacer.setStyle("-fx-border-width: 0; -fx-background-color: transparent;");
-        VBox.setVgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-
-        HBox buttonBox = new HBox(8);
-        buttonBox.setStyle("-fx-border-width: 0; -fx-border-color: transparent;");
-        Button favButton = new Button("♡");
-        favButton.setPrefSize(45, 32);
-        
-        // Check if product is favourite and set initial style (only if logged in)
-        boolean isFav = UserSession.getInstance().isLoggedIn() && dbManager.isFavourite(product.getProductId());
-        if (isFav) {
-            favButton.setText("♥");
-            favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        } else {
-            favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-        }
-        
-        favButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            boolean currentlyFav = dbManager.isFavourite(product.getProductId());
-            if (currentlyFav) {
-                // Remove from favourites
-                dbManager.removeFromFavourites(product.getProductId());
-                favButton.setText("♡");
-                favButton.setStyle("-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Removed from favourites: " + product.getName());
-            } else {
-                // Add to favourites
-                dbManager.addToFavourites(product.getProductId());
-                favButton.setText("♥");
-                favButton.setStyle("-fx-background-color: #D32F2F; -fx-text-fill: white; " +
-                        "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;");
-                System.out.println("Added to favourites: " + product.getName());
-            }
-        });
-
-        Button rateButton = new Button("⭐ Rate");
-        rateButton.setPrefHeight(32);
-        rateButton.setStyle("-fx-background-color: #FF9800; -fx-text-fill: white; " +
-                "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
-                "-fx-font-weight: bold;");
-        rateButton.setOnAction(e -> {
-            e.consume();
-            if (!UserSession.getInstance().isLoggedIn()) {
-                showLoginAlert();
-                return;
-            }
-            navigateToProductDetails(product.getProductId());
-        });
-        HBox.setHgrow(rateButton, javafx.scene.layout.Priority.ALWAYS);
-
-        buttonBox.getChildren().addAll(favButton, rateButton);
-
-        card.getChildren().addAll(imageView, nameLabel, descLabel, priceBox, spacer, buttonBox);
-
-        return card;
     }
 
     private void navigateToProductDetails(String productId) {
@@ -434,30 +296,10 @@ public class NewProductsController {
     @FXML
     protected void onSearch() {
         if (searchField != null) {
-            filterProducts(searchField.getText());
+            search.searchNow();
         }
     }
     
-    private void filterProducts(String searchText) {
-        if (searchText == null || searchText.trim().isEmpty()) {
-            displayProducts(allNewProducts);
-            return;
-        }
-        
-        String searchLower = searchText.toLowerCase().trim();
-        javafx.collections.ObservableList<Product> filteredProducts = javafx.collections.FXCollections.observableArrayList();
-        
-        for (Product product : allNewProducts) {
-            if (product.getName().toLowerCase().contains(searchLower) ||
-                product.getCategory().toLowerCase().contains(searchLower) ||
-                product.getProductId().toLowerCase().contains(searchLower)) {
-                filteredProducts.add(product);
-            }
-        }
-        
-        displayProducts(filteredProducts);
-    }
-
     private void loadPage(String fxmlFile) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
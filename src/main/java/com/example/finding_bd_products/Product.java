@@ -15,7 +15,10 @@ public class Product {
     private String manufacturerName;
     private int recommendationCount;
     private List<Review> reviews;
-    private double averageRating;
+    // Rating aggregates, read from the products row so listings don't need the reviews
+    private int reviewCount;
+    private long ratingSum;
+    private int[] ratingHistogram = new int[5];
     private String approvalStatus;
     private String rejectionReason;
     private String originalProductId;
@@ -32,13 +35,27 @@ public class Product {
         this.manufacturerName = null;
         this.recommendationCount = 0;
         this.reviews = new ArrayList<>();
-        this.averageRating = 0.0;
     }
 
     public Product(String productId, String name, String description, double price, String unit, String category) {
         this(productId, name, description, price, unit, category, null);
     }
 
+    // A copy with its own review list, so a caller can change it without touching the original
+    public Product(Product other) {
+        this(other.productId, other.name, other.description, other.price, other.unit, other.category, other.imageUrl);
+        this.vendorId = other.vendorId;
+        this.manufacturerName = other.manufacturerName;
+        this.recommendationCount = other.recommendationCount;
+        this.reviews = new ArrayList<>(other.reviews);
+        this.reviewCount = other.reviewCount;
+        this.ratingSum = other.ratingSum;
+        this.ratingHistogram = other.ratingHistogram.clone();
+        this.approvalStatus = other.approvalStatus;
+        this.rejectionReason = other.rejectionReason;
+        this.originalProductId = other.originalProductId;
+    }
+
     public void addRecommendation() {
         this.recommendationCount++;
     }
@@ -51,19 +68,26 @@ public class Product {
 
     public void addReview(Review review) {
         this.reviews.add(review);
-        calculateAverageRating();
+        countRating(review.getRating());
     }
 
-    private void calculateAverageRating() {
-        if (reviews.isEmpty()) {
-            averageRating = 0.0;
-            return;
+    private void countRating(int rating) {
+        reviewCount++;
+        ratingSum += rating;
+        if (rating >= 1 && rating <= 5) {
+            ratingHistogram[rating - 1]++;
         }
-        double sum = 0;
+    }
+
+    // Rebuilds the aggregates from the review list, for a product put together in memory;
+    // products read from the database get them from the row via setRatingAggregate
+    public void recountRatings() {
+        reviewCount = 0;
+        ratingSum = 0;
+        ratingHistogram = new int[5];
         for (Review review : reviews) {
-            sum += review.getRating();
+            countRating(review.getRating());
         }
-        averageRating = sum / reviews.size();
     }
 
     
@@ -100,7 +124,19 @@ public class Product {
     public List<Review> getReviews() { return reviews; }
     public void setReviews(List<Review> reviews) { this.reviews = reviews; }
 
-    public double getAverageRating() { return averageRating; }
+    public double getAverageRating() { return reviewCount == 0 ? 0.0 : ratingSum / (double) reviewCount; }
+
+    public int getReviewCount() { return reviewCount; }
+    public long getRatingSum() { return ratingSum; }
+
+    // Number of 1..5 star reviews, index 0 is one star
+    public int[] getRatingHistogram() { return ratingHistogram.clone(); }
+
+    public void setRatingAggregate(int reviewCount, long ratingSum, int[] ratingHistogram) {
+        this.reviewCount = reviewCount;
+        this.ratingSum = ratingSum;
+        this.ratingHistogram = ratingHistogram.clone();
+    }
 
     public String getApprovalStatus() { return approvalStatus; }
     public void setApprovalStatus(String approvalStatus) { this.approvalStatus = approvalStatus; }
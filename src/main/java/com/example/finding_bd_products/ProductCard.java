@@ -0,0 +1,328 @@
+package com.example.finding_bd_products;
+
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.beans.value.WeakChangeListener;
+import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.effect.DropShadow;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * The card a product is shown as in the catalog grids and on the vendor dashboard.
+ *
+ * A card is built once and shows another product after update(...), so a grid can keep
+ * its cards when the products change (see ProductCardPool and ProductGridCell) instead of
+ * building new ones on every search keystroke. Effects, fonts and styles are shared by
+ * all cards.
+ *
+ * A card on a searchable screen follows that screen's search with highlighting(...): while
+ * results are shown, the words of the query are marked in the card's name.
+ */
+public final class ProductCard extends VBox {
+
+    public enum Layout {
+        // Image, description, price, rating, favourite and rate buttons; for shoppers
+        CATALOG,
+        // Larger image, category and a details button; for the vendor's own products
+        VENDOR
+    }
+
+    private static final DropShadow CATALOG_SHADOW = shadow(Color.rgb(0, 0, 0, 0.08), 10, 2);
+    private static final DropShadow VENDOR_SHADOW = shadow(Color.rgb(0, 0, 0, 0.2), 10, 3);
+    private static final Font NAME_FONT = Font.font("System", FontWeight.BOLD, 15);
+    private static final Font PRICE_FONT = Font.font("System", FontWeight.BOLD, 16);
+    private static final Font VENDOR_NAME_FONT = Font.font("System Bold", 16);
+    private static final Font VENDOR_CATEGORY_FONT = Font.font(12);
+    private static final Font VENDOR_PRICE_FONT = Font.font("System Bold", 18);
+    private static final Color NAME_COLOR = Color.web("#333333");
+    private static final Color MATCH_COLOR = Color.web("#2E7D32");
+
+    private static final String CATALOG_STYLE = "-fx-background-color: white; " +
+            "-fx-border-radius: 10; -fx-background-radius: 10; " +
+            "-fx-padding: 15; -fx-cursor: hand;";
+    private static final String BORDERED_STYLE = "-fx-background-color: white; -fx-border-color: #E0E0E0; " +
+            "-fx-border-width: 1; -fx-border-radius: 10; -fx-background-radius: 10; " +
+            "-fx-padding: 15; -fx-cursor: hand;";
+    private static final String VENDOR_STYLE = "-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 15;";
+    private static final String VENDOR_HOVER_STYLE = "-fx-background-color: #f5f5f5; -fx-background-radius: 10; -fx-padding: 15; -fx-cursor: hand;";
+    private static final String FAV_STYLE = "-fx-background-color: #D32F2F; -fx-text-fill: white; " +
+            "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;";
+    private static final String NOT_FAV_STYLE = "-fx-background-color: #FFE5E5; -fx-text-fill: #D32F2F; " +
+            "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 14px; -fx-border-width: 0;";
+    private static final String RATE_STYLE = "-fx-background-color: #FF9800; -fx-text-fill: white; " +
+            "-fx-background-radius: 6; -fx-cursor: hand; -fx-font-size: 12px; " +
+            "-fx-font-weight: bold;";
+    private static final String DETAILS_STYLE = "-fx-background-color: linear-gradient(to bottom, #2E7D32, #4CAF50); " +
+            "-fx-text-fill: white; -fx-font-size: 12px; -fx-font-weight: bold; " +
+            "-fx-background-radius: 5; -fx-cursor: hand; -fx-padding: 8 20 8 20;";
+
+    private final Layout layout;
+    private final Consumer<ProductSummary> onOpen;
+    private BiConsumer<ProductSummary, Boolean> onFavouriteChanged = (product, nowFav) -> { };
+    private ProductSummary product;
+
+    private final ImageView imageView = new ImageView();
+    private final Label nameLabel = new Label();
+    // Takes the label's place while the name has highlighted words
+    private final TextFlow highlightedName = new TextFlow();
+    private ObservableValue<String> highlightQuery;
+    private final ChangeListener<String> highlightListener = (observable, oldValue, newValue) -> showName();
+    private final Label detailLabel = new Label();
+    private final Label priceLabel = new Label();
+    private final Label unitLabel = new Label();
+    private final Label ratingLabel = new Label();
+    private final Button favButton = new Button("♡");
+
+    // onOpen is called with the card's product when the card, or its rate/details button, is clicked
+    public ProductCard(Layout layout, Consumer<ProductSummary> onOpen) {
+        super(10);
+        this.layout = layout;
+        this.onOpen = onOpen;
+        imageView.setPreserveRatio(true);
+        setShown(highlightedName, false);
+        if (layout == Layout.VENDOR) {
+            buildVendorCard();
+        } else {
+            buildCatalogCard();
+        }
+    }
+
+    private void buildCatalogCard() {
+        setPrefSize(220, 280);
+        setStyle(CATALOG_STYLE);
+        setEffect(CATALOG_SHADOW);
+        setOnMouseClicked(event -> open());
+
+        imageView.setFitWidth(190);
+        imageView.setFitHeight(140);
+        imageView.setSmooth(true);
+
+        nameLabel.setFont(NAME_FONT);
+        nameLabel.setStyle("-fx-text-fill: #333333;");
+        detailLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
+
+        HBox priceBox = new HBox(5);
+        priceBox.setStyle("-fx-border-width: 0;");
+        priceLabel.setFont(PRICE_FONT);
+        priceLabel.setStyle("-fx-text-fill: #D32F2F;");
+        unitLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #888888;");
+        priceBox.getChildren().addAll(priceLabel, unitLabel);
+
+        ratingLabel.setStyle("-fx-font-size: 12px; -fx-text-fill: #FFA000;");
+
+        Region spacer = new Region();
+        spacer.setStyle("-fx-border-width: 0; -fx-background-color: transparent;");
+        VBox.setVgrow(spacer, Priority.ALWAYS);
+
+        HBox buttonBox = new HBox(8);
+        buttonBox.setStyle("-fx-border-width: 0; -fx-border-color: transparent;");
+        favButton.setPrefSize(45, 32);
+        favButton.setOnAction(e -> {
+            e.consume();
+            if (product == null) {
+                return;
+            }
+            if (!UserSession.getInstance().isLoggedIn()) {
+                showLoginAlert();
+                return;
+            }
+            ProductSummary toggled = product;
+            boolean nowFav = UserSession.getInstance().toggleFavourite(toggled.productId());
+            styleFavButton(nowFav);
+            System.out.println((nowFav ? "Added to favourites: " : "Removed from favourites: ") + toggled.name());
+            onFavouriteChanged.accept(toggled, nowFav);
+        });
+
+        Button rateButton = new Button("⭐ Rate");
+        rateButton.setPrefHeight(32);
+        rateButton.setMaxWidth(Double.MAX_VALUE);
+        rateButton.setStyle(RATE_STYLE);
+        rateButton.setOnAction(e -> {
+            e.consume();
+            if (product == null) {
+                return;
+            }
+            if (!UserSession.getInstance().isLoggedIn()) {
+                showLoginAlert();
+                return;
+            }
+            open();
+        });
+        HBox.setHgrow(rateButton, Priority.ALWAYS);
+
+        buttonBox.getChildren().addAll(favButton, rateButton);
+        getChildren().addAll(imageView, nameLabel, highlightedName, detailLabel, priceBox, ratingLabel, spacer, buttonBox);
+    }
+
+    private void buildVendorCard() {
+        setAlignment(Pos.TOP_CENTER);
+        setStyle(VENDOR_STYLE);
+        setPrefSize(280, 350);
+        setMaxSize(280, 350);
+        setEffect(VENDOR_SHADOW);
+        setOnMouseEntered(e -> setStyle(VENDOR_HOVER_STYLE));
+        setOnMouseExited(e -> setStyle(VENDOR_STYLE));
+
+        imageView.setFitWidth(250);
+        imageView.setFitHeight(200);
+
+        nameLabel.setFont(VENDOR_NAME_FONT);
+        nameLabel.setStyle("-fx-text-fill: #333; -fx-font-weight: bold;");
+        nameLabel.setWrapText(true);
+        nameLabel.setMaxWidth(250);
+        nameLabel.setAlignment(Pos.CENTER);
+        highlightedName.setMaxWidth(250);
+        highlightedName.setTextAlignment(TextAlignment.CENTER);
+
+        detailLabel.setFont(VENDOR_CATEGORY_FONT);
+        detailLabel.setStyle("-fx-text-fill: #666;");
+
+        priceLabel.setFont(VENDOR_PRICE_FONT);
+        priceLabel.setStyle("-fx-text-fill: #2E7D32; -fx-font-weight: bold;");
+
+        Button detailsBtn = new Button("View Details");
+        detailsBtn.setStyle(DETAILS_STYLE);
+        detailsBtn.setOnAction(e -> open());
+
+        getChildren().addAll(imageView, nameLabel, highlightedName, detailLabel, priceLabel, detailsBtn);
+    }
+
+    private static DropShadow shadow(Color color, double radius, double offsetY) {
+        DropShadow shadow = new DropShadow();
+        shadow.setColor(color);
+        shadow.setRadius(radius);
+        shadow.setOffsetY(offsetY);
+        return shadow;
+    }
+
+    // The favourites page draws its cards with a light border
+    public ProductCard bordered() {
+        setStyle(BORDERED_STYLE);
+        return this;
+    }
+
+    // Marks the words of query's value in the name whenever it is set; null leaves the name plain
+    public ProductCard highlighting(ObservableValue<String> query) {
+        highlightQuery = query;
+        if (query != null) {
+            // Weak, so a card the grid dropped doesn't stay attached to the screen's search
+            query.addListener(new WeakChangeListener<>(highlightListener));
+        }
+        showName();
+        return this;
+    }
+
+    // Told after the favourite button toggled the card's product
+    public ProductCard setOnFavouriteChanged(BiConsumer<ProductSummary, Boolean> onFavouriteChanged) {
+        this.onFavouriteChanged = onFavouriteChanged;
+        return this;
+    }
+
+    public ProductSummary getProduct() {
+        return product;
+    }
+
+    // Shows product on this card; null empties the card and drops its image
+    public void update(ProductSummary product) {
+        if (product != null && product.equals(this.product)) {
+            // Already showing it; only the favourite state can have changed since
+            if (layout == Layout.CATALOG) {
+                styleFavButton(UserSession.getInstance().isFavourite(product.productId()));
+            }
+            return;
+        }
+        this.product = product;
+        if (product == null) {
+            ImageCache.getInstance().forget(imageView);
+            imageView.setImage(null);
+            return;
+        }
+
+        showName();
+        if (layout == Layout.VENDOR) {
+            ImageCache.getInstance().show(imageView, product.imageUrl(), Thumbnails.Size.LARGE_CARD);
+            detailLabel.setText(product.category());
+            priceLabel.setText("৳ " + String.format("%.2f", product.price()));
+            return;
+        }
+
+        ImageCache.getInstance().show(imageView, product.imageUrl(), Thumbnails.Size.CARD);
+        detailLabel.setText(product.shortDescription());
+        priceLabel.setText("৳ " + (int) product.price());
+        unitLabel.setText("/" + product.unit());
+        // Rating comes from the aggregate columns, no reviews are loaded for the grid
+        ratingLabel.setText(product.reviewCount() == 0 ? "No ratings yet"
+                : String.format("★ %.1f (%d)", product.averageRating(), product.reviewCount()));
+        // Favourite state comes from the session's set, loaded at login
+        styleFavButton(UserSession.getInstance().isFavourite(product.productId()));
+    }
+
+    private void showName() {
+        String name = product == null ? null : product.name();
+        nameLabel.setText(name);
+        boolean[] matched = highlightQuery == null || name == null ? null : SearchHit.matched(name, highlightQuery.getValue());
+        setShown(nameLabel, matched == null);
+        setShown(highlightedName, matched != null);
+        if (matched == null) {
+            highlightedName.getChildren().clear();
+            return;
+        }
+        // One Text per run of matched or unmatched characters
+        Font font = layout == Layout.VENDOR ? VENDOR_NAME_FONT : NAME_FONT;
+        List<Text> runs = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= name.length(); i++) {
+            if (i == name.length() || matched[i] != matched[start]) {
+                Text run = new Text(name.substring(start, i));
+                run.setFont(font);
+                run.setFill(matched[start] ? MATCH_COLOR : NAME_COLOR);
+                run.setUnderline(matched[start]);
+                runs.add(run);
+                start = i;
+            }
+        }
+        highlightedName.getChildren().setAll(runs);
+    }
+
+    private static void setShown(javafx.scene.Node node, boolean shown) {
+        node.setVisible(shown);
+        node.setManaged(shown);
+    }
+
+    private void open() {
+        if (product != null) {
+            onOpen.accept(product);
+        }
+    }
+
+    private void styleFavButton(boolean isFav) {
+        favButton.setText(isFav ? "♥" : "♡");
+        favButton.setStyle(isFav ? FAV_STYLE : NOT_FAV_STYLE);
+    }
+
+    private static void showLoginAlert() {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Login Required");
+        alert.setHeaderText("You need to log in");
+        alert.setContentText("Please log in to perform this action.");
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.finding_bd_products;
+
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.layout.GridPane;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The ProductCards of one GridPane, kept for as long as its page is open.
+ *
+ * show(...) rebinds the cards the grid already has to the new products and only makes
+ * cards when there are more products than ever before, so filtering a page as the user
+ * types creates no new nodes. Cards that are left over are emptied and taken out of the
+ * grid until they are needed again. Call on the FX thread.
+ */
+public class ProductCardPool {
+    private final GridPane grid;
+    private final int columns;
+    private final Supplier<ProductCard> factory;
+    private final List<ProductCard> cards = new ArrayList<>();
+    private int shown = 0;
+
+    public ProductCardPool(GridPane grid, int columns, Supplier<ProductCard> factory) {
+        this.grid = grid;
+        this.columns = columns;
+        this.factory = factory;
+    }
+
+    // Replaces everything in the grid with cards for products
+    public void show(List<ProductSummary> products) {
+        shown = 0;
+        append(products);
+    }
+
+    // Adds cards for products after the ones already shown
+    public void append(List<ProductSummary> products) {
+        for (ProductSummary product : products) {
+            if (product == null) {
+                continue;
+            }
+            if (shown == cards.size()) {
+                cards.add(factory.get());
+            }
+            ProductCard card = cards.get(shown);
+            card.update(product);
+            GridPane.setConstraints(card, shown % columns, shown / columns);
+            shown++;
+        }
+        for (int i = shown; i < cards.size() && cards.get(i).getProduct() != null; i++) {
+            cards.get(i).update(null);
+        }
+        syncChildren();
+    }
+
+    // Makes the grid's children exactly the shown cards. Cards already in place stay put, since
+    // taking a node out and adding it back makes JavaFX restyle it.
+    private void syncChildren() {
+        ObservableList<Node> children = grid.getChildren();
+        int kept = 0;
+        while (kept < shown && kept < children.size() && children.get(kept) == cards.get(kept)) {
+            kept++;
+        }
+        if (kept < children.size()) {
+            children.remove(kept, children.size());
+        }
+        if (kept < shown) {
+            children.addAll(cards.subList(kept, shown));
+        }
+    }
+}
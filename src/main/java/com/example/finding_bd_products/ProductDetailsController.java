@@ -7,7 +7,6 @@ import javafx.geometry.Insets;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -46,10 +45,8 @@ public class ProductDetailsController {
     private Product currentProduct;
     private boolean hasRecommended = false;
     private boolean isFavourite = false;
-    private DatabaseManager dbManager;
 
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         ratingComboBox.getItems().addAll(5, 4, 3, 2, 1);
         ratingComboBox.setValue(5);
         
@@ -67,15 +64,18 @@ public class ProductDetailsController {
     }
 
     public void setProduct(String productId) {
-        this.currentProduct = dbManager.getProduct(productId);
-        if (currentProduct != null) {
-            displayProductDetails();
-            loadReviews();
-            updateFavouriteButton();
-        } else {
-            System.err.println("Product not found: " + productId);
-            productNameLabel.setText("Product not found");
-        }
+        productNameLabel.setText("Loading...");
+        AsyncDatabase.getInstance().load(db -> db.getProductDetails(productId), product -> {
+            this.currentProduct = product;
+            if (currentProduct != null) {
+                displayProductDetails();
+                loadReviews();
+                updateFavouriteButton();
+            } else {
+                System.err.println("Product not found: " + productId);
+                productNameLabel.setText("Product not found");
+            }
+        });
     }
 
     public void setProduct(Product product) {
@@ -85,7 +85,7 @@ public class ProductDetailsController {
     }
 
     public static Product getProduct(String productId) {
-        return DatabaseManager.getInstance().getProduct(productId);
+        return DatabaseManager.getInstance().getProductDetails(productId);
     }
 
     private void displayProductDetails() {
@@ -103,42 +103,13 @@ public class ProductDetailsController {
         }
         
         // Load product image
-        if (currentProduct.getImageUrl() != null && !currentProduct.getImageUrl().isEmpty()) {
-            try {
-                // Try loading as resource first (for local files)
-                Image image = null;
-                try {
-                    image = new Image(getClass().getResourceAsStream(currentProduct.getImageUrl()));
-                } catch (Exception e1) {
-                    // If resource loading fails, try as URL
-                    try {
-                        image = new Image(currentProduct.getImageUrl(), true);
-                    } catch (Exception e2) {
-                        System.err.println("Failed to load image from URL: " + e2.getMessage());
-                    }
-                }
-                
-                if (image != null && !image.isError()) {
-                    productImageView.setImage(image);
-                } else {
-                    // Set placeholder style
-                    productImageView.setStyle("-fx-background-color: #F5F5F5;");
-                    System.err.println("Image is null or has error");
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to load image: " + e.getMessage());
-                productImageView.setStyle("-fx-background-color: #F5F5F5;");
-            }
-        } else {
-            // No image URL, use placeholder
-            productImageView.setStyle("-fx-background-color: #F5F5F5;");
-        }
+        ImageCache.getInstance().show(productImageView, currentProduct.getImageUrl(), Thumbnails.Size.DETAIL);
 
-        if (currentProduct.getReviews().isEmpty()) {
+        if (currentProduct.getReviewCount() == 0) {
             averageRatingLabel.setText("No ratings yet");
         } else {
             averageRatingLabel.setText(String.format("%.1f ★ (%d reviews)",
-                    currentProduct.getAverageRating(), currentProduct.getReviews().size()));
+                    currentProduct.getAverageRating(), currentProduct.getReviewCount()));
         }
     }
 
@@ -156,7 +127,8 @@ public class ProductDetailsController {
         if (!hasRecommended) {
             // Add recommendation
             currentProduct.addRecommendation();
-            dbManager.incrementRecommendationCount(currentProduct.getProductId());
+            String productId = currentProduct.getProductId();
+            AsyncDatabase.getInstance().run(db -> db.incrementRecommendationCount(productId));
 
             recommendationCountLabel.setText(currentProduct.getRecommendationCount() + " Recommendations");
             recommendButton.setText("✓ Recommended");
@@ -172,7 +144,8 @@ public class ProductDetailsController {
         } else {
             // Remove recommendation
             currentProduct.removeRecommendation();
-            dbManager.decrementRecommendationCount(currentProduct.getProductId());
+            String productId = currentProduct.getProductId();
+            AsyncDatabase.getInstance().run(db -> db.decrementRecommendationCount(productId));
 
             recommendationCountLabel.setText(currentProduct.getRecommendationCount() + " Recommendations");
             recommendButton.setText("👍 Recommend");
@@ -215,21 +188,27 @@ public class ProductDetailsController {
         String reviewId = "r" + UUID.randomUUID().toString();
         Review review = new Review(reviewId, currentProduct.getProductId(), userName, comment, rating);
 
-        // Save to database
-        dbManager.insertReview(reviewId, currentProduct.getProductId(), userName, comment, rating);
-        currentProduct.addReview(review);
+        // Save to database, then show the review once it is stored
+        submitReviewButton.setDisable(true);
+        AsyncDatabase.getInstance().load(db -> {
+            db.insertReview(reviewId, review.getProductId(), userName, comment, rating);
+            return review;
+        }, saved -> {
+            submitReviewButton.setDisable(false);
+            currentProduct.addReview(saved);
 
-        displayProductDetails();
-        addReviewToUI(review);
+            displayProductDetails();
+            addReviewToUI(saved);
 
-        reviewTextArea.clear();
-        ratingComboBox.setValue(5);
+            reviewTextArea.clear();
+            ratingComboBox.setValue(5);
 
-        Alert alert = new Alert(Alert.AlertType.INFORMATION);
-        alert.setTitle("Review Submitted");
-        alert.setHeaderText(null);
-        alert.setContentText("Thank you for your review!");
-        alert.showAndWait();
+            Alert alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.setTitle("Review Submitted");
+            alert.setHeaderText(null);
+            alert.setContentText("Thank you for your review!");
+            alert.showAndWait();
+        }, error -> submitReviewButton.setDisable(false));
     }
 
     private void loadReviews() {
@@ -307,39 +286,22 @@ public class ProductDetailsController {
             return;
         }
         
-        if (isFavourite) {
-            // Remove from favourites
-            dbManager.removeFromFavourites(currentProduct.getProductId());
-            isFavourite = false;
-            updateFavouriteButton();
-            
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Removed from Favourites");
-            alert.setHeaderText(null);
-            alert.setContentText(currentProduct.getName() + " removed from favourites!");
-            alert.showAndWait();
-        } else {
-            // Add to favourites
-            dbManager.addToFavourites(currentProduct.getProductId());
-            isFavourite = true;
-            updateFavouriteButton();
-            
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Added to Favourites");
-            alert.setHeaderText(null);
-            alert.setContentText(currentProduct.getName() + " added to favourites!");
-            alert.showAndWait();
-        }
+        isFavourite = UserSession.getInstance().toggleFavourite(currentProduct.getProductId());
+        styleFavouriteButton();
+        
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(isFavourite ? "Added to Favourites" : "Removed from Favourites");
+        alert.setHeaderText(null);
+        alert.setContentText(currentProduct.getName() + (isFavourite ? " added to favourites!" : " removed from favourites!"));
+        alert.showAndWait();
     }
 
     private void updateFavouriteButton() {
-        // Check if user is logged in before checking favourite status
-        if (UserSession.getInstance().isLoggedIn()) {
-            isFavourite = dbManager.isFavourite(currentProduct.getProductId());
-        } else {
-            isFavourite = false; // Not logged in, so no favourites
-        }
-        
+        isFavourite = UserSession.getInstance().isFavourite(currentProduct.getProductId());
+        styleFavouriteButton();
+    }
+
+    private void styleFavouriteButton() {
         if (isFavourite) {
             favouriteButton.setText("♥ Favourite");
             favouriteButton.setStyle("-fx-background-color: #D32F2F; -fx-background-radius: 20; -fx-text-fill: white; -fx-font-size: 14; -fx-font-weight: bold; -fx-cursor: hand;");
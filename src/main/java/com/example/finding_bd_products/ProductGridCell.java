@@ -0,0 +1,69 @@
+package com.example.finding_bd_products;
+
+import javafx.beans.value.ObservableValue;
+import org.controlsfx.control.GridCell;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A product card in a ControlsFX GridView.
+ *
+ * The grid only creates cells for the rows on screen (plus one or two) and hands them a
+ * different product as the user scrolls; each cell keeps one ProductCard and rebinds it
+ * with update(...), so only visible cards ask ImageCache for an image.
+ *
+ * setOnNearEnd(...) is run when a card within NEAR_END of the last item is shown; the
+ * paged screens fetch their next page from it.
+ */
+public class ProductGridCell extends GridCell<ProductSummary> {
+    private static final int NEAR_END = 6;
+
+    private final ProductCard card;
+    private Runnable onNearEnd;
+
+    public ProductGridCell(Consumer<ProductSummary> onOpen) {
+        this(onOpen, (product, nowFav) -> { });
+    }
+
+    // onOpen shows the product's details; onFavouriteChanged is told after the fav button toggled it
+    public ProductGridCell(Consumer<ProductSummary> onOpen, BiConsumer<ProductSummary, Boolean> onFavouriteChanged) {
+        card = new ProductCard(ProductCard.Layout.CATALOG, onOpen).setOnFavouriteChanged(onFavouriteChanged);
+        card.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+    }
+
+    // The favourites page draws its cards with a light border
+    public ProductGridCell bordered() {
+        card.bordered();
+        return this;
+    }
+
+    // Marks the words of the screen's search in the card's name
+    public ProductGridCell highlighting(ObservableValue<String> query) {
+        card.highlighting(query);
+        return this;
+    }
+
+    public ProductGridCell setOnNearEnd(Runnable onNearEnd) {
+        this.onNearEnd = onNearEnd;
+        return this;
+    }
+
+    @Override
+    protected void updateItem(ProductSummary product, boolean empty) {
+        super.updateItem(product, empty);
+        if (empty || product == null) {
+            card.update(null);
+            setGraphic(null);
+            return;
+        }
+
+        card.update(product);
+        setGraphic(card);
+
+        if (onNearEnd != null && getGridView() != null
+                && getIndex() >= getGridView().getItems().size() - NEAR_END) {
+            onNearEnd.run();
+        }
+    }
+}
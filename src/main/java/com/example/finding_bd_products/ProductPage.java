@@ -0,0 +1,14 @@
+package com.example.finding_bd_products;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated product listing.
+ * nextCursor is the product_id to pass as "after" for the following page, or null on the last page.
+ */
+public record ProductPage(List<ProductSummary> products, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,840 @@
+package com.example.finding_bd_products;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory n-gram index over the approved catalog, which every product search box queries
+ * through DatabaseManager.
+ *
+ * Each product's name, category, manufacturer, id and the start of its description are
+ * normalized by SearchNormalizer (Bangla transliterated, lower case, accents and punctuation
+ * dropped, spelling variants folded) and cut into keys. A query word of
+ * three or more letters matches anywhere inside a word of the name, category, manufacturer or
+ * id ("ilk" finds "milk"), found through the trigrams of those words; in the description, and
+ * for shorter query words everywhere, it has to start a word, as the FTS5 prefix search did.
+ * Every query word has to match. Posting lists are sorted int arrays of document numbers, and
+ * name keys are kept apart from the other fields, so results come in three tiers: every word
+ * starts a word of the name, every word is in the name, every word is somewhere. Within a tier
+ * products are ordered by score(...): a word found in the name beats one in the category or
+ * manufacturer, which beats one in the description; a whole word beats the start of a word,
+ * which beats the inside of one; an early word beats a later one; then shorter names come
+ * first. A query intersects the lists of the best tier first and stops once it has scored
+ * SCORED_MATCHES (-Dbdproducts.search.scoredMatches, 2000 by default) matches of a tier, or
+ * enough to fill the page if that is more, so a short word that matches most of a large
+ * catalog still costs a bounded amount.
+ *
+ * When those tiers don't fill the page, a fourth one also accepts, for each query word that is
+ * not itself a word of the catalog, the catalog words within an edit or two of it (see
+ * FuzzyDictionary), so "chnachur" still finds "chanachur".
+ *
+ * The index is built from DatabaseManager on first use (or by warmUp()). Writes report the
+ * products they touched with markChanged(...); those are read back and re-indexed before the
+ * next query. A changed product gets a new document number and its old one is only marked
+ * removed; once removed documents make up a quarter of the index it is rebuilt from the
+ * stored text.
+ */
+public class ProductSearchIndex {
+    // Characters of the description that are indexed, the length shown on the product cards
+    private static final int DESCRIPTION_CHARS = ProductSummary.SHORT_DESCRIPTION_LENGTH;
+    private static final int COMPACT_MIN_REMOVED = 1024;
+    // Separates the fields of a document's text; never part of a word
+    private static final char FIELD = '\u0001';
+    // Set on the key of a word's first three letters, so it differs from the same trigram inside a word
+    private static final long WORD_START = 1L << 48;
+    // Set on the keys of the name's words
+    private static final long NAME = 1L << 49;
+
+    // Match ranks, one per tier
+    public static final int RANK_NAME_WORDS = 0;
+    public static final int RANK_NAME = 1;
+    public static final int RANK_ANYWHERE = 2;
+    public static final int RANK_FUZZY = 3;
+    // Catalog words tried in place of a misspelt query word
+    private static final int MAX_ALTERNATIVES = 8;
+    // Matches of a tier that are scored before the best of them are taken
+    private static final int SCORED_MATCHES = Integer.getInteger("bdproducts.search.scoredMatches", 2000);
+    // Score of a query word by where it is found; field weights dominate, then how it matches,
+    // then which word of the field it is (capped at MAX_POSITION)
+    private static final int SCORE_FIELD = 64;
+    private static final int SCORE_WORD_START = 8;
+    private static final int SCORE_INSIDE = 16;
+    private static final int SCORE_ALTERNATIVE = 24;
+    private static final int MAX_POSITION = 7;
+
+    // What the index needs of one approved, listed product
+    public record Document(String productId, String name, String description, String category,
+                           String manufacturer, String vendorId) {
+    }
+
+    public interface Loader {
+        // Hands sink the approved, listed products among productIds (all of them when productIds
+        // is null); false if they could not be read
+        boolean load(Collection<String> productIds, Consumer<Document> sink);
+    }
+
+    // Restricts a search to one category, one vendor or a set of products; null fields don't restrict
+    public record Scope(String category, String vendorId, Set<String> productIds) {
+        public static final Scope ALL = new Scope(null, null, null);
+
+        public static Scope category(String category) {
+            return new Scope(category, null, null);
+        }
+
+        public static Scope vendor(String vendorId) {
+            return new Scope(null, vendorId, null);
+        }
+
+        public static Scope products(Set<String> productIds) {
+            return new Scope(null, null, productIds);
+        }
+    }
+
+    // rank: RANK_NAME_WORDS, RANK_NAME, RANK_ANYWHERE or RANK_FUZZY, lower is a better match
+    public record Match(String productId, int rank) {
+    }
+
+    private final Loader loader;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Held while the index is built or catches up with changed products, so those never overlap
+    private final Object updateLock = new Object();
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private volatile boolean built = false;
+
+    // Guarded by lock. Document numbers index the arrays and only ever grow until a rebuild.
+    private final PostingsTable postings = new PostingsTable();
+    private final Map<String, Integer> docOf = new HashMap<>();
+    // One String per distinct category and vendor id, however many products share it
+    private final Map<String, String> labels = new HashMap<>();
+    // Words of the indexed text, only added to between rebuilds
+    private final FuzzyDictionary vocabulary = new FuzzyDictionary();
+    private final BitSet removed = new BitSet();
+    private String[] productIds = new String[0];
+    private String[] texts = new String[0];
+    private String[] categories = new String[0];
+    private String[] vendorIds = new String[0];
+    // Where the name ends and where the description starts
+    private int[] nameEnds = new int[0];
+    private int[] descriptionStarts = new int[0];
+    private int docCount = 0;
+    private int removedCount = 0;
+
+    public ProductSearchIndex(Loader loader) {
+        this.loader = loader;
+    }
+
+    // Builds the index now rather than on the first search
+    public void warmUp() {
+        catchUp();
+    }
+
+    // Called once a write that may have changed, approved or removed these products is committed
+    public void markChanged(String... changedIds) {
+        for (String productId : changedIds) {
+            if (productId != null) {
+                changed.add(productId);
+            }
+        }
+    }
+
+    // Products matching every word of query, best first. Returns an empty list when query has no words.
+    public List<Match> search(String query, Scope scope, int limit, int offset) {
+        String[] terms = terms(query);
+        if (terms.length == 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        catchUp();
+
+        String[] wordStarts = new String[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            wordStarts[i] = " " + terms[i];
+        }
+        int wanted = (int) Math.min(Integer.MAX_VALUE, (long) Math.max(0, offset) + limit);
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            BitSet allowed = scope.productIds() == null ? null : docsOf(scope.productIds());
+            Set<Integer> taken = new HashSet<>();
+            String[][] alternatives = null;
+            for (int rank = RANK_NAME_WORDS; rank <= RANK_FUZZY && taken.size() < wanted; rank++) {
+                if (rank == RANK_NAME && terms[0].length() <= 2) {
+                    // Short words only ever match the start of a word, the tier before
+                    continue;
+                }
+                if (rank == RANK_FUZZY) {
+                    alternatives = alternatives(terms);
+                    if (alternatives == null) {
+                        break;
+                    }
+                }
+                Intersection candidates = tierCandidates(terms, rank, alternatives);
+                int window = Math.max(SCORED_MATCHES, wanted - taken.size());
+                List<long[]> scored = new ArrayList<>();
+                for (int doc = candidates.next(); doc >= 0 && scored.size() < window; doc = candidates.next()) {
+                    if (removed.get(doc) || (allowed != null && !allowed.get(doc))
+                            || (scope.category() != null && !scope.category().equals(categories[doc]))
+                            || (scope.vendorId() != null && !scope.vendorId().equals(vendorIds[doc]))
+                            || taken.contains(doc) || !matches(doc, terms, wordStarts, rank, alternatives)) {
+                        continue;
+                    }
+                    scored.add(new long[]{score(doc, terms, alternatives), doc});
+                }
+                scored.sort(this::compareScored);
+                for (int i = 0; i < scored.size() && taken.size() < wanted; i++) {
+                    int doc = (int) scored.get(i)[1];
+                    taken.add(doc);
+                    if (taken.size() > offset) {
+                        matches.add(new Match(productIds[doc], rank));
+                    }
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Number of products that can currently be found
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ============ Keeping up with the database ============
+
+    private void catchUp() {
+        if (built && changed.isEmpty()) {
+            return;
+        }
+        synchronized (updateLock) {
+            if (!built) {
+                build();
+                return;
+            }
+            Set<String> ids = new HashSet<>();
+            for (Iterator<String> it = changed.iterator(); it.hasNext(); ) {
+                ids.add(it.next());
+                it.remove();
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<Document> documents = new ArrayList<>();
+            if (!loader.load(ids, documents::add)) {
+                changed.addAll(ids);
+                return;
+            }
+            lock.writeLock().lock();
+            try {
+                for (String productId : ids) {
+                    remove(productId);
+                }
+                for (Document document : documents) {
+                    add(document);
+                }
+                if (removedCount >= COMPACT_MIN_REMOVED && removedCount * 4 >= docCount) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Products changed while the catalog is read are in changed again afterwards, and re-read then.
+    // Nothing can search before the build is done, so the rows go straight into the index.
+    private void build() {
+        long start = System.nanoTime();
+        changed.clear();
+        lock.writeLock().lock();
+        try {
+            clear(1024);
+            if (!loader.load(null, this::add)) {
+                clear(0);
+                return;
+            }
+            postings.trim();
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        System.out.printf("Search index: %d products, %d keys, built in %d ms%n",
+                docCount, postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void clear(int capacity) {
+        postings.clear();
+        vocabulary.clear();
+        docOf.clear();
+        labels.clear();
+        removed.clear();
+        productIds = new String[capacity];
+        texts = new String[capacity];
+        categories = new String[capacity];
+        vendorIds = new String[capacity];
+        nameEnds = new int[capacity];
+        descriptionStarts = new int[capacity];
+        docCount = 0;
+        removedCount = 0;
+    }
+
+    private void add(Document document) {
+        StringBuilder text = new StringBuilder();
+        appendField(text, document.name());
+        int nameEnd = text.length();
+        appendField(text, document.category());
+        appendField(text, document.manufacturer());
+        appendField(text, document.productId());
+        int descriptionStart = text.length();
+        String description = document.description();
+        if (description != null && description.length() > DESCRIPTION_CHARS) {
+            description = description.substring(0, DESCRIPTION_CHARS);
+        }
+        appendField(text, description);
+        remove(document.productId());
+        add(document.productId(), text.toString(), nameEnd, descriptionStart,
+                document.category(), document.vendorId());
+    }
+
+    private void add(String productId, String text, int nameEnd, int descriptionStart,
+                     String category, String vendorId) {
+        int doc = docCount++;
+        if (doc == productIds.length) {
+            int capacity = Math.max(16, doc * 2);
+            productIds = Arrays.copyOf(productIds, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            vendorIds = Arrays.copyOf(vendorIds, capacity);
+            nameEnds = Arrays.copyOf(nameEnds, capacity);
+            descriptionStarts = Arrays.copyOf(descriptionStarts, capacity);
+        }
+        productIds[doc] = productId;
+        texts[doc] = text;
+        categories[doc] = label(category);
+        vendorIds[doc] = label(vendorId);
+        nameEnds[doc] = nameEnd;
+        descriptionStarts[doc] = descriptionStart;
+        docOf.put(productId, doc);
+
+        // Each key once per document, so posting lists stay sorted and free of duplicates
+        for (long key : documentKeys(text, nameEnd, descriptionStart)) {
+            postings.getOrAdd(key).add(doc);
+        }
+        addWords(text, text.lastIndexOf(FIELD, descriptionStart - 1), descriptionStart);
+    }
+
+    // The words of text made of letters only, except for those of the id field [idStart, idEnd)
+    private void addWords(String text, int idStart, int idEnd) {
+        int start = -1;
+        boolean letters = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i == text.length() ? ' ' : text.charAt(i);
+            if (c != ' ' && c != FIELD) {
+                if (start < 0) {
+                    start = i;
+                    letters = true;
+                }
+                letters &= Character.isLetter(c);
+                continue;
+            }
+            if (start >= 0 && letters && (start < idStart || start >= idEnd)) {
+                vocabulary.add(text.substring(start, i));
+            }
+            start = -1;
+        }
+    }
+
+    private String label(String value) {
+        return value == null ? null : labels.computeIfAbsent(value, v -> v);
+    }
+
+    private void remove(String productId) {
+        Integer doc = docOf.remove(productId);
+        if (doc != null) {
+            removed.set(doc);
+            removedCount++;
+            texts[doc] = null;
+        }
+    }
+
+    // Renumbers the live documents from 0, dropping the removed ones from every posting list
+    private void compact() {
+        String[] oldIds = productIds;
+        String[] oldTexts = texts;
+        String[] oldCategories = categories;
+        String[] oldVendors = vendorIds;
+        int[] oldNameEnds = nameEnds;
+        int[] oldDescriptionStarts = descriptionStarts;
+        int oldCount = docCount;
+        BitSet oldRemoved = (BitSet) removed.clone();
+        clear(oldCount - removedCount);
+        for (int doc = 0; doc < oldCount; doc++) {
+            if (!oldRemoved.get(doc)) {
+                add(oldIds[doc], oldTexts[doc], oldNameEnds[doc], oldDescriptionStarts[doc],
+                        oldCategories[doc], oldVendors[doc]);
+            }
+        }
+        postings.trim();
+    }
+
+    // ============ Text and keys ============
+
+    // The distinct normalized words of a query, longest first
+    static String[] terms(String query) {
+        String normalized = SearchNormalizer.normalize(query);
+        if (normalized.isEmpty()) {
+            return new String[0];
+        }
+        String[] terms = new LinkedHashSet<>(Arrays.asList(normalized.split(" "))).toArray(new String[0]);
+        Arrays.sort(terms, Comparator.comparingInt(String::length).reversed());
+        return terms;
+    }
+
+    // Every word is preceded by a space, so " " + term finds the words starting with term
+    private static void appendField(StringBuilder text, String value) {
+        text.append(FIELD).append(' ').append(SearchNormalizer.normalize(value));
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    // Every word is found by its first one, two and three letters; words before descriptionStart
+    // also by every trigram inside them. The name's keys carry NAME.
+    private static long[] documentKeys(String text, int nameEnd, int descriptionStart) {
+        KeyBuffer keys = new KeyBuffer();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean boundary = i == text.length() || text.charAt(i) == ' ' || text.charAt(i) == FIELD;
+            if (!boundary) {
+                if (start < 0) {
+                    start = i;
+                }
+                continue;
+            }
+            if (start < 0) {
+                continue;
+            }
+            long field = start < nameEnd ? NAME : 0;
+            keys.add(key(' ', text.charAt(start), '\0') | field);
+            if (i - start >= 2) {
+                keys.add(key(' ', text.charAt(start), text.charAt(start + 1)) | field);
+            }
+            if (i - start >= 3) {
+                keys.add(key(text.charAt(start), text.charAt(start + 1), text.charAt(start + 2)) | WORD_START | field);
+            }
+            if (start < descriptionStart) {
+                for (int j = start; j + 3 <= i; j++) {
+                    keys.add(key(text.charAt(j), text.charAt(j + 1), text.charAt(j + 2)) | field);
+                }
+            }
+            start = -1;
+        }
+        return keys.distinct();
+    }
+
+    private static final class KeyBuffer {
+        private long[] keys = new long[256];
+        private int size = 0;
+
+        private void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+
+        private long[] distinct() {
+            Arrays.sort(keys, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || keys[i] != keys[unique - 1]) {
+                    keys[unique++] = keys[i];
+                }
+            }
+            return Arrays.copyOf(keys, unique);
+        }
+    }
+
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size = 0;
+
+        private void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    // Posting lists by key, with open addressing so adding a document boxes nothing
+    private static final class PostingsTable {
+        private long[] keys;
+        private Postings[] lists;
+        private int size;
+
+        private PostingsTable() {
+            clear();
+        }
+
+        private void clear() {
+            keys = new long[1024];
+            lists = new Postings[1024];
+            size = 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private Postings get(long key) {
+            return lists[slot(keys, lists, key)];
+        }
+
+        private Postings getOrAdd(long key) {
+            int slot = slot(keys, lists, key);
+            if (lists[slot] != null) {
+                return lists[slot];
+            }
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(keys, lists, key);
+            }
+            keys[slot] = key;
+            lists[slot] = new Postings();
+            size++;
+            return lists[slot];
+        }
+
+        private void grow() {
+            long[] newKeys = new long[keys.length * 2];
+            Postings[] newLists = new Postings[lists.length * 2];
+            for (int i = 0; i < keys.length; i++) {
+                if (lists[i] != null) {
+                    int slot = slot(newKeys, newLists, keys[i]);
+                    newKeys[slot] = keys[i];
+                    newLists[slot] = lists[i];
+                }
+            }
+            keys = newKeys;
+            lists = newLists;
+        }
+
+        // Gives back the room the lists grew into while the index was filled
+        private void trim() {
+            for (Postings list : lists) {
+                if (list != null && list.docs.length > list.size) {
+                    list.docs = Arrays.copyOf(list.docs, list.size);
+                }
+            }
+        }
+
+        private static int slot(long[] keys, Postings[] lists, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (lists[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+
+    // ============ Querying ============
+
+    // The first size entries of docs, sorted; may be a posting list itself, so never written to
+    private record DocList(int[] docs, int size) {
+        private static final DocList EMPTY = new DocList(new int[0], 0);
+    }
+
+    private DocList list(long key) {
+        Postings list = postings.get(key);
+        return list == null ? DocList.EMPTY : new DocList(list.docs, list.size);
+    }
+
+    // Documents that may have every term in the way the tier asks for
+    private Intersection tierCandidates(String[] terms, int rank, String[][] alternatives) {
+        DocList[] perTerm = new DocList[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            DocList docs = wordStart(term, NAME);
+            if (rank >= RANK_NAME && term.length() > 2) {
+                docs = union(docs, inside(term, NAME));
+            }
+            if (rank >= RANK_ANYWHERE) {
+                docs = union(docs, wordStart(term, 0));
+                if (term.length() > 2) {
+                    docs = union(docs, inside(term, 0));
+                }
+            }
+            if (rank == RANK_FUZZY) {
+                for (String alternative : alternatives[i]) {
+                    docs = union(docs, union(wordStart(alternative, NAME), wordStart(alternative, 0)));
+                }
+            }
+            perTerm[i] = docs;
+        }
+        return new Intersection(perTerm);
+    }
+
+    // The catalog words close to each term that isn't a catalog word itself, or null if no term has any
+    private String[][] alternatives(String[] terms) {
+        String[][] alternatives = new String[terms.length][];
+        boolean any = false;
+        for (int i = 0; i < terms.length; i++) {
+            List<String> close = vocabulary.contains(terms[i]) ? List.of()
+                    : vocabulary.lookup(terms[i], MAX_ALTERNATIVES);
+            alternatives[i] = close.toArray(new String[0]);
+            any |= !close.isEmpty();
+        }
+        return any ? alternatives : null;
+    }
+
+    // Documents with a word of the field starting with term; for a long term only its first three
+    // letters are checked
+    private DocList wordStart(String term, long field) {
+        if (term.length() <= 2) {
+            return list(key(' ', term.charAt(0), term.length() == 2 ? term.charAt(1) : '\0') | field);
+        }
+        return list(key(term.charAt(0), term.charAt(1), term.charAt(2)) | WORD_START | field);
+    }
+
+    // Documents with every trigram of term in the field's words, outside the description
+    private DocList inside(String term, long field) {
+        DocList[] lists = new DocList[term.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = list(key(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2)) | field);
+        }
+        return intersect(lists);
+    }
+
+    // Intersects the shortest lists first
+    private static DocList intersect(DocList[] lists) {
+        Arrays.sort(lists, Comparator.comparingInt(DocList::size));
+        if (lists.length == 1 || lists[0].size() == 0) {
+            return lists[0];
+        }
+        int[] docs = Arrays.copyOf(lists[0].docs(), lists[0].size());
+        int count = docs.length;
+        for (int l = 1; l < lists.length && count > 0; l++) {
+            int kept = 0;
+            int from = 0;
+            for (int i = 0; i < count && from < lists[l].size(); i++) {
+                from = seek(lists[l], from, docs[i]);
+                if (from < lists[l].size() && lists[l].docs()[from] == docs[i]) {
+                    docs[kept++] = docs[i];
+                }
+            }
+            count = kept;
+        }
+        return new DocList(docs, count);
+    }
+
+    // Index of the first entry at or after from that is not below doc. Galloping search skips
+    // through a long list, so intersecting costs about as much as the shorter list is long.
+    private static int seek(DocList list, int from, int doc) {
+        int[] docs = list.docs();
+        int size = list.size();
+        int step = 1;
+        int hi = from;
+        while (hi < size && docs[hi] < doc) {
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        int at = Arrays.binarySearch(docs, from, Math.min(hi + 1, size), doc);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    // Walks the documents in all of the lists in order, computing no more of the intersection
+    // than the caller reads
+    private static final class Intersection {
+        private final DocList[] lists;
+        private final int[] positions;
+
+        private Intersection(DocList[] lists) {
+            Arrays.sort(lists, Comparator.comparingInt(DocList::size));
+            this.lists = lists;
+            this.positions = new int[lists.length];
+        }
+
+        // The next document, or -1 when there are no more
+        private int next() {
+            DocList lead = lists[0];
+            candidates:
+            while (positions[0] < lead.size()) {
+                int doc = lead.docs()[positions[0]++];
+                for (int l = 1; l < lists.length; l++) {
+                    positions[l] = seek(lists[l], positions[l], doc);
+                    if (positions[l] == lists[l].size()) {
+                        positions[0] = lead.size();
+                        return -1;
+                    }
+                    if (lists[l].docs()[positions[l]] != doc) {
+                        continue candidates;
+                    }
+                }
+                return doc;
+            }
+            return -1;
+        }
+    }
+
+    private static DocList union(DocList a, DocList b) {
+        if (b.size() == 0) {
+            return a;
+        }
+        if (a.size() == 0) {
+            return b;
+        }
+        int[] merged = new int[a.size() + b.size()];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.size() || j < b.size()) {
+            if (j == b.size() || (i < a.size() && a.docs()[i] < b.docs()[j])) {
+                merged[count++] = a.docs()[i++];
+            } else if (i == a.size() || b.docs()[j] < a.docs()[i]) {
+                merged[count++] = b.docs()[j++];
+            } else {
+                merged[count++] = a.docs()[i++];
+                j++;
+            }
+        }
+        return new DocList(merged, count);
+    }
+
+    // Checks a candidate against its text: the keys only tell that a long term's first or inner
+    // trigrams are there, not that the rest of the term follows
+    private boolean matches(int doc, String[] terms, String[] wordStarts, int rank, String[][] alternatives) {
+        String text = texts[doc];
+        for (int i = 0; i < terms.length; i++) {
+            boolean found = rank == RANK_FUZZY
+                    ? matches(doc, terms[i], wordStarts[i], RANK_ANYWHERE) || startsAWord(text, alternatives[i])
+                    : matches(doc, terms[i], wordStarts[i], rank);
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(int doc, String term, String termStart, int rank) {
+        String text = texts[doc];
+        int wordStart = text.indexOf(termStart);
+        if (rank == RANK_NAME_WORDS || term.length() <= 2) {
+            return wordStart >= 0 && (rank >= RANK_ANYWHERE || wordStart < nameEnds[doc]);
+        }
+        int inside = text.indexOf(term);
+        return rank == RANK_NAME
+                ? inside >= 0 && inside < nameEnds[doc]
+                : (inside >= 0 && inside < descriptionStarts[doc]) || wordStart >= 0;
+    }
+
+    // ============ Scoring ============
+
+    // How well doc matches the terms, lower is better: the sum of each term's best placement
+    private int score(int doc, String[] terms, String[][] alternatives) {
+        int score = 0;
+        for (int i = 0; i < terms.length; i++) {
+            int best = termScore(doc, terms[i], false);
+            if (best == Integer.MAX_VALUE && alternatives != null) {
+                for (String alternative : alternatives[i]) {
+                    best = Math.min(best, termScore(doc, alternative, true));
+                }
+                best += SCORE_ALTERNATIVE;
+            }
+            score += Math.min(best, 4 * SCORE_FIELD);
+        }
+        return score;
+    }
+
+    // The best placement of term in doc's text, or Integer.MAX_VALUE where it doesn't match. In
+    // the description, and for short or alternative words, only the start of a word counts.
+    private int termScore(int doc, String term, boolean wordStartOnly) {
+        String text = texts[doc];
+        int best = Integer.MAX_VALUE;
+        for (int at = text.indexOf(term); at >= 0; at = text.indexOf(term, at + 1)) {
+            int field = at < nameEnds[doc] ? 0 : at < descriptionStarts[doc] ? 1 : 2;
+            boolean starts = text.charAt(at - 1) == ' ';
+            if (!starts && (field == 2 || wordStartOnly || term.length() <= 2)) {
+                continue;
+            }
+            int end = at + term.length();
+            boolean whole = starts && (end == text.length() || text.charAt(end) == ' ' || text.charAt(end) == FIELD);
+            int position = 0;
+            for (int i = at - 2; i >= 0 && text.charAt(i) != FIELD && position < MAX_POSITION; i--) {
+                if (text.charAt(i) == ' ') {
+                    position++;
+                }
+            }
+            int score = field * SCORE_FIELD + (whole ? 0 : starts ? SCORE_WORD_START : SCORE_INSIDE) + position;
+            best = Math.min(best, score);
+        }
+        return best;
+    }
+
+    // Orders {score, doc} pairs by score, then shorter name, then name and id, so the order of
+    // equally good matches doesn't depend on when a product was last indexed
+    private int compareScored(long[] a, long[] b) {
+        int order = Long.compare(a[0], b[0]);
+        if (order != 0) {
+            return order;
+        }
+        int docA = (int) a[1];
+        int docB = (int) b[1];
+        order = Integer.compare(nameEnds[docA], nameEnds[docB]);
+        if (order != 0) {
+            return order;
+        }
+        // Names of equal length, compared in place
+        String textA = texts[docA];
+        String textB = texts[docB];
+        for (int i = 0; i < nameEnds[docA]; i++) {
+            if (textA.charAt(i) != textB.charAt(i)) {
+                return Character.compare(textA.charAt(i), textB.charAt(i));
+            }
+        }
+        return productIds[docA].compareTo(productIds[docB]);
+    }
+
+    // Whether a word of text starts with one of words
+    private static boolean startsAWord(String text, String[] words) {
+        for (String word : words) {
+            for (int at = text.indexOf(word); at >= 0; at = text.indexOf(word, at + 1)) {
+                if (text.charAt(at - 1) == ' ') {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private BitSet docsOf(Set<String> ids) {
+        BitSet docs = new BitSet();
+        for (String productId : ids) {
+            Integer doc = docOf.get(productId);
+            if (doc != null) {
+                docs.set(doc);
+            }
+        }
+        return docs;
+    }
+}
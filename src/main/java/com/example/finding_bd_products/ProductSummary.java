@@ -0,0 +1,19 @@
+package com.example.finding_bd_products;
+
+/**
+ * The columns a product card needs, as returned by the listing and search queries.
+ * Use DatabaseManager.getProduct for the full product with its reviews and vendor.
+ * shortDescription is cut to SHORT_DESCRIPTION_LENGTH characters by the query itself.
+ */
+public record ProductSummary(String productId, String name, String shortDescription, double price, String unit,
+                             String category, String imageUrl, int recommendationCount, int reviewCount, long ratingSum) {
+    public static final int SHORT_DESCRIPTION_LENGTH = 120;
+
+    public double averageRating() {
+        return reviewCount == 0 ? 0.0 : ratingSum / (double) reviewCount;
+    }
+
+    public ProductSummary withRecommendationCount(int count) {
+        return new ProductSummary(productId, name, shortDescription, price, unit, category, imageUrl, count, reviewCount, ratingSum);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.finding_bd_products;
+
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings collected by ConnectionPool for every DAO call and every statement it runs.
+ *
+ * An operation is one DAO method: everything between taking a connection and handing
+ * it back, named after the DatabaseManager method that took it. A statement is one
+ * execute call, keyed by its SQL; a query is timed until its ResultSet is closed, so
+ * stepping through the rows is included.
+ *
+ * Statements slower than SLOW_QUERY_MS are kept (the latest SLOW_QUERY_LOG_SIZE) together
+ * with their EXPLAIN QUERY PLAN and the types and lengths of their bind parameters, and the
+ * report ends with the slowest of them. The values themselves are never printed or kept: they
+ * include the passwords the login and signup statements bind.
+ * Off unless -Dbdproducts.db.stats=true; LoadGenerator switches it on.
+ */
+public class QueryStats {
+    // Timing every call costs roughly 10-20 µs per DAO call and a proxy call per ResultSet getter,
+    // about a tenth of a cached listing, so the application runs without it
+    public static final boolean ENABLED = Boolean.getBoolean("bdproducts.db.stats");
+    // -1 turns the slow-query log off, 0 logs every statement
+    public static final long SLOW_QUERY_MS = Long.getLong("bdproducts.db.slowQueryMs", 100);
+    private static final int SLOW_QUERY_LOG_SIZE = Integer.getInteger("bdproducts.db.slowQueryLogSize", 100);
+    private static final int REPORT_ROWS = 15;
+    private static final int REPORT_SLOW_QUERIES = 5;
+
+    public static final class Metric {
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram acquire = new LatencyHistogram();
+
+        public long getCalls() { return latency.getCount(); }
+        public long getRows() { return rows.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public LatencyHistogram getLatency() { return latency; }
+        // Only filled for operations: time spent waiting for the connection
+        public LatencyHistogram getAcquire() { return acquire; }
+    }
+
+    // parameters holds describe(...) of each bind parameter, not the values
+    public record SlowQuery(LocalTime at, String operation, String sql, List<String> parameters,
+                            long micros, long rows, List<String> plan) {
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Slow query (").append(micros / 1000.0).append(" ms, ").append(rows).append(" rows) in ")
+                    .append(operation).append(" at ").append(at.truncatedTo(ChronoUnit.MILLIS)).append('\n')
+                    .append("  SQL: ").append(sql.strip().replaceAll("\\s+", " ")).append('\n')
+                    .append("  Parameters: ").append(parameters);
+            for (String step : plan) {
+                sb.append('\n').append("  Plan: ").append(step);
+            }
+            return sb.toString();
+        }
+    }
+
+    // Type and length of bind parameters, as in [String(12), Integer, null]
+    public static List<String> describe(List<Object> parameters) {
+        List<String> described = new ArrayList<>(parameters.size());
+        for (Object value : parameters) {
+            if (value == null) {
+                described.add("null");
+            } else if (value instanceof CharSequence text) {
+                described.add("String(" + text.length() + ")");
+            } else if (value instanceof byte[] bytes) {
+                described.add("byte[" + bytes.length + "]");
+            } else {
+                described.add(value.getClass().getSimpleName());
+            }
+        }
+        return described;
+    }
+
+    private final Map<String, Metric> operations = new ConcurrentHashMap<>();
+    private final Map<String, Metric> statements = new ConcurrentHashMap<>();
+    private final LongAdder busyRetries = new LongAdder();
+    private final LongAdder busyErrors = new LongAdder();
+    private final LongAdder lockWaits = new LongAdder();
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private long slowQueryCount = 0;
+
+    public boolean isSlow(long nanos) {
+        return SLOW_QUERY_MS >= 0 && nanos >= SLOW_QUERY_MS * 1_000_000;
+    }
+
+    public void recordOperation(String operation, long nanos, long acquireNanos, long rows, boolean failed) {
+        Metric metric = operations.computeIfAbsent(operation, key -> new Metric());
+        metric.latency.recordNanos(nanos);
+        metric.acquire.recordNanos(acquireNanos);
+        metric.rows.add(rows);
+        if (failed) {
+            metric.errors.increment();
+        }
+    }
+
+    public void recordStatement(String sql, long nanos, long rows, boolean failed) {
+        Metric metric = statements.computeIfAbsent(sql, key -> new Metric());
+        metric.latency.recordNanos(nanos);
+        metric.rows.add(rows);
+        if (failed) {
+            metric.errors.increment();
+        }
+    }
+
+    public void recordSlowQuery(SlowQuery slowQuery) {
+        synchronized (slowQueries) {
+            slowQueryCount++;
+            slowQueries.addLast(slowQuery);
+            if (slowQueries.size() > SLOW_QUERY_LOG_SIZE) {
+                slowQueries.removeFirst();
+            }
+        }
+    }
+
+    // A SQLite busy-handler retry: another connection held a lock we needed
+    public void recordBusyRetry() {
+        busyRetries.increment();
+    }
+
+    // SQLITE_BUSY or SQLITE_LOCKED that reached the caller instead of being retried away
+    public void recordBusyError() {
+        busyErrors.increment();
+    }
+
+    // A connection request that could not be served straight away
+    public void recordLockWait() {
+        lockWaits.increment();
+    }
+
+    public Map<String, Metric> getOperations() {
+        return operations;
+    }
+
+    public Map<String, Metric> getStatements() {
+        return statements;
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public long getBusyRetries() {
+        return busyRetries.sum();
+    }
+
+    public long getBusyErrors() {
+        return busyErrors.sum();
+    }
+
+    public long getLockWaits() {
+        return lockWaits.sum();
+    }
+
+    // Summary plus the operations and statements with the most total time
+    public String report() {
+        if (!ENABLED) {
+            return "Query stats: disabled";
+        }
+        long slow;
+        List<SlowQuery> logged;
+        synchronized (slowQueries) {
+            slow = slowQueryCount;
+            logged = new ArrayList<>(slowQueries);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Query stats: %d operations, %d statements, %d busy retries, %d busy errors, %d connection waits, %d slow queries%n",
+                total(operations), total(statements), getBusyRetries(), getBusyErrors(), getLockWaits(), slow));
+        appendTable(sb, "operation", operations, true);
+        appendTable(sb, "statement", statements, false);
+        logged.stream()
+                .sorted(Comparator.comparingLong(SlowQuery::micros).reversed())
+                .limit(REPORT_SLOW_QUERIES)
+                .forEach(slowQuery -> sb.append(slowQuery).append(System.lineSeparator()));
+        return sb.toString().stripTrailing();
+    }
+
+    private static long total(Map<String, Metric> metrics) {
+        return metrics.values().stream().mapToLong(Metric::getCalls).sum();
+    }
+
+    private static void appendTable(StringBuilder sb, String title, Map<String, Metric> metrics, boolean withAcquire) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+        sb.append(String.format("  %-48s %8s %10s %9s %9s %9s %9s %7s%s%n", title, "calls", "rows",
+                "p50 us", "p90 us", "p99 us", "max us", "errors", withAcquire ? "  acquire p99 us" : ""));
+        metrics.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Metric> e) -> e.getValue().latency.getTotalMicros()).reversed())
+                .limit(REPORT_ROWS)
+                .forEach(entry -> {
+                    Metric metric = entry.getValue();
+                    LatencyHistogram latency = metric.latency;
+                    sb.append(String.format("  %-48s %8d %10d %9d %9d %9d %9d %7d%s%n", abbreviate(entry.getKey()),
+                            latency.getCount(), metric.getRows(), latency.getPercentileMicros(50),
+                            latency.getPercentileMicros(90), latency.getPercentileMicros(99), latency.getMaxMicros(),
+                            metric.getErrors(), withAcquire ? String.format("  %15d", metric.acquire.getPercentileMicros(99)) : ""));
+                });
+    }
+
+    private static String abbreviate(String text) {
+        String flat = text.strip().replaceAll("\\s+", " ");
+        return flat.length() <= 48 ? flat : flat.substring(0, 45) + "...";
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.finding_bd_products;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for products.recommendation_count.
+ *
+ * Recommend / unrecommend clicks only add to a per-product LongAdder. The
+ * accumulated deltas are written to the database in one transaction every
+ * flush interval, as soon as enough clicks have piled up, and on shutdown.
+ *
+ * Reads pass the stored count through merge(), which adds whatever has not
+ * been written yet, so a product always shows its current count. That includes
+ * the delta of a flush that has not been committed yet.
+ *
+ * Every write of recommendation_count goes through this class: the deltas, set()
+ * for an absolute count and forget() for a deleted row. That is what lets merge()
+ * trust the counts it committed itself over an older stored count.
+ */
+public final class RecommendationCounter {
+
+    // Writes the deltas in one transaction. The new stored count of each product goes into
+    // committedCounts before the commit, so merge() can tell old rows from new ones.
+    public interface Writer {
+        boolean write(Map<String, Long> deltas, Map<String, Long> committedCounts);
+    }
+
+    // Writes one absolute count; false if it was not stored
+    public interface CountWriter {
+        boolean write(String productId, int count);
+    }
+
+    // Deltas taken out of pending by the latest flush, and the counts they were written as
+    private record Flush(Map<String, Long> deltas, Map<String, Long> committedCounts) {
+    }
+
+    private static final Flush NO_FLUSH = new Flush(Map.of(), Map.of());
+
+    private final Writer writer;
+    private final int flushThreshold;
+    private final ConcurrentHashMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger unflushedClicks = new AtomicInteger();
+    // Moving deltas out of pending and reading pending + in-flight deltas must not interleave
+    private final ReentrantReadWriteLock handoverLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService scheduler;
+    // Set while a flush is being written, so reads can add its deltas until the commit is visible
+    private volatile Flush lastFlush = NO_FLUSH;
+    // The count this class last wrote for each product, which no other write changes
+    private final ConcurrentHashMap<String, Long> committed = new ConcurrentHashMap<>();
+
+    private final LongAdder clicks = new LongAdder();
+    private long flushes = 0;
+    private long rowsWritten = 0;
+
+    public RecommendationCounter(Writer writer, long flushIntervalMs, int flushThreshold) {
+        this.writer = writer;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendation-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void add(String productId, long delta) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).add(delta);
+        clicks.increment();
+        if (unflushedClicks.incrementAndGet() == flushThreshold) {
+            try {
+                scheduler.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Shutting down; close() does the final flush
+            }
+        }
+    }
+
+    // Stored count (as read from the database, possibly a while ago) plus everything not yet written
+    public int merge(String productId, int storedCount) {
+        // Products nobody clicked since startup (pending keeps a product's adder once it has one)
+        if (!pending.containsKey(productId) && !committed.containsKey(productId)) {
+            return storedCount;
+        }
+        long merged;
+        handoverLock.readLock().lock();
+        try {
+            // A count this class wrote is newer than any row read before that write
+            Long written = committed.get(productId);
+            merged = written != null ? written : storedCount;
+            Flush flush = lastFlush;
+            Long inFlight = flush.deltas().get(productId);
+            if (inFlight != null) {
+                // The commit may already be visible to the reader that read storedCount
+                Long flushed = flush.committedCounts().get(productId);
+                merged = flushed != null && flushed == storedCount ? flushed : merged + inFlight;
+            }
+            LongAdder adder = pending.get(productId);
+            if (adder != null) {
+                merged += adder.sum();
+            }
+        } finally {
+            handoverLock.readLock().unlock();
+        }
+        return (int) Math.max(0, merged);
+    }
+
+    // False until the first click or set: until then every stored count is current
+    public boolean isTracking() {
+        return !pending.isEmpty() || !committed.isEmpty();
+    }
+
+    // Replaces the product's count, along with the clicks buffered for it; holding the monitor
+    // keeps a flush from writing them in between
+    public synchronized boolean set(String productId, int count, CountWriter writer) {
+        boolean written;
+        try {
+            written = writer.write(productId, count);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            written = false;
+        }
+        if (written) {
+            handoverLock.writeLock().lock();
+            try {
+                committed.put(productId, (long) Math.max(0, count));
+                // Reset rather than removed: a click that already holds the adder must not be lost
+                LongAdder adder = pending.get(productId);
+                if (adder != null) {
+                    adder.reset();
+                }
+            } finally {
+                handoverLock.writeLock().unlock();
+            }
+        }
+        return written;
+    }
+
+    // The product's row is gone; a new row with the same id starts from its own stored count
+    public synchronized void forget(String productId) {
+        handoverLock.writeLock().lock();
+        try {
+            committed.remove(productId);
+            pending.remove(productId);
+        } finally {
+            handoverLock.writeLock().unlock();
+        }
+    }
+
+    public synchronized void flush() {
+        Map<String, Long> deltas = new HashMap<>();
+        Flush flush;
+        handoverLock.writeLock().lock();
+        try {
+            unflushedClicks.set(0);
+            for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta != 0) {
+                    deltas.put(entry.getKey(), delta);
+                }
+            }
+            flush = deltas.isEmpty() ? NO_FLUSH : new Flush(deltas, new ConcurrentHashMap<>());
+            lastFlush = flush;
+        } finally {
+            handoverLock.writeLock().unlock();
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        boolean written;
+        try {
+            written = writer.write(deltas, flush.committedCounts());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            written = false;
+        }
+        handoverLock.writeLock().lock();
+        try {
+            if (written) {
+                // The writer returns once the commit is visible; from here on the counts stand on their own
+                committed.putAll(flush.committedCounts());
+            } else {
+                // Put the deltas back so the next flush retries them
+                deltas.forEach((productId, delta) -> pending.computeIfAbsent(productId, id -> new LongAdder()).add(delta));
+            }
+            lastFlush = NO_FLUSH;
+        } finally {
+            handoverLock.writeLock().unlock();
+        }
+        if (!written) {
+            return;
+        }
+        flushes++;
+        rowsWritten += deltas.size();
+    }
+
+    // Stops the timer and writes out whatever is still pending
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public synchronized String stats() {
+        return String.format("%d clicks written as %d row updates in %d flushes", clicks.sum(), rowsWritten, flushes);
+    }
+}
@@ -0,0 +1,410 @@
+package com.example.finding_bd_products;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Ordered schema migrations, tracked with SQLite's PRAGMA user_version.
+ *
+ * Each step runs once, in its own transaction together with the version bump,
+ * so startup on an up-to-date database only reads the version number.
+ * New schema changes are added as a new step at the end of STEPS; existing
+ * steps must never be edited once released.
+ */
+public class SchemaMigrations {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Statement stmt) throws SQLException;
+    }
+
+    private record Migration(int version, String description, Step step) {
+    }
+
+    private static final List<Migration> STEPS = List.of(
+            new Migration(1, "create base tables", SchemaMigrations::createBaseTables),
+            new Migration(2, "add vendor and approval columns to products", SchemaMigrations::addProductColumns),
+            new Migration(3, "add catalog indexes", SchemaMigrations::addCatalogIndexes),
+            new Migration(4, "add keyset pagination indexes", SchemaMigrations::addPaginationIndexes),
+            new Migration(5, "add rating aggregates to products", SchemaMigrations::addRatingAggregates),
+            new Migration(6, "add full-text search index", SchemaMigrations::addSearchIndex),
+            new Migration(7, "add import hash to products", SchemaMigrations::addImportHash),
+            new Migration(8, "scope favourites to users", SchemaMigrations::addUserFavourites),
+            new Migration(9, "add image store reference counts", SchemaMigrations::addImageReferences),
+            new Migration(10, "drop full-text search index", SchemaMigrations::dropSearchIndex)
+    );
+
+    public static int latestVersion() {
+        return STEPS.get(STEPS.size() - 1).version();
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Applies every step newer than the stored version; returns how many were applied
+    public static int migrate(Connection conn) throws SQLException {
+        int version = currentVersion(conn);
+        int applied = 0;
+        for (Migration migration : STEPS) {
+            if (migration.version() <= version) {
+                continue;
+            }
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                migration.step().apply(stmt);
+                stmt.execute("PRAGMA user_version = " + migration.version());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw new SQLException("Migration " + migration.version() + " (" + migration.description() + ") failed: " + e.getMessage(), e);
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+            System.out.println("Applied schema migration " + migration.version() + ": " + migration.description());
+            applied++;
+        }
+        return applied;
+    }
+
+    private static void createBaseTables(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS products (
+                product_id TEXT PRIMARY KEY,
+                name TEXT NOT NULL,
+                description TEXT,
+                price REAL NOT NULL,
+                unit TEXT,
+                category TEXT,
+                image_url TEXT,
+                vendor_id TEXT,
+                recommendation_count INTEGER DEFAULT 0,
+                approval_status TEXT DEFAULT 'pending',
+                rejection_reason TEXT,
+                original_product_id TEXT
+            )
+            """);
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS reviews (
+                review_id TEXT PRIMARY KEY,
+                product_id TEXT NOT NULL,
+                user_name TEXT NOT NULL,
+                comment TEXT,
+                rating INTEGER NOT NULL,
+                FOREIGN KEY (product_id) REFERENCES products(product_id)
+            )
+            """);
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS favourites (
+                product_id TEXT PRIMARY KEY,
+                FOREIGN KEY (product_id) REFERENCES products(product_id)
+            )
+            """);
+
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS favourite_categories (
+                category_name TEXT PRIMARY KEY
+            )
+            """);
+
+        // Users table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS users (
+                user_id TEXT PRIMARY KEY,
+                full_name TEXT NOT NULL,
+                email TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL,
+                phone_number TEXT NOT NULL,
+                date_of_birth TEXT,
+                gender TEXT,
+                city TEXT,
+                profile_picture TEXT,
+                user_type TEXT DEFAULT 'user'
+            )
+            """);
+
+        // Company Vendors table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS company_vendors (
+                vendor_id TEXT PRIMARY KEY,
+                full_name TEXT NOT NULL,
+                designation TEXT NOT NULL,
+                company_name TEXT NOT NULL,
+                email TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL,
+                phone_number TEXT NOT NULL,
+                company_registration_number TEXT,
+                bsti_certificate_number TEXT,
+                company_address TEXT NOT NULL,
+                tin_number TEXT,
+                company_logo TEXT,
+                account_status TEXT DEFAULT 'pending'
+            )
+            """);
+
+        // Retail Vendors table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS retail_vendors (
+                vendor_id TEXT PRIMARY KEY,
+                owner_name TEXT NOT NULL,
+                shop_name TEXT NOT NULL,
+                email TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL,
+                phone_number TEXT NOT NULL,
+                business_registration_number TEXT,
+                trade_license_number TEXT,
+                shop_address TEXT NOT NULL,
+                tin_number TEXT,
+                shop_logo TEXT,
+                account_status TEXT DEFAULT 'pending'
+            )
+            """);
+
+        // Admin table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS admins (
+                admin_id TEXT PRIMARY KEY,
+                email TEXT UNIQUE NOT NULL,
+                password TEXT NOT NULL
+            )
+            """);
+
+        // Notifications table
+        stmt.execute("""
+            CREATE TABLE IF NOT EXISTS notifications (
+                notification_id TEXT PRIMARY KEY,
+                vendor_id TEXT NOT NULL,
+                product_id TEXT,
+                message TEXT NOT NULL,
+                type TEXT NOT NULL,
+                is_read INTEGER DEFAULT 0,
+                created_at TEXT NOT NULL
+            )
+            """);
+    }
+
+    // Databases created before these columns existed only get the ones they are missing
+    private static void addProductColumns(Statement stmt) throws SQLException {
+        if (!hasColumn(stmt, "products", "vendor_id")) {
+            stmt.execute("ALTER TABLE products ADD COLUMN vendor_id TEXT");
+        }
+        if (!hasColumn(stmt, "products", "approval_status")) {
+            stmt.execute("ALTER TABLE products ADD COLUMN approval_status TEXT DEFAULT 'pending'");
+            // Products that existed before approvals were introduced are already live
+            stmt.execute("UPDATE products SET approval_status = 'approved' WHERE approval_status IS NULL OR approval_status = 'pending'");
+        }
+        if (!hasColumn(stmt, "products", "rejection_reason")) {
+            stmt.execute("ALTER TABLE products ADD COLUMN rejection_reason TEXT");
+        }
+        if (!hasColumn(stmt, "products", "original_product_id")) {
+            stmt.execute("ALTER TABLE products ADD COLUMN original_product_id TEXT");
+        }
+    }
+
+    private static void addCatalogIndexes(Statement stmt) throws SQLException {
+        // getAllProducts, getProductsByCategory and getPendingProducts
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_status_category ON products(approval_status, category)");
+        // getProductsByVendor
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_vendor ON products(vendor_id)");
+        // Pending edits are looked up and replaced by their original product id
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_original ON products(original_product_id)");
+        // getReviewsForProduct and the review join in getProductDetails
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_reviews_product ON reviews(product_id)");
+        // Unread notifications per vendor
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_notifications_vendor_read ON notifications(vendor_id, is_read)");
+        stmt.execute("ANALYZE");
+    }
+
+    // Listing pages seek on product_id after the filter columns, so it has to be the last index column
+    private static void addPaginationIndexes(Statement stmt) throws SQLException {
+        stmt.execute("DROP INDEX IF EXISTS idx_products_status_category");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_status_category_id ON products(approval_status, category, product_id)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_status_id ON products(approval_status, product_id)");
+        stmt.execute("DROP INDEX IF EXISTS idx_products_vendor");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_products_vendor_status_id ON products(vendor_id, approval_status, product_id)");
+        stmt.execute("ANALYZE");
+    }
+
+    // review_count, rating_sum and one counter per star, kept up to date by DatabaseManager.insertReview
+    private static void addRatingAggregates(Statement stmt) throws SQLException {
+        stmt.execute("ALTER TABLE products ADD COLUMN review_count INTEGER NOT NULL DEFAULT 0");
+        stmt.execute("ALTER TABLE products ADD COLUMN rating_sum INTEGER NOT NULL DEFAULT 0");
+        for (int star = 1; star <= 5; star++) {
+            stmt.execute("ALTER TABLE products ADD COLUMN rating_" + star + " INTEGER NOT NULL DEFAULT 0");
+        }
+        // One-off backfill from the reviews that already exist
+        stmt.execute("""
+            UPDATE products SET
+                review_count = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id),
+                rating_sum = (SELECT COALESCE(SUM(rating), 0) FROM reviews r WHERE r.product_id = products.product_id),
+                rating_1 = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id AND r.rating = 1),
+                rating_2 = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id AND r.rating = 2),
+                rating_3 = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id AND r.rating = 3),
+                rating_4 = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id AND r.rating = 4),
+                rating_5 = (SELECT COUNT(*) FROM reviews r WHERE r.product_id = products.product_id AND r.rating = 5)
+            WHERE product_id IN (SELECT product_id FROM reviews)
+            """);
+    }
+
+    // FTS5 index over name, description, category and manufacturer. Its rowid is the products rowid,
+    // and triggers keep it in sync. Writes that use INSERT OR REPLACE rely on the writer connection
+    // enabling recursive_triggers, so the replaced row is also removed from the index.
+    private static void addSearchIndex(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE VIRTUAL TABLE IF NOT EXISTS products_fts USING fts5(
+                name, description, category, manufacturer,
+                tokenize = 'unicode61 remove_diacritics 2',
+                prefix = '2 3'
+            )
+            """);
+        rebuildSearchIndex(stmt);
+
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_fts_insert AFTER INSERT ON products BEGIN
+                INSERT INTO products_fts (rowid, name, description, category, manufacturer)
+                VALUES (NEW.rowid, NEW.name, NEW.description, NEW.category,
+                        COALESCE((SELECT company_name FROM company_vendors WHERE vendor_id = NEW.vendor_id),
+                                 (SELECT shop_name FROM retail_vendors WHERE vendor_id = NEW.vendor_id)));
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_fts_delete AFTER DELETE ON products BEGIN
+                DELETE FROM products_fts WHERE rowid = OLD.rowid;
+            END
+            """);
+        // Recommendation and rating updates don't touch indexed columns and skip this trigger
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS products_fts_update AFTER UPDATE OF name, description, category, vendor_id ON products BEGIN
+                UPDATE products_fts SET name = NEW.name, description = NEW.description, category = NEW.category,
+                       manufacturer = COALESCE((SELECT company_name FROM company_vendors WHERE vendor_id = NEW.vendor_id),
+                                               (SELECT shop_name FROM retail_vendors WHERE vendor_id = NEW.vendor_id))
+                WHERE rowid = NEW.rowid;
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS company_vendors_fts_name AFTER UPDATE OF company_name ON company_vendors BEGIN
+                UPDATE products_fts SET manufacturer = NEW.company_name
+                WHERE rowid IN (SELECT rowid FROM products WHERE vendor_id = NEW.vendor_id);
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER IF NOT EXISTS retail_vendors_fts_name AFTER UPDATE OF shop_name ON retail_vendors BEGIN
+                UPDATE products_fts SET manufacturer = NEW.shop_name
+                WHERE rowid IN (SELECT rowid FROM products WHERE vendor_id = NEW.vendor_id);
+            END
+            """);
+    }
+
+    // SHA-256 of the row a vendor last imported for a product, so CatalogImporter can skip unchanged rows
+    private static void addImportHash(Statement stmt) throws SQLException {
+        stmt.execute("ALTER TABLE products ADD COLUMN import_hash TEXT");
+    }
+
+    // Favourites used to be one list shared by everyone. The old rows are copied to every existing user,
+    // so nobody loses what they saw as their favourites.
+    private static void addUserFavourites(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE user_favourites (
+                user_id TEXT NOT NULL,
+                product_id TEXT NOT NULL,
+                PRIMARY KEY (user_id, product_id),
+                FOREIGN KEY (user_id) REFERENCES users(user_id),
+                FOREIGN KEY (product_id) REFERENCES products(product_id)
+            ) WITHOUT ROWID
+            """);
+        stmt.execute("INSERT INTO user_favourites (user_id, product_id) SELECT u.user_id, f.product_id FROM users u CROSS JOIN favourites f");
+        stmt.execute("DROP TABLE favourites");
+        stmt.execute("ALTER TABLE user_favourites RENAME TO favourites");
+
+        stmt.execute("""
+            CREATE TABLE user_favourite_categories (
+                user_id TEXT NOT NULL,
+                category_name TEXT NOT NULL,
+                PRIMARY KEY (user_id, category_name),
+                FOREIGN KEY (user_id) REFERENCES users(user_id)
+            ) WITHOUT ROWID
+            """);
+        stmt.execute("INSERT INTO user_favourite_categories (user_id, category_name) SELECT u.user_id, c.category_name FROM users u CROSS JOIN favourite_categories c");
+        stmt.execute("DROP TABLE favourite_categories");
+        stmt.execute("ALTER TABLE user_favourite_categories RENAME TO favourite_categories");
+    }
+
+    // One row per file in the ImageStore, counting the products that point at it. Triggers keep the
+    // count; ImageStore registers a file with a count of 0 when it is stored and removes it once the
+    // count has stayed at 0 for the grace period. Bundled "/images/..." resources are not counted.
+    private static void addImageReferences(Statement stmt) throws SQLException {
+        stmt.execute("""
+            CREATE TABLE images (
+                image_url TEXT PRIMARY KEY,
+                ref_count INTEGER NOT NULL DEFAULT 0,
+                stored_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP
+            ) WITHOUT ROWID
+            """);
+        stmt.execute("CREATE INDEX idx_images_unreferenced ON images(stored_at) WHERE ref_count <= 0");
+
+        stmt.execute("""
+            CREATE TRIGGER images_product_insert AFTER INSERT ON products
+            WHEN NEW.image_url LIKE 'sha256:%' BEGIN
+                INSERT INTO images (image_url, ref_count) VALUES (NEW.image_url, 1)
+                ON CONFLICT (image_url) DO UPDATE SET ref_count = ref_count + 1;
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER images_product_delete AFTER DELETE ON products
+            WHEN OLD.image_url LIKE 'sha256:%' BEGIN
+                UPDATE images SET ref_count = ref_count - 1 WHERE image_url = OLD.image_url;
+            END
+            """);
+        stmt.execute("""
+            CREATE TRIGGER images_product_update AFTER UPDATE OF image_url ON products
+            WHEN OLD.image_url IS NOT NEW.image_url BEGIN
+                UPDATE images SET ref_count = ref_count - 1 WHERE image_url = OLD.image_url;
+                INSERT INTO images (image_url, ref_count) SELECT NEW.image_url, 1 WHERE NEW.image_url LIKE 'sha256:%'
+                ON CONFLICT (image_url) DO UPDATE SET ref_count = ref_count + 1;
+            END
+            """);
+    }
+
+    // Search is served by the in-memory ProductSearchIndex now, so the FTS5 table and the triggers
+    // that every product write paid for go
+    private static void dropSearchIndex(Statement stmt) throws SQLException {
+        stmt.execute("DROP TRIGGER IF EXISTS products_fts_insert");
+        stmt.execute("DROP TRIGGER IF EXISTS products_fts_delete");
+        stmt.execute("DROP TRIGGER IF EXISTS products_fts_update");
+        stmt.execute("DROP TRIGGER IF EXISTS company_vendors_fts_name");
+        stmt.execute("DROP TRIGGER IF EXISTS retail_vendors_fts_name");
+        stmt.execute("DROP TABLE IF EXISTS products_fts");
+    }
+
+    // Refills the search index from products
+    private static void rebuildSearchIndex(Statement stmt) throws SQLException {
+        stmt.execute("DELETE FROM products_fts");
+        stmt.execute("""
+            INSERT INTO products_fts (rowid, name, description, category, manufacturer)
+            SELECT p.rowid, p.name, p.description, p.category, COALESCE(cv.company_name, rv.shop_name)
+            FROM products p
+            LEFT JOIN company_vendors cv ON cv.vendor_id = p.vendor_id
+            LEFT JOIN retail_vendors rv ON rv.vendor_id = p.vendor_id
+            """);
+    }
+
+    private static boolean hasColumn(Statement stmt, String table, String column) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.finding_bd_products;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * One ranked search result; score is the ProductSearchIndex rank, lower is a better match.
+ * The cards highlight the words of the query themselves, from matched(...).
+ */
+public record SearchHit(ProductSummary product, double score) {
+
+    // Which characters of text are a case-insensitive occurrence of one of the query's words, as
+    // typed or as simplified (so "চানাচুর" marks "Chanachur"); words matched only by spelling
+    // are not marked. Null when nothing is.
+    public static boolean[] matched(String text, String query) {
+        if (text == null || query == null) {
+            return null;
+        }
+        Set<String> terms = new LinkedHashSet<>(Arrays.asList(query.trim().split("\\s+")));
+        terms.addAll(Arrays.asList(SearchNormalizer.simplify(query).split(" ")));
+        terms.remove("");
+        boolean[] marked = null;
+        for (String term : terms) {
+            for (int i = 0; i + term.length() <= text.length(); i++) {
+                if (text.regionMatches(true, i, term, 0, term.length())) {
+                    if (marked == null) {
+                        marked = new boolean[text.length()];
+                    }
+                    Arrays.fill(marked, i, i + term.length(), true);
+                }
+            }
+        }
+        return marked;
+    }
+}
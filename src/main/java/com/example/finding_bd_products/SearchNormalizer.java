@@ -0,0 +1,211 @@
+package com.example.finding_bd_products;
+
+import java.text.Normalizer;
+
+/**
+ * Turns product text and search queries into the words ProductSearchIndex compares.
+ *
+ * Bangla script is transliterated to Latin letters, so "চানাচুর" and "chanachur" end up as
+ * the same word, whichever of the two a product or a query is written in. Then every word is
+ * folded phonetically: the spellings people use interchangeably when writing Bangla words in
+ * Latin letters (ch/c, sh/s, ph/f, v/b, z/j, ee/i, oo/u, doubled letters) become one, so
+ * "chanacur" and "chanachur" are the same word too.
+ */
+public final class SearchNormalizer {
+    private static final char BANGLA_FIRST = 'ঀ';
+    private static final char BANGLA_LAST = '৿';
+    private static final char HASANT = '্';
+    private static final char NUKTA = '়';
+    private static final char E_SIGN = 'ে';
+
+    // Latin for each letter of the Bangla block, by kind; consonants carry the inherent "a" separately
+    private static final String[] CONSONANTS = new String[BANGLA_LAST - BANGLA_FIRST + 1];
+    private static final String[] VOWELS = new String[CONSONANTS.length];
+    private static final String[] VOWEL_SIGNS = new String[CONSONANTS.length];
+
+    static {
+        String[] consonants = {
+                "ক", "k", "খ", "kh", "গ", "g", "ঘ", "gh", "ঙ", "ng",
+                "চ", "ch", "ছ", "chh", "জ", "j", "ঝ", "jh", "ঞ", "n",
+                "ট", "t", "ঠ", "th", "ড", "d", "ঢ", "dh", "ণ", "n",
+                "ত", "t", "থ", "th", "দ", "d", "ধ", "dh", "ন", "n",
+                "প", "p", "ফ", "ph", "ব", "b", "ভ", "bh", "ম", "m",
+                "য", "j", "র", "r", "ল", "l", "শ", "sh", "ষ", "sh", "স", "s", "হ", "h",
+                // ড়, ঢ় and য় as single characters
+                "\u09dc", "r", "\u09dd", "rh", "\u09df", "y"};
+        String[] vowels = {
+                "অ", "a", "আ", "a", "ই", "i", "ঈ", "i", "উ", "u", "ঊ", "u", "ঋ", "ri",
+                "এ", "e", "ঐ", "oi", "ও", "o", "ঔ", "ou",
+                // Not letters with a vowel of their own, but also written without an inherent "a"
+                "ৎ", "t", "ং", "ng", "ঃ", "h", "ঁ", ""};
+        String[] vowelSigns = {
+                "া", "a", "ি", "i", "ী", "i", "ু", "u", "ূ", "u", "ৃ", "ri",
+                "ে", "e", "ৈ", "oi", "ো", "o", "ৌ", "ou", "ৗ", ""};
+        fill(CONSONANTS, consonants);
+        fill(VOWELS, vowels);
+        fill(VOWEL_SIGNS, vowelSigns);
+    }
+
+    private SearchNormalizer() {
+    }
+
+    private static void fill(String[] table, String[] pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            table[pairs[i].charAt(0) - BANGLA_FIRST] = pairs[i + 1];
+        }
+    }
+
+    // The words of text, simplified and phonetically folded, separated by single spaces
+    public static String normalize(String text) {
+        String simple = simplify(text);
+        StringBuilder out = new StringBuilder(simple.length());
+        int start = 0;
+        while (start < simple.length()) {
+            int end = simple.indexOf(' ', start);
+            if (end < 0) {
+                end = simple.length();
+            }
+            if (!out.isEmpty()) {
+                out.append(' ');
+            }
+            fold(simple, start, end, out);
+            start = end + 1;
+        }
+        return out.toString();
+    }
+
+    // Lower case, Bangla in Latin letters, accents dropped, and anything but letters and digits
+    // turned into single spaces. Not folded, so the words can still be found in the original text.
+    public static String simplify(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = isAscii(text) ? text : Normalizer.normalize(toLatin(text), Normalizer.Form.NFKD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (c >= '\u0300' && c <= '\u036f') {
+                // Combining accent of a Latin letter, as in "café"
+                continue;
+            }
+            int type = Character.getType(c);
+            if (Character.isLetterOrDigit(c) || type == Character.NON_SPACING_MARK
+                    || type == Character.COMBINING_SPACING_MARK) {
+                out.append(Character.toLowerCase(c));
+            } else if (!out.isEmpty() && out.charAt(out.length() - 1) != ' ') {
+                out.append(' ');
+            }
+        }
+        int end = out.length();
+        return end > 0 && out.charAt(end - 1) == ' ' ? out.substring(0, end - 1) : out.toString();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ============ Transliteration ============
+
+    // Bangla letters, vowel signs and digits in Latin letters; everything else is left as it is.
+    // A consonant is followed by its inherent "a" unless a vowel sign or hasant follows it, or it
+    // ends the word, where Bangla doesn't pronounce it either: "প্রাণ" is "pran", "চানাচুর" "chanachur".
+    static String toLatin(String text) {
+        StringBuilder out = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < BANGLA_FIRST || c > BANGLA_LAST) {
+                if (out != null) {
+                    out.append(c);
+                }
+                continue;
+            }
+            if (out == null) {
+                out = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            int index = c - BANGLA_FIRST;
+            char next = i + 1 < text.length() ? text.charAt(i + 1) : '\0';
+
+            if (CONSONANTS[index] != null) {
+                String latin = CONSONANTS[index];
+                if (next == NUKTA) {
+                    // ড়, ঢ় and য় written as the base letter and a nukta
+                    latin = c == 'ড' ? "r" : c == 'ঢ' ? "rh" : c == 'য' ? "y" : latin;
+                    i++;
+                    next = i + 1 < text.length() ? text.charAt(i + 1) : '\0';
+                }
+                if (c == 'য' && i > 0 && text.charAt(i - 1) == HASANT) {
+                    // য-ফলা, as in "ব্যাগ"
+                    latin = "y";
+                }
+                out.append(latin);
+                if (next == HASANT) {
+                    i++;
+                } else if (isBangla(next) && !isVowelSign(next)) {
+                    out.append('a');
+                }
+            } else if (c == E_SIGN && (next == 'া' || next == 'ৗ')) {
+                // ো and ৌ written as two signs
+                out.append(next == 'া' ? "o" : "ou");
+                i++;
+            } else if (VOWEL_SIGNS[index] != null) {
+                out.append(VOWEL_SIGNS[index]);
+            } else if (VOWELS[index] != null) {
+                out.append(VOWELS[index]);
+            } else if (c >= '০' && c <= '৯') {
+                out.append((char) ('0' + (c - '০')));
+            } else if (c != HASANT && c != NUKTA) {
+                // Punctuation such as the dari and the taka sign
+                out.append(' ');
+            }
+        }
+        return out == null ? text : out.toString();
+    }
+
+    private static boolean isBangla(char c) {
+        return c >= BANGLA_FIRST && c <= BANGLA_LAST && !(c >= '০' && c <= '৯');
+    }
+
+    private static boolean isVowelSign(char c) {
+        return c >= BANGLA_FIRST && c <= BANGLA_LAST && VOWEL_SIGNS[c - BANGLA_FIRST] != null;
+    }
+
+    // ============ Phonetic folding ============
+
+    // Appends word [start, end) of text folded: the "h" of ch, sh, kh, gh, ph, th, dh, bh, jh and
+    // rh dropped (ph becomes f), z as j, q as k, v as b, ee as i, oo as u, and a letter repeated
+    // right after itself kept once
+    static void fold(CharSequence text, int start, int end, StringBuilder out) {
+        int wordStart = out.length();
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            char next = i + 1 < end ? text.charAt(i + 1) : '\0';
+            if (next == 'h' && "cskgptdbjr".indexOf(c) >= 0) {
+                c = c == 'p' ? 'f' : c;
+                while (i + 1 < end && text.charAt(i + 1) == 'h') {
+                    i++;
+                }
+            } else if (c == 'e' && next == 'e') {
+                c = 'i';
+                i++;
+            } else if (c == 'o' && next == 'o') {
+                c = 'u';
+                i++;
+            } else if (c == 'z') {
+                c = 'j';
+            } else if (c == 'q') {
+                c = 'k';
+            } else if (c == 'v') {
+                c = 'b';
+            }
+            if (out.length() > wordStart && out.charAt(out.length() - 1) == c && Character.isLetter(c)) {
+                continue;
+            }
+            out.append(c);
+        }
+    }
+}
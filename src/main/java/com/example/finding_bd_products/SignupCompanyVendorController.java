@@ -51,13 +51,6 @@ public class SignupCompanyVendorController {
     @FXML
     private Label messageLabel;
 
-    private DatabaseManager dbManager;
-
-    @FXML
-    public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-    }
-
     @FXML
     private void handleRegister(ActionEvent event) {
         // Clear previous messages
@@ -110,17 +103,20 @@ public class SignupCompanyVendorController {
             return;
         }
 
-        try {
-            // Create CompanyVendor object
-            String vendorId = "CV-" + UUID.randomUUID().toString().substring(0, 8);
-            CompanyVendor vendor = new CompanyVendor(
-                vendorId, fullName, designation, companyName, email, password,
-                phone, registrationNumber, bstiCertificate, address, tin, "pending"
-            );
-
-            // Register in database
-            boolean success = dbManager.registerCompanyVendor(vendor);
-
+        // Create CompanyVendor object
+        String vendorId = "CV-" + UUID.randomUUID().toString().substring(0, 8);
+        CompanyVendor vendor = new CompanyVendor(
+            vendorId, fullName, designation, companyName, email, password,
+            phone, registrationNumber, bstiCertificate, address, tin, "pending"
+        );
+
+        // Register in database; the button stays disabled until it is done
+        Node registerButton = (Node) event.getSource();
+        registerButton.setDisable(true);
+        messageLabel.setText("Registering...");
+        messageLabel.setStyle("-fx-text-fill: black;");
+        AsyncDatabase.getInstance().load(db -> db.registerCompanyVendor(vendor), success -> {
+            registerButton.setDisable(false);
             if (success) {
                 messageLabel.setText("Registration successful! Your account is pending admin approval. You will be notified once approved.");
                 messageLabel.setStyle("-fx-text-fill: green;");
@@ -134,12 +130,11 @@ public class SignupCompanyVendorController {
                 messageLabel.setText("Registration failed! Email may already be registered.");
                 messageLabel.setStyle("-fx-text-fill: red;");
             }
-
-        } catch (Exception e) {
+        }, error -> {
+            registerButton.setDisable(false);
             messageLabel.setText("An error occurred during registration!");
             messageLabel.setStyle("-fx-text-fill: red;");
-            e.printStackTrace();
-        }
+        });
     }
 
     @FXML
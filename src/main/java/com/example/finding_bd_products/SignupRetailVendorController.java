@@ -48,13 +48,6 @@ public class SignupRetailVendorController {
     @FXML
     private Label messageLabel;
 
-    private DatabaseManager dbManager;
-
-    @FXML
-    public void initialize() {
-        dbManager = DatabaseManager.getInstance();
-    }
-
     @FXML
     private void handleRegister(ActionEvent event) {
         // Clear previous messages
@@ -105,17 +98,20 @@ public class SignupRetailVendorController {
             return;
         }
 
-        try {
-            // Create RetailVendor object
-            String vendorId = "RV-" + UUID.randomUUID().toString().substring(0, 8);
-            RetailVendor vendor = new RetailVendor(
-                vendorId, ownerName, shopName, email, password, phone,
-                registrationNumber, tradeLicense, address, tin, "pending"
-            );
-
-            // Register in database
-            boolean success = dbManager.registerRetailVendor(vendor);
-
+        // Create RetailVendor object
+        String vendorId = "RV-" + UUID.randomUUID().toString().substring(0, 8);
+        RetailVendor vendor = new RetailVendor(
+            vendorId, ownerName, shopName, email, password, phone,
+            registrationNumber, tradeLicense, address, tin, "pending"
+        );
+
+        // Register in database; the button stays disabled until it is done
+        Node registerButton = (Node) event.getSource();
+        registerButton.setDisable(true);
+        messageLabel.setText("Registering...");
+        messageLabel.setStyle("-fx-text-fill: black;");
+        AsyncDatabase.getInstance().load(db -> db.registerRetailVendor(vendor), success -> {
+            registerButton.setDisable(false);
             if (success) {
                 messageLabel.setText("Registration successful! Your account is pending admin approval. You will be notified once approved.");
                 messageLabel.setStyle("-fx-text-fill: green;");
@@ -127,12 +123,11 @@ public class SignupRetailVendorController {
                 messageLabel.setText("Registration failed! Email may already be registered.");
                 messageLabel.setStyle("-fx-text-fill: red;");
             }
-
-        } catch (Exception e) {
+        }, error -> {
+            registerButton.setDisable(false);
             messageLabel.setText("An error occurred during registration!");
             messageLabel.setStyle("-fx-text-fill: red;");
-            e.printStackTrace();
-        }
+        });
     }
 
     @FXML
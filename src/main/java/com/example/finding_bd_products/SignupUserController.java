@@ -59,7 +59,6 @@ public class SignupUserController {
     @FXML
     private Label messageLabel;
 
-    private DatabaseManager dbManager;
     private EmailService emailService;
     private String generatedVerificationCode;
     private long verificationCodeTimestamp;
@@ -67,7 +66,6 @@ public class SignupUserController {
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         emailService = EmailService.getInstance();
         
         // Populate gender combo box
@@ -136,21 +134,24 @@ public class SignupUserController {
             return;
         }
 
-        try {
-            // Create User object (email already verified)
-            String userId = "U-" + UUID.randomUUID().toString().substring(0, 8);
-            User user = new User(
-                userId, fullName, email, password, phone,
-                dob.toString(), gender, city, "user"
-            );
-
-            // Register in database
-            boolean success = dbManager.registerUser(user);
-
+        // Create User object (email already verified)
+        String userId = "U-" + UUID.randomUUID().toString().substring(0, 8);
+        User user = new User(
+            userId, fullName, email, password, phone,
+            dob.toString(), gender, city, "user"
+        );
+
+        // Register in database; the button stays disabled until it is done
+        Node registerButton = (Node) event.getSource();
+        registerButton.setDisable(true);
+        messageLabel.setText("Registering...");
+        messageLabel.setStyle("-fx-text-fill: black;");
+        AsyncDatabase.getInstance().load(db -> db.registerUser(user), success -> {
+            registerButton.setDisable(false);
             if (success) {
                 messageLabel.setText("Registration successful! Your email is verified. You can now log in.");
                 messageLabel.setStyle("-fx-text-fill: green;");
-                
+
                 // Clear all fields
                 clearFields();
 
@@ -158,12 +159,11 @@ public class SignupUserController {
                 messageLabel.setText("Registration failed! Email may already be registered.");
                 messageLabel.setStyle("-fx-text-fill: red;");
             }
-
-        } catch (Exception e) {
+        }, error -> {
+            registerButton.setDisable(false);
             messageLabel.setText("An error occurred during registration!");
             messageLabel.setStyle("-fx-text-fill: red;");
-            e.printStackTrace();
-        }
+        });
     }
 
     @FXML
@@ -217,12 +217,19 @@ public class SignupUserController {
         }
         
         // Check if email already exists in database
-        if (dbManager.emailExists(email)) {
-            messageLabel.setText("This email is already registered!");
-            messageLabel.setStyle("-fx-text-fill: red;");
-            return;
-        }
-        
+        sendVerificationBtn.setDisable(true);
+        AsyncDatabase.getInstance().load(db -> db.emailExists(email), exists -> {
+            if (exists) {
+                sendVerificationBtn.setDisable(false);
+                messageLabel.setText("This email is already registered!");
+                messageLabel.setStyle("-fx-text-fill: red;");
+                return;
+            }
+            sendVerificationCode(email);
+        }, error -> sendVerificationBtn.setDisable(false));
+    }
+
+    private void sendVerificationCode(String email) {
         // Generate and send verification code
         generatedVerificationCode = emailService.generateVerificationCode();
         verificationCodeTimestamp = System.currentTimeMillis();
@@ -239,6 +246,7 @@ public class SignupUserController {
             emailField.setEditable(false);
             sendVerificationBtn.setDisable(true);
         } else {
+            sendVerificationBtn.setDisable(false);
             messageLabel.setText("Failed to send verification email. Please check your email and try again.");
             messageLabel.setStyle("-fx-text-fill: red;");
         }
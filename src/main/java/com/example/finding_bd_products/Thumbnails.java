@@ -0,0 +1,195 @@
+package com.example.finding_bd_products;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Downscaled copies of product images, cached on disk under the SHA-256 of the original.
+ *
+ * A product card shows its image at 190x140, but decoding a 1000x1000 JPEG for it costs
+ * about 50 times the CPU and holds about 50 times the pixel memory of decoding a thumbnail
+ * of that size. ImageStore writes the TABLE and CARD thumbnails when an image is uploaded
+ * and makes the others, and those of bundled images, the first time they are asked for.
+ *
+ * Thumbnails are rendered at the screen's output scale, which HelloApplication passes to
+ * setScreenScale (-Dbdproducts.images.thumbnailScale overrides it), so they stay sharp on
+ * HiDPI displays. Opaque images are written as JPEG, images with transparency as PNG.
+ */
+public class Thumbnails {
+
+    // The boxes images are shown in; a thumbnail fits inside its box, keeping the aspect ratio
+    public enum Size {
+        TABLE(60, 60),
+        CARD(190, 140),
+        LARGE_CARD(250, 200),
+        DETAIL(400, 300);
+
+        private final int width;
+        private final int height;
+
+        Size(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    // Opens the original image; called only when a thumbnail has to be made
+    @FunctionalInterface
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final Integer CONFIGURED_SCALE = Integer.getInteger("bdproducts.images.thumbnailScale");
+    private static volatile int screenScale = 1;
+
+    private final Path directory;
+    // "<hash>/<size>" for images that are already small enough, or could not be decoded
+    private final Set<String> noThumbnail = ConcurrentHashMap.newKeySet();
+
+    Thumbnails(Path directory) {
+        this.directory = directory;
+    }
+
+    // Called with the primary screen's output scale before the first image is shown
+    public static void setScreenScale(double outputScale) {
+        screenScale = (int) Math.max(1, Math.ceil(outputScale));
+    }
+
+    private static int scale() {
+        return CONFIGURED_SCALE != null ? Math.max(1, CONFIGURED_SCALE) : screenScale;
+    }
+
+    // The thumbnail of the image with this content hash, made from source if it isn't on disk yet.
+    // Returns null when the original should be used instead: it already fits the size, or it
+    // could not be decoded.
+    public Path get(String hash, Size size, Source source) {
+        Path existing = find(hash, size);
+        if (existing != null || noThumbnail.contains(hash + "/" + size)) {
+            return existing;
+        }
+        try (InputStream in = source.open()) {
+            Path created = create(hash, size, in);
+            if (created == null) {
+                noThumbnail.add(hash + "/" + size);
+            }
+            return created;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not make " + size + " thumbnail of " + hash + ": " + e.getMessage());
+            noThumbnail.add(hash + "/" + size);
+            return null;
+        }
+    }
+
+    // Removes every thumbnail of the image, once the original itself is deleted
+    public void delete(String hash) {
+        for (Size size : Size.values()) {
+            for (String extension : new String[]{"jpg", "png"}) {
+                try {
+                    Files.deleteIfExists(fileFor(hash, size, extension));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private Path find(String hash, Size size) {
+        Path jpeg = fileFor(hash, size, "jpg");
+        if (Files.exists(jpeg)) {
+            return jpeg;
+        }
+        Path png = fileFor(hash, size, "png");
+        return Files.exists(png) ? png : null;
+    }
+
+    private Path fileFor(String hash, Size size, String extension) {
+        int scale = scale();
+        return directory.resolve((size.width * scale) + "x" + (size.height * scale)).resolve(hash + "." + extension);
+    }
+
+    private Path create(String hash, Size size, InputStream source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int scale = scale();
+                double ratio = Math.min((double) size.width * scale / width, (double) size.height * scale / height);
+                if (ratio >= 1) {
+                    return null;
+                }
+                int thumbWidth = Math.max(1, (int) Math.round(width * ratio));
+                int thumbHeight = Math.max(1, (int) Math.round(height * ratio));
+
+                // Skip source pixels while decoding, but keep at least twice the target size so the
+                // final scaling still has enough detail to smooth with
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / (thumbWidth * 2), height / (thumbHeight * 2)));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                boolean alpha = decoded.getColorModel().hasAlpha();
+                BufferedImage thumbnail = new BufferedImage(thumbWidth, thumbHeight,
+                        alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = thumbnail.createGraphics();
+                try {
+                    g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                    g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                    g.drawImage(decoded, 0, 0, thumbWidth, thumbHeight, null);
+                } finally {
+                    g.dispose();
+                }
+                return write(thumbnail, fileFor(hash, size, alpha ? "png" : "jpg"), alpha ? "png" : "jpg");
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Written under a temporary name and renamed, so a reader never sees a partial thumbnail
+    private static Path write(BufferedImage image, Path target, String format) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if (format.equals("jpg")) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(JPEG_QUALITY);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            return target;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.example.finding_bd_products;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class UserSession {
     private static UserSession instance;
     private User currentUser;
     private boolean isLoggedIn;
 
+    // The user's favourites, loaded at login so product and category cards never query for them
+    private final Set<String> favouriteProductIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> favouriteCategories = ConcurrentHashMap.newKeySet();
+
     private UserSession() {
         this.isLoggedIn = false;
         this.currentUser = null;
@@ -18,13 +28,28 @@ public class UserSession {
     }
 
     public void login(User user) {
+        // Re-login of the same user (e.g. after a profile update) keeps the loaded favourites
+        if (currentUser == null || user == null || !currentUser.getUserId().equals(user.getUserId())) {
+            favouriteProductIds.clear();
+            favouriteCategories.clear();
+        }
         this.currentUser = user;
         this.isLoggedIn = true;
     }
 
+    public void login(User user, Collection<String> productIds, Collection<String> categories) {
+        login(user);
+        favouriteProductIds.clear();
+        favouriteProductIds.addAll(productIds);
+        favouriteCategories.clear();
+        favouriteCategories.addAll(categories);
+    }
+
     public void logout() {
         this.currentUser = null;
         this.isLoggedIn = false;
+        favouriteProductIds.clear();
+        favouriteCategories.clear();
     }
 
     public boolean isLoggedIn() {
@@ -38,4 +63,55 @@ public class UserSession {
     public String getCurrentUserId() {
         return currentUser != null ? currentUser.getUserId() : null;
     }
+
+    // ============ Favourites ============
+
+    public boolean isFavourite(String productId) {
+        return favouriteProductIds.contains(productId);
+    }
+
+    // Flips the product in memory and queues the write of the new state; returns the new state.
+    // Each write carries the state it was queued for, and writes are committed in the order they
+    // were queued, so quick double clicks or a logout right after a click can't leave the
+    // database out of step with the set.
+    public boolean toggleFavourite(String productId) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return false;
+        }
+        boolean favourite = !favouriteProductIds.remove(productId);
+        if (favourite) {
+            favouriteProductIds.add(productId);
+        }
+        DatabaseManager.getInstance().saveFavourite(userId, productId, favourite).exceptionally(UserSession::writeFailed);
+        return favourite;
+    }
+
+    public boolean isFavouriteCategory(String categoryName) {
+        return favouriteCategories.contains(categoryName);
+    }
+
+    public boolean toggleFavouriteCategory(String categoryName) {
+        String userId = getCurrentUserId();
+        if (userId == null) {
+            return false;
+        }
+        boolean favourite = !favouriteCategories.remove(categoryName);
+        if (favourite) {
+            favouriteCategories.add(categoryName);
+        }
+        DatabaseManager.getInstance().saveFavouriteCategory(userId, categoryName, favourite).exceptionally(UserSession::writeFailed);
+        return favourite;
+    }
+
+    private static Void writeFailed(Throwable error) {
+        error.printStackTrace();
+        return null;
+    }
+
+    public List<String> getFavouriteCategories() {
+        List<String> categories = new ArrayList<>(favouriteCategories);
+        categories.sort(null);
+        return categories;
+    }
 }
@@ -3,20 +3,15 @@ package com.example.finding_bd_products;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
-import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.effect.DropShadow;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.VBox;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 public class VendorDashboardController {
@@ -36,20 +31,41 @@ public class VendorDashboardController {
     @FXML
     private javafx.scene.control.TextField searchField;
 
-    private DatabaseManager dbManager;
-    private List<Product> allApprovedProducts;
+    @FXML
+    private ScrollPane productsScrollPane;
+
+    @FXML
+    private Button loadMoreBtn;
+
+    private List<ProductSummary> allApprovedProducts = new ArrayList<>();
+    private LiveSearch search;
+    // Keyset cursor of the next page, null once the last page has been loaded
+    private String nextCursor;
+    private ProductCardPool cardPool;
+    private boolean loadingPage = false;
 
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
+        // Ranked search over the vendor's own products as the user types, a page at a time like the listing
+        String vendorId = VendorSession.getInstance().getCurrentVendorId();
+        if (searchField != null && vendorId != null) {
+            search = new LiveSearch(searchField, DatabaseManager.SEARCH_PAGE_SIZE,
+                    (db, query, limit, offset) -> db.searchVendorProducts(query, vendorId, limit, offset),
+                    this::displayProducts, this::appendProducts, () -> displayProducts(allApprovedProducts));
+        }
+
         if (productsGrid != null) {
+            cardPool = new ProductCardPool(productsGrid, 3, () -> new ProductCard(ProductCard.Layout.VENDOR, this::showProductDetails)
+                    .highlighting(search != null ? search.shownQueryProperty() : null));
             loadApprovedProducts();
         }
-        
-        // Setup search listener
-        if (searchField != null) {
-            searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-                filterProducts(newValue);
+
+        // Fetch the next page when the user scrolls near the bottom
+        if (productsScrollPane != null) {
+            productsScrollPane.vvalueProperty().addListener((observable, oldValue, newValue) -> {
+                if (newValue.doubleValue() >= 0.95) {
+                    loadNextPage();
+                }
             });
         }
     }
@@ -63,123 +79,90 @@ public class VendorDashboardController {
             return;
         }
 
-        // Get all products by this vendor
-        List<Product> allProducts = dbManager.getProductsByVendor(vendorId);
-        
-        // Only show approved products that are not pending edits (original_product_id IS NULL or empty)
-        allApprovedProducts = allProducts.stream()
-                .filter(p -> "approved".equalsIgnoreCase(p.getApprovalStatus()) &&
-                            (p.getOriginalProductId() == null || p.getOriginalProductId().isEmpty()))
-                .toList();
-
-        displayProducts(allApprovedProducts);
+        // Only approved products that are not pending edits, one page at a time
+        Label loadingLabel = new Label("Loading products...");
+        loadingLabel.setStyle("-fx-font-size: 16px; -fx-text-fill: #666;");
+        productsGrid.add(loadingLabel, 0, 0, 3, 1);
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getApprovedProductsByVendorPage(vendorId, null, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            allApprovedProducts = new ArrayList<>(page.products());
+            nextCursor = page.nextCursor();
+            updateLoadMoreButton();
+
+            if (!isSearching()) {
+                displayProducts(allApprovedProducts);
+            }
+        }, error -> loadingPage = false);
     }
 
-    private void displayProducts(List<Product> products) {
-        productsGrid.getChildren().clear();
+    @FXML
+    private void onLoadMore() {
+        loadNextPage();
+    }
 
-        if (products.isEmpty()) {
-            Label emptyLabel = new Label("No products found.");
-            emptyLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #666;");
-            productsGrid.add(emptyLabel, 0, 0, 3, 1);
-            GridPane.setMargin(emptyLabel, new Insets(50));
+    private void loadNextPage() {
+        String vendorId = VendorSession.getInstance().getCurrentVendorId();
+        // Scrolling fires many vvalue events; only one page request is in flight at a time
+        if (isSearching()) {
+            search.loadMore();
+            return;
+        }
+        if (nextCursor == null || vendorId == null || loadingPage) {
             return;
         }
+        String cursor = nextCursor;
+        loadingPage = true;
+        AsyncDatabase.getInstance().load(db -> db.getApprovedProductsByVendorPage(vendorId, cursor, DatabaseManager.DEFAULT_PAGE_SIZE), page -> {
+            loadingPage = false;
+            nextCursor = page.nextCursor();
+            allApprovedProducts.addAll(page.products());
+            updateLoadMoreButton();
+
+            if (!isSearching()) {
+                cardPool.append(page.products());
+            }
+        }, error -> loadingPage = false);
+    }
 
-        int col = 0;
-        int row = 0;
+    private boolean isSearching() {
+        return search != null && search.isSearching();
+    }
 
-        for (Product product : products) {
-            if (row >= 4) break; // Limit to 4 rows (12 products)
+    private void updateLoadMoreButton() {
+        if (loadMoreBtn != null) {
+            boolean more = isSearching() ? search.hasMore() : nextCursor != null;
+            loadMoreBtn.setVisible(more);
+            loadMoreBtn.setManaged(more);
+        }
+    }
 
-            VBox productCard = createProductCard(product);
-            productsGrid.add(productCard, col, row);
+    // The grid's cards are rebound to the products, not rebuilt
+    private void displayProducts(List<ProductSummary> products) {
+        cardPool.show(products);
+        updateLoadMoreButton();
 
-            col++;
-            if (col >= 3) {
-                col = 0;
-                row++;
-            }
+        if (products.isEmpty()) {
+            Label emptyLabel = new Label("No products found.");
+            emptyLabel.setStyle("-fx-font-size: 18px; -fx-text-fill: #666;");
+            productsGrid.add(emptyLabel, 0, 0, 3, 1);
+            GridPane.setMargin(emptyLabel, new Insets(50));
         }
     }
 
-    private VBox createProductCard(Product product) {
-        VBox card = new VBox(10);
-        card.setAlignment(Pos.TOP_CENTER);
-        card.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 15;");
-        card.setPrefWidth(280);
-        card.setPrefHeight(350);
-        card.setMaxWidth(280);
-        card.setMaxHeight(350);
-
-        // Add shadow effect
-        DropShadow shadow = new DropShadow();
-        shadow.setColor(Color.rgb(0, 0, 0, 0.2));
-        shadow.setRadius(10);
-        shadow.setOffsetY(3);
-        card.setEffect(shadow);
-
-        // Product Image
-        ImageView imageView = new ImageView();
-        imageView.setFitWidth(250);
-        imageView.setFitHeight(200);
-        imageView.setPreserveRatio(true);
+    // The next page of search results
+    private void appendProducts(List<ProductSummary> products) {
+        cardPool.append(products);
+        updateLoadMoreButton();
+    }
 
-        try {
-            String imagePath = product.getImageUrl();
-            if (imagePath != null && !imagePath.isEmpty()) {
-                Image image = new Image(getClass().getResourceAsStream(imagePath));
-                imageView.setImage(image);
-            } else {
-                Image placeholderImage = new Image(getClass().getResourceAsStream("/images/placeholder.png"));
-                imageView.setImage(placeholderImage);
+    private void showProductDetails(ProductSummary summary) {
+        // The card only has the listing columns; the details page needs the full product
+        AsyncDatabase.getInstance().load(db -> db.getProduct(summary.productId()), product -> {
+            if (product != null) {
+                showProductDetails(product);
             }
-        } catch (Exception e) {
-            System.out.println("Error loading image: " + e.getMessage());
-            try {
-                Image placeholderImage = new Image(getClass().getResourceAsStream("/images/placeholder.png"));
-                imageView.setImage(placeholderImage);
-            } catch (Exception ex) {
-                // If placeholder also fails, just show empty ImageView
-            }
-        }
-
-        // Product Name
-        Label nameLabel = new Label(product.getName());
-        nameLabel.setFont(Font.font("System Bold", 16));
-        nameLabel.setStyle("-fx-text-fill: #333; -fx-font-weight: bold;");
-        nameLabel.setWrapText(true);
-        nameLabel.setMaxWidth(250);
-        nameLabel.setAlignment(Pos.CENTER);
-
-        // Product Category
-        Label categoryLabel = new Label(product.getCategory());
-        categoryLabel.setFont(Font.font(12));
-        categoryLabel.setStyle("-fx-text-fill: #666;");
-
-        // Product Price
-        Label priceLabel = new Label("৳ " + String.format("%.2f", product.getPrice()));
-        priceLabel.setFont(Font.font("System Bold", 18));
-        priceLabel.setStyle("-fx-text-fill: #2E7D32; -fx-font-weight: bold;");
-
-        // View Details Button
-        Button detailsBtn = new Button("View Details");
-        detailsBtn.setStyle("-fx-background-color: linear-gradient(to bottom, #2E7D32, #4CAF50); " +
-                "-fx-text-fill: white; -fx-font-size: 12px; -fx-font-weight: bold; " +
-                "-fx-background-radius: 5; -fx-cursor: hand; -fx-padding: 8 20 8 20;");
-        detailsBtn.setOnAction(e -> showProductDetails(product));
-
-        card.getChildren().addAll(imageView, nameLabel, categoryLabel, priceLabel, detailsBtn);
-
-        // Make card clickable
-        card.setOnMouseEntered(e -> {
-            card.setStyle("-fx-background-color: #f5f5f5; -fx-background-radius: 10; -fx-padding: 15; -fx-cursor: hand;");
         });
-        card.setOnMouseExited(e -> {
-            card.setStyle("-fx-background-color: white; -fx-background-radius: 10; -fx-padding: 15;");
-        });
-
-        return card;
     }
 
     private void showProductDetails(Product product) {
@@ -239,26 +222,6 @@ public class VendorDashboardController {
         }
     }
 
-    private void filterProducts(String searchText) {
-        if (allApprovedProducts == null) {
-            return;
-        }
-
-        if (searchText == null || searchText.trim().isEmpty()) {
-            displayProducts(allApprovedProducts);
-            return;
-        }
-
-        String lowerSearchText = searchText.toLowerCase().trim();
-        List<Product> filteredProducts = allApprovedProducts.stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowerSearchText) ||
-                            p.getCategory().toLowerCase().contains(lowerSearchText) ||
-                            p.getProductId().toLowerCase().contains(lowerSearchText))
-                .toList();
-
-        displayProducts(filteredProducts);
-    }
-
     @FXML
     private void handleClearSearch() {
         if (searchField != null) {
@@ -268,8 +231,8 @@ public class VendorDashboardController {
 
     @FXML
     private void handleSearch() {
-        if (searchField != null) {
-            filterProducts(searchField.getText());
+        if (search != null) {
+            search.searchNow();
         }
     }
 }
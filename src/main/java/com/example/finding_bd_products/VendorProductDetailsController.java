@@ -4,7 +4,6 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
@@ -37,15 +36,7 @@ public class VendorProductDetailsController {
         if (product == null) return;
 
         // Load image
-        try {
-            String imagePath = product.getImageUrl();
-            if (imagePath != null && !imagePath.isEmpty()) {
-                Image image = new Image(getClass().getResourceAsStream(imagePath));
-                productImageView.setImage(image);
-            }
-        } catch (Exception e) {
-            System.out.println("Error loading image: " + e.getMessage());
-        }
+        ImageCache.getInstance().show(productImageView, product.getImageUrl(), Thumbnails.Size.DETAIL);
 
         // Set text fields
         productIdField.setText(product.getProductId());
@@ -10,7 +10,6 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.util.List;
 
 public class VendorProductsListController {
 
@@ -26,11 +25,8 @@ public class VendorProductsListController {
     @FXML private TableColumn<Product, String> productStatusColumn;
     @FXML private TableColumn<Product, String> productReasonColumn;
 
-    private DatabaseManager dbManager;
-
     @FXML
     public void initialize() {
-        dbManager = DatabaseManager.getInstance();
         setupProductsTable();
         loadProducts();
     }
@@ -120,9 +116,10 @@ public class VendorProductsListController {
     private void loadProducts() {
         String vendorId = VendorSession.getInstance().getCurrentVendorId();
         if (vendorId != null) {
-            List<Product> products = dbManager.getProductsByVendor(vendorId);
-            ObservableList<Product> productsList = FXCollections.observableArrayList(products);
-            productsTable.setItems(productsList);
+            AsyncDatabase.getInstance().load(db -> db.getProductsByVendor(vendorId), products -> {
+                ObservableList<Product> productsList = FXCollections.observableArrayList(products);
+                productsTable.setItems(productsList);
+            });
         }
     }
 
@@ -0,0 +1,267 @@
+package com.example.finding_bd_products;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The single writer: every change to the database runs on the "database-writer" thread.
+ *
+ * Callers hand in a Command and wait. The writer takes whatever has queued up, at most
+ * maxBatch commands, runs each inside its own savepoint on the write connection and
+ * commits them all at once, so a single fsync covers the whole batch. A caller returns
+ * only after that commit, and a failing command is rolled back to its savepoint
+ * without taking the rest of the batch with it.
+ *
+ * Batches form on their own: while one commit is being written, the next callers queue
+ * up behind it, so the busier the application the more each commit carries.
+ *
+ * Whatever a command throws, Errors included, fails that command's caller and nothing
+ * else; the writer thread only stops for close(). Should it die anyway, everything
+ * still queued fails and later writes fail straight away instead of waiting forever.
+ */
+public class WriteQueue {
+
+    // One mutation, run with the write connection of the current batch
+    public interface Command<T> {
+        T apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Write<T> {
+        private final String operation;
+        private final Command<T> command;
+        private final long submittedAt = System.nanoTime();
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+        private T result;
+        private Throwable failure;
+
+        private Write(String operation, Command<T> command) {
+            this.operation = operation;
+            this.command = command;
+        }
+
+        // A command alone in its batch can be undone by rolling back the whole transaction
+        private void run(Connection conn, boolean alone) throws SQLException {
+            Savepoint savepoint = alone ? null : conn.setSavepoint();
+            try {
+                result = command.apply(conn);
+            } catch (Throwable e) {
+                if (savepoint == null) {
+                    conn.rollback();
+                } else {
+                    conn.rollback(savepoint);
+                }
+                afterCommit.clear();
+                failure = e;
+            }
+            if (savepoint != null) {
+                conn.releaseSavepoint(savepoint);
+            }
+        }
+
+        private void complete() {
+            if (failure == null) {
+                for (Runnable action : afterCommit) {
+                    try {
+                        action.run();
+                    } catch (Throwable e) {
+                        e.printStackTrace();
+                    }
+                }
+                future.complete(result);
+            } else {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    // Queued by close(); everything submitted before it is still written
+    private static final Write<Void> STOP = new Write<>(null, conn -> null);
+
+    private final ConnectionPool pool;
+    private final int maxBatch;
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private boolean closed = false;
+    // Only touched by the writer thread
+    private Connection batchConnection;
+    private Write<?> currentWrite;
+
+    private long commands = 0;
+    private long commits = 0;
+    private long failedCommits = 0;
+    private int largestBatch = 0;
+
+    public WriteQueue(ConnectionPool pool, int maxBatch) {
+        this.pool = pool;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.writer = new Thread(this::run, "database-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Runs the command on the writer thread and waits until the batch holding it is committed.
+    // operation names the caller in QueryStats.
+    public <T> T execute(String operation, Command<T> command) throws SQLException {
+        if (Thread.currentThread() == writer) {
+            // A command that calls another write method becomes part of the same batch
+            return command.apply(batchConnection);
+        }
+        try {
+            return submit(operation, command).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    // Queues the command and returns at once; the future completes once its batch is committed.
+    // Commands are written in the order they were submitted, so writes a thread submits one after
+    // the other reach the database in that order even though nobody waits for them.
+    public <T> CompletableFuture<T> submit(String operation, Command<T> command) {
+        Write<T> write = new Write<>(operation, command);
+        synchronized (this) {
+            if (closed) {
+                write.future.completeExceptionally(new SQLException("Write queue is closed"));
+                return write.future;
+            }
+            queue.add(write);
+        }
+        return write.future;
+    }
+
+    // For use inside a command: runs the action once the command's batch is committed, before its
+    // caller returns, and not at all if the command fails. Meant for dropping cached copies of rows
+    // the command changed, which must not happen before the new rows are visible to readers.
+    public void afterCommit(Runnable action) {
+        if (Thread.currentThread() != writer || currentWrite == null) {
+            throw new IllegalStateException("afterCommit can only be called from a write command");
+        }
+        currentWrite.afterCommit.add(action);
+    }
+
+    // Writes everything already queued, then stops the writer thread
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public synchronized String stats() {
+        return String.format("%d commands in %d commits (%.1f per commit, largest %d), %d failed commits",
+                commands, commits, commits == 0 ? 0.0 : (double) commands / commits, largestBatch, failedCommits);
+    }
+
+    private void run() {
+        List<Write<?>> batch = new ArrayList<>(maxBatch);
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                // STOP is always the last thing queued
+                stopping = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    try {
+                        commit(batch);
+                    } catch (Throwable e) {
+                        // commit() fails the writes itself; this catches what goes wrong around that
+                        e.printStackTrace();
+                        for (Write<?> write : batch) {
+                            write.future.completeExceptionally(e);
+                        }
+                    }
+                }
+                batch.clear();
+            }
+        } finally {
+            // Normally reached through close(), with nothing left; otherwise no write may wait for this thread
+            synchronized (this) {
+                closed = true;
+            }
+            batch.addAll(queue);
+            queue.clear();
+            for (Write<?> write : batch) {
+                write.future.completeExceptionally(new SQLException("Write queue has stopped"));
+            }
+        }
+    }
+
+    private void commit(List<Write<?>> batch) {
+        long startedAt = System.nanoTime();
+        boolean committed = false;
+        try (Connection conn = pool.getWriteConnection(() -> "group commit")) {
+            conn.setAutoCommit(false);
+            batchConnection = conn;
+            try {
+                for (Write<?> write : batch) {
+                    currentWrite = write;
+                    write.run(conn, batch.size() == 1);
+                }
+                conn.commit();
+                committed = true;
+            } finally {
+                batchConnection = null;
+                currentWrite = null;
+                if (!committed) {
+                    conn.rollback();
+                }
+                conn.setAutoCommit(true);
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            // Nothing in the batch reached the database
+            for (Write<?> write : batch) {
+                write.failure = e;
+                write.afterCommit.clear();
+            }
+        }
+
+        synchronized (this) {
+            commands += batch.size();
+            commits++;
+            if (!committed) {
+                failedCommits++;
+            }
+            largestBatch = Math.max(largestBatch, batch.size());
+        }
+        long now = System.nanoTime();
+        for (Write<?> write : batch) {
+            if (QueryStats.ENABLED && write.operation != null) {
+                // Latency is until the commit; the queue wait counts as the time to get a connection
+                pool.getStats().recordOperation(write.operation, now - write.submittedAt,
+                        startedAt - write.submittedAt, 0, write.failure != null);
+            }
+            write.complete();
+        }
+    }
+}
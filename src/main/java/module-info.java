@@ -12,6 +12,7 @@ module com.example.finding_bd_products {
     requires com.almasb.fxgl.all;
     requires java.desktop;
     requires java.sql;
+    requires org.xerial.sqlitejdbc;
     requires java.mail;
 
     opens com.example.finding_bd_products to javafx.fxml;
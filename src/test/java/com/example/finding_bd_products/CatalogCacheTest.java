@@ -0,0 +1,174 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class CatalogCacheTest {
+    private final CatalogCache cache = new CatalogCache(10, 100);
+
+    private static ProductSummary summary(String productId, String category) {
+        return new ProductSummary(productId, "Product " + productId, "", 10.0, "pcs", category, null, 0, 0, 0);
+    }
+
+    private static Product product(String productId) {
+        return new Product(productId, "Product " + productId, "", 10.0, "pcs", "Snacks");
+    }
+
+    // A loader that counts how often the cache had to call it
+    private static <T> Supplier<T> counting(AtomicInteger loads, T value) {
+        return () -> {
+            loads.incrementAndGet();
+            return value;
+        };
+    }
+
+    private void loadList(CatalogCache cache, String key, AtomicInteger loads, List<ProductSummary> list, String... scopes) {
+        cache.getList(key, counting(loads, list), scopes);
+    }
+
+    @Test
+    void aProductIsLoadedOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Product p1 = product("P1");
+
+        assertSame(p1, cache.getProduct("P1", counting(loads, p1)));
+        assertSame(p1, cache.getProduct("P1", counting(loads, p1)));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void aLoadThatStartedBeforeAnInvalidationIsNotStored() {
+        AtomicInteger loads = new AtomicInteger();
+        Product stale = product("P1");
+
+        // The product is changed while its old row is being read
+        cache.getProduct("P1", () -> {
+            cache.invalidateProduct("P1");
+            return stale;
+        });
+        cache.getList("all", () -> {
+            cache.invalidateScope(CatalogCache.SCOPE_APPROVED);
+            return List.of(summary("P1", "Snacks"));
+        }, CatalogCache.SCOPE_APPROVED);
+
+        cache.getProduct("P1", counting(loads, product("P1")));
+        loadList(cache, "all", loads, List.of(summary("P1", "Snacks")), CatalogCache.SCOPE_APPROVED);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidatingAProductDropsOnlyTheListsThatHoldIt() {
+        AtomicInteger loads = new AtomicInteger();
+        loadList(cache, "with", loads, List.of(summary("P1", "Snacks"), summary("P2", "Snacks")));
+        loadList(cache, "without", loads, List.of(summary("P3", "Snacks")));
+
+        cache.invalidateProduct("P1");
+
+        loadList(cache, "with", loads, List.of());
+        loadList(cache, "without", loads, List.of());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void invalidatingAListingDropsTheListsOfItsScopes() {
+        AtomicInteger loads = new AtomicInteger();
+        loadList(cache, "all", loads, List.of(summary("P1", "Snacks")), CatalogCache.SCOPE_APPROVED);
+        loadList(cache, "drinks", loads, List.of(summary("P2", "Drinks")), CatalogCache.categoryScope("Drinks"));
+        loadList(cache, "snacks", loads, List.of(summary("P3", "Snacks")), CatalogCache.categoryScope("Snacks"));
+        loadList(cache, "vendor", loads, List.of(summary("P4", "Snacks")), CatalogCache.vendorScope("v1"));
+        loadList(cache, "other vendor", loads, List.of(summary("P5", "Snacks")), CatalogCache.vendorScope("v2"));
+
+        // A new Drinks product from v1, in none of the cached lists yet
+        cache.invalidateListing("P9", "Drinks", "v1");
+
+        loadList(cache, "all", loads, List.of(), CatalogCache.SCOPE_APPROVED);
+        loadList(cache, "drinks", loads, List.of(), CatalogCache.categoryScope("Drinks"));
+        loadList(cache, "snacks", loads, List.of(), CatalogCache.categoryScope("Snacks"));
+        loadList(cache, "vendor", loads, List.of(), CatalogCache.vendorScope("v1"));
+        loadList(cache, "other vendor", loads, List.of(), CatalogCache.vendorScope("v2"));
+        assertEquals(8, loads.get());
+    }
+
+    @Test
+    void invalidatingAScopeKeepsProductsAndOtherScopes() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getProduct("P1", counting(loads, product("P1")));
+        loadList(cache, "mine", loads, List.of(summary("P1", "Snacks")), CatalogCache.favouritesScope("u1"));
+        loadList(cache, "theirs", loads, List.of(summary("P1", "Snacks")), CatalogCache.favouritesScope("u2"));
+
+        cache.invalidateScope(CatalogCache.favouritesScope("u1"));
+
+        cache.getProduct("P1", counting(loads, product("P1")));
+        loadList(cache, "mine", loads, List.of(), CatalogCache.favouritesScope("u1"));
+        loadList(cache, "theirs", loads, List.of(), CatalogCache.favouritesScope("u2"));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void listsAreEvictedByTheProductsTheyHold() {
+        CatalogCache cache = new CatalogCache(10, 3);
+        AtomicInteger loads = new AtomicInteger();
+        loadList(cache, "a", loads, List.of(summary("P1", "Snacks"), summary("P2", "Snacks")));
+        loadList(cache, "b", loads, List.of(summary("P3", "Snacks")));
+        // Used last, so "b" is the least recently used
+        loadList(cache, "a", loads, List.of());
+
+        loadList(cache, "c", loads, List.of(summary("P4", "Snacks")));
+
+        loadList(cache, "a", loads, List.of());
+        assertEquals(3, loads.get());
+        loadList(cache, "b", loads, List.of());
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void productsAreEvictedLeastRecentlyUsedFirst() {
+        CatalogCache cache = new CatalogCache(2, 100);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getProduct("P1", counting(loads, product("P1")));
+        cache.getProduct("P2", counting(loads, product("P2")));
+        cache.getProduct("P1", counting(loads, product("P1")));
+
+        cache.getProduct("P3", counting(loads, product("P3")));
+
+        cache.getProduct("P1", counting(loads, product("P1")));
+        assertEquals(3, loads.get());
+        cache.getProduct("P2", counting(loads, product("P2")));
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void aListLimitOfZeroStoresNoLists() {
+        CatalogCache cache = new CatalogCache(10, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        loadList(cache, "all", loads, List.of(summary("P1", "Snacks")));
+        loadList(cache, "all", loads, List.of(summary("P1", "Snacks")));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void callersGetTheirOwnCopyOfAList() {
+        List<ProductSummary> loaded = new ArrayList<>(List.of(summary("P1", "Snacks"), summary("P2", "Snacks")));
+        List<ProductSummary> first = cache.getList("all", () -> loaded);
+        first.clear();
+
+        List<ProductSummary> second = cache.getList("all", () -> List.of());
+
+        assertNotSame(loaded, second);
+        assertEquals(List.of(summary("P1", "Snacks"), summary("P2", "Snacks")), second);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogImporterTest {
+
+    private static List<Map<String, String>> read(Iterator<Map<String, String>> records) {
+        List<Map<String, String>> all = new ArrayList<>();
+        records.forEachRemaining(all::add);
+        return all;
+    }
+
+    private static List<Map<String, String>> csv(String text) throws IOException {
+        return read(new CatalogImporter.CsvRecords(new BufferedReader(new StringReader(text))));
+    }
+
+    private static List<Map<String, String>> jsonLines(String text) {
+        return read(new CatalogImporter.JsonLinesRecords(new BufferedReader(new StringReader(text))));
+    }
+
+    @Test
+    void csvRecordsAreKeyedByTheNormalisedHeader() throws IOException {
+        List<Map<String, String>> records = csv("\uFEFFSKU,Name,Price,Image URL\nA1,Fresh Milk,90,http://x/milk.png\n");
+
+        assertEquals(1, records.size());
+        assertEquals(Map.of("sku", "A1", "name", "Fresh Milk", "price", "90", "image_url", "http://x/milk.png"),
+                records.get(0));
+    }
+
+    @Test
+    void quotedCsvFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+        List<Map<String, String>> records = csv("name,description\n"
+                + "\"Chanachur, Hot\",\"The \"\"spicy\"\" one\nwith peanuts\"\n"
+                + "Tea,\n");
+
+        assertEquals(2, records.size());
+        assertEquals("Chanachur, Hot", records.get(0).get("name"));
+        assertEquals("The \"spicy\" one\nwith peanuts", records.get(0).get("description"));
+        assertEquals("", records.get(1).get("description"));
+    }
+
+    @Test
+    void blankCsvLinesAreSkippedAndShortRowsLeaveColumnsOut() throws IOException {
+        List<Map<String, String>> records = csv("name,price,unit\n\nRice\n\n");
+
+        assertEquals(1, records.size());
+        assertEquals(Map.of("name", "Rice"), records.get(0));
+    }
+
+    @Test
+    void jsonLinesReadsFlatObjects() {
+        List<Map<String, String>> records = jsonLines(
+                "{\"Name\": \"Ghee \\\"Gold\\\"\", \"price\": 450.5, \"image\": null, \"sku\": \"\\u0041\\n\"}\n"
+                        + "\n"
+                        + "{}\n");
+
+        assertEquals(2, records.size());
+        Map<String, String> first = records.get(0);
+        assertEquals("Ghee \"Gold\"", first.get("name"));
+        assertEquals("450.5", first.get("price"));
+        assertTrue(first.containsKey("image_url"));
+        assertNull(first.get("image_url"));
+        assertEquals("A\n", first.get("sku"));
+        assertTrue(records.get(1).isEmpty());
+    }
+
+    @Test
+    void jsonLinesErrorsNameTheLine() {
+        CatalogImporter.JsonLinesRecords records = new CatalogImporter.JsonLinesRecords(
+                new BufferedReader(new StringReader("{\"name\": \"Tea\"}\n{\"name\": {\"nested\": 1}}\n")));
+        records.next();
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class, records::next);
+        assertTrue(error.getMessage().startsWith("Line 2:"), error.getMessage());
+    }
+}
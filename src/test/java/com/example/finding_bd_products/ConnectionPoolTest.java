@@ -0,0 +1,186 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConnectionPoolTest {
+    private static final String SELECT_IDS = "SELECT id FROM items ORDER BY id";
+
+    @TempDir
+    Path dir;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // One reader, so a lease that is not given back keeps every other thread waiting
+        pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("test.db"), 1);
+        try (Connection conn = pool.getWriteConnection(() -> "setup");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY)");
+            stmt.execute("INSERT INTO items (id) VALUES (1), (2), (3)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    private CompletableFuture<Void> readOnAnotherThread() {
+        return CompletableFuture.runAsync(() -> {
+            try (Connection conn = pool.getReadConnection(() -> "other")) {
+                conn.isValid(1);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private static void assertWaiting(CompletableFuture<Void> future) throws InterruptedException {
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+    }
+
+    @Test
+    void nestedReadsShareTheConnectionUntilTheOutermostCloses() throws Exception {
+        CompletableFuture<Void> other;
+        try (Connection outer = pool.getReadConnection(() -> "outer")) {
+            try (Connection inner = pool.getReadConnection(() -> "inner")) {
+                assertNotSame(outer, inner);
+                assertSame(outer.unwrap(Connection.class), inner.unwrap(Connection.class));
+            }
+            // The inner handle is closed, the outer one still works and holds the only reader
+            assertFalse(outer.isClosed());
+            try (PreparedStatement pstmt = outer.prepareStatement(SELECT_IDS);
+                 ResultSet rs = pstmt.executeQuery()) {
+                assertTrue(rs.next());
+            }
+            other = readOnAnotherThread();
+            assertWaiting(other);
+        }
+        other.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aClosedHandleCannotBeUsed() throws SQLException {
+        Connection conn = pool.getReadConnection(() -> "test");
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, () -> conn.prepareStatement(SELECT_IDS));
+    }
+
+    @Test
+    void aPreparedStatementIsCompiledOncePerConnection() throws SQLException {
+        PreparedStatement first;
+        try (Connection conn = pool.getReadConnection(() -> "first");
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_IDS)) {
+            first = pstmt.unwrap(PreparedStatement.class);
+        }
+        try (Connection conn = pool.getReadConnection(() -> "second");
+             PreparedStatement pstmt = conn.prepareStatement(SELECT_IDS)) {
+            assertSame(first, pstmt.unwrap(PreparedStatement.class));
+            assertFalse(first.isClosed());
+        }
+    }
+
+    @Test
+    void aReturnedStatementCannotBeUsed() throws SQLException {
+        try (Connection conn = pool.getReadConnection(() -> "test")) {
+            PreparedStatement pstmt = conn.prepareStatement(SELECT_IDS);
+            pstmt.close();
+
+            assertTrue(pstmt.isClosed());
+            assertThrows(SQLException.class, pstmt::executeQuery);
+        }
+    }
+
+    @Test
+    void theSameSqlOpenFurtherUpTheStackGetsItsOwnStatement() throws SQLException {
+        List<String> pairs = new ArrayList<>();
+        try (Connection outer = pool.getReadConnection(() -> "outer");
+             PreparedStatement outerStmt = outer.prepareStatement(SELECT_IDS);
+             ResultSet outerRows = outerStmt.executeQuery()) {
+            while (outerRows.next()) {
+                int id = outerRows.getInt(1);
+                try (Connection inner = pool.getReadConnection(() -> "inner");
+                     PreparedStatement innerStmt = inner.prepareStatement(SELECT_IDS)) {
+                    assertNotSame(outerStmt.unwrap(PreparedStatement.class), innerStmt.unwrap(PreparedStatement.class));
+                    try (ResultSet innerRows = innerStmt.executeQuery()) {
+                        innerRows.next();
+                        pairs.add(id + "-" + innerRows.getInt(1));
+                    }
+                }
+            }
+        }
+
+        // The inner query did not reset the outer cursor
+        assertEquals(List.of("1-1", "2-1", "3-1"), pairs);
+    }
+
+    @Test
+    void readersCannotWrite() throws SQLException {
+        try (Connection conn = pool.getReadConnection(() -> "test");
+             Statement stmt = conn.createStatement()) {
+            assertThrows(SQLException.class, () -> stmt.execute("DELETE FROM items"));
+        }
+    }
+
+    @Test
+    void theWriterIsHeldByOneThreadAtATime() throws Exception {
+        CompletableFuture<Void> other;
+        try (Connection conn = pool.getWriteConnection(() -> "first")) {
+            try (Connection nested = pool.getWriteConnection(() -> "nested")) {
+                assertSame(conn.unwrap(Connection.class), nested.unwrap(Connection.class));
+            }
+            other = CompletableFuture.runAsync(() -> {
+                try (Connection second = pool.getWriteConnection(() -> "second")) {
+                    second.isValid(1);
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            assertWaiting(other);
+        }
+        other.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void anUnfinishedTransactionIsRolledBackWhenTheLeaseEnds() throws SQLException {
+        try (Connection conn = pool.getWriteConnection(() -> "abandoned");
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            stmt.execute("DELETE FROM items");
+        }
+
+        try (Connection conn = pool.getWriteConnection(() -> "check")) {
+            assertTrue(conn.getAutoCommit());
+        }
+        try (Connection conn = pool.getReadConnection(() -> "check");
+             PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM items");
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            assertEquals(3, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FuzzyDictionaryTest {
+
+    private static FuzzyDictionary dictionary(String... text) {
+        FuzzyDictionary dictionary = new FuzzyDictionary();
+        for (String words : text) {
+            for (String word : SearchNormalizer.normalize(words).split(" ")) {
+                dictionary.add(word);
+            }
+        }
+        return dictionary;
+    }
+
+    @Test
+    void misspeltBanglaWordsFindTheCatalogWord() {
+        FuzzyDictionary dictionary = dictionary("Ruchi Chanachur", "Pran Mango Juice");
+        String chanachur = SearchNormalizer.normalize("চানাচুর");
+
+        assertTrue(dictionary.contains(chanachur));
+        assertTrue(dictionary.contains(SearchNormalizer.normalize("chanacur")));
+        assertEquals(List.of(chanachur), dictionary.lookup(SearchNormalizer.normalize("chnachur"), 8));
+    }
+
+    @Test
+    void wordsTooFarOffAreNotFound() {
+        FuzzyDictionary dictionary = dictionary("noodles", "needles", "nodules");
+
+        // A swap of two letters is one edit; the other two words are two away
+        assertEquals(List.of(SearchNormalizer.normalize("noodles")),
+                dictionary.lookup(SearchNormalizer.normalize("noodels"), 8));
+    }
+
+    @Test
+    void shortWordsAreNeitherStoredNorCorrected() {
+        FuzzyDictionary dictionary = dictionary("tea oil");
+
+        assertEquals(0, dictionary.size());
+        assertEquals(List.of(), dictionary.lookup("tee", 8));
+    }
+
+    @Test
+    void longerWordsAllowTwoEdits() {
+        FuzzyDictionary dictionary = dictionary("toothpaste");
+
+        assertEquals(List.of(SearchNormalizer.normalize("toothpaste")),
+                dictionary.lookup(SearchNormalizer.normalize("toothpeast"), 8));
+        assertEquals(List.of(), dictionary.lookup(SearchNormalizer.normalize("tthpst"), 8));
+    }
+
+    @Test
+    void distanceCountsSwapsAsOneEdit() {
+        assertEquals(1, FuzzyDictionary.distance("biscuit", "bsicuit", 2));
+        assertEquals(2, FuzzyDictionary.distance("biscuit", "biskit", 2));
+        assertEquals(3, FuzzyDictionary.distance("biscuit", "soap", 2));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.finding_bd_products;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ListDiffTest {
+    private int removed;
+    private int added;
+
+    // A list that counts the items its changes remove and add
+    private ObservableList<String> watched(String... items) {
+        ObservableList<String> list = FXCollections.observableArrayList(items);
+        list.addListener((ListChangeListener<String>) change -> {
+            while (change.next()) {
+                removed += change.getRemovedSize();
+                added += change.getAddedSize();
+            }
+        });
+        return list;
+    }
+
+    @Test
+    void narrowingOnlyRemoves() {
+        ObservableList<String> list = watched("a", "b", "c", "d");
+
+        ListDiff.apply(list, List.of("a", "c"));
+
+        assertEquals(List.of("a", "c"), list);
+        assertEquals(2, removed);
+        assertEquals(0, added);
+    }
+
+    @Test
+    void wideningOnlyInserts() {
+        ObservableList<String> list = watched("b", "d");
+
+        ListDiff.apply(list, List.of("a", "b", "c", "d", "e"));
+
+        assertEquals(List.of("a", "b", "c", "d", "e"), list);
+        assertEquals(0, removed);
+        assertEquals(3, added);
+    }
+
+    @Test
+    void reorderedItemsFallBackToReplacingTheList() {
+        ObservableList<String> list = watched("a", "b", "c");
+
+        ListDiff.apply(list, List.of("c", "b", "a"));
+
+        assertEquals(List.of("c", "b", "a"), list);
+        assertTrue(added >= 3);
+    }
+
+    @Test
+    void reorderAfterRemovalsStillEndsEqual() {
+        ObservableList<String> list = watched("a", "b", "c", "d", "e");
+
+        List<String> next = new ArrayList<>(List.of("e", "x", "b", "a"));
+        ListDiff.apply(list, next);
+
+        assertEquals(next, list);
+    }
+
+    @Test
+    void anUnchangedListIsLeftAlone() {
+        ObservableList<String> list = watched("a", "b");
+
+        ListDiff.apply(list, List.of("a", "b"));
+
+        assertEquals(List.of("a", "b"), list);
+        assertEquals(0, removed);
+        assertEquals(0, added);
+        assertFalse(list.isEmpty());
+    }
+}
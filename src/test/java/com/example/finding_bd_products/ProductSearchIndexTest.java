@@ -0,0 +1,185 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+    // The catalog the index loads from, in insertion (and so document) order
+    private final Map<String, ProductSearchIndex.Document> catalog = new LinkedHashMap<>();
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        catalog.clear();
+        index = new ProductSearchIndex((ids, sink) -> {
+            for (ProductSearchIndex.Document document : catalog.values()) {
+                if (ids == null || ids.contains(document.productId())) {
+                    sink.accept(document);
+                }
+            }
+            return true;
+        });
+    }
+
+    private void put(String productId, String name, String description, String category) {
+        catalog.put(productId, new ProductSearchIndex.Document(productId, name, description, category, "Pran", "V1"));
+    }
+
+    private List<String> ids(String query) {
+        return ids(query, ProductSearchIndex.Scope.ALL, 60, 0);
+    }
+
+    private List<String> ids(String query, ProductSearchIndex.Scope scope, int limit, int offset) {
+        List<String> ids = new ArrayList<>();
+        for (ProductSearchIndex.Match match : index.search(query, scope, limit, offset)) {
+            ids.add(match.productId());
+        }
+        return ids;
+    }
+
+    private int rankOf(String query, String productId) {
+        for (ProductSearchIndex.Match match : index.search(query, ProductSearchIndex.Scope.ALL, 60, 0)) {
+            if (match.productId().equals(productId)) {
+                return match.rank();
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void wordStartsOfTheNameComeBeforeTrigramsInsideIt() {
+        put("P1", "Buttermilk Drink", "", "Dairy");
+        put("P2", "Fresh Milk", "", "Dairy");
+
+        assertEquals(List.of("P2", "P1"), ids("milk"));
+        assertEquals(ProductSearchIndex.RANK_NAME_WORDS, rankOf("milk", "P2"));
+        assertEquals(ProductSearchIndex.RANK_NAME, rankOf("milk", "P1"));
+    }
+
+    @Test
+    void trigramsFindAWordFromInside() {
+        put("P1", "Fresh Milk", "", "Dairy");
+        put("P2", "Mango Juice", "", "Drinks");
+
+        assertEquals(List.of("P1"), ids("ilk"));
+        assertEquals(ProductSearchIndex.RANK_NAME, rankOf("ilk", "P1"));
+    }
+
+    @Test
+    void shortWordsOnlyMatchTheStartOfAWord() {
+        put("P1", "Fresh Milk", "", "Dairy");
+        put("P2", "Lemon Drink", "", "Drinks");
+
+        assertEquals(List.of("P1"), ids("mi"));
+        assertEquals(List.of(), ids("il"));
+    }
+
+    @Test
+    void theDescriptionOnlyMatchesAtWordStarts() {
+        put("P1", "Family Pack", "Crunchy chanachur for tea time", "Snacks");
+
+        assertEquals(List.of("P1"), ids("crunch"));
+        assertEquals(ProductSearchIndex.RANK_ANYWHERE, rankOf("crunch", "P1"));
+        assertEquals(List.of(), ids("unchy"));
+    }
+
+    @Test
+    void withinATierBetterPlacedWordsComeFirst() {
+        // Added worst first, so document order alone would get it backwards
+        put("P1", "Fresh Full Cream Milk", "", "Dairy");
+        put("P2", "Milk Chocolate Bar", "", "Snacks");
+        put("P3", "Milk", "", "Dairy");
+
+        assertEquals(List.of("P3", "P2", "P1"), ids("milk"));
+    }
+
+    @Test
+    void aWordInTheNameBeatsTheSameWordInTheCategory() {
+        put("P1", "Toned Drink", "", "Milk");
+        put("P2", "Milk Drink", "", "Beverages");
+
+        assertEquals(List.of("P2", "P1"), ids("drink milk"));
+    }
+
+    @Test
+    void misspeltWordsAreFoundInTheFuzzyTier() {
+        put("P1", "Ruchi Chanachur", "", "Snacks");
+        put("P2", "Fresh Milk", "", "Dairy");
+
+        assertEquals(List.of("P1"), ids("chnachur"));
+        assertEquals(ProductSearchIndex.RANK_FUZZY, rankOf("chnachur", "P1"));
+    }
+
+    @Test
+    void changedProductsAreReindexedBeforeTheNextSearch() {
+        put("P1", "Fresh Milk", "", "Dairy");
+        put("P2", "Mango Juice", "", "Drinks");
+        assertEquals(List.of("P1"), ids("milk"));
+
+        put("P1", "Lemon Drink", "", "Drinks");
+        catalog.remove("P2");
+        index.markChanged("P1", "P2");
+
+        assertEquals(List.of(), ids("milk"));
+        assertEquals(List.of("P1"), ids("lemon"));
+        assertEquals(List.of(), ids("mango"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void anEditedProductKeepsItsPlace() {
+        put("P1", "Milk Pack", "", "Dairy");
+        put("P2", "Fresh Milk Pack", "", "Dairy");
+        assertEquals(List.of("P1", "P2"), ids("milk"));
+
+        // Re-indexed with a new document number, after P2's
+        put("P1", "Milk Pack", "Now in a bigger pack", "Dairy");
+        index.markChanged("P1");
+
+        assertEquals(List.of("P1", "P2"), ids("milk"));
+    }
+
+    @Test
+    void compactionKeepsEveryLiveProduct() {
+        for (int i = 0; i < 1500; i++) {
+            put("P" + i, "Product " + i + (i % 2 == 0 ? " Milk" : " Juice"), "", "Dairy");
+        }
+        assertEquals(750, ids("milk", ProductSearchIndex.Scope.ALL, 2000, 0).size());
+
+        // Re-indexing every product leaves half the documents removed, which compacts the index
+        String[] all = catalog.keySet().toArray(new String[0]);
+        for (int i = 0; i < 1500; i += 3) {
+            catalog.remove("P" + i);
+        }
+        index.markChanged(all);
+
+        List<String> milk = ids("milk", ProductSearchIndex.Scope.ALL, 2000, 0);
+        assertEquals(1000, index.size());
+        assertEquals(500, milk.size());
+        assertTrue(milk.stream().allMatch(id -> catalog.containsKey(id) && Integer.parseInt(id.substring(1)) % 2 == 0));
+        assertEquals(List.of("P1499"), ids("1499"));
+    }
+
+    @Test
+    void pagesFollowOnWithoutOverlapping() {
+        for (int i = 0; i < 50; i++) {
+            put("P" + i, "Milk " + i, "", i % 2 == 0 ? "Dairy" : "Drinks");
+        }
+        List<String> all = ids("milk", ProductSearchIndex.Scope.ALL, 50, 0);
+        List<String> paged = new ArrayList<>(ids("milk", ProductSearchIndex.Scope.ALL, 20, 0));
+        paged.addAll(ids("milk", ProductSearchIndex.Scope.ALL, 20, 20));
+        paged.addAll(ids("milk", ProductSearchIndex.Scope.ALL, 20, 40));
+
+        assertEquals(50, all.size());
+        assertEquals(all, paged);
+        assertEquals(25, ids("milk", ProductSearchIndex.Scope.category("Dairy"), 60, 0).size());
+    }
+}
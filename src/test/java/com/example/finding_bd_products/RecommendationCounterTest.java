@@ -0,0 +1,195 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecommendationCounterTest {
+    // Stands in for products.recommendation_count
+    private final Map<String, Long> table = new HashMap<>();
+    private RecommendationCounter counter;
+
+    private RecommendationCounter counter(RecommendationCounter.Writer writer) {
+        // Flushed by hand: the timer and the threshold are out of reach
+        counter = new RecommendationCounter(writer, TimeUnit.HOURS.toMillis(1), Integer.MAX_VALUE);
+        return counter;
+    }
+
+    private boolean writeToTable(Map<String, Long> deltas, Map<String, Long> committedCounts) {
+        synchronized (table) {
+            deltas.forEach((productId, delta) -> {
+                Long stored = table.get(productId);
+                if (stored != null) {
+                    long count = Math.max(0, stored + delta);
+                    committedCounts.put(productId, count);
+                    table.put(productId, count);
+                }
+            });
+        }
+        return true;
+    }
+
+    private int stored(String productId) {
+        synchronized (table) {
+            return table.get(productId).intValue();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (counter != null) {
+            counter.close();
+        }
+    }
+
+    @Test
+    void unwrittenClicksAreAddedToTheStoredCount() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+
+        counter.add("P1", 1);
+        counter.add("P1", 1);
+        counter.add("P1", -1);
+
+        assertEquals(11, counter.merge("P1", 10));
+        assertEquals(10, stored("P1"));
+        assertEquals(7, counter.merge("P2", 7));
+    }
+
+    @Test
+    void aFlushWritesTheDeltasAndReadsStopAddingThem() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", 3);
+
+        counter.flush();
+
+        assertEquals(13, stored("P1"));
+        assertEquals(13, counter.merge("P1", 13));
+    }
+
+    @Test
+    void aCountReadBeforeTheFlushIsNotLeftBehind() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", 3);
+        int cached = stored("P1");
+
+        counter.flush();
+        counter.add("P1", 1);
+
+        // A cache kept the row from before the flush
+        assertEquals(14, counter.merge("P1", cached));
+    }
+
+    @Test
+    void readsDuringAFlushSeeItsDeltaExactlyOnce() throws Exception {
+        table.put("P1", 10L);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecommendationCounter counter = counter((deltas, committedCounts) -> {
+            boolean written = writeToTable(deltas, committedCounts);
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return written;
+        });
+        counter.add("P1", 2);
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(counter::flush);
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        // Rows read before and after the write went in
+        assertEquals(12, counter.merge("P1", 10));
+        assertEquals(12, counter.merge("P1", 12));
+
+        release.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertEquals(12, counter.merge("P1", 10));
+        assertEquals(12, counter.merge("P1", 12));
+    }
+
+    @Test
+    void aFailedFlushKeepsTheDeltasForTheNextOne() {
+        table.put("P1", 10L);
+        boolean[] fail = {true};
+        RecommendationCounter counter = counter((deltas, committedCounts) -> !fail[0] && writeToTable(deltas, committedCounts));
+        counter.add("P1", 2);
+
+        counter.flush();
+        assertEquals(10, stored("P1"));
+        assertEquals(12, counter.merge("P1", 10));
+
+        fail[0] = false;
+        counter.flush();
+        assertEquals(12, stored("P1"));
+        assertEquals(12, counter.merge("P1", 12));
+    }
+
+    @Test
+    void anAbsoluteCountReplacesTheBufferedClicks() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", 5);
+
+        assertTrue(counter.set("P1", 20, (productId, count) -> {
+            synchronized (table) {
+                table.put(productId, (long) count);
+            }
+            return true;
+        }));
+        counter.flush();
+
+        assertEquals(20, stored("P1"));
+        assertEquals(20, counter.merge("P1", 20));
+        assertEquals(20, counter.merge("P1", 10));
+
+        counter.add("P1", 1);
+        assertEquals(21, counter.merge("P1", 20));
+    }
+
+    @Test
+    void aFailedSetKeepsTheClicks() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", 5);
+
+        assertFalse(counter.set("P1", 20, (productId, count) -> false));
+
+        assertEquals(15, counter.merge("P1", 10));
+    }
+
+    @Test
+    void aForgottenProductStartsFromItsStoredCount() {
+        table.put("P1", 10L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", 5);
+        counter.flush();
+
+        counter.forget("P1");
+
+        assertEquals(0, counter.merge("P1", 0));
+    }
+
+    @Test
+    void countsNeverGoBelowZero() {
+        table.put("P1", 1L);
+        RecommendationCounter counter = counter(this::writeToTable);
+        counter.add("P1", -3);
+
+        assertEquals(0, counter.merge("P1", 1));
+        counter.flush();
+        assertEquals(0, stored("P1"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchNormalizerTest {
+
+    @Test
+    void banglaIsTransliterated() {
+        assertEquals("chanachur", SearchNormalizer.simplify("চানাচুর"));
+        assertEquals("pran", SearchNormalizer.simplify("প্রাণ"));
+    }
+
+    @Test
+    void banglaAndLatinSpellingsNormalizeAlike() {
+        String expected = SearchNormalizer.normalize("Chanachur");
+        assertEquals(expected, SearchNormalizer.normalize("চানাচুর"));
+        assertEquals(expected, SearchNormalizer.normalize("chanacur"));
+        assertEquals(expected, SearchNormalizer.normalize("CHANACHUR"));
+    }
+
+    @Test
+    void simplifyDropsAccentsAndPunctuation() {
+        assertEquals("cafe creme", SearchNormalizer.simplify("Café  Crème!"));
+        assertEquals("spicy chips 500g", SearchNormalizer.simplify("Spicy-Chips (500g)"));
+        assertEquals("", SearchNormalizer.simplify(null));
+    }
+
+    @Test
+    void foldingMergesInterchangeableSpellings() {
+        assertEquals(SearchNormalizer.normalize("sheera"), SearchNormalizer.normalize("seera"));
+        assertEquals(SearchNormalizer.normalize("phuchka"), SearchNormalizer.normalize("fuchka"));
+        assertEquals(SearchNormalizer.normalize("biskoot"), SearchNormalizer.normalize("biskut"));
+        assertEquals(SearchNormalizer.normalize("zeera"), SearchNormalizer.normalize("jira"));
+        assertEquals(SearchNormalizer.normalize("jhal muri"), SearchNormalizer.normalize("jal murri"));
+    }
+}
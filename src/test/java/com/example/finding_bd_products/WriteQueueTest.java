@@ -0,0 +1,213 @@
+package com.example.finding_bd_products;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteQueueTest {
+    @TempDir
+    Path dir;
+    private ConnectionPool pool;
+    private WriteQueue queue;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + dir.resolve("test.db"), 2);
+        queue = new WriteQueue(pool, 16);
+        queue.execute("setup", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE items (id INTEGER PRIMARY KEY)");
+            }
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+        pool.close();
+    }
+
+    private static Void insert(Connection conn, int id) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO items (id) VALUES (?)")) {
+            pstmt.setInt(1, id);
+            pstmt.executeUpdate();
+        }
+        return null;
+    }
+
+    private List<Integer> stored() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = pool.getReadConnection(() -> "test");
+             PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM items ORDER BY id");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    // Holds the writer thread until the returned latch is released, so the next submits queue up as one batch
+    private CountDownLatch blockWriter() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        queue.submit("block", conn -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    void anErrorFailsItsCallerAndTheWriterKeepsGoing() throws Exception {
+        Error error = new Error("broken command");
+
+        Error thrown = assertThrows(Error.class, () -> queue.execute("error", conn -> {
+            insert(conn, 1);
+            throw error;
+        }));
+        assertSame(error, thrown);
+
+        queue.execute("next", conn -> insert(conn, 2));
+        assertEquals(List.of(2), stored());
+    }
+
+    @Test
+    void anErrorInABatchOnlyFailsItsOwnCommand() throws Exception {
+        CountDownLatch release = blockWriter();
+        CompletableFuture<Void> first = queue.submit("first", conn -> insert(conn, 1));
+        CompletableFuture<Void> failing = queue.submit("failing", conn -> {
+            insert(conn, 2);
+            throw new StackOverflowError();
+        });
+        CompletableFuture<Void> last = queue.submit("last", conn -> insert(conn, 3));
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        last.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StackOverflowError.class, e.getCause());
+        assertEquals(List.of(1, 3), stored());
+    }
+
+    @Test
+    void aFailingCommandIsRolledBackToItsSavepoint() throws Exception {
+        CountDownLatch release = blockWriter();
+        CompletableFuture<Void> first = queue.submit("first", conn -> insert(conn, 1));
+        // The second insert hits the primary key after its first one went in
+        CompletableFuture<Void> failing = queue.submit("failing", conn -> {
+            insert(conn, 2);
+            return insert(conn, 1);
+        });
+        CompletableFuture<Void> last = queue.submit("last", conn -> insert(conn, 3));
+        release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        last.get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(SQLException.class, e.getCause());
+        assertEquals(List.of(1, 3), stored());
+    }
+
+    @Test
+    void afterCommitRunsOnceTheRowsAreVisible() throws Exception {
+        List<List<Integer>> seen = new ArrayList<>();
+
+        queue.execute("insert", conn -> {
+            insert(conn, 1);
+            queue.afterCommit(() -> {
+                try {
+                    seen.add(stored());
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            return null;
+        });
+
+        assertEquals(List.of(List.of(1)), seen);
+    }
+
+    @Test
+    void afterCommitIsSkippedWhenTheCommandFails() {
+        boolean[] ran = {false};
+
+        assertThrows(SQLException.class, () -> queue.execute("failing", conn -> {
+            queue.afterCommit(() -> ran[0] = true);
+            throw new SQLException("failed");
+        }));
+
+        assertFalse(ran[0]);
+    }
+
+    @Test
+    void afterCommitIsOnlyForWriteCommands() {
+        assertThrows(IllegalStateException.class, () -> queue.afterCommit(() -> { }));
+    }
+
+    @Test
+    void aNestedExecuteJoinsTheOuterCommand() throws Exception {
+        Connection[] inner = new Connection[1];
+
+        queue.execute("outer", conn -> {
+            insert(conn, 1);
+            queue.execute("inner", nested -> {
+                inner[0] = nested;
+                return insert(nested, 2);
+            });
+            assertSame(conn, inner[0]);
+            return null;
+        });
+
+        assertEquals(List.of(1, 2), stored());
+    }
+
+    @Test
+    void closeWritesWhatIsQueuedAndRefusesMore() throws Exception {
+        CountDownLatch release = blockWriter();
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            int value = id;
+            queued.add(queue.submit("queued", conn -> insert(conn, value)));
+        }
+
+        CompletableFuture<Void> closing = CompletableFuture.runAsync(queue::close);
+        release.countDown();
+        closing.get(5, TimeUnit.SECONDS);
+
+        for (CompletableFuture<Void> future : queued) {
+            assertTrue(future.isDone());
+            assertFalse(future.isCompletedExceptionally());
+        }
+        assertEquals(List.of(1, 2, 3), stored());
+        assertThrows(SQLException.class, () -> queue.execute("late", conn -> insert(conn, 4)));
+    }
+}